@@ -0,0 +1,375 @@
+package Cubo.implementacionCubo;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Esta clase se encarga de acumular los valores de un hecho para un bloque de filas cuyo grupo ya es conocido,
+ * recorriendo el bloque columna por columna en lugar de fila por fila.
+ * </p>
+ *
+ * <p>
+ * Cuando hay pocos grupos, filas consecutivas suelen caer en el mismo grupo y cada actualización tiene que
+ * esperar a que termine la anterior. Para evitarlo cada grupo tiene {@value #CARRILES} acumuladores intercalados
+ * y cada fila actualiza el del carril que le corresponde según su posición, de forma que el procesador puede
+ * realizar varias actualizaciones a la vez. Los bucles tienen una versión para cada {@link OperacionAgregacion},
+ * desenrollada de a {@value #CARRILES} filas, y una versión enmascarada que saltea las filas nulas de a 64
+ * usando el mapa de bits de nulos. Al terminar, los carriles de cada grupo se combinan siempre en el mismo orden.
+ * </p>
+ *
+ * <p>
+ * Los hechos decimales de punto fijo se acumulan de la misma forma en carriles de tipo long, con las operaciones
+ * SUM, MAX y MIN, por lo que sus sumas son exactas y no dependen del orden en que se combinan los carriles.
+ * </p>
+ *
+ * <p>
+ * Si se indica la propiedad de sistema {@code cubo.agregacion.escalar=true} los valores se acumulan de a uno
+ * mediante {@link OperacionAgregacion#acumular(double, double)}, lo que permite comparar ambas versiones.
+ * </p>
+ */
+class AgregadorBloques {
+
+    // Cantidad de acumuladores intercalados que tiene cada grupo
+    private static final int CARRILES = 4;
+
+    // Indica si los valores se acumulan de a uno, sin usar carriles
+    private static final boolean ESCALAR = Boolean.getBoolean("cubo.agregacion.escalar");
+
+    // Atributos de la clase AgregadorBloques
+    private final OperacionAgregacion agregacion;
+    private double[] carriles;
+    private long[] carrilesUnidades;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase AgregadorBloques.</b>
+     * </p>
+     *
+     * @param agregacion La operación de agregación que se aplica a los valores.
+     */
+    public AgregadorBloques(OperacionAgregacion agregacion) {
+        this.agregacion = agregacion;
+        this.carriles = new double[0];
+        this.carrilesUnidades = new long[0];
+    }
+
+    /**
+     * Acumula los valores no nulos de un bloque de filas en los acumuladores de sus grupos.
+     *
+     * @param acumuladores Los acumuladores de un hecho, indexados por número de grupo.
+     * @param cantidadGrupos La cantidad de grupos presentes en los acumuladores.
+     * @param grupos El número de grupo de cada fila del bloque.
+     * @param valores El valor del hecho en cada fila del bloque.
+     * @param nulos El mapa de bits con las filas nulas del bloque, una palabra cada 64 filas, o null si no hay filas nulas.
+     * @param cantidad La cantidad de filas del bloque.
+     */
+    public void acumular(double[] acumuladores, int cantidadGrupos, int[] grupos, double[] valores, long[] nulos, int cantidad) {
+
+        // Los carriles solo convienen cuando hay varias filas por grupo, ya que al final se recorren todos
+        if (ESCALAR || cantidadGrupos * CARRILES > cantidad) {
+            this.acumularEscalar(acumuladores, grupos, valores, nulos, cantidad);
+            return;
+        }
+
+        // Inicializo los carriles de cada grupo
+        int cantidadCarriles = cantidadGrupos * CARRILES;
+        if (this.carriles.length < cantidadCarriles) {
+            this.carriles = new double[cantidadCarriles];
+        }
+        Arrays.fill(this.carriles, 0, cantidadCarriles, this.agregacion.getValorInicial());
+
+        // Recorro el bloque, salteando las filas nulas de a palabras de 64 filas
+        if (nulos == null) {
+            this.acumularCarriles(grupos, valores, 0, cantidad);
+        } else {
+            for (int inicio = 0; inicio < cantidad; inicio += Long.SIZE) {
+                int fin = Math.min(inicio + Long.SIZE, cantidad);
+                long palabra = nulos[inicio >>> 6];
+                if (palabra == 0) {
+                    this.acumularCarriles(grupos, valores, inicio, fin);
+                } else if (palabra != -1L) {
+                    this.acumularCarrilesEnmascarado(grupos, valores, palabra, inicio, fin);
+                }
+            }
+        }
+
+        // Combino los carriles de cada grupo en su acumulador
+        for (int grupo = 0; grupo < cantidadGrupos; grupo++) {
+            double acumulado = acumuladores[grupo];
+            int base = grupo * CARRILES;
+            for (int carril = 0; carril < CARRILES; carril++) {
+                acumulado = this.agregacion.combinar(acumulado, this.carriles[base + carril]);
+            }
+            acumuladores[grupo] = acumulado;
+        }
+    }
+
+
+    /**
+     * Acumula los valores no nulos de un bloque de filas de un hecho decimal de punto fijo en los acumuladores
+     * enteros de sus grupos, expresados en unidades de la última posición decimal. Solo admite las operaciones
+     * cuyo método {@link OperacionAgregacion#admiteUnidades()} devuelve true.
+     *
+     * @param acumuladores Los acumuladores enteros de un hecho, indexados por número de grupo.
+     * @param cantidadGrupos La cantidad de grupos presentes en los acumuladores.
+     * @param grupos El número de grupo de cada fila del bloque.
+     * @param valores Las unidades del hecho en cada fila del bloque.
+     * @param nulos El mapa de bits con las filas nulas del bloque, una palabra cada 64 filas, o null si no hay filas nulas.
+     * @param cantidad La cantidad de filas del bloque.
+     */
+    public void acumular(long[] acumuladores, int cantidadGrupos, int[] grupos, long[] valores, long[] nulos, int cantidad) {
+
+        // Los carriles solo convienen cuando hay varias filas por grupo, ya que al final se recorren todos
+        if (ESCALAR || cantidadGrupos * CARRILES > cantidad) {
+            for (int i = 0; i < cantidad; i++) {
+                if (nulos == null || (nulos[i >>> 6] & (1L << i)) == 0) {
+                    int grupo = grupos[i];
+                    acumuladores[grupo] = this.agregacion.acumular(acumuladores[grupo], valores[i]);
+                }
+            }
+            return;
+        }
+
+        // Inicializo los carriles de cada grupo
+        int cantidadCarriles = cantidadGrupos * CARRILES;
+        if (this.carrilesUnidades.length < cantidadCarriles) {
+            this.carrilesUnidades = new long[cantidadCarriles];
+        }
+        Arrays.fill(this.carrilesUnidades, 0, cantidadCarriles, this.agregacion.getValorInicialUnidades());
+
+        // Recorro el bloque, salteando las filas nulas de a palabras de 64 filas
+        if (nulos == null) {
+            this.acumularCarriles(grupos, valores, 0, cantidad);
+        } else {
+            for (int inicio = 0; inicio < cantidad; inicio += Long.SIZE) {
+                int fin = Math.min(inicio + Long.SIZE, cantidad);
+                long palabra = nulos[inicio >>> 6];
+                if (palabra == 0) {
+                    this.acumularCarriles(grupos, valores, inicio, fin);
+                } else if (palabra != -1L) {
+                    for (int i = inicio; i < fin; i++) {
+                        if ((palabra & (1L << i)) == 0) {
+                            int posicion = grupos[i] * CARRILES + (i & (CARRILES - 1));
+                            this.carrilesUnidades[posicion] = this.agregacion.acumular(this.carrilesUnidades[posicion], valores[i]);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Combino los carriles de cada grupo en su acumulador
+        for (int grupo = 0; grupo < cantidadGrupos; grupo++) {
+            long acumulado = acumuladores[grupo];
+            int base = grupo * CARRILES;
+            for (int carril = 0; carril < CARRILES; carril++) {
+                acumulado = this.agregacion.combinar(acumulado, this.carrilesUnidades[base + carril]);
+            }
+            acumuladores[grupo] = acumulado;
+        }
+    }
+
+
+    // Métodos de ayuda para método acumular()
+
+    /**
+     * Se encarga de acumular los valores de a uno directamente en los acumuladores de sus grupos.
+     */
+    private void acumularEscalar(double[] acumuladores, int[] grupos, double[] valores, long[] nulos, int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            if (nulos == null || (nulos[i >>> 6] & (1L << i)) == 0) {
+                int grupo = grupos[i];
+                acumuladores[grupo] = this.agregacion.acumular(acumuladores[grupo], valores[i]);
+            }
+        }
+    }
+
+    /**
+     * Se encarga de acumular en los carriles un rango de filas sin nulos que empieza en un múltiplo de {@value #CARRILES}.
+     */
+    private void acumularCarriles(int[] grupos, double[] valores, int desde, int hasta) {
+        switch (this.agregacion) {
+            case SUM:
+                sumar(this.carriles, grupos, valores, desde, hasta);
+                break;
+            case MAX:
+                maximo(this.carriles, grupos, valores, desde, hasta);
+                break;
+            case MIN:
+                minimo(this.carriles, grupos, valores, desde, hasta);
+                break;
+            case COUNT:
+                contar(this.carriles, grupos, desde, hasta);
+                break;
+            default:
+                this.acumularCarrilesEnmascarado(grupos, valores, 0L, desde, hasta);
+                break;
+        }
+    }
+
+    /**
+     * Se encarga de acumular en los carriles enteros un rango de filas decimales sin nulos que empieza en un múltiplo de {@value #CARRILES}.
+     */
+    private void acumularCarriles(int[] grupos, long[] valores, int desde, int hasta) {
+        switch (this.agregacion) {
+            case SUM:
+                sumar(this.carrilesUnidades, grupos, valores, desde, hasta);
+                break;
+            case MAX:
+                maximo(this.carrilesUnidades, grupos, valores, desde, hasta);
+                break;
+            default:
+                minimo(this.carrilesUnidades, grupos, valores, desde, hasta);
+                break;
+        }
+    }
+
+    /**
+     * Se encarga de acumular en los carriles un rango de hasta 64 filas, salteando las marcadas en la palabra de nulos.
+     */
+    private void acumularCarrilesEnmascarado(int[] grupos, double[] valores, long palabra, int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            if ((palabra & (1L << i)) == 0) {
+                int posicion = grupos[i] * CARRILES + (i & (CARRILES - 1));
+                this.carriles[posicion] = this.agregacion.acumular(this.carriles[posicion], valores[i]);
+            }
+        }
+    }
+
+    /**
+     * Suma los valores de un rango de filas en los carriles de sus grupos.
+     */
+    private static void sumar(double[] carriles, int[] grupos, double[] valores, int desde, int hasta) {
+        int i = desde;
+        for (; i + CARRILES <= hasta; i += CARRILES) {
+            carriles[grupos[i] * CARRILES] += valores[i];
+            carriles[grupos[i + 1] * CARRILES + 1] += valores[i + 1];
+            carriles[grupos[i + 2] * CARRILES + 2] += valores[i + 2];
+            carriles[grupos[i + 3] * CARRILES + 3] += valores[i + 3];
+        }
+        for (; i < hasta; i++) {
+            carriles[grupos[i] * CARRILES + (i & (CARRILES - 1))] += valores[i];
+        }
+    }
+
+    /**
+     * Guarda el máximo de los valores de un rango de filas en los carriles de sus grupos.
+     */
+    private static void maximo(double[] carriles, int[] grupos, double[] valores, int desde, int hasta) {
+        int i = desde;
+        for (; i + CARRILES <= hasta; i += CARRILES) {
+            int p0 = grupos[i] * CARRILES;
+            int p1 = grupos[i + 1] * CARRILES + 1;
+            int p2 = grupos[i + 2] * CARRILES + 2;
+            int p3 = grupos[i + 3] * CARRILES + 3;
+            carriles[p0] = valores[i] > carriles[p0] ? valores[i] : carriles[p0];
+            carriles[p1] = valores[i + 1] > carriles[p1] ? valores[i + 1] : carriles[p1];
+            carriles[p2] = valores[i + 2] > carriles[p2] ? valores[i + 2] : carriles[p2];
+            carriles[p3] = valores[i + 3] > carriles[p3] ? valores[i + 3] : carriles[p3];
+        }
+        for (; i < hasta; i++) {
+            int posicion = grupos[i] * CARRILES + (i & (CARRILES - 1));
+            carriles[posicion] = valores[i] > carriles[posicion] ? valores[i] : carriles[posicion];
+        }
+    }
+
+    /**
+     * Guarda el mínimo de los valores de un rango de filas en los carriles de sus grupos.
+     */
+    private static void minimo(double[] carriles, int[] grupos, double[] valores, int desde, int hasta) {
+        int i = desde;
+        for (; i + CARRILES <= hasta; i += CARRILES) {
+            int p0 = grupos[i] * CARRILES;
+            int p1 = grupos[i + 1] * CARRILES + 1;
+            int p2 = grupos[i + 2] * CARRILES + 2;
+            int p3 = grupos[i + 3] * CARRILES + 3;
+            carriles[p0] = valores[i] < carriles[p0] ? valores[i] : carriles[p0];
+            carriles[p1] = valores[i + 1] < carriles[p1] ? valores[i + 1] : carriles[p1];
+            carriles[p2] = valores[i + 2] < carriles[p2] ? valores[i + 2] : carriles[p2];
+            carriles[p3] = valores[i + 3] < carriles[p3] ? valores[i + 3] : carriles[p3];
+        }
+        for (; i < hasta; i++) {
+            int posicion = grupos[i] * CARRILES + (i & (CARRILES - 1));
+            carriles[posicion] = valores[i] < carriles[posicion] ? valores[i] : carriles[posicion];
+        }
+    }
+
+    /**
+     * Suma las unidades de un rango de filas en los carriles enteros de sus grupos, verificando que ninguna suma desborde.
+     */
+    private static void sumar(long[] carriles, int[] grupos, long[] valores, int desde, int hasta) {
+        int i = desde;
+        for (; i + CARRILES <= hasta; i += CARRILES) {
+            int p0 = grupos[i] * CARRILES;
+            int p1 = grupos[i + 1] * CARRILES + 1;
+            int p2 = grupos[i + 2] * CARRILES + 2;
+            int p3 = grupos[i + 3] * CARRILES + 3;
+            carriles[p0] = OperacionAgregacion.sumarUnidades(carriles[p0], valores[i]);
+            carriles[p1] = OperacionAgregacion.sumarUnidades(carriles[p1], valores[i + 1]);
+            carriles[p2] = OperacionAgregacion.sumarUnidades(carriles[p2], valores[i + 2]);
+            carriles[p3] = OperacionAgregacion.sumarUnidades(carriles[p3], valores[i + 3]);
+        }
+        for (; i < hasta; i++) {
+            int posicion = grupos[i] * CARRILES + (i & (CARRILES - 1));
+            carriles[posicion] = OperacionAgregacion.sumarUnidades(carriles[posicion], valores[i]);
+        }
+    }
+
+    /**
+     * Guarda el máximo de las unidades de un rango de filas en los carriles enteros de sus grupos.
+     */
+    private static void maximo(long[] carriles, int[] grupos, long[] valores, int desde, int hasta) {
+        int i = desde;
+        for (; i + CARRILES <= hasta; i += CARRILES) {
+            int p0 = grupos[i] * CARRILES;
+            int p1 = grupos[i + 1] * CARRILES + 1;
+            int p2 = grupos[i + 2] * CARRILES + 2;
+            int p3 = grupos[i + 3] * CARRILES + 3;
+            carriles[p0] = Math.max(valores[i], carriles[p0]);
+            carriles[p1] = Math.max(valores[i + 1], carriles[p1]);
+            carriles[p2] = Math.max(valores[i + 2], carriles[p2]);
+            carriles[p3] = Math.max(valores[i + 3], carriles[p3]);
+        }
+        for (; i < hasta; i++) {
+            int posicion = grupos[i] * CARRILES + (i & (CARRILES - 1));
+            carriles[posicion] = Math.max(valores[i], carriles[posicion]);
+        }
+    }
+
+    /**
+     * Guarda el mínimo de las unidades de un rango de filas en los carriles enteros de sus grupos.
+     */
+    private static void minimo(long[] carriles, int[] grupos, long[] valores, int desde, int hasta) {
+        int i = desde;
+        for (; i + CARRILES <= hasta; i += CARRILES) {
+            int p0 = grupos[i] * CARRILES;
+            int p1 = grupos[i + 1] * CARRILES + 1;
+            int p2 = grupos[i + 2] * CARRILES + 2;
+            int p3 = grupos[i + 3] * CARRILES + 3;
+            carriles[p0] = Math.min(valores[i], carriles[p0]);
+            carriles[p1] = Math.min(valores[i + 1], carriles[p1]);
+            carriles[p2] = Math.min(valores[i + 2], carriles[p2]);
+            carriles[p3] = Math.min(valores[i + 3], carriles[p3]);
+        }
+        for (; i < hasta; i++) {
+            int posicion = grupos[i] * CARRILES + (i & (CARRILES - 1));
+            carriles[posicion] = Math.min(valores[i], carriles[posicion]);
+        }
+    }
+
+    /**
+     * Cuenta las filas de un rango en los carriles de sus grupos.
+     */
+    private static void contar(double[] carriles, int[] grupos, int desde, int hasta) {
+        int i = desde;
+        for (; i + CARRILES <= hasta; i += CARRILES) {
+            carriles[grupos[i] * CARRILES] += 1;
+            carriles[grupos[i + 1] * CARRILES + 1] += 1;
+            carriles[grupos[i + 2] * CARRILES + 2] += 1;
+            carriles[grupos[i + 3] * CARRILES + 3] += 1;
+        }
+        for (; i < hasta; i++) {
+            carriles[grupos[i] * CARRILES + (i & (CARRILES - 1))] += 1;
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package Cubo.implementacionCubo;
+
+import java.util.List;
+import Cubo.tablasCubo.ColumnaCodificada;
+
+/**
+ * <p>
+ * Esta clase se encarga de empaquetar los códigos que tiene una fila en las columnas que agrupan
+ * en la operación RollUp, formando la clave del grupo al que pertenece la fila.
+ * </p>
+ *
+ * <p>
+ * Cada columna ocupa la cantidad mínima de bits que necesitan sus códigos, por lo que en la mayoría
+ * de los casos la clave entra en un único número de tipo long. Si no entra, la clave se arma con la
+ * cantidad fija de palabras de tipo long que sean necesarias, sin que ninguna columna quede partida
+ * entre dos palabras. En ambos casos armar la clave de una fila no crea ningún objeto.
+ * </p>
+ */
+class CodificadorClaveGrupo {
+
+    // Atributos de la clase CodificadorClaveGrupo
+    private final ColumnaCodificada[] columnas;
+    private final int[] palabras;
+    private final int[] desplazamientos;
+    private final long[] mascaras;
+    private final int cantidadPalabras;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase CodificadorClaveGrupo.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de calcular la posición de los bits de cada columna dentro de la clave según la
+     * cantidad de valores de su diccionario.
+     * </p>
+     *
+     * @param columnasAgrupacion Las columnas codificadas por las que se agrupa.
+     */
+    public CodificadorClaveGrupo(List<ColumnaCodificada> columnasAgrupacion) {
+        this.columnas = columnasAgrupacion.toArray(new ColumnaCodificada[0]);
+        this.palabras = new int[this.columnas.length];
+        this.desplazamientos = new int[this.columnas.length];
+        this.mascaras = new long[this.columnas.length];
+
+        // Los códigos van desde -1 hasta la cantidad de valores menos uno, por lo que
+        // se guardan sumándoles uno para que no sean negativos
+        int palabra = 0;
+        int desplazamiento = 0;
+        for (int i = 0; i < this.columnas.length; i++) {
+            int bits = 32 - Integer.numberOfLeadingZeros(this.columnas[i].getDiccionario().getCantidad());
+            if (desplazamiento + bits > Long.SIZE) {
+                palabra++;
+                desplazamiento = 0;
+            }
+            this.palabras[i] = palabra;
+            this.desplazamientos[i] = desplazamiento;
+            this.mascaras[i] = (1L << bits) - 1;
+            desplazamiento += bits;
+        }
+        this.cantidadPalabras = palabra + 1;
+    }
+
+    /**
+     * Arma la clave de una fila cuando la misma entra en una única palabra.
+     *
+     * @param fila El índice de la fila de la cual se arma la clave.
+     *
+     * @return La clave de la fila.
+     */
+    public long codificar(int fila) {
+        long clave = 0;
+        for (int i = 0; i < this.columnas.length; i++) {
+            clave |= (long) (this.columnas[i].getCodigo(fila) + 1) << this.desplazamientos[i];
+        }
+        return clave;
+    }
+
+    /**
+     * Arma la clave de una fila en el arreglo indicado, sin importar la cantidad de palabras que ocupe.
+     *
+     * @param fila El índice de la fila de la cual se arma la clave.
+     * @param destino Un arreglo con lugar para la cantidad de palabras de la clave, cuyo contenido se reemplaza.
+     */
+    public void codificar(int fila, long[] destino) {
+        for (int p = 0; p < this.cantidadPalabras; p++) {
+            destino[p] = 0;
+        }
+        for (int i = 0; i < this.columnas.length; i++) {
+            destino[this.palabras[i]] |= (long) (this.columnas[i].getCodigo(fila) + 1) << this.desplazamientos[i];
+        }
+    }
+
+    /**
+     * Obtiene el código de una columna a partir de la palabra de la clave en la que se encuentra.
+     *
+     * @param palabra La palabra de la clave indicada por {@link #getPalabraColumna(int)}.
+     * @param columna La posición de la columna entre las columnas que agrupan.
+     *
+     * @return El código de la columna guardado en la clave.
+     */
+    public int decodificar(long palabra, int columna) {
+        return (int) ((palabra >>> this.desplazamientos[columna]) & this.mascaras[columna]) - 1;
+    }
+
+
+    // Getters de la clase
+
+    /**
+     * @return La cantidad de palabras de tipo long que ocupa cada clave.
+     */
+    public int getCantidadPalabras() {
+        return this.cantidadPalabras;
+    }
+
+    /**
+     * @param columna La posición de la columna entre las columnas que agrupan.
+     *
+     * @return La posición de la palabra de la clave en la que se guarda el código de la columna.
+     */
+    public int getPalabraColumna(int columna) {
+        return this.palabras[columna];
+    }
+
+}
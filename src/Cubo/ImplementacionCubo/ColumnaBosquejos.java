@@ -0,0 +1,95 @@
+package Cubo.implementacionCubo;
+
+import Cubo.tablasCubo.ColumnaNumerica;
+import Cubo.tablasCubo.ZonaMemoria;
+
+/**
+ * <p>
+ * Esta clase representa la columna que resulta de agregar un hecho con la operación COUNT_DISTINCT, la cual
+ * guarda junto a la estimación de cada fila el bosquejo {@link HyperLogLog} a partir del cual se calculó.
+ * </p>
+ *
+ * <p>
+ * Los valores de la columna son las estimaciones, por lo que se muestra y exporta como cualquier columna numérica.
+ * Los bosquejos permiten que una operación RollUp posterior a un nivel superior combine los bosquejos de las filas
+ * en lugar de sumar sus estimaciones, que contarían más de una vez los valores repetidos entre filas.
+ * </p>
+ *
+ * <p>
+ * Los bosquejos se guardan siempre en el heap, por lo que esta columna no admite ser copiada fuera del mismo.
+ * </p>
+ *
+ * <p>
+ * Esta clase extiende de la clase {@link ColumnaNumerica}.
+ * </p>
+ */
+class ColumnaBosquejos extends ColumnaNumerica {
+
+    // Atributos de la clase ColumnaBosquejos
+    private final byte[] registros;
+    private final int precision;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ColumnaBosquejos.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar la columna calculando la estimación de cada bosquejo. El arreglo de registros
+     * no se copia, por lo que no debe ser modificado luego de crear la columna.
+     * </p>
+     *
+     * @param registros Los registros de los bosquejos de cada fila, uno a continuación del otro.
+     * @param precision La precisión de los bosquejos.
+     */
+    public ColumnaBosquejos(byte[] registros, int precision) {
+        super(estimar(registros, precision), null, true);
+        this.registros = registros;
+        this.precision = precision;
+    }
+
+    /**
+     * Se encarga de calcular la estimación de cada uno de los bosquejos.
+     */
+    private static double[] estimar(byte[] registros, int precision) {
+        int cantidadRegistros = HyperLogLog.getCantidadRegistros(precision);
+        double[] estimaciones = new double[registros.length / cantidadRegistros];
+        for (int fila = 0; fila < estimaciones.length; fila++) {
+            estimaciones[fila] = HyperLogLog.estimar(registros, fila * cantidadRegistros, precision);
+        }
+        return estimaciones;
+    }
+
+    @Override
+    public ColumnaBosquejos seleccionarFilas(int[] filas) {
+        int cantidadRegistros = HyperLogLog.getCantidadRegistros(this.precision);
+        byte[] seleccion = new byte[filas.length * cantidadRegistros];
+        for (int i = 0; i < filas.length; i++) {
+            System.arraycopy(this.registros, filas[i] * cantidadRegistros, seleccion, i * cantidadRegistros, cantidadRegistros);
+        }
+        return new ColumnaBosquejos(seleccion, this.precision);
+    }
+
+    @Override
+    public ColumnaBosquejos copiarEn(ZonaMemoria zona) {
+        return this;
+    }
+
+
+    // Getters de la clase
+
+    /**
+     * @return El arreglo con los registros de los bosquejos de cada fila, uno a continuación del otro.
+     */
+    public byte[] getRegistros() {
+        return this.registros;
+    }
+
+    /**
+     * @return La precisión de los bosquejos de esta columna.
+     */
+    public int getPrecision() {
+        return this.precision;
+    }
+
+}
@@ -1,8 +1,13 @@
 package Cubo.implementacionCubo;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import Cubo.tablasCubo.Columna;
+import Cubo.tablasCubo.ColumnaCodificada;
+import Cubo.tablasCubo.Diccionario;
 import Cubo.tablasCubo.Dimension;
 
 /**
@@ -20,6 +25,8 @@ class ComandoDice implements ComandoCubo{
     private CuerpoCubo tablaOperacion;
     private Map<Dimension, Map<String, List<String>>> criteriosDice;
     private List<ComandoDice> historialDice;
+    private Map<String, ColumnaCodificada> columnasNiveles;
+    private Map<String, boolean[]> codigosPermitidos;
 
     /**
      * <p>
@@ -53,55 +60,120 @@ class ComandoDice implements ComandoCubo{
         // Añado al historial el comando antes de ejecutarlo
         this.historialDice.add(this);
 
-        // Genero una matriz que contendrá la operación resultante
-        // e itero sobre cada fila de la tabla de operación
-        List<List<String>> operacionResultante = new ArrayList<>();
-        for (List<String> fila : this.tablaOperacion.getDatosTabla()) {
-            if (cumpleCriterios(fila)) {
-                operacionResultante.add(fila);
-            }
+        // Traduzco los valores permitidos de cada nivel a sus códigos
+        codificarCriterios();
+
+        // Obtengo los índices de las filas que cumplen con los criterios, usando los índices
+        // de los niveles si la tabla de operación los tiene o recorriéndola de lo contrario
+        MapaBits filasIndexadas = filtrarConIndices();
+        int[] filas = filasIndexadas != null ? filasIndexadas.aArreglo() : filtrarRecorriendo();
+
+        // Selecciono las filas resultantes en cada una de las columnas
+        List<Columna> columnasResultantes = new ArrayList<>();
+        for (Columna columna : this.tablaOperacion.getColumnas()) {
+            columnasResultantes.add(columna.seleccionarFilas(filas));
         }
 
         // Actualizo el estado interno del cubo
-        this.tablaOperacion = new CuerpoCubo(operacionResultante, this.tablaOperacion.getHeaders(), this.tablaOperacion.getHechosCubo());
+        this.tablaOperacion = new CuerpoCubo(columnasResultantes, this.tablaOperacion.getHeaders(), this.tablaOperacion.getHechosCubo());
     }
 
     
     // Métodos de ayuda para método ejecutar()
 
     /**
-     * Se encarga de verificar si una fila en la información interna
-     * del cubo cumple con los criterios de filtrado.
-     *
-     * @param fila La fila a verificar.
-     * @return true si la fila cumple con los criterios, false de lo contrario.
+     * Se encarga de obtener la columna codificada de cada nivel implicado en los criterios
+     * de filtrado y de marcar los códigos de los valores permitidos en ese nivel.
      */
-    private boolean cumpleCriterios(List<String> fila) {
-        
-        // Itero sobre los criterios de la dimensión
-        for (Map.Entry<Dimension, Map<String, List<String>>> criterioDimension : this.criteriosDice.entrySet()) {
-
-            // Obtengo el mapa que contiene a los niveles con los valores permitidos
-            Map<String, List<String>> valores_nivel = criterioDimension.getValue();
-
-            // Itero sobre cada nivel
+    private void codificarCriterios() {
+        this.columnasNiveles = new HashMap<>();
+        this.codigosPermitidos = new HashMap<>();
+        for (Map<String, List<String>> valores_nivel : this.criteriosDice.values()) {
             for (Map.Entry<String, List<String>> valor_nivel : valores_nivel.entrySet()) {
 
-                // Obtengo el nombre del nivel y los valores permitidos para ese nivel
+                // Obtengo la columna codificada del nivel
                 String nivel = valor_nivel.getKey();
-                List<String> valores_permitidos = valor_nivel.getValue();
+                ColumnaCodificada columna_nivel = ColumnaCodificada.codificar(this.tablaOperacion.getColumnaTabla(nivel));
+
+                // Marco los códigos de los valores permitidos que están presentes en el diccionario,
+                // la última posición del arreglo indica si se permiten los valores nulos
+                Diccionario diccionario = columna_nivel.getDiccionario();
+                boolean[] permitidos = new boolean[diccionario.getCantidad() + 1];
+                for (String valor : valor_nivel.getValue()) {
+                    int codigo = valor == null ? diccionario.getCantidad() : diccionario.getCodigo(valor);
+                    if (codigo != -1) {
+                        permitidos[codigo] = true;
+                    }
+                }
+                this.columnasNiveles.put(nivel, columna_nivel);
+                this.codigosPermitidos.put(nivel, permitidos);
+            }
+        }
+    }
 
-                // Obtengo el índice del nivel de la dimensión en la tabla de operación
-                int indice_nivel = tablaOperacion.getHeaders().indexOf(nivel);
+    /**
+     * <p>
+     * Se encarga de obtener las filas que cumplen con los criterios de filtrado a partir de los
+     * índices de los niveles implicados.
+     * </p>
+     * 
+     * <p>
+     * Dentro de cada nivel se unen los mapas de bits de los valores permitidos, y luego se intersectan
+     * los mapas resultantes de todos los niveles, de menor a mayor cantidad de filas.
+     * </p>
+     *
+     * @return Un mapa de bits con las filas que cumplen los criterios, o null si no hay niveles que filtrar
+     *         o alguno de ellos no está indexado.
+     */
+    private MapaBits filtrarConIndices() {
+        if (this.codigosPermitidos.isEmpty()) {
+            return null;
+        }
+        List<MapaBits> filasNiveles = new ArrayList<>();
+        for (Map.Entry<String, boolean[]> nivel_permitidos : this.codigosPermitidos.entrySet()) {
+            IndiceNivel indice = this.tablaOperacion.getIndiceNivel(nivel_permitidos.getKey());
+            if (indice == null) {
+                return null;
+            }
 
-                // Verifico si la fila en la que estoy no contiene alguno de los valores permitidos
-                if (!valores_permitidos.contains(fila.get(indice_nivel))) {
-                    return false;
+            // Uno las filas de todos los códigos permitidos en el nivel, incluyendo
+            // las filas nulas si la última posición está marcada
+            boolean[] permitidos = nivel_permitidos.getValue();
+            MapaBits filas_nivel = MapaBits.vacio();
+            for (int codigo = 0; codigo < permitidos.length; codigo++) {
+                if (permitidos[codigo]) {
+                    int codigo_indice = codigo == permitidos.length - 1 ? -1 : codigo;
+                    filas_nivel = MapaBits.or(filas_nivel, indice.getMapa(codigo_indice));
                 }
             }
+
+            filasNiveles.add(filas_nivel);
         }
 
-        return true;
+        // Intersecto los niveles empezando por el que tiene menos filas, y dejo de hacerlo si no queda ninguna
+        filasNiveles.sort(Comparator.comparingInt(MapaBits::getCardinalidad));
+        MapaBits resultado = filasNiveles.get(0);
+        for (int i = 1; i < filasNiveles.size() && resultado.getCardinalidad() > 0; i++) {
+            resultado = MapaBits.and(resultado, filasNiveles.get(i));
+        }
+        return resultado;
+    }
+
+    /**
+     * Se encarga de obtener las filas que cumplen con los criterios de filtrado recorriendo la tabla
+     * de operación con un {@link PredicadoDice} compilado a partir de los criterios.
+     *
+     * @return Un arreglo con los índices de las filas que cumplen los criterios en orden ascendente.
+     */
+    private int[] filtrarRecorriendo() {
+        List<ColumnaCodificada> columnas = new ArrayList<>();
+        List<boolean[]> permitidos = new ArrayList<>();
+        for (Map.Entry<String, boolean[]> nivel_permitidos : this.codigosPermitidos.entrySet()) {
+            columnas.add(this.columnasNiveles.get(nivel_permitidos.getKey()));
+            permitidos.add(nivel_permitidos.getValue());
+        }
+        int cantidadFilas = this.tablaOperacion.getCantidadFilas();
+        return new PredicadoDice(columnas, permitidos, cantidadFilas).filtrar(cantidadFilas);
     }
 
 
@@ -3,6 +3,7 @@ package Cubo.implementacionCubo;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import Cubo.tablasCubo.Dimension;
 
@@ -14,6 +15,11 @@ import Cubo.tablasCubo.Dimension;
  * <p>
  * Implementa la interfaz {@link ComandoCubo}.
  * </p>
+ * 
+ * <p>
+ * Si se indica un {@link RegistroAgregados} y alguno de sus resultados puede responder el RollUp resultante, el
+ * mismo se obtiene a partir de ese resultado sin volver a aplicar las operaciones Dice y Slice sobre el cuerpo base.
+ * </p>
  */
 class ComandoDrillDown implements ComandoCubo {
 
@@ -24,6 +30,9 @@ class ComandoDrillDown implements ComandoCubo {
     private List<ComandoDice> historialDice;
     private List<ComandoSlice> historialSlice;
     private List<ComandoDrillDown> historialDrillDown;
+    private ForkJoinPool poolHilos;
+    private RegistroAgregados registro;
+    private String firmaFiltros;
 
 
     /**
@@ -42,9 +51,15 @@ class ComandoDrillDown implements ComandoCubo {
      * @param historialDice El historial de operaciones Dice aplicados sobre la instancia de Cubo que invoca esta clase 
      * @param historialSlice El historial de operaciones Slice aplicados sobre la instancia de Cubo que invoca esta clase  
      * @param historialDrillDown  El historial de operaciones DrillDown aplicados sobre la instancia de Cubo que invoca esta clase 
+     * @param poolHilos El pool de hilos sobre el cual se agrega en paralelo el RollUp resultante, o null para agregarlo
+     *                  en el hilo que invoca la operación.
+     * @param registro El registro de resultados de operaciones RollUp del cubo, o null para calcular siempre el RollUp
+     *                 resultante sobre el cuerpo base.
+     * @param firmaFiltros La firma de las operaciones Dice y Slice aplicadas sobre el cubo.
      */
     public ComandoDrillDown(Map<Dimension, String> criteriosDesagregacion, CuerpoCubo tablaBase, List<ComandoRollUp> historialRollUp, List<ComandoDice> historialDice, 
-                            List<ComandoSlice> historialSlice, List<ComandoDrillDown> historialDrillDown) {
+                            List<ComandoSlice> historialSlice, List<ComandoDrillDown> historialDrillDown, ForkJoinPool poolHilos,
+                            RegistroAgregados registro, String firmaFiltros) {
 
         this.criteriosDesagregacion = criteriosDesagregacion;
         this.tablaBase = tablaBase;
@@ -52,6 +67,9 @@ class ComandoDrillDown implements ComandoCubo {
         this.historialDice = historialDice;
         this.historialSlice = historialSlice;
         this.historialDrillDown = historialDrillDown;
+        this.poolHilos = poolHilos;
+        this.registro = registro;
+        this.firmaFiltros = firmaFiltros;
     }
 
     /**
@@ -63,15 +81,6 @@ class ComandoDrillDown implements ComandoCubo {
         // Añado al historial el comando antes de ejecutarlo
         this.historialDrillDown.add(this);
 
-        // Creo copias de los historiales de operaciones Dice y Slice
-        List<ComandoDice> historialDiceCopy = new ArrayList<>(this.historialDice);
-        List<ComandoSlice> historialSliceCopy = new ArrayList<>(this.historialSlice);
-    
-        // Aplico las operaciones Dice y Slice
-        // así mantengo el estado de filtrado del cubo
-        aplicarOperacionesDice(historialDiceCopy);
-        aplicarOperacionesSlice(historialSliceCopy);
-    
         // Obtengo la última operación RollUp aplicada sobre el cubo
         // esta me indica el estado actual de agrupación en la cual se encuentra
         // el mismo
@@ -84,7 +93,21 @@ class ComandoDrillDown implements ComandoCubo {
     
         // Finalmente ejecuto el RollUp pero con los niveles de menor jerarquía
         // logrando el efecto de desagregación
-        ComandoRollUp comando = new ComandoRollUp(this.tablaBase, ultimoRollUp.getHechosSeleccionados(), OperacionAgregacion.SUM, nivelesActualesAgregacion, this.historialRollUp);
+        ComandoRollUp comando = crearRollUp(ultimoRollUp, nivelesActualesAgregacion);
+
+        // Si el registro no puede responder el RollUp, aplico antes las operaciones Dice y Slice
+        // así mantengo el estado de filtrado del cubo
+        if (this.registro == null || !this.registro.puedeResolver(comando, this.firmaFiltros)) {
+
+            // Creo copias de los historiales de operaciones Dice y Slice
+            List<ComandoDice> historialDiceCopy = new ArrayList<>(this.historialDice);
+            List<ComandoSlice> historialSliceCopy = new ArrayList<>(this.historialSlice);
+
+            aplicarOperacionesDice(historialDiceCopy);
+            aplicarOperacionesSlice(historialSliceCopy);
+            comando = crearRollUp(ultimoRollUp, nivelesActualesAgregacion);
+        }
+        comando.usarRegistro(this.registro, this.firmaFiltros);
         comando.ejecutar();
 
         // Actualizo el estado interno del cubo
@@ -94,6 +117,22 @@ class ComandoDrillDown implements ComandoCubo {
 
     // Métodos de ayuda para método ejecutar()
 
+    /**
+     * Se encarga de crear el RollUp sobre el cuerpo base que agrupa por los niveles desagregados. Si el último RollUp
+     * aplicó una lista de agregaciones por hecho se repiten las mismas, para conservar las columnas resultantes. Si no,
+     * los hechos se suman, salvo que el último RollUp haya usado bosquejos, ya que sumar cantidades de valores
+     * distintos o cuantiles no tiene sentido.
+     */
+    private ComandoRollUp crearRollUp(ComandoRollUp ultimoRollUp, List<String> nivelesAgregacion) {
+        if (ultimoRollUp.getAgregacionesPorHecho() != null) {
+            return new ComandoRollUp(this.tablaBase, ultimoRollUp.getAgregacionesPorHecho(), ultimoRollUp.getPrecisionBosquejos(),
+                                     nivelesAgregacion, this.historialRollUp, this.poolHilos);
+        }
+        OperacionAgregacion agregacion = ultimoRollUp.getAgregacion().usaBosquejos() ? ultimoRollUp.getAgregacion() : OperacionAgregacion.SUM;
+        return new ComandoRollUp(this.tablaBase, ultimoRollUp.getHechosSeleccionados(), agregacion, ultimoRollUp.getPrecisionBosquejos(),
+                                 nivelesAgregacion, this.historialRollUp, this.poolHilos);
+    }
+
     /**
      * Se encarga de re-ejecutar las operaciones Dice aplicadas anteriormente sobre el cubo.
      */
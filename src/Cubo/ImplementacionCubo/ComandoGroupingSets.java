@@ -0,0 +1,358 @@
+package Cubo.implementacionCubo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import Cubo.tablasCubo.Columna;
+import Cubo.tablasCubo.ColumnaCodificada;
+import Cubo.tablasCubo.ColumnaDecimal;
+import Cubo.tablasCubo.ColumnaNumerica;
+import Cubo.tablasCubo.Diccionario;
+import Cubo.tablasCubo.Dimension;
+
+/**
+ * <p>
+ * Esta clase se encarga de implementar el método GroupingSets para la clase {@link Cubo}, que agrupa los hechos
+ * del cubo según varios conjuntos de criterios a la vez.
+ * </p>
+ *
+ * <p>
+ * La tabla se recorre una única vez, agrupando por todos los niveles de los conjuntos. Luego cada conjunto se
+ * obtiene, del que agrupa por más niveles al que agrupa por menos, reagregando la menor agrupación ya calculada
+ * que agrupa por todos sus niveles. Si alguna operación no puede reagregarse, cada conjunto se agrupa recorriendo
+ * la tabla.
+ * </p>
+ *
+ * <p>
+ * El resultado contiene las filas de todos los conjuntos, en el orden en que se indicaron. Tiene una columna por
+ * cada nivel de los conjuntos, que es nula en las filas de los conjuntos que no agrupan por dicho nivel, seguida de
+ * la columna {@value #HEADER_GROUPING_ID} y de una columna por cada hecho y operación. El identificador de cada fila
+ * tiene un bit por cada nivel, encendido si su conjunto no agrupa por el mismo, donde el primer nivel corresponde al
+ * bit más significativo.
+ * </p>
+ *
+ * <p>
+ * Implementa la interfaz {@link ComandoCubo}.
+ * </p>
+ */
+class ComandoGroupingSets implements ComandoCubo {
+
+    // Encabezado de la columna que identifica el conjunto de cada fila
+    static final String HEADER_GROUPING_ID = "grouping_id";
+
+    // Atributos de la clase ComandoGroupingSets
+    private CuerpoCubo tablaOperacion;
+    private final Map<String, List<OperacionAgregacion>> agregacionesPorHecho;
+    private final int precisionBosquejos;
+    private final List<List<String>> nivelesConjuntos;
+    private final List<String> nivelesOperacion;
+    private final ComandoRollUp agrupacionBase;
+    private final ForkJoinPool poolHilos;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ComandoGroupingSets.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de recibir todos los argumentos del método junto con el cuerpo del cubo.
+     * </p>
+     *
+     * @param tablaOperacion La tabla que se utilizará para llevar a cabo la operación.
+     * @param conjuntosAgrupacion Los criterios de agrupación de cada conjunto, donde cada uno asocia una dimensión con el
+     *                            nivel por el cual se agrupa. Un conjunto sin criterios agrupa todas las filas en una sola.
+     * @param agregacionesPorHecho Un mapa que como clave tiene cada hecho que se verá involucrado en la operación y como valor
+     *                             las operaciones de agregación que se le aplican.
+     * @param precisionBosquejos La precisión de los bosquejos {@link HyperLogLog} de los hechos cuya operación es COUNT_DISTINCT.
+     * @param poolHilos El pool de hilos sobre el cual se agregan las particiones en paralelo, o null para
+     *                  agregarlas en el hilo que invoca la operación.
+     */
+    public ComandoGroupingSets(CuerpoCubo tablaOperacion, List<Map<Dimension, String>> conjuntosAgrupacion,
+                               Map<String, List<OperacionAgregacion>> agregacionesPorHecho, int precisionBosquejos,
+                               ForkJoinPool poolHilos) {
+        this.tablaOperacion = tablaOperacion;
+        this.agregacionesPorHecho = agregacionesPorHecho;
+        this.precisionBosquejos = precisionBosquejos;
+        this.poolHilos = poolHilos;
+
+        // Obtengo los niveles de cada conjunto y la unión de todos ellos
+        this.nivelesConjuntos = new ArrayList<>();
+        Set<String> todosNiveles = new LinkedHashSet<>();
+        for (Map<Dimension, String> criterios : conjuntosAgrupacion) {
+            List<String> niveles = new ArrayList<>();
+            for (Map.Entry<Dimension, String> criterio : criterios.entrySet()) {
+                niveles = ComandosUtils.obtenerNivelesOperacion(criterio.getKey(), criterio.getValue(), niveles);
+            }
+            this.nivelesConjuntos.add(niveles);
+            todosNiveles.addAll(niveles);
+        }
+        this.nivelesOperacion = new ArrayList<>(todosNiveles);
+
+        // Preparo la agrupación por todos los niveles, que es la única que recorre la tabla si los
+        // conjuntos pueden obtenerse a partir de ella
+        this.agrupacionBase = new ComandoRollUp(tablaOperacion, agregacionesPorHecho, precisionBosquejos,
+                                                this.nivelesOperacion, new ArrayList<>(), poolHilos);
+    }
+
+    /**
+     * Ejecuta el método GroupingSets para la clase {@link Cubo}.
+     */
+    @Override
+    public void ejecutar() {
+
+        // Obtengo el resultado de cada conjunto
+        List<CuerpoCubo> resultados = this.puedeReagregarse() ? this.agruparReagregando() : this.agruparRecorriendo();
+
+        // Uno los resultados en una única tabla con el identificador del conjunto de cada fila
+        List<String> headersHechos = this.agrupacionBase.getHeadersHechos();
+        List<Columna> columnas = new ArrayList<>();
+        for (String nivel : this.nivelesOperacion) {
+            columnas.add(unirColumnasNivel(resultados, this.nivelesConjuntos, nivel));
+        }
+        columnas.add(this.crearColumnaGroupingId(resultados));
+        for (String header : headersHechos) {
+            columnas.add(unirColumnasHecho(resultados, header));
+        }
+        List<String> headers = new ArrayList<>(this.nivelesOperacion);
+        headers.add(HEADER_GROUPING_ID);
+        headers.addAll(headersHechos);
+
+        // Actualizo el estado interno del cubo
+        this.tablaOperacion = new CuerpoCubo(columnas, headers, headersHechos);
+    }
+
+
+    // Métodos de ayuda para método ejecutar()
+
+    /**
+     * Verifica si todas las operaciones pueden reagregarse a partir de sus resultados en grupos más detallados.
+     */
+    private boolean puedeReagregarse() {
+        for (OperacionAgregacion agregacion : this.agrupacionBase.getAgregacionesHechos()) {
+            if (agregacion.getReagregacion() == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Se encarga de recorrer la tabla una única vez agrupando por todos los niveles, y de obtener cada conjunto
+     * reagregando la menor agrupación ya calculada que agrupa por todos sus niveles.
+     */
+    private List<CuerpoCubo> agruparReagregando() {
+        this.agrupacionBase.ejecutar();
+
+        // Recorro los conjuntos del que agrupa por más niveles al que agrupa por menos
+        List<Integer> orden = new ArrayList<>();
+        for (int i = 0; i < this.nivelesConjuntos.size(); i++) {
+            orden.add(i);
+        }
+        orden.sort((a, b) -> Integer.compare(this.nivelesConjuntos.get(b).size(), this.nivelesConjuntos.get(a).size()));
+
+        List<String> headersHechos = this.agrupacionBase.getHeadersHechos();
+        List<OperacionAgregacion> reagregaciones = new ArrayList<>();
+        for (OperacionAgregacion agregacion : this.agrupacionBase.getAgregacionesHechos()) {
+            reagregaciones.add(agregacion.getReagregacion());
+        }
+        CuerpoCubo[] resultados = new CuerpoCubo[this.nivelesConjuntos.size()];
+        List<Set<String>> nivelesFuentes = new ArrayList<>();
+        List<CuerpoCubo> fuentes = new ArrayList<>();
+        nivelesFuentes.add(new HashSet<>(this.nivelesOperacion));
+        fuentes.add(this.agrupacionBase.getResultado());
+        for (int i : orden) {
+            List<String> niveles = this.nivelesConjuntos.get(i);
+
+            // Busco la menor agrupación ya calculada que agrupa por todos los niveles del conjunto
+            int fuente = -1;
+            for (int j = 0; j < fuentes.size(); j++) {
+                if (nivelesFuentes.get(j).containsAll(niveles)
+                    && (fuente < 0 || fuentes.get(j).getCantidadFilas() < fuentes.get(fuente).getCantidadFilas())) {
+                    fuente = j;
+                }
+            }
+
+            // Si agrupa por los mismos niveles la reutilizo, y si no, la reagrego
+            if (nivelesFuentes.get(fuente).size() == new HashSet<>(niveles).size()) {
+                resultados[i] = fuentes.get(fuente);
+                continue;
+            }
+            ComandoRollUp reagregacion = new ComandoRollUp(fuentes.get(fuente), niveles, headersHechos, reagregaciones, headersHechos,
+                                                           this.precisionBosquejos, new ArrayList<>(), this.poolHilos);
+            reagregacion.ejecutar();
+            resultados[i] = reagregacion.getResultado();
+            nivelesFuentes.add(new HashSet<>(niveles));
+            fuentes.add(resultados[i]);
+        }
+        return List.of(resultados);
+    }
+
+    /**
+     * Se encarga de agrupar la tabla por separado según cada conjunto.
+     */
+    private List<CuerpoCubo> agruparRecorriendo() {
+        List<CuerpoCubo> resultados = new ArrayList<>();
+        for (List<String> niveles : this.nivelesConjuntos) {
+            ComandoRollUp agrupacion = new ComandoRollUp(this.tablaOperacion, this.agregacionesPorHecho, this.precisionBosquejos,
+                                                         niveles, new ArrayList<>(), this.poolHilos);
+            agrupacion.ejecutar();
+            resultados.add(agrupacion.getResultado());
+        }
+        return resultados;
+    }
+
+    /**
+     * Se encarga de unir los códigos de un nivel en los resultados de todos los conjuntos, usando el código nulo
+     * en las filas de los conjuntos que no agrupan por el mismo. Los códigos se expresan en el diccionario del
+     * primer conjunto que agrupa por el nivel.
+     */
+    private static ColumnaCodificada unirColumnasNivel(List<CuerpoCubo> resultados, List<List<String>> nivelesConjuntos, String nivel) {
+        int[] codigos = new int[contarFilas(resultados)];
+        Diccionario diccionario = null;
+        int inicio = 0;
+        for (int i = 0; i < resultados.size(); i++) {
+            CuerpoCubo resultado = resultados.get(i);
+            int cantidadFilas = resultado.getCantidadFilas();
+            if (!nivelesConjuntos.get(i).contains(nivel)) {
+                Arrays.fill(codigos, inicio, inicio + cantidadFilas, -1);
+                inicio += cantidadFilas;
+                continue;
+            }
+            ColumnaCodificada columna = (ColumnaCodificada) resultado.getColumnaTabla(nivel);
+            if (diccionario == null) {
+                diccionario = columna.getDiccionario();
+            } else if (columna.getDiccionario() != diccionario) {
+                columna = ColumnaCodificada.codificar(columna, diccionario);
+            }
+            for (int fila = 0; fila < cantidadFilas; fila++) {
+                codigos[inicio + fila] = columna.getCodigo(fila);
+            }
+            inicio += cantidadFilas;
+        }
+        return new ColumnaCodificada(codigos, diccionario);
+    }
+
+    /**
+     * Se encarga de crear la columna que identifica el conjunto de cada fila.
+     */
+    private ColumnaNumerica crearColumnaGroupingId(List<CuerpoCubo> resultados) {
+        double[] identificadores = new double[contarFilas(resultados)];
+        int inicio = 0;
+        for (int i = 0; i < resultados.size(); i++) {
+            long identificador = 0;
+            for (String nivel : this.nivelesOperacion) {
+                identificador = (identificador << 1) | (this.nivelesConjuntos.get(i).contains(nivel) ? 0 : 1);
+            }
+            int cantidadFilas = resultados.get(i).getCantidadFilas();
+            Arrays.fill(identificadores, inicio, inicio + cantidadFilas, identificador);
+            inicio += cantidadFilas;
+        }
+        return new ColumnaNumerica(identificadores, null, true);
+    }
+
+    /**
+     * Se encarga de unir los valores de un hecho agregado en los resultados de todos los conjuntos, uniendo los
+     * registros de los bosquejos si la columna los tiene.
+     */
+    private static ColumnaNumerica unirColumnasHecho(List<CuerpoCubo> resultados, String header) {
+        ColumnaNumerica primera = (ColumnaNumerica) resultados.get(0).getColumnaTabla(header);
+        if (primera instanceof ColumnaBosquejos) {
+            int precision = ((ColumnaBosquejos) primera).getPrecision();
+            int cantidadRegistros = HyperLogLog.getCantidadRegistros(precision);
+            byte[] registros = new byte[contarFilas(resultados) * cantidadRegistros];
+            int inicio = 0;
+            for (CuerpoCubo resultado : resultados) {
+                byte[] registrosResultado = ((ColumnaBosquejos) resultado.getColumnaTabla(header)).getRegistros();
+                System.arraycopy(registrosResultado, 0, registros, inicio, registrosResultado.length);
+                inicio += registrosResultado.length;
+            }
+            return new ColumnaBosquejos(registros, precision);
+        }
+        if (sonDecimales(resultados, header)) {
+            // Las columnas decimales con la misma escala se unen sin convertir sus valores
+            long[] unidades = new long[contarFilas(resultados)];
+            BitSet nulos = new BitSet();
+            int inicio = 0;
+            for (CuerpoCubo resultado : resultados) {
+                ColumnaDecimal columna = (ColumnaDecimal) resultado.getColumnaTabla(header);
+                int cantidadFilas = resultado.getCantidadFilas();
+                for (int fila = 0; fila < cantidadFilas; fila++) {
+                    unidades[inicio + fila] = columna.getUnidades(fila);
+                    if (columna.esNulo(fila)) {
+                        nulos.set(inicio + fila);
+                    }
+                }
+                inicio += cantidadFilas;
+            }
+            return new ColumnaDecimal(unidades, nulos, ((ColumnaDecimal) primera).getEscala());
+        }
+        double[] valores = new double[contarFilas(resultados)];
+        BitSet nulos = new BitSet();
+        int inicio = 0;
+        for (CuerpoCubo resultado : resultados) {
+            ColumnaNumerica columna = (ColumnaNumerica) resultado.getColumnaTabla(header);
+            int cantidadFilas = resultado.getCantidadFilas();
+            for (int fila = 0; fila < cantidadFilas; fila++) {
+                valores[inicio + fila] = columna.getDouble(fila);
+                if (columna.esNulo(fila)) {
+                    nulos.set(inicio + fila);
+                }
+            }
+            inicio += cantidadFilas;
+        }
+        return new ColumnaNumerica(valores, nulos, primera.esEntera());
+    }
+
+    /**
+     * Verifica si la columna de un hecho es decimal y tiene la misma escala en todos los resultados.
+     */
+    private static boolean sonDecimales(List<CuerpoCubo> resultados, String header) {
+        Columna primera = resultados.get(0).getColumnaTabla(header);
+        if (!(primera instanceof ColumnaDecimal)) {
+            return false;
+        }
+        for (CuerpoCubo resultado : resultados) {
+            Columna columna = resultado.getColumnaTabla(header);
+            if (!(columna instanceof ColumnaDecimal) || ((ColumnaDecimal) columna).getEscala() != ((ColumnaDecimal) primera).getEscala()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Se encarga de contar las filas de todos los resultados.
+     */
+    private static int contarFilas(List<CuerpoCubo> resultados) {
+        int cantidadFilas = 0;
+        for (CuerpoCubo resultado : resultados) {
+            cantidadFilas += resultado.getCantidadFilas();
+        }
+        return cantidadFilas;
+    }
+
+
+    // Getters de la clase
+
+    /**
+     * @return El cuerpo del cubo con el método ya aplicado
+     */
+    public CuerpoCubo getResultado() {
+        return this.tablaOperacion;
+    }
+
+    /**
+     * @return La operación RollUp que agrupa por todos los niveles de los conjuntos, la cual puede obtener
+     *         su resultado de un {@link RegistroAgregados}.
+     */
+    public ComandoRollUp getAgrupacionBase() {
+        return this.agrupacionBase;
+    }
+
+}
@@ -0,0 +1,183 @@
+package Cubo.implementacionCubo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import Cubo.tablasCubo.Columna;
+import Cubo.tablasCubo.ColumnaCodificada;
+import Cubo.tablasCubo.ColumnaNumerica;
+
+/**
+ * <p>
+ * Esta clase se encarga de implementar el método Ordenar para la clase {@link Cubo}, que ordena las filas del
+ * cubo según una o más columnas.
+ * </p>
+ *
+ * <p>
+ * Cada columna aporta una clave de tipo long por fila que respeta el orden de sus valores: las columnas numéricas
+ * usan los bits de su valor reordenados para que se comparen como enteros con signo, y las columnas de niveles usan
+ * la posición de su valor entre los valores ordenados de su diccionario, numéricamente si todos son números y
+ * alfabéticamente si no. Los valores nulos tienen la menor clave, y en orden descendente se invierten todas las claves.
+ * Las claves se ordenan con un {@link OrdenadorExterno} dentro de la memoria indicada.
+ * </p>
+ *
+ * <p>
+ * Implementa la interfaz {@link ComandoCubo}.
+ * </p>
+ */
+class ComandoOrdenar implements ComandoCubo {
+
+    // Atributos de la clase ComandoOrdenar
+    private CuerpoCubo tablaOperacion;
+    private final Map<String, Boolean> criteriosOrden;
+    private final long memoriaBytes;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ComandoOrdenar.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de recibir todos los argumentos del método junto con el cuerpo del cubo.
+     * </p>
+     *
+     * @param tablaOperacion La tabla que se utilizará para llevar a cabo la operación.
+     * @param criteriosOrden Un mapa que asocia cada columna por la cual se ordena, en orden de prioridad, con true
+     *                       si se ordena de forma descendente o false si se ordena de forma ascendente.
+     * @param memoriaBytes La cantidad máxima de bytes que pueden ocupar en memoria las claves a ordenar.
+     */
+    public ComandoOrdenar(CuerpoCubo tablaOperacion, Map<String, Boolean> criteriosOrden, long memoriaBytes) {
+        this.tablaOperacion = tablaOperacion;
+        this.criteriosOrden = criteriosOrden;
+        this.memoriaBytes = memoriaBytes;
+    }
+
+    /**
+     * Ejecuta el método Ordenar para la clase {@link Cubo}.
+     *
+     * @throws UncheckedIOException Si ocurre un error al usar los archivos temporales del ordenamiento.
+     */
+    @Override
+    public void ejecutar() {
+
+        // Armo las claves de cada columna de orden y obtengo el orden de las filas
+        ClavesColumnas claves = new ClavesColumnas(this.tablaOperacion, this.criteriosOrden);
+        int[] orden;
+        try {
+            orden = new OrdenadorExterno(claves, this.tablaOperacion.getCantidadFilas(), this.memoriaBytes).ordenar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // Genero las columnas resultantes seleccionando las filas en el orden obtenido
+        List<Columna> columnas = new ArrayList<>();
+        for (Columna columna : this.tablaOperacion.getColumnas()) {
+            columnas.add(columna.seleccionarFilas(orden));
+        }
+
+        // Actualizo el estado interno del cubo
+        this.tablaOperacion = new CuerpoCubo(columnas, this.tablaOperacion.getHeaders(), this.tablaOperacion.getHechosCubo());
+    }
+
+
+    // Getters de la clase
+
+    /**
+     * @return El cuerpo del cubo con el método ya aplicado
+     */
+    public CuerpoCubo getResultado() {
+        return this.tablaOperacion;
+    }
+
+
+    /**
+     * Esta clase representa las claves de orden de cada fila, una por cada columna por la cual se ordena.
+     */
+    private static class ClavesColumnas implements OrdenadorExterno.ClavesFilas {
+
+        // Atributos de la clase ClavesColumnas
+        private final ColumnaNumerica[] columnasNumericas;
+        private final ColumnaCodificada[] columnasCodificadas;
+        private final int[][] posicionesCodigos;
+        private final boolean[] descendentes;
+
+        ClavesColumnas(CuerpoCubo tablaOperacion, Map<String, Boolean> criteriosOrden) {
+            int cantidadClaves = criteriosOrden.size();
+            this.columnasNumericas = new ColumnaNumerica[cantidadClaves];
+            this.columnasCodificadas = new ColumnaCodificada[cantidadClaves];
+            this.posicionesCodigos = new int[cantidadClaves][];
+            this.descendentes = new boolean[cantidadClaves];
+            int c = 0;
+            for (Map.Entry<String, Boolean> criterio : criteriosOrden.entrySet()) {
+                Columna columna = tablaOperacion.getColumnaTabla(criterio.getKey());
+                if (columna instanceof ColumnaNumerica) {
+                    this.columnasNumericas[c] = (ColumnaNumerica) columna;
+                } else {
+                    this.columnasCodificadas[c] = ColumnaCodificada.codificar(columna);
+                    this.posicionesCodigos[c] = ordenarDiccionario(this.columnasCodificadas[c].getDiccionario().getValores());
+                }
+                this.descendentes[c] = criterio.getValue();
+                c++;
+            }
+        }
+
+        @Override
+        public int getCantidadClaves() {
+            return this.descendentes.length;
+        }
+
+        @Override
+        public long getClave(int fila, int clave) {
+            long valor;
+            if (this.columnasNumericas[clave] != null) {
+                ColumnaNumerica columna = this.columnasNumericas[clave];
+                if (columna.esNulo(fila)) {
+                    valor = Long.MIN_VALUE;
+                } else {
+                    long bits = Double.doubleToLongBits(columna.getDouble(fila));
+                    valor = bits ^ ((bits >> 63) & Long.MAX_VALUE);
+                }
+            } else {
+                int codigo = this.columnasCodificadas[clave].getCodigo(fila);
+                valor = codigo < 0 ? Long.MIN_VALUE : this.posicionesCodigos[clave][codigo];
+            }
+            return this.descendentes[clave] ? ~valor : valor;
+        }
+
+        /**
+         * Se encarga de obtener la posición de cada código entre los valores ordenados de un diccionario,
+         * comparándolos numéricamente si todos son números.
+         */
+        private static int[] ordenarDiccionario(List<String> valores) {
+            double[] numeros = new double[valores.size()];
+            boolean sonNumeros = true;
+            for (int i = 0; i < numeros.length && sonNumeros; i++) {
+                try {
+                    numeros[i] = Double.parseDouble(valores.get(i));
+                } catch (NumberFormatException e) {
+                    sonNumeros = false;
+                }
+            }
+            Integer[] codigos = new Integer[valores.size()];
+            for (int i = 0; i < codigos.length; i++) {
+                codigos[i] = i;
+            }
+            Comparator<Integer> comparador = sonNumeros ? Comparator.comparingDouble(codigo -> numeros[codigo])
+                                                        : Comparator.comparing(valores::get);
+            Arrays.sort(codigos, comparador);
+
+            // Los valores iguales comparten posición
+            int[] posiciones = new int[codigos.length];
+            for (int i = 0; i < codigos.length; i++) {
+                boolean igualAnterior = i > 0 && comparador.compare(codigos[i - 1], codigos[i]) == 0;
+                posiciones[codigos[i]] = igualAnterior ? posiciones[codigos[i - 1]] : i;
+            }
+            return posiciones;
+        }
+    }
+
+}
@@ -1,10 +1,18 @@
 package Cubo.implementacionCubo;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import Cubo.tablasCubo.Columna;
+import Cubo.tablasCubo.ColumnaCodificada;
+import Cubo.tablasCubo.ColumnaDecimal;
+import Cubo.tablasCubo.ColumnaNumerica;
+import Cubo.tablasCubo.Diccionario;
 import Cubo.tablasCubo.Dimension;
 import Cubo.tablasCubo.Tabla;
-import java.util.LinkedHashMap;
 import java.util.ArrayList;
 
 /**
@@ -15,15 +23,44 @@ import java.util.ArrayList;
  * <p>
  * Implementa la interfaz {@link ComandoCubo}.
  * </p>
+ * 
+ * <p>
+ * El recorrido del cuerpo del cubo se divide en particiones de filas consecutivas de tamaño fijo, que se
+ * agregan por separado y luego se combinan de izquierda a derecha. Si se indica un {@link ForkJoinPool} las
+ * particiones se agregan en paralelo sobre el mismo. Como la división no depende de la cantidad de hilos, el
+ * resultado es el mismo tanto en el orden de los grupos como en el valor de los hechos agregados.
+ * </p>
+ * 
+ * <p>
+ * La operación puede aplicar una misma agregación a todos los hechos seleccionados, o una lista de agregaciones
+ * distinta a cada hecho. En el segundo caso todas las agregaciones se calculan en el mismo recorrido del cuerpo
+ * del cubo, y el resultado tiene una columna por cada par de hecho y agregación.
+ * </p>
+ * 
+ * <p>
+ * Si se indica un {@link RegistroAgregados}, antes de recorrer el cuerpo del cubo se busca en el mismo un resultado
+ * ya calculado a partir del cual pueda obtenerse el de esta operación, y el resultado calculado se guarda en él.
+ * </p>
  */
 class ComandoRollUp implements ComandoCubo{
 
+    // Cantidad de filas del cuerpo del cubo que agrega cada partición
+    private static final int FILAS_POR_PARTICION = 1 << 15;
+
     // Atributos de la clase ComandoRollUp
     private CuerpoCubo tablaOperacion;
     private List<String> nivelesOperacion;
     private List<String> hechosSeleccionados;
     private OperacionAgregacion agregacion;
+    private Map<String, List<OperacionAgregacion>> agregacionesPorHecho;
+    private List<String> columnasHechos;
+    private List<OperacionAgregacion> agregacionesHechos;
+    private List<String> headersHechos;
+    private int precisionBosquejos;
     private List<ComandoRollUp> historialRollUp;
+    private ForkJoinPool poolHilos;
+    private RegistroAgregados registro;
+    private String firmaFiltros;
 
     /**
      * <p>
@@ -38,28 +75,66 @@ class ComandoRollUp implements ComandoCubo{
      * @param criteriosAgregacion Un mapa que como clave tiene la dimensión y como valor el nivel al cual se quiere agrupar la misma.
      * @param hechosSeleccionados Los hechos que se verán involucrados en la operación.
      * @param agregacion La operación de agregación a aplicar.
+     * @param precisionBosquejos La precisión de los bosquejos {@link HyperLogLog} si la operación usa bosquejos.
      * @param historialRollUp El historial de operaciones RollUp aplicados sobre la instancia de Cubo que 
      *                        invoca esta clase.
+     * @param poolHilos El pool de hilos sobre el cual se agregan las particiones en paralelo, o null para
+     *                  agregarlas en el hilo que invoca la operación.
      */
     public ComandoRollUp(CuerpoCubo tablaOperacion, Map<Dimension, String> criteriosAgregacion, 
-                         List<String> hechosSeleccionados, OperacionAgregacion agregacion, List<ComandoRollUp> historialRollUp) {
+                         List<String> hechosSeleccionados, OperacionAgregacion agregacion, int precisionBosquejos,
+                         List<ComandoRollUp> historialRollUp, ForkJoinPool poolHilos) {
 
         // Guardo los argumentos y tabla de operación en los atributos de la clase
         this.tablaOperacion = tablaOperacion;
         this.agregacion = agregacion;
+        this.precisionBosquejos = precisionBosquejos;
         this.hechosSeleccionados = hechosSeleccionados;
         this.historialRollUp = historialRollUp;
+        this.poolHilos = poolHilos;
+        this.inicializarHechos();
 
         // Obtengo los niveles de la operacion
-        this.nivelesOperacion = new ArrayList<>();
-        for (Map.Entry<Dimension, String> entrada : criteriosAgregacion.entrySet()) {
-            Dimension dimension = entrada.getKey();
-            String nivel = entrada.getValue();
-            this.nivelesOperacion = ComandosUtils.obtenerNivelesOperacion(dimension, nivel, this.nivelesOperacion);
-        }
+        this.nivelesOperacion = obtenerNivelesOperacion(criteriosAgregacion);
 
     }
 
+    /**
+     * <p>
+     * <b>Constructor para la clase ComandoRollUp con una lista de agregaciones por hecho.</b>
+     * </p>
+     * 
+     * <p>
+     * Se encarga de recibir todos los argumentos del método junto con el cuerpo del cubo y su historial de operaciones.
+     * </p>
+     *
+     * @param tablaOperacion La tabla que se utilizará para llevar a cabo la operación.
+     * @param criteriosAgregacion Un mapa que como clave tiene la dimensión y como valor el nivel al cual se quiere agrupar la misma.
+     * @param agregacionesPorHecho Un mapa que como clave tiene cada hecho que se verá involucrado en la operación y como valor
+     *                             las operaciones de agregación que se le aplican.
+     * @param precisionBosquejos La precisión de los bosquejos {@link HyperLogLog} de los hechos cuya operación es COUNT_DISTINCT.
+     * @param historialRollUp El historial de operaciones RollUp aplicados sobre la instancia de Cubo que 
+     *                        invoca esta clase.
+     * @param poolHilos El pool de hilos sobre el cual se agregan las particiones en paralelo, o null para
+     *                  agregarlas en el hilo que invoca la operación.
+     */
+    public ComandoRollUp(CuerpoCubo tablaOperacion, Map<Dimension, String> criteriosAgregacion, 
+                         Map<String, List<OperacionAgregacion>> agregacionesPorHecho, int precisionBosquejos,
+                         List<ComandoRollUp> historialRollUp, ForkJoinPool poolHilos) {
+
+        // Guardo los argumentos y tabla de operación en los atributos de la clase
+        this.tablaOperacion = tablaOperacion;
+        this.agregacionesPorHecho = agregacionesPorHecho;
+        this.precisionBosquejos = precisionBosquejos;
+        this.hechosSeleccionados = new ArrayList<>(agregacionesPorHecho.keySet());
+        this.historialRollUp = historialRollUp;
+        this.poolHilos = poolHilos;
+        this.inicializarHechos();
+
+        // Obtengo los niveles de la operacion
+        this.nivelesOperacion = obtenerNivelesOperacion(criteriosAgregacion);
+    }
+
     /**
      * <p>
      * <b>Constructor de ayuda para la clase ComandoDrillDown.</b>
@@ -68,19 +143,142 @@ class ComandoRollUp implements ComandoCubo{
      * @param tablaOperacion La tabla que se utilizará para llevar a cabo la operación.
      * @param hechosSeleccionados Los hechos que se verán involucrados en la operación.
      * @param agregacion La operación de agregación a aplicar.
+     * @param precisionBosquejos La precisión de los bosquejos {@link HyperLogLog} si la operación usa bosquejos.
      * @param nivelesOperacion  Los niveles que se verán implicados en la operación de agrupación.
      * @param historialRollUp El historial de operaciones RollUp aplicados sobre la instancia de Cubo que 
      *                        invoca esta clase.
+     * @param poolHilos El pool de hilos sobre el cual se agregan las particiones en paralelo, o null para
+     *                  agregarlas en el hilo que invoca la operación.
      */
-    public ComandoRollUp(CuerpoCubo tablaOperacion, List<String> hechosSeleccionados, OperacionAgregacion agregacion, 
-                            List<String> nivelesOperacion, List<ComandoRollUp> historialRollUp) {
+    public ComandoRollUp(CuerpoCubo tablaOperacion, List<String> hechosSeleccionados, OperacionAgregacion agregacion, int precisionBosquejos,
+                            List<String> nivelesOperacion, List<ComandoRollUp> historialRollUp, ForkJoinPool poolHilos) {
 
         // Inicializo los atributos de la clase
         this.tablaOperacion = tablaOperacion;
         this.agregacion = agregacion;
+        this.precisionBosquejos = precisionBosquejos;
         this.hechosSeleccionados = hechosSeleccionados;
         this.nivelesOperacion = nivelesOperacion;
         this.historialRollUp = historialRollUp;
+        this.poolHilos = poolHilos;
+        this.inicializarHechos();
+    }
+
+    /**
+     * <p>
+     * <b>Constructor de ayuda para la clase ComandoDrillDown con una lista de agregaciones por hecho.</b>
+     * </p>
+     *
+     * @param tablaOperacion La tabla que se utilizará para llevar a cabo la operación.
+     * @param agregacionesPorHecho Un mapa que como clave tiene cada hecho que se verá involucrado en la operación y como valor
+     *                             las operaciones de agregación que se le aplican.
+     * @param precisionBosquejos La precisión de los bosquejos {@link HyperLogLog} de los hechos cuya operación es COUNT_DISTINCT.
+     * @param nivelesOperacion  Los niveles que se verán implicados en la operación de agrupación.
+     * @param historialRollUp El historial de operaciones RollUp aplicados sobre la instancia de Cubo que 
+     *                        invoca esta clase.
+     * @param poolHilos El pool de hilos sobre el cual se agregan las particiones en paralelo, o null para
+     *                  agregarlas en el hilo que invoca la operación.
+     */
+    public ComandoRollUp(CuerpoCubo tablaOperacion, Map<String, List<OperacionAgregacion>> agregacionesPorHecho, int precisionBosquejos,
+                            List<String> nivelesOperacion, List<ComandoRollUp> historialRollUp, ForkJoinPool poolHilos) {
+
+        // Inicializo los atributos de la clase
+        this.tablaOperacion = tablaOperacion;
+        this.agregacionesPorHecho = agregacionesPorHecho;
+        this.precisionBosquejos = precisionBosquejos;
+        this.hechosSeleccionados = new ArrayList<>(agregacionesPorHecho.keySet());
+        this.nivelesOperacion = nivelesOperacion;
+        this.historialRollUp = historialRollUp;
+        this.poolHilos = poolHilos;
+        this.inicializarHechos();
+    }
+
+    /**
+     * <p>
+     * <b>Constructor de ayuda para la clase RegistroAgregados.</b>
+     * </p>
+     * 
+     * <p>
+     * Se encarga de recibir por separado, para cada columna que resultará de la operación, la columna de la tabla que
+     * agrega, la operación que le aplica y su encabezado. La operación resultante no puede desagregarse.
+     * </p>
+     *
+     * @param tablaOperacion La tabla que se utilizará para llevar a cabo la operación.
+     * @param nivelesOperacion  Los niveles que se verán implicados en la operación de agrupación.
+     * @param columnasHechos El nombre de la columna de la tabla que agrega cada columna resultante.
+     * @param agregacionesHechos La operación de agregación que se aplica en cada columna resultante.
+     * @param headersHechos El encabezado de cada columna resultante.
+     * @param precisionBosquejos La precisión de los bosquejos {@link HyperLogLog} nuevos de las columnas cuya operación es COUNT_DISTINCT.
+     * @param historialRollUp El historial en el cual se registra la operación.
+     * @param poolHilos El pool de hilos sobre el cual se agregan las particiones en paralelo, o null para
+     *                  agregarlas en el hilo que invoca la operación.
+     */
+    public ComandoRollUp(CuerpoCubo tablaOperacion, List<String> nivelesOperacion, List<String> columnasHechos,
+                         List<OperacionAgregacion> agregacionesHechos, List<String> headersHechos, int precisionBosquejos,
+                         List<ComandoRollUp> historialRollUp, ForkJoinPool poolHilos) {
+
+        // Inicializo los atributos de la clase
+        this.tablaOperacion = tablaOperacion;
+        this.precisionBosquejos = precisionBosquejos;
+        this.hechosSeleccionados = new ArrayList<>(columnasHechos);
+        this.columnasHechos = columnasHechos;
+        this.agregacionesHechos = agregacionesHechos;
+        this.headersHechos = headersHechos;
+        this.nivelesOperacion = nivelesOperacion;
+        this.historialRollUp = historialRollUp;
+        this.poolHilos = poolHilos;
+    }
+
+    /**
+     * Indica el registro de resultados en el cual se busca el resultado de esta operación antes de recorrer el cuerpo
+     * del cubo, y en el cual se guarda el resultado calculado. Solo debe indicarse si la tabla de la operación es el
+     * cuerpo base del cubo con sus filtros aplicados.
+     *
+     * @param registro El registro de resultados de operaciones RollUp del cubo.
+     * @param firmaFiltros La firma de las operaciones Dice y Slice aplicadas sobre la tabla de la operación.
+     */
+    public void usarRegistro(RegistroAgregados registro, String firmaFiltros) {
+        this.registro = registro;
+        this.firmaFiltros = firmaFiltros;
+    }
+
+    /**
+     * Se encarga de obtener los niveles de la operación a partir de los criterios de agregación.
+     */
+    private static List<String> obtenerNivelesOperacion(Map<Dimension, String> criteriosAgregacion) {
+        List<String> nivelesOperacion = new ArrayList<>();
+        for (Map.Entry<Dimension, String> entrada : criteriosAgregacion.entrySet()) {
+            Dimension dimension = entrada.getKey();
+            String nivel = entrada.getValue();
+            nivelesOperacion = ComandosUtils.obtenerNivelesOperacion(dimension, nivel, nivelesOperacion);
+        }
+        return nivelesOperacion;
+    }
+
+    /**
+     * Se encarga de armar, para cada columna que resultará de la operación, el hecho que agrega, la operación
+     * que le aplica y su encabezado. Con una única agregación cada columna conserva el nombre de su hecho, y con
+     * una lista de agregaciones por hecho se nombra como el hecho seguido de la operación, por ejemplo "costo_max".
+     */
+    private void inicializarHechos() {
+        this.columnasHechos = new ArrayList<>();
+        this.agregacionesHechos = new ArrayList<>();
+        this.headersHechos = new ArrayList<>();
+        if (this.agregacionesPorHecho == null) {
+            for (String hecho : this.hechosSeleccionados) {
+                this.columnasHechos.add(hecho);
+                this.agregacionesHechos.add(this.agregacion);
+                this.headersHechos.add(hecho);
+            }
+            return;
+        }
+        for (Map.Entry<String, List<OperacionAgregacion>> entrada : this.agregacionesPorHecho.entrySet()) {
+            for (OperacionAgregacion agregacionHecho : entrada.getValue()) {
+                this.columnasHechos.add(entrada.getKey());
+                this.agregacionesHechos.add(agregacionHecho);
+                this.headersHechos.add(entrada.getKey() + "_" + agregacionHecho.getOperacion());
+            }
+        }
     }
 
     /**
@@ -92,252 +290,312 @@ class ComandoRollUp implements ComandoCubo{
         // Añado al historial el comando antes de ejecutarlo
         this.historialRollUp.add(this);
 
-        // Primero agrupo según 'nivelesOperacion'        
-         Map<List<String>, List<List<String>>> mapaAgrupacion = groupBy(this.tablaOperacion, this.nivelesOperacion, this.hechosSeleccionados);
+        // Si el registro tiene un resultado a partir del cual se puede obtener el de esta operación,
+        // lo uso en lugar de recorrer la tabla
+        if (this.registro != null) {
+            CuerpoCubo resultadoRegistrado = this.registro.resolver(this, this.firmaFiltros, this.poolHilos);
+            if (resultadoRegistrado != null) {
+                this.tablaOperacion = resultadoRegistrado;
+                return;
+            }
+        }
 
-        // Convierto las listas de los hechos agrupados a tipo Double
-        Map<List<String>, List<List<Double>>> mapaOperable = convertirAListasDouble(mapaAgrupacion);
+        // Obtengo las columnas codificadas de 'nivelesOperacion'
+        List<ColumnaCodificada> columnasAgrupacion = obtenerColumnasCodificadas(this.tablaOperacion, this.nivelesOperacion);
 
-        // Aplico la operación de agregación elegida
-        Map<List<String>, List<Double>> mapaAgregado = aplicarAgregacion(mapaOperable);
+        // Agrupo según los códigos de 'nivelesOperacion' aplicando la operación de agregación elegida
+        // en una única pasada, leyendo los hechos directamente de sus columnas
+        HechosAgregados hechos = obtenerHechosAgregados(this.tablaOperacion, this.columnasHechos, this.agregacionesHechos, this.precisionBosquejos);
+        TablaAgregacion tablaAgregacion = agregar(this.tablaOperacion, columnasAgrupacion, hechos, this.poolHilos);
 
-        // Vuelvo a convertir las listas de los hechos ahora agregados para unirlos a la información
+        // Organizo los grupos y los hechos ya agregados en columnas para unirlos a la información
         // interna del cubo
-        List<List<String>> operacionResultante = convertirAListaString(mapaAgregado);
+        List<Columna> operacionResultante = convertirAColumnas(tablaAgregacion, columnasAgrupacion, hechos);
 
         // Guardo los headers de la operación
         List<String> headersOperacion = obtenerHeadersOperacion();
 
         // Actualizo el estado interno del cubo
-        this.tablaOperacion = new CuerpoCubo(operacionResultante, headersOperacion, this.hechosSeleccionados);
+        this.tablaOperacion = new CuerpoCubo(operacionResultante, headersOperacion, this.headersHechos);
+
+        // Guardo el resultado en el registro para poder reutilizarlo
+        if (this.registro != null) {
+            this.registro.registrar(this, this.firmaFiltros, this.tablaOperacion);
+        }
     }
 
 
     // Métodos de ayuda para método ejecutar()
 
     /**
-     * Se encarga de agrupar la información contenida en el cuerpo del cubo.
+     * Se encarga de agrupar la información contenida en el cuerpo del cubo, acumulando los hechos de cada
+     * grupo a medida que se recorren las filas de cada partición y combinando luego los resultados de las particiones.
      *
      * @param tablaOperacion La tabla sobre la que se realiza la operación de agrupación.
-     * @param columnasAgrupadoras Las columnas por las que se va a agrupar.
-     * @param columnasAgrupadas Las columnas que se van a agrupar.
+     * @param columnasAgrupacion Las columnas codificadas por las que se va a agrupar.
+     * @param hechos Los hechos que se van a agrupar junto con la operación de agregación de cada uno.
+     * @param poolHilos El pool de hilos sobre el cual se agregan las particiones, o null para agregarlas en este hilo.
      * 
-     * @return Un mapa que como clave tiene las columnas que agrupan y como valor las columnas ya agrupadas.
+     * @return Una tabla que contiene, para cada grupo en el orden en que aparece, los códigos de las columnas
+     *         que agrupan y el resultado de la agregación de los valores no nulos de las columnas agrupadas.
      */
-    private static Map<List<String>, List<List<String>>> groupBy(Tabla tablaOperacion, List<String> columnasAgrupadoras, List<String> columnasAgrupadas) {
-
-        // Guardo los indices de las columnas que agrupan
-        List<Integer> indicesAgrupacion = obtenerIndicesColumnas(tablaOperacion, columnasAgrupadoras);
-        // Guardo los indices de las columnas a agrupar
-        List<Integer> indicesAgrupados = obtenerIndicesColumnas(tablaOperacion, columnasAgrupadas);
-
-        // Armo un mapa vacío que guardará los resultados y recorro las filas de la tabla
-        Map<List<String>, List<List<String>>> mapaAgrupacion = new LinkedHashMap<>();
-        for (List<String> fila : tablaOperacion.getDatosTabla()) {
-                // Creo la clave del grupo
-                List<String> clave = obtenerClaveGrupo(fila, indicesAgrupacion);
-
-                // Verifico si la clave no está en 'mapaAgrupacion'
-                if (!mapaAgrupacion.containsKey(clave)) {
-                    // Armo la lista para las columnas a agrupar
-                    List<List<String>> listaColsAgrupar = new ArrayList<>();
-                    mapaAgrupacion.put(clave, listaColsAgrupar);
-
-                    // Y dentro de 'listaColsAgrupar' añado una lista por cada columna en la lista de las que voy a agrupar
-                    inicializarListasAgrupadas(listaColsAgrupar, indicesAgrupados.size());
-                }
+    private static TablaAgregacion agregar(Tabla tablaOperacion, List<ColumnaCodificada> columnasAgrupacion, HechosAgregados hechos,
+                                           ForkJoinPool poolHilos) {
 
-                // Ahora recorro las columnas a agrupar y las agrego a su lista correspondiente
-                agregarColumnasAgrupadas(mapaAgrupacion, clave, fila, indicesAgrupados);
+        // Divido las filas de la tabla en particiones, siempre hay al menos una aunque la tabla esté vacía
+        int cantidadFilas = tablaOperacion.getCantidadFilas();
+        int cantidadParticiones = Math.max(1, (cantidadFilas + FILAS_POR_PARTICION - 1) / FILAS_POR_PARTICION);
 
-        }
+        // Agrego las particiones, en paralelo solo si hay un pool de hilos y más de una partición
+        boolean paralelo = poolHilos != null && cantidadParticiones > 1;
+        AgregacionParticiones tarea = new AgregacionParticiones(hechos, new CodificadorClaveGrupo(columnasAgrupacion),
+                                                                cantidadFilas, 0, cantidadParticiones, paralelo);
 
-        // Retorno el mapa con los datos agrupados
-        return mapaAgrupacion;
+        // Retorno la tabla con los datos agrupados y agregados
+        return paralelo ? poolHilos.invoke(tarea) : tarea.compute();
 
     }
 
     /**
-     * Se encarga de obtener los índices de las columnas en la tabla.
+     * Se encarga de agregar las filas de una única partición en una tabla de agregación propia.
      *
-     * @param tablaOperacion La tabla sobre la que se realiza la operación.
-     * @param columnas Una lista que contiene las columnas para las cuales se 
-     *                 quiere obtener su índice.
+     * @param hechos Los hechos a agregar junto con la operación de agregación de cada uno.
+     * @param codificador El codificador que arma la clave del grupo de cada fila.
+     * @param desde El índice de la primera fila de la partición.
+     * @param hasta El índice siguiente a la última fila de la partición.
      * 
-     * @return Una lista que contiene los índices de las columnas solicitadas.
+     * @return La tabla con los grupos de la partición en el orden en que aparecen.
      */
-    private static List<Integer> obtenerIndicesColumnas(Tabla tablaOperacion, List<String> columnas) {
-        List<Integer> indices = new ArrayList<>();
-        for (String columna : columnas) {
-                indices.add(tablaOperacion.getHeaders().indexOf(columna));
+    private static TablaAgregacion agregarParticion(HechosAgregados hechos, CodificadorClaveGrupo codificador, int desde, int hasta) {
+
+        // Armo una tabla vacía que guardará los resultados y obtengo el grupo de cada fila de la partición,
+        // agregándolo a la tabla si es nuevo
+        TablaAgregacion tablaAgregacion = new TablaAgregacion(hechos.agregaciones, codificador, hechos.precisiones, hechos.escalas);
+        int cantidad = hasta - desde;
+        int[] grupos = new int[cantidad];
+        for (int fila = desde; fila < hasta; fila++) {
+            grupos[fila - desde] = tablaAgregacion.obtenerGrupo(fila);
+        }
+
+        // Ahora recorro cada columna a agrupar en bloque y acumulo sus valores no nulos en los grupos. Si varias
+        // agregaciones seguidas usan la misma columna, sus valores se copian una única vez. Los hechos decimales que
+        // se acumulan en unidades se copian como long, sin convertirlos a double
+        long[] nulos = new long[(cantidad + 63) >>> 6];
+        double[] valores = null;
+        long[] unidades = null;
+        long[] hashes = null;
+        Columna columnaCopiada = null;
+        Columna columnaUnidadesCopiada = null;
+        boolean hayNulos = false;
+        for (int i = 0; i < hechos.columnas.length; i++) {
+            Columna columna = hechos.columnas[i];
+            if (hechos.escalas[i] >= 0) {
+                if (columna != columnaUnidadesCopiada) {
+                    ColumnaDecimal columnaDecimal = (ColumnaDecimal) columna;
+                    unidades = unidades == null ? new long[cantidad] : unidades;
+                    columnaDecimal.copiarUnidades(desde, hasta, unidades);
+                    hayNulos = columnaDecimal.marcarNulos(desde, hasta, nulos);
+                    columnaUnidadesCopiada = columna;
+                    columnaCopiada = null;
+                }
+                tablaAgregacion.acumularBloque(i, grupos, unidades, hayNulos ? nulos : null, cantidad);
+            } else if (hechos.agregaciones[i] != OperacionAgregacion.COUNT_DISTINCT) {
+                if (columna != columnaCopiada) {
+                    ColumnaNumerica columnaNumerica = (ColumnaNumerica) columna;
+                    valores = valores == null ? new double[cantidad] : valores;
+                    columnaNumerica.copiarValores(desde, hasta, valores);
+                    hayNulos = columnaNumerica.marcarNulos(desde, hasta, nulos);
+                    columnaCopiada = columna;
+                    columnaUnidadesCopiada = null;
+                }
+                tablaAgregacion.acumularBloque(i, grupos, valores, hayNulos ? nulos : null, cantidad);
+            } else if (columna instanceof ColumnaBosquejos) {
+                // Los bosquejos ya calculados se combinan directamente
+                tablaAgregacion.combinarBosquejos(i, grupos, ((ColumnaBosquejos) columna).getRegistros(), desde, cantidad);
+            } else {
+                hashes = hashes == null ? new long[cantidad] : hashes;
+                boolean hayNulosHashes = obtenerHashes(hechos, i, desde, hasta, hashes, nulos);
+                tablaAgregacion.acumularHashes(i, grupos, hashes, hayNulosHashes ? nulos : null, cantidad);
+                columnaCopiada = null;
+                columnaUnidadesCopiada = null;
+            }
         }
-        return indices;
+        return tablaAgregacion;
     }
 
     /**
-     * Se encarga de obtener la clave del mapa de agrupación, la cual representa las columnas que agrupan.
+     * Se encarga de calcular el hash del valor de un hecho en cada fila de un rango, marcando las filas nulas.
      *
-     * @param fila Una lista que representa la fila de datos sobre la cual se obtienen las claves de agrupación.
-     * @param indicesAgrupacion Una lista que contiene de las columnas de agrupación.
+     * @param hechos Los hechos a agregar.
+     * @param hecho La posición del hecho entre los hechos a agregar.
+     * @param desde El índice de la primera fila del rango.
+     * @param hasta El índice siguiente a la última fila del rango.
+     * @param hashes El arreglo en el cual se guarda el hash de cada fila del rango.
+     * @param nulos El mapa de bits en el cual se marcan las filas nulas del rango.
      * 
-     * @return Una lista que contiene la clave de agrupación para las filas que coinciden.
+     * @return true si alguna fila del rango es nula, false de lo contrario.
      */
-    private static List<String> obtenerClaveGrupo(List<String> fila, List<Integer> indicesAgrupacion) {
-        List<String> clave = new ArrayList<>();
-        for (int indiceColumna : indicesAgrupacion) {
-                clave.add(fila.get(indiceColumna));
+    private static boolean obtenerHashes(HechosAgregados hechos, int hecho, int desde, int hasta, long[] hashes, long[] nulos) {
+        Columna columna = hechos.columnas[hecho];
+        if (columna instanceof ColumnaNumerica) {
+            ColumnaNumerica columnaNumerica = (ColumnaNumerica) columna;
+            for (int fila = desde; fila < hasta; fila++) {
+                hashes[fila - desde] = HyperLogLog.hash(columnaNumerica.getDouble(fila));
+            }
+            return columnaNumerica.marcarNulos(desde, hasta, nulos);
         }
-        return clave;
-    }
 
-    /**
-     * Se encarga de inicializar las listas donde se guardan las columnas agrupadas.
-     *
-     * @param listaColsAgrupar Una lista que contiene todas las listas de columnas agrupadas.
-     * @param size La cantidad de listas a inicializar.
-     */
-    private static void inicializarListasAgrupadas(List<List<String>> listaColsAgrupar, int size) {
-        for (int i = 0; i < size; i++) {
-                listaColsAgrupar.add(new ArrayList<>());
+        // Las columnas codificadas usan el hash ya calculado de cada valor de su diccionario
+        ColumnaCodificada columnaCodificada = (ColumnaCodificada) columna;
+        long[] hashesCodigos = hechos.hashesCodigos[hecho];
+        Arrays.fill(nulos, 0L);
+        boolean hayNulos = false;
+        for (int fila = desde; fila < hasta; fila++) {
+            int codigo = columnaCodificada.getCodigo(fila);
+            int posicion = fila - desde;
+            if (codigo < 0) {
+                nulos[posicion >>> 6] |= 1L << posicion;
+                hayNulos = true;
+            } else {
+                hashes[posicion] = hashesCodigos[codigo];
+            }
         }
+        return hayNulos;
     }
 
     /**
-     * Se encarga de agregar las columnas agrupadas a su lista de agrupación correspondiente.
+     * Se encarga de obtener las columnas de la tabla que se ven implicadas en la operación.
      *
-     * @param mapaAgrupacion El mapa de agrupación.
-     * @param clave Una lista que representa la clave del mapa de agrupación.
-     * @param fila Una lista que representa la fila de datos sobre la cual se obtienen las columnas agrupadas.
-     * @param indicesAgrupados Una lista que contiene los índices de las columnas agrupadas.
+     * @param tablaOperacion La tabla sobre la que se realiza la operación.
+     * @param columnas Una lista que contiene los nombres de las columnas que se 
+     *                 quieren obtener.
+     * 
+     * @return Una lista que contiene las columnas solicitadas.
      */
-    private static void agregarColumnasAgrupadas(Map<List<String>, List<List<String>>> mapaAgrupacion, List<String> clave, List<String> fila, List<Integer> indicesAgrupados) {
-        for (int i = 0; i < indicesAgrupados.size(); i++) {
-                int indiceAgrupado = indicesAgrupados.get(i);
-                mapaAgrupacion.get(clave).get(i).add(fila.get(indiceAgrupado));
+    private static List<Columna> obtenerColumnas(Tabla tablaOperacion, List<String> columnas) {
+        List<Columna> columnasTabla = new ArrayList<>();
+        for (String columna : columnas) {
+            columnasTabla.add(tablaOperacion.getColumnaTabla(columna));
         }
+        return columnasTabla;
     }
 
     /**
-     * Se encarga de convertir las listas contenidas en el mapa de la agrupación a tipo Double.
+     * Se encarga de obtener las columnas codificadas que agrupan en la operación, 
+     * codificando aquellas que todavía no lo estén.
      *
-     * @param mapaAgrupacion El mapa que contiene la información agrupada.
+     * @param tablaOperacion La tabla sobre la que se realiza la operación.
+     * @param columnas Una lista que contiene los nombres de las columnas que agrupan.
      * 
-     * @return Un nuevo mapa con las mismas claves pero que en sus valores tiene listas de tipo Double.
+     * @return Una lista que contiene las columnas codificadas solicitadas.
      */
-    private Map<List<String>, List<List<Double>>> convertirAListasDouble(Map<List<String>, List<List<String>>> mapaAgrupacion) {
-
-        // Creo un mapa para guardar la operación resultante
-        Map<List<String>, List<List<Double>>> mapaOperable = new LinkedHashMap<>();
-    
-        // Itero sobre el mapa de agrupación
-        for (Map.Entry<List<String>, List<List<String>>> entrada : mapaAgrupacion.entrySet()) {
-            // Obtengo la clave y los valores del mapa
-            List<String> clave = entrada.getKey();
-            List<List<String>> listasAgrupadosString = entrada.getValue();
-    
-            // Creo una lista de listas de valores Double para guardar los valores convertidos
-            List<List<Double>> listasAgrupadosDouble = new ArrayList<>();
-    
-            // Itero sobre las listas de valores String
-            for (List<String> listaString : listasAgrupadosString) {
-                // Creo una lista para guardar los valores Double
-                List<Double> listaDouble = new ArrayList<>();
-    
-                // Itero sobre los valores de tipo String
-                for (String valorString : listaString) {
-                    // Verifico si el valor String no es null
-                    if (valorString != null) {
-                        // Convierto el valor de tipo String a tipo Double y lo agrego a la lista
-                        Double valorDouble = Double.parseDouble(valorString);
-                        listaDouble.add(valorDouble);
-                    }
-                }
-    
-                // Agrego la lista de valores Double a la lista de listas de valores Double
-                listasAgrupadosDouble.add(listaDouble);
-            }
-    
-            // Agrego las claves y la lista de listas de valores Double al mapa operable
-            mapaOperable.put(clave, listasAgrupadosDouble);
+    private static List<ColumnaCodificada> obtenerColumnasCodificadas(Tabla tablaOperacion, List<String> columnas) {
+        List<ColumnaCodificada> columnasCodificadas = new ArrayList<>();
+        for (Columna columna : obtenerColumnas(tablaOperacion, columnas)) {
+            columnasCodificadas.add(ColumnaCodificada.codificar(columna));
         }
-    
-        // Retorno el mapa operable con listas de valores Double
-        return mapaOperable;
+        return columnasCodificadas;
     }
 
     /**
-     * Se encarga de aplicar la operación de agregación a las listas de información agrupada.
+     * <p>
+     * Se encarga de obtener las columnas de los hechos que se agrupan en la operación.
+     * </p>
+     * 
+     * <p>
+     * Si la operación de un hecho no es COUNT_DISTINCT su columna se convierte a columna numérica, una única vez aunque
+     * el hecho tenga varias operaciones. Si lo es, cualquier columna puede agregarse: las columnas numéricas y las que
+     * ya contienen bosquejos se usan tal cual, y el resto se codifica calculando una única vez el hash de cada valor
+     * de su diccionario. Los hechos decimales de punto fijo cuya operación es SUM, MAX o MIN se acumulan en unidades, y
+     * se registra qué resultados son números enteros para que se muestren como tales.
+     * </p>
      *
-     * @param mapaOperable El mapa que contiene la información agrupada y los valores del mismo convertidos a listas 
-     *                     de tipo Double.
+     * @param tablaOperacion La tabla sobre la que se realiza la operación.
+     * @param columnas Una lista que contiene los nombres de las columnas a agrupar.
+     * @param agregaciones Una lista que contiene la operación de agregación a aplicar sobre cada columna.
+     * @param precisionBosquejos La precisión de los bosquejos nuevos de las columnas cuya operación es COUNT_DISTINCT.
      * 
-     * @return El mapa con la operación de agregación aplicada.
+     * @return Los hechos a agregar.
      */
-    private Map<List<String>, List<Double>> aplicarAgregacion(Map<List<String>, List<List<Double>>> mapaOperable) {
-        
-        // Creo un mapa para guardar la operación resultante e itero sobre el mapa operable
-        Map<List<String>, List<Double>> mapaAgregado = new LinkedHashMap<>();
-        for (Map.Entry<List<String>, List<List<Double>>> entrada : mapaOperable.entrySet()) {
-
-            // Obtengo la clave y los valores del mapa
-            List<String> clave = entrada.getKey();
-            List<List<Double>> listasHechos = entrada.getValue();
-
-            // Creo una lista para guardar las operaciones de agregación
-            List<Double> operaciones = new ArrayList<>();
-
-            // Itero sobre las listas de hechos seleccionados
-            for (List<Double> lista : listasHechos) {
-
-                // Realizo la operación de agregación correspondiente
-                double resultado = this.agregacion.aplicar(lista);
-                operaciones.add(resultado);
+    private static HechosAgregados obtenerHechosAgregados(Tabla tablaOperacion, List<String> columnas, List<OperacionAgregacion> agregaciones,
+                                                          int precisionBosquejos) {
+        Columna[] columnasHechos = new Columna[columnas.size()];
+        long[][] hashesCodigos = new long[columnas.size()][];
+        int[] precisiones = new int[columnas.size()];
+        int[] escalas = new int[columnas.size()];
+        Arrays.fill(escalas, -1);
+        boolean[] enteros = new boolean[columnas.size()];
+        Map<String, ColumnaNumerica> columnasNumericas = new HashMap<>();
+        for (int i = 0; i < columnasHechos.length; i++) {
+            if (agregaciones.get(i) != OperacionAgregacion.COUNT_DISTINCT) {
+                ColumnaNumerica columnaNumerica = columnasNumericas.computeIfAbsent(columnas.get(i),
+                                                                                    hecho -> ColumnaNumerica.parsear(tablaOperacion.getColumnaTabla(hecho)));
+                enteros[i] = agregaciones.get(i).conservaEnteros(columnaNumerica.esEntera());
+                if (columnaNumerica instanceof ColumnaDecimal && agregaciones.get(i).admiteUnidades()) {
+                    escalas[i] = ((ColumnaDecimal) columnaNumerica).getEscala();
+                }
+                columnasHechos[i] = columnaNumerica;
+                continue;
             }
-
-            // Agrego las claves y las operaciones al mapa de operación
-            mapaAgregado.put(clave, operaciones);
+            Columna columna = tablaOperacion.getColumnaTabla(columnas.get(i));
+            precisiones[i] = precisionBosquejos;
+            if (columna instanceof ColumnaBosquejos) {
+                // Los bosquejos ya calculados conservan su precisión para poder combinarse
+                precisiones[i] = ((ColumnaBosquejos) columna).getPrecision();
+            } else if (!(columna instanceof ColumnaNumerica)) {
+                ColumnaCodificada columnaCodificada = ColumnaCodificada.codificar(columna);
+                Diccionario diccionario = columnaCodificada.getDiccionario();
+                hashesCodigos[i] = new long[diccionario.getCantidad()];
+                for (int codigo = 0; codigo < hashesCodigos[i].length; codigo++) {
+                    hashesCodigos[i][codigo] = HyperLogLog.hash(diccionario.getValor(codigo));
+                }
+                columna = columnaCodificada;
+            }
+            columnasHechos[i] = columna;
         }
-
-        // Retorno el mapa de operación con la operación de agregación aplicada
-        return mapaAgregado;
+        return new HechosAgregados(columnasHechos, agregaciones.toArray(new OperacionAgregacion[0]), hashesCodigos, precisiones, escalas, enteros);
     }
 
     /**
-     * Se encarga de convertir la información contenida en el mapa de la agrupación ya con su operación de agregación aplicada
-     * de vuelta a listas de tipo String.
+     * Se encarga de organizar la información contenida en la tabla de agregación en columnas, una por cada
+     * nivel de agrupación y una por cada hecho agregado.
      *
-     * @param mapaAgregado El mapa que contiene la información agrupada y agregada.
+     * @param tablaAgregacion La tabla que contiene la información agrupada y agregada.
+     * @param columnasAgrupacion Las columnas codificadas que agruparon, cuyos diccionarios se reutilizan
+     *                           en las columnas de niveles resultantes.
+     * @param hechos Los hechos agregados, que indican qué resultados son números enteros.
      * 
-     * @return La lista de listas de String que contiene la información agregada.
+     * @return La lista de columnas que contiene la información agregada.
      */
-    private List<List<String>> convertirAListaString(Map<List<String>, List<Double>> mapaAgregado) {
+    private List<Columna> convertirAColumnas(TablaAgregacion tablaAgregacion, List<ColumnaCodificada> columnasAgrupacion, HechosAgregados hechos) {
         
-        // Creo una lista de listas de String para guardar la operación resultante
-        // e itero sobre el mapa agregado
-        List<List<String>> operacionResultante = new ArrayList<>();
-        for (Map.Entry<List<String>, List<Double>> entrada : mapaAgregado.entrySet()) {
-
-            // Obtengo la clave y los valores del mapa
-            List<String> clave = entrada.getKey();
-            List<Double> valoresAgrupados = entrada.getValue();
-
-            // Creo una nueva lista para guardar los valores parseados
-            List<String> filaString = new ArrayList<>();
-
-            // Convierto los valores double a String
-            for (Double valorAgrupado : valoresAgrupados) {
-                filaString.add(String.valueOf(valorAgrupado));
+        // Creo los arreglos que guardarán los códigos de cada columna de niveles, completando una fila por cada grupo
+        int cantidadGrupos = tablaAgregacion.getCantidadGrupos();
+        int[][] codigosNiveles = new int[columnasAgrupacion.size()][cantidadGrupos];
+        for (int fila = 0; fila < cantidadGrupos; fila++) {
+            for (int j = 0; j < codigosNiveles.length; j++) {
+                codigosNiveles[j][fila] = tablaAgregacion.getCodigo(fila, j);
             }
+        }
 
-            // Creo una nueva fila con la clave y los valores parseados
-            List<String> fila = new ArrayList<>(clave);
-            fila.addAll(filaString);
-
-            // Agrego la fila a la lista 'operacionResultante'
-            operacionResultante.add(fila);
+        // Armo la lista de columnas respetando el orden de los encabezados de la operación
+        List<Columna> operacionResultante = new ArrayList<>();
+        for (int j = 0; j < codigosNiveles.length; j++) {
+            operacionResultante.add(new ColumnaCodificada(codigosNiveles[j], columnasAgrupacion.get(j).getDiccionario()));
+        }
+        for (int j = 0; j < this.agregacionesHechos.size(); j++) {
+            if (this.agregacionesHechos.get(j) == OperacionAgregacion.COUNT_DISTINCT) {
+                operacionResultante.add(new ColumnaBosquejos(tablaAgregacion.getRegistros(j), tablaAgregacion.getPrecision(j)));
+            } else if (tablaAgregacion.acumulaUnidades(j)) {
+                operacionResultante.add(new ColumnaDecimal(tablaAgregacion.getUnidades(j), tablaAgregacion.getGruposSinValores(j),
+                                                            tablaAgregacion.getEscala(j)));
+            } else {
+                operacionResultante.add(new ColumnaNumerica(tablaAgregacion.getValores(j), tablaAgregacion.getGruposSinValores(j),
+                                                             hechos.enteros[j]));
+            }
         }
 
-        // Retorno la lista de listas de String
+        // Retorno la lista de columnas
         return operacionResultante;
     }
 
@@ -351,8 +609,8 @@ class ComandoRollUp implements ComandoCubo{
         // Creo una lista con los niveles de operación
         List<String> headersOperacion = new ArrayList<>(this.nivelesOperacion);
 
-        // Agrego los hechos seleccionados a la lista
-        headersOperacion.addAll(this.hechosSeleccionados);
+        // Agrego los encabezados de los hechos agregados a la lista
+        headersOperacion.addAll(this.headersHechos);
 
         // Devuelvo la lista de headers resultante
         return headersOperacion;
@@ -377,6 +635,28 @@ class ComandoRollUp implements ComandoCubo{
         return this.historialRollUp;
     }
 
+    /**
+     * @return La operación de agregación aplicada en este método, o null si se aplicó una lista de agregaciones por hecho.
+     */
+    public OperacionAgregacion getAgregacion(){
+        return this.agregacion;
+    }
+
+    /**
+     * @return Un mapa que como clave tiene cada hecho y como valor las operaciones de agregación que se le aplicaron
+     *         en este método, o null si se aplicó una única agregación a todos los hechos.
+     */
+    public Map<String, List<OperacionAgregacion>> getAgregacionesPorHecho(){
+        return this.agregacionesPorHecho;
+    }
+
+    /**
+     * @return La precisión de los bosquejos {@link HyperLogLog} si la operación de agregación usa bosquejos.
+     */
+    public int getPrecisionBosquejos(){
+        return this.precisionBosquejos;
+    }
+
     /**
      * @return Una lista que contiene los niveles de las dimensiones que se 
      *        vieron implicadas en la ejecución de este método.
@@ -393,4 +673,112 @@ class ComandoRollUp implements ComandoCubo{
         return new ArrayList<>(this.hechosSeleccionados);
     }
 
+    /**
+     * @return Una lista que contiene, para cada columna de hechos resultante, el hecho que agrega.
+     */
+    public List<String> getColumnasHechos(){
+        return new ArrayList<>(this.columnasHechos);
+    }
+
+    /**
+     * @return Una lista que contiene, para cada columna de hechos resultante, la operación de agregación que le aplica.
+     */
+    public List<OperacionAgregacion> getAgregacionesHechos(){
+        return new ArrayList<>(this.agregacionesHechos);
+    }
+
+    /**
+     * @return Una lista que contiene el encabezado de cada columna de hechos resultante.
+     */
+    public List<String> getHeadersHechos(){
+        return new ArrayList<>(this.headersHechos);
+    }
+
+
+    /**
+     * <p>
+     * Esta clase representa la agregación de un rango de particiones consecutivas del cuerpo del cubo.
+     * </p>
+     * 
+     * <p>
+     * El rango se divide a la mitad hasta llegar a una única partición, y el resultado de la mitad derecha
+     * se combina siempre sobre el de la mitad izquierda, por lo que los grupos quedan ordenados según su
+     * primera aparición en el cuerpo del cubo sin importar el orden en que terminen las particiones.
+     * </p>
+     */
+    private static class AgregacionParticiones extends RecursiveTask<TablaAgregacion> {
+
+        // Atributos de la clase AgregacionParticiones
+        private final HechosAgregados hechos;
+        private final CodificadorClaveGrupo codificador;
+        private final int cantidadFilas;
+        private final int desde;
+        private final int hasta;
+        private final boolean paralelo;
+
+        AgregacionParticiones(HechosAgregados hechos, CodificadorClaveGrupo codificador, int cantidadFilas, int desde, int hasta,
+                              boolean paralelo) {
+            this.hechos = hechos;
+            this.codificador = codificador;
+            this.cantidadFilas = cantidadFilas;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.paralelo = paralelo;
+        }
+
+        @Override
+        protected TablaAgregacion compute() {
+
+            // Si el rango tiene una única partición la agrego directamente
+            if (this.hasta - this.desde == 1) {
+                int primeraFila = this.desde * FILAS_POR_PARTICION;
+                int ultimaFila = Math.min(primeraFila + FILAS_POR_PARTICION, this.cantidadFilas);
+                return agregarParticion(this.hechos, this.codificador, primeraFila, ultimaFila);
+            }
+
+            // Si no, divido el rango a la mitad y combino la mitad derecha sobre la izquierda
+            int mitad = (this.desde + this.hasta) >>> 1;
+            AgregacionParticiones izquierda = new AgregacionParticiones(this.hechos, this.codificador, this.cantidadFilas,
+                                                                        this.desde, mitad, this.paralelo);
+            AgregacionParticiones derecha = new AgregacionParticiones(this.hechos, this.codificador, this.cantidadFilas,
+                                                                      mitad, this.hasta, this.paralelo);
+            TablaAgregacion resultado;
+            if (this.paralelo) {
+                derecha.fork();
+                resultado = izquierda.compute();
+                resultado.combinar(derecha.join());
+            } else {
+                resultado = izquierda.compute();
+                resultado.combinar(derecha.compute());
+            }
+            return resultado;
+        }
+    }
+
+
+    /**
+     * Esta clase reúne las columnas de los hechos a agregar y la operación de agregación de cada una, junto con la
+     * información que necesitan las operaciones que usan bosquejos.
+     */
+    private static class HechosAgregados {
+
+        // Atributos de la clase HechosAgregados
+        private final Columna[] columnas;
+        private final OperacionAgregacion[] agregaciones;
+        private final long[][] hashesCodigos;
+        private final int[] precisiones;
+        private final int[] escalas;
+        private final boolean[] enteros;
+
+        HechosAgregados(Columna[] columnas, OperacionAgregacion[] agregaciones, long[][] hashesCodigos, int[] precisiones, int[] escalas,
+                        boolean[] enteros) {
+            this.columnas = columnas;
+            this.agregaciones = agregaciones;
+            this.hashesCodigos = hashesCodigos;
+            this.precisiones = precisiones;
+            this.escalas = escalas;
+            this.enteros = enteros;
+        }
+    }
+
 }
@@ -2,7 +2,8 @@ package Cubo.implementacionCubo;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
+import Cubo.tablasCubo.Columna;
+import Cubo.tablasCubo.ColumnaCodificada;
 import Cubo.tablasCubo.Dimension;
 
 /**
@@ -57,59 +58,78 @@ class ComandoSlice implements ComandoCubo {
         // Añado al historial el comando antes de ejecutarlo
         this.historialSlice.add(this);
 
-        // Obtengo el índice del nivel por el cual se va a filtrar
-        Integer indice_nivel = this.tablaOperacion.getHeaders().indexOf(this.nivel);
+        // Obtengo la columna codificada del nivel por el cual se va a filtrar
+        // y el código que representa al valor de corte
+        ColumnaCodificada columna_nivel = ColumnaCodificada.codificar(this.tablaOperacion.getColumnaTabla(this.nivel));
+        int codigo_corte = columna_nivel.getDiccionario().getCodigo(this.valorCorte);
 
-        // Genero una matriz que contendrá a la operación resultante
-        List<List<String>> operacion_resultante = new ArrayList<>();
-
-        // Ahora itero por cada fila de la tabla de operación y me quedo 
-        // con aquellas que cumplan con la condición de corte
-        for (List<String> fila : this.tablaOperacion.getDatosTabla()) {
-            if (fila.get(indice_nivel).equals(this.valorCorte)) {
-                List<String> nueva_fila = crearFilaFiltrada(fila);
-                operacion_resultante.add(nueva_fila);
-            }
-        }
+        // Obtengo los índices de las filas cuyo código coincide con el del valor de corte
+        int[] filas_filtradas = obtenerFilasFiltradas(columna_nivel, codigo_corte);
 
         // Guardo los headers de la operación
         List<String> headers_operacion = obtenerHeadersOperacion();
 
+        // Genero las columnas resultantes seleccionando las filas filtradas
+        List<Columna> columnas_operacion = crearColumnasFiltradas(headers_operacion, filas_filtradas);
+
         // Actualizo el estado interno del cubo
-        this.tablaOperacion = new CuerpoCubo(operacion_resultante, headers_operacion, this.tablaOperacion.getHechosCubo());
+        this.tablaOperacion = new CuerpoCubo(columnas_operacion, headers_operacion, this.tablaOperacion.getHechosCubo());
     }
 
 
     // Métodos de ayuda para método ejecutar()
 
     /**
-     * Crea una nueva fila filtrada eliminando las columnas correspondientes a la dimensión
-     * sobre la cual se aplica la operación de Slice.
+     * Se encarga de obtener los índices de las filas cuyo código en la columna del nivel coincide
+     * con el del valor de corte. Si la tabla de operación tiene un índice sobre el nivel las filas
+     * se obtienen directamente del mismo, de lo contrario se recorre la columna.
      *
-     * @param fila La fila original de la tabla de hechos.
-     * @return Una nueva fila filtrada.
+     * @param columna_nivel La columna codificada del nivel por el cual se filtra.
+     * @param codigo_corte El código del valor de corte, o -1 si el valor no está presente en el nivel.
+     * @return Un arreglo con los índices de las filas filtradas en orden ascendente.
      */
-    private List<String> crearFilaFiltrada(List<String> fila) {
-        
-        // Creo una nueva lista de strings que contendrá la fila filtrada
-        // e itero sobre los encabezados de la dimensión
-        List<String> nueva_fila = new ArrayList<>(fila);
-        for (String columna : this.dimension.getHeaders()) {
-
-            // Obtengo el indice del nivel a eliminar
-            int indice_nivel_eliminar = this.tablaOperacion.getHeaders().indexOf(columna);
+    private int[] obtenerFilasFiltradas(ColumnaCodificada columna_nivel, int codigo_corte) {
+        if (codigo_corte == -1) {
+            return new int[0];
+        }
 
-            // Verifico si el índice es válido y si la fila tiene suficientes elementos
-            if (indice_nivel_eliminar != -1 && indice_nivel_eliminar < nueva_fila.size()) {
+        // Si el nivel está indexado basta con una única búsqueda
+        IndiceNivel indice = this.tablaOperacion.getIndiceNivel(this.nivel);
+        if (indice != null) {
+            return indice.getMapa(codigo_corte).aArreglo();
+        }
 
-            // Reemplazo el valor de la columna por null
-            nueva_fila.set(indice_nivel_eliminar, null);
+        // De lo contrario recorro únicamente la columna del nivel
+        ListaEnteros filas_filtradas = new ListaEnteros();
+        for (int i = 0; i < columna_nivel.getLongitud(); i++) {
+            if (columna_nivel.getCodigo(i) == codigo_corte) {
+                filas_filtradas.agregar(i);
             }
         }
+        return filas_filtradas.aArreglo();
+    }
 
-        // Elimino los elementos nulos de la fila
-        nueva_fila.removeIf(Objects::isNull);
-        return nueva_fila;
+    /**
+     * Crea las columnas filtradas conservando únicamente aquellas que no pertenecen a la dimensión
+     * sobre la cual se aplica la operación de Slice.
+     *
+     * @param headers_operacion Los encabezados que se conservan luego de la operación.
+     * @param filas Los índices de las filas que cumplen con la condición de corte.
+     * @return Una lista con las columnas filtradas.
+     */
+    private List<Columna> crearColumnasFiltradas(List<String> headers_operacion, int[] filas) {
+
+        // Recorro las columnas de la tabla de operación y me quedo solo con las que 
+        // no pertenecen a la dimensión
+        List<String> headers_tabla = this.tablaOperacion.getHeaders();
+        List<Columna> columnas_tabla = this.tablaOperacion.getColumnas();
+        List<Columna> columnas_filtradas = new ArrayList<>();
+        for (int j = 0; j < headers_tabla.size(); j++) {
+            if (headers_operacion.contains(headers_tabla.get(j))) {
+                columnas_filtradas.add(columnas_tabla.get(j).seleccionarFilas(filas));
+            }
+        }
+        return columnas_filtradas;
     }
 
     /**
@@ -0,0 +1,316 @@
+package Cubo.implementacionCubo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import Cubo.tablasCubo.Columna;
+import Cubo.tablasCubo.ColumnaCodificada;
+import Cubo.tablasCubo.ColumnaNumerica;
+import Cubo.tablasCubo.Dimension;
+
+/**
+ * <p>
+ * Esta clase se encarga de implementar el método TopN para la clase {@link Cubo}, que obtiene los grupos con
+ * mayor o menor valor agregado de un hecho dentro de cada partición.
+ * </p>
+ *
+ * <p>
+ * Los hechos se agregan por los niveles de la partición junto con los niveles de agrupación, y luego los grupos
+ * se recorren una única vez manteniendo, para cada partición, un montículo acotado con los mejores grupos vistos
+ * hasta el momento. Así solo se ordenan los grupos elegidos de cada partición y la memoria adicional es
+ * proporcional a la cantidad pedida por la cantidad de particiones.
+ * </p>
+ *
+ * <p>
+ * Si se incluyen los empates, cada partición conserva además los grupos con el mismo valor que el peor grupo
+ * elegido. Si no, entre grupos con el mismo valor se elige el que aparece primero. Los grupos sin valor no se
+ * incluyen en el resultado.
+ * </p>
+ *
+ * <p>
+ * Implementa la interfaz {@link ComandoCubo}.
+ * </p>
+ */
+class ComandoTopN implements ComandoCubo {
+
+    // Encabezado de la columna que indica la posición de cada grupo dentro de su partición
+    static final String HEADER_RANKING = "ranking";
+
+    // Atributos de la clase ComandoTopN
+    private CuerpoCubo tablaOperacion;
+    private final List<String> nivelesParticion;
+    private final String hecho;
+    private final int cantidad;
+    private final boolean descendente;
+    private final boolean incluirEmpates;
+    private final ComandoRollUp agrupacion;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ComandoTopN.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de recibir todos los argumentos del método junto con el cuerpo del cubo.
+     * </p>
+     *
+     * @param tablaOperacion La tabla que se utilizará para llevar a cabo la operación.
+     * @param criteriosParticion Un mapa que asocia cada dimensión por la cual se particiona con su nivel, que puede estar vacío.
+     * @param criteriosAgregacion Un mapa que asocia cada dimensión por la cual se agrupa dentro de cada partición con su nivel.
+     * @param hecho El hecho según cuyo valor agregado se eligen los grupos.
+     * @param agregacion La operación de agregación que se aplica sobre el hecho.
+     * @param precisionBosquejos La precisión de los bosquejos {@link HyperLogLog} si la operación es COUNT_DISTINCT.
+     * @param cantidad La cantidad de grupos a elegir en cada partición.
+     * @param descendente true para elegir los grupos de mayor valor, false para elegir los de menor valor.
+     * @param incluirEmpates true para incluir los grupos con el mismo valor que el último elegido de cada partición.
+     * @param poolHilos El pool de hilos sobre el cual se agregan las particiones de filas en paralelo, o null para
+     *                  agregarlas en el hilo que invoca la operación.
+     */
+    public ComandoTopN(CuerpoCubo tablaOperacion, Map<Dimension, String> criteriosParticion, Map<Dimension, String> criteriosAgregacion,
+                       String hecho, OperacionAgregacion agregacion, int precisionBosquejos, int cantidad, boolean descendente,
+                       boolean incluirEmpates, ForkJoinPool poolHilos) {
+        this.tablaOperacion = tablaOperacion;
+        this.hecho = hecho;
+        this.cantidad = cantidad;
+        this.descendente = descendente;
+        this.incluirEmpates = incluirEmpates;
+
+        // Obtengo los niveles de la partición y los de la agrupación, sin repetir los que comparten
+        this.nivelesParticion = obtenerNiveles(criteriosParticion, new LinkedHashSet<>());
+        Set<String> nivelesOperacion = new LinkedHashSet<>(this.nivelesParticion);
+        obtenerNiveles(criteriosAgregacion, nivelesOperacion);
+
+        // Preparo la agregación del hecho por todos los niveles
+        this.agrupacion = new ComandoRollUp(tablaOperacion, List.of(hecho), agregacion, precisionBosquejos,
+                                            new ArrayList<>(nivelesOperacion), new ArrayList<>(), poolHilos);
+    }
+
+    /**
+     * Ejecuta el método TopN para la clase {@link Cubo}.
+     */
+    @Override
+    public void ejecutar() {
+
+        // Agrego el hecho por los niveles de la partición y de la agrupación
+        this.agrupacion.ejecutar();
+        CuerpoCubo grupos = this.agrupacion.getResultado();
+        ColumnaNumerica valores = (ColumnaNumerica) grupos.getColumnaTabla(this.hecho);
+
+        // Recorro los grupos una única vez, guardando en el montículo de su partición los mejores de cada una
+        List<ColumnaCodificada> columnasParticion = new ArrayList<>();
+        for (String nivel : this.nivelesParticion) {
+            columnasParticion.add((ColumnaCodificada) grupos.getColumnaTabla(nivel));
+        }
+        CodificadorClaveGrupo codificador = new CodificadorClaveGrupo(columnasParticion);
+        MapaGrupos mapaParticiones = new MapaGrupos(codificador.getCantidadPalabras());
+        long[] clave = new long[codificador.getCantidadPalabras()];
+        List<MonticuloAcotado> monticulos = new ArrayList<>();
+        for (int grupo = 0; grupo < grupos.getCantidadFilas(); grupo++) {
+            double valor = valores.getDouble(grupo);
+            if (valores.esNulo(grupo) || Double.isNaN(valor)) {
+                continue;
+            }
+            int particion;
+            if (clave.length == 1) {
+                particion = mapaParticiones.obtenerGrupo(codificador.codificar(grupo));
+            } else {
+                codificador.codificar(grupo, clave);
+                particion = mapaParticiones.obtenerGrupo(clave);
+            }
+            if (particion == monticulos.size()) {
+                monticulos.add(new MonticuloAcotado(valores, this.cantidad, this.descendente, this.incluirEmpates));
+            }
+            monticulos.get(particion).agregar(grupo);
+        }
+
+        // Ordeno los grupos elegidos de cada partición, en el orden en que aparecen las particiones,
+        // y calculo su posición dentro de la partición
+        ListaEnteros filas = new ListaEnteros();
+        ListaEnteros posiciones = new ListaEnteros();
+        for (MonticuloAcotado monticulo : monticulos) {
+            int[] elegidos = monticulo.obtenerOrdenados();
+            for (int i = 0; i < elegidos.length; i++) {
+                boolean empatado = i > 0 && valores.getDouble(elegidos[i]) == valores.getDouble(elegidos[i - 1]);
+                filas.agregar(elegidos[i]);
+                posiciones.agregar(empatado ? posiciones.obtener(posiciones.getCantidad() - 1) : i + 1);
+            }
+        }
+
+        // Armo el resultado con las filas elegidas de la agregación y la posición de cada una
+        int[] filasElegidas = filas.aArreglo();
+        double[] ranking = new double[filasElegidas.length];
+        for (int i = 0; i < ranking.length; i++) {
+            ranking[i] = posiciones.obtener(i);
+        }
+        List<Columna> columnas = new ArrayList<>();
+        for (Columna columna : grupos.getColumnas()) {
+            columnas.add(columna.seleccionarFilas(filasElegidas));
+        }
+        columnas.add(new ColumnaNumerica(ranking, null, true));
+        List<String> headers = new ArrayList<>(grupos.getHeaders());
+        headers.add(HEADER_RANKING);
+
+        // Actualizo el estado interno del cubo
+        this.tablaOperacion = new CuerpoCubo(columnas, headers, List.of(this.hecho));
+    }
+
+
+    // Métodos de ayuda para la clase
+
+    /**
+     * Se encarga de agregar a un conjunto los niveles de unos criterios junto con sus niveles superiores.
+     */
+    private static List<String> obtenerNiveles(Map<Dimension, String> criterios, Set<String> niveles) {
+        for (Map.Entry<Dimension, String> criterio : criterios.entrySet()) {
+            niveles.addAll(ComandosUtils.obtenerNivelesOperacion(criterio.getKey(), criterio.getValue(), new ArrayList<>()));
+        }
+        return new ArrayList<>(niveles);
+    }
+
+
+    // Getters de la clase
+
+    /**
+     * @return El cuerpo del cubo con el método ya aplicado
+     */
+    public CuerpoCubo getResultado() {
+        return this.tablaOperacion;
+    }
+
+    /**
+     * @return La operación RollUp que agrega el hecho por los niveles de la partición y de la agrupación, la cual
+     *         puede obtener su resultado de un {@link RegistroAgregados}.
+     */
+    public ComandoRollUp getAgrupacion() {
+        return this.agrupacion;
+    }
+
+
+    /**
+     * Esta clase representa un montículo de tamaño acotado que conserva los mejores grupos de una partición, cuya
+     * raíz es el peor de ellos, junto con los grupos empatados con la raíz que quedaron afuera.
+     */
+    private static class MonticuloAcotado {
+
+        // Atributos de la clase MonticuloAcotado
+        private final ColumnaNumerica valores;
+        private final int[] grupos;
+        private final boolean descendente;
+        private final boolean incluirEmpates;
+        private int cantidadGrupos;
+        private ListaEnteros empatados;
+
+        MonticuloAcotado(ColumnaNumerica valores, int capacidad, boolean descendente, boolean incluirEmpates) {
+            this.valores = valores;
+            this.grupos = new int[capacidad];
+            this.descendente = descendente;
+            this.incluirEmpates = incluirEmpates;
+            this.cantidadGrupos = 0;
+            this.empatados = new ListaEnteros();
+        }
+
+        /**
+         * Agrega un grupo al montículo si es mejor que el peor de sus grupos, guardando como empatado al grupo
+         * que queda afuera si tiene el mismo valor que la nueva raíz.
+         */
+        void agregar(int grupo) {
+            if (this.cantidadGrupos < this.grupos.length) {
+                this.grupos[this.cantidadGrupos] = grupo;
+                this.subir(this.cantidadGrupos++);
+                return;
+            }
+            int raiz = this.grupos[0];
+            if (this.esMejor(grupo, raiz)) {
+                this.grupos[0] = grupo;
+                this.bajar(0);
+                if (this.incluirEmpates) {
+                    if (this.valor(raiz) == this.valor(this.grupos[0])) {
+                        this.empatados.agregar(raiz);
+                    } else if (this.empatados.getCantidad() > 0) {
+                        this.empatados = new ListaEnteros();
+                    }
+                }
+            } else if (this.incluirEmpates && this.valor(grupo) == this.valor(raiz)) {
+                this.empatados.agregar(grupo);
+            }
+        }
+
+        /**
+         * Obtiene los grupos del montículo junto con los empatados, del mejor al peor.
+         */
+        int[] obtenerOrdenados() {
+            Integer[] ordenados = new Integer[this.cantidadGrupos + this.empatados.getCantidad()];
+            for (int i = 0; i < this.cantidadGrupos; i++) {
+                ordenados[i] = this.grupos[i];
+            }
+            for (int i = 0; i < this.empatados.getCantidad(); i++) {
+                ordenados[this.cantidadGrupos + i] = this.empatados.obtener(i);
+            }
+            Arrays.sort(ordenados, (a, b) -> this.esMejor(a, b) ? -1 : (this.esMejor(b, a) ? 1 : 0));
+            int[] resultado = new int[ordenados.length];
+            for (int i = 0; i < ordenados.length; i++) {
+                resultado[i] = ordenados[i];
+            }
+            return resultado;
+        }
+
+        /**
+         * Verifica si un grupo es mejor que otro según su valor, y a igual valor si aparece primero.
+         */
+        private boolean esMejor(int grupo, int otroGrupo) {
+            double valor = this.valor(grupo);
+            double otroValor = this.valor(otroGrupo);
+            if (valor != otroValor) {
+                return this.descendente ? valor > otroValor : valor < otroValor;
+            }
+            return grupo < otroGrupo;
+        }
+
+        private double valor(int grupo) {
+            return this.valores.getDouble(grupo);
+        }
+
+        /**
+         * Sube un grupo hacia la raíz mientras sea peor que su padre.
+         */
+        private void subir(int posicion) {
+            int grupo = this.grupos[posicion];
+            while (posicion > 0) {
+                int padre = (posicion - 1) >>> 1;
+                if (!this.esMejor(this.grupos[padre], grupo)) {
+                    break;
+                }
+                this.grupos[posicion] = this.grupos[padre];
+                posicion = padre;
+            }
+            this.grupos[posicion] = grupo;
+        }
+
+        /**
+         * Baja un grupo desde la raíz mientras alguno de sus hijos sea peor que él.
+         */
+        private void bajar(int posicion) {
+            int grupo = this.grupos[posicion];
+            while (true) {
+                int hijo = 2 * posicion + 1;
+                if (hijo >= this.cantidadGrupos) {
+                    break;
+                }
+                if (hijo + 1 < this.cantidadGrupos && this.esMejor(this.grupos[hijo], this.grupos[hijo + 1])) {
+                    hijo++;
+                }
+                if (!this.esMejor(grupo, this.grupos[hijo])) {
+                    break;
+                }
+                this.grupos[posicion] = this.grupos[hijo];
+                posicion = hijo;
+            }
+            this.grupos[posicion] = grupo;
+        }
+    }
+
+}
@@ -1,9 +1,12 @@
 package Cubo.implementacionCubo;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import Cubo.excepciones.excepcionesCubo.*;
 import Cubo.excepciones.excepcionesDimension.*;
 import Cubo.excepciones.excepcionesHechos.*;
@@ -29,8 +32,24 @@ import Cubo.tablasCubo.*;
  * Además de estas operaciones, la clase Cubo también permite la proyección de los datos del cubo, 
  * seleccionando dimensiones y hechos específicos para mostrar en un formato tabular.
  * </p>
+ * 
+ * <p>
+ * Opcionalmente el cubo puede guardar los hechos y niveles de su estructura interna fuera del heap,
+ * en cuyo caso esa memoria se libera al invocar {@link #cerrar()}.
+ * </p>
+ * 
+ * <p>
+ * Las operaciones que agregan los hechos del cubo se ejecutan en paralelo sobre la cantidad de hilos
+ * indicada por {@link #setParalelismo(int)}, que por defecto es la cantidad de procesadores disponibles.
+ * </p>
+ * 
+ * <p>
+ * Los resultados de las operaciones roll-up y drill-down calculados sobre el cubo sin agrupar se guardan en un
+ * registro, de forma que una operación posterior que pueda obtenerse a partir de alguno de ellos no vuelve a
+ * recorrer los hechos del cubo. Este comportamiento se configura con {@link #setReutilizarAgregados(boolean)}.
+ * </p>
  */
-public class Cubo{
+public class Cubo implements AutoCloseable{
 
     // Atributos de la clase Cubo
     private final String nombre;
@@ -38,6 +57,17 @@ public class Cubo{
     private final Hecho tablaHechos;
     private CuerpoCubo tablaOperacion;
     private CuerpoCubo tablaBase;
+    private final ZonaMemoria zonaMemoria;
+    private volatile boolean cerrado;
+    private int paralelismo;
+    private ForkJoinPool poolHilos;
+    private int precisionConteoDistinto;
+    private RegistroAgregados registroAgregados;
+    private long memoriaOrdenamiento;
+
+    // Indica si la tabla de operación es el cuerpo base, filtrado solamente por operaciones Dice y Slice,
+    // que es la única tabla cuyos resultados se obtienen y se guardan en el registro de agregados
+    private boolean operaSobreCuerpoBase;
 
     // Historiales que llevan registro de las operaciones realizadas 
     // sobre una instancia de esta clase
@@ -67,6 +97,30 @@ public class Cubo{
      * @return Una nueva instancia de la clase Cubo, la cual representa un cubo OLAP.
      */
     public static Cubo crearCuboOLAP(String nombreCubo, Hecho tablaHechos, List<Dimension> tablasDimensiones){
+        return crearCuboOLAP(nombreCubo, tablaHechos, tablasDimensiones, false);
+    }
+
+    /**
+     * </p>
+     * Método para crear un <b>cubo OLAP</b>, el cual es instancia de la clase Cubo, indicando si su
+     * estructura interna debe guardarse fuera del heap.
+     * </p>
+     * 
+     * </p>
+     * Al guardarse fuera del heap, los hechos y niveles del cubo no son recorridos por el recolector de basura.
+     * Esa memoria se libera al invocar {@link #cerrar()}, por lo que el cubo debe cerrarse cuando deja de usarse.
+     * </p>
+     * 
+     * @param nombreCubo El nombre del cubo.
+     * @param tablaHechos La tabla de hechos asociada a las dimensiones del cubo.
+     * @param tablasDimensiones Una lista que contiene todas las dimensiones asociadas al cubo.
+     * @param almacenarFueraDelHeap Indica si la estructura interna del cubo se guarda fuera del heap.
+     * 
+     * @throws DimensionNoAsociadaException Si alguna dimensión especificada no está asociada a la tabla de hechos.
+     * 
+     * @return Una nueva instancia de la clase Cubo, la cual representa un cubo OLAP.
+     */
+    public static Cubo crearCuboOLAP(String nombreCubo, Hecho tablaHechos, List<Dimension> tablasDimensiones, boolean almacenarFueraDelHeap){
         
         // Verifico que las dimensiones pasadas en la lista estén asociadas a la tabla de hechos
         for (Dimension dimension : tablasDimensiones){
@@ -75,9 +129,159 @@ public class Cubo{
             }
         }
 
+        // Armo el cuerpo del cubo, moviéndolo fuera del heap si así se indicó
+        CuerpoCubo cuerpoCubo = CuerpoCubo.configurarCubo(tablaHechos, tablasDimensiones, tablaHechos.getClavesForaneasDims());
+        ZonaMemoria zonaMemoria = almacenarFueraDelHeap ? new ZonaMemoria() : null;
+        if (zonaMemoria != null){
+            cuerpoCubo = cuerpoCubo.copiarEn(zonaMemoria);
+        }
+
         // Retorno un nuevo Cubo OLAP 
-        return new Cubo(nombreCubo, tablaHechos, tablasDimensiones);
+        return new Cubo(nombreCubo, tablaHechos, tablasDimensiones, cuerpoCubo, zonaMemoria);
+
+    }
+
+    /**
+     * </p>
+     * Método para cargar un <b>cubo OLAP</b> desde una instantánea guardada mediante el método {@link #guardar(String)}.
+     * </p>
+     * 
+     * </p>
+     * El cubo cargado tiene la misma estructura interna que tenía el cubo original al crearse, sin necesidad
+     * de volver a leer los archivos de sus tablas ni de volver a asociar los hechos con sus dimensiones.
+     * Las dimensiones del cubo cargado se obtienen mediante el método {@link #getDimensiones()}.
+     * </p>
+     * 
+     * @param rutaArchivo La ruta del archivo de la instantánea.
+     * 
+     * @throws IOException Si ocurre un error de entrada/salida al leer el archivo.
+     * @throws InstantaneaCorruptaException Si el archivo no es una instantánea válida o está dañado.
+     * 
+     * @return Una nueva instancia de la clase Cubo con la información guardada en la instantánea.
+     */
+    public static Cubo cargarCuboOLAP(String rutaArchivo) throws IOException{
+        return cargarCuboOLAP(rutaArchivo, false);
+    }
+
+    /**
+     * </p>
+     * Método para cargar un <b>cubo OLAP</b> desde una instantánea guardada mediante el método {@link #guardar(String)},
+     * indicando si su estructura interna debe guardarse fuera del heap.
+     * </p>
+     * 
+     * @param rutaArchivo La ruta del archivo de la instantánea.
+     * @param almacenarFueraDelHeap Indica si la estructura interna del cubo se guarda fuera del heap.
+     * 
+     * @throws IOException Si ocurre un error de entrada/salida al leer el archivo.
+     * @throws InstantaneaCorruptaException Si el archivo no es una instantánea válida o está dañado.
+     * 
+     * @return Una nueva instancia de la clase Cubo con la información guardada en la instantánea.
+     */
+    public static Cubo cargarCuboOLAP(String rutaArchivo, boolean almacenarFueraDelHeap) throws IOException{
+        try (LectorInstantanea lector = new LectorInstantanea(rutaArchivo)){
+            return leerCubo(lector, almacenarFueraDelHeap ? new ZonaMemoria() : null, true);
+        }
+    }
+
+    /**
+     * </p>
+     * Método para abrir un <b>cubo OLAP</b> guardado mediante el método {@link #guardar(String)} sin copiar
+     * su estructura interna al heap.
+     * </p>
+     * 
+     * </p>
+     * Los hechos y los ordinales del cubo se leen directamente de regiones mapeadas del archivo, por lo que
+     * abrir el cubo es casi inmediato sin importar su tamaño: el sistema operativo carga cada página recién
+     * cuando una operación recorre la columna, y varios procesos que abren el mismo archivo comparten esas
+     * páginas. Las dimensiones, que son pequeñas, se copian al heap.
+     * </p>
+     * 
+     * </p>
+     * Las regiones mapeadas se liberan al invocar {@link #cerrar()}, por lo que el cubo debe cerrarse cuando
+     * deja de usarse, y el archivo no debe modificarse mientras el cubo esté abierto.
+     * </p>
+     * 
+     * </p>
+     * Para que abrir el cubo no obligue a leer el archivo completo, las regiones mapeadas no se verifican con su
+     * suma, por lo que un archivo dañado en esas regiones no se detecta. Si el archivo puede haberse dañado, debe
+     * usarse {@link #abrirCuboOLAP(String, boolean)} indicando que las regiones se verifiquen.
+     * </p>
+     * 
+     * @param rutaArchivo La ruta del archivo de la instantánea.
+     * 
+     * @throws IOException Si ocurre un error de entrada/salida al abrir el archivo.
+     * @throws InstantaneaCorruptaException Si el archivo no es una instantánea válida o está dañado.
+     * 
+     * @return Una nueva instancia de la clase Cubo cuya estructura interna se lee del archivo mapeado.
+     */
+    public static Cubo abrirCuboOLAP(String rutaArchivo) throws IOException{
+        return abrirCuboOLAP(rutaArchivo, false);
+    }
+
+    /**
+     * </p>
+     * Método para abrir un <b>cubo OLAP</b> guardado mediante el método {@link #guardar(String)} sin copiar
+     * su estructura interna al heap, indicando si las regiones mapeadas del archivo se verifican con su suma.
+     * </p>
+     * 
+     * </p>
+     * Al verificarlas, cada región mapeada se recorre una vez al abrir el cubo, por lo que abrirlo demora lo
+     * mismo que leer el archivo, pero un bloque dañado lanza una excepción en lugar de producir resultados
+     * incorrectos.
+     * </p>
+     * 
+     * @param rutaArchivo La ruta del archivo de la instantánea.
+     * @param verificarBloques Indica si la suma de las regiones mapeadas se verifica al abrir el cubo.
+     * 
+     * @throws IOException Si ocurre un error de entrada/salida al abrir el archivo.
+     * @throws InstantaneaCorruptaException Si el archivo no es una instantánea válida o está dañado.
+     * 
+     * @return Una nueva instancia de la clase Cubo cuya estructura interna se lee del archivo mapeado.
+     */
+    public static Cubo abrirCuboOLAP(String rutaArchivo, boolean verificarBloques) throws IOException{
+        ZonaMemoria zonaMemoria = new ZonaMemoria();
+        try (LectorInstantanea lector = new LectorInstantanea(rutaArchivo, zonaMemoria, verificarBloques)){
+            return leerCubo(lector, zonaMemoria, false);
+        } catch (IOException | RuntimeException e){
+            zonaMemoria.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Se encarga de leer las tablas y el cuerpo base de un cubo desde una instantánea, en el mismo orden
+     * en que se guardaron, y de crear el cubo con esa información.
+     *
+     * @param lector El lector de la instantánea, posicionado al comienzo de sus metadatos.
+     * @param zonaMemoria La zona de memoria del cubo, o null si el cubo se guarda en el heap.
+     * @param copiarCuerpo Indica si el cuerpo leído debe copiarse a la zona de memoria, en lugar de ya estar mapeado en la misma.
+     *
+     * @return Una nueva instancia de la clase Cubo con la información guardada en la instantánea.
+     */
+    private static Cubo leerCubo(LectorInstantanea lector, ZonaMemoria zonaMemoria, boolean copiarCuerpo) throws IOException{
+
+        // Leo las tablas en el mismo orden en que se guardaron
+        String nombreCubo = lector.leerTexto();
+        int cantidadDimensiones = lector.leerEntero();
+        List<Dimension> tablasDimensiones = new ArrayList<>();
+        for (int i = 0; i < cantidadDimensiones; i++){
+            tablasDimensiones.add(lector.leerDimension());
+        }
+        Hecho tablaHechos = lector.leerHecho(tablasDimensiones);
 
+        // Leo el cuerpo base del cubo, cuyas columnas comparten su información con las tablas ya leídas
+        List<String> headers = lector.leerTextos();
+        List<String> hechosCubo = lector.leerTextos();
+        List<Columna> columnas = lector.leerColumnas();
+        if (columnas.size() != headers.size()){
+            throw new InstantaneaCorruptaException("El cuerpo del cubo guardado en la instantánea está dañado.");
+        }
+        CuerpoCubo cuerpoCubo = CuerpoCubo.restaurarCuerpo(columnas, headers, hechosCubo);
+        if (zonaMemoria != null && copiarCuerpo){
+            cuerpoCubo = cuerpoCubo.copiarEn(zonaMemoria);
+        }
+
+        return new Cubo(nombreCubo, tablaHechos, tablasDimensiones, cuerpoCubo, zonaMemoria);
     }
 
     /**
@@ -86,14 +290,17 @@ public class Cubo{
      * </p>
      * 
      * <p>
-     * Se encarga de inicializar un nuevo cubo con un nombre, tablas de dimensiones y una tabla de hechos asociadas a las mismas.
+     * Se encarga de inicializar un nuevo cubo con un nombre, tablas de dimensiones, una tabla de hechos asociadas
+     * a las mismas y el cuerpo interno ya configurado a partir de ellas.
      * </p>
      *
      * @param nombre El nombre del cubo.
      * @param tablaHechos La tabla de hechos asociada a las dimensiones del cubo.
      * @param tablasDimensiones Una lista que contiene todas las dimensiones asociadas al cubo.
+     * @param cuerpoCubo El cuerpo interno del cubo, armado a partir de la tabla de hechos y sus dimensiones.
+     * @param zonaMemoria La zona de memoria en la cual se guarda el cuerpo del cubo, o null si se guarda en el heap.
      */
-    private Cubo(String nombre, Hecho tablaHechos, List<Dimension> tablasDimensiones){
+    private Cubo(String nombre, Hecho tablaHechos, List<Dimension> tablasDimensiones, CuerpoCubo cuerpoCubo, ZonaMemoria zonaMemoria){
 
         // Inicializo los atributos del cubo
         this.tablasDimensiones = new ArrayList<>(tablasDimensiones);
@@ -106,8 +313,18 @@ public class Cubo{
         this.historialDice = new ArrayList<>();
         this.historialSlice = new ArrayList<>();
 
-        // Configuro el cuerpo interno del cubo
-        this.tablaOperacion = CuerpoCubo.configurarCubo(tablaHechos, tablasDimensiones, tablaHechos.getClavesForaneasDims());
+        // Guardo el cuerpo interno del cubo junto con la zona de memoria que lo contiene
+        this.tablaOperacion = cuerpoCubo;
+        this.operaSobreCuerpoBase = true;
+        this.zonaMemoria = zonaMemoria;
+        this.cerrado = false;
+
+        // Por defecto las operaciones usan todos los procesadores disponibles, el pool se crea recién al necesitarlo
+        this.paralelismo = Runtime.getRuntime().availableProcessors();
+        this.poolHilos = null;
+        this.precisionConteoDistinto = HyperLogLog.PRECISION_POR_DEFECTO;
+        this.registroAgregados = new RegistroAgregados();
+        this.memoriaOrdenamiento = Runtime.getRuntime().maxMemory() / 4;
 
         // Finalmente guardo una 'tablaBase' que servirá para volver al estado original del cubo
         this.tablaBase = this.tablaOperacion.getCuerpoCopy();
@@ -124,57 +341,121 @@ public class Cubo{
      * 
      * <p>
      * Se aplica una operación de agregación a los hechos seleccionados, las disponibles son:
-     * <b> "sum", "max", "min", "count". (Escribir tal cual al indicarla en el argumento) </b>
+     * <b> "sum", "max", "min", "count", "avg", "count_distinct", "median", "p90", "p95", "p99". (Escribir tal cual al indicarla en el argumento) </b>
+     * </p>
+     * 
+     * <p>
+     * La operación "count_distinct" estima la cantidad de valores distintos de cada hecho seleccionado, que en este caso
+     * también puede ser un nivel, usando un bosquejo HyperLogLog por grupo cuya precisión se configura con
+     * {@link #setPrecisionConteoDistinto(int)}. Un RollUp posterior con la misma operación a un nivel superior combina
+     * los bosquejos ya calculados.
+     * </p>
+     * 
+     * <p>
+     * Las operaciones "median", "p90", "p95" y "p99" estiman el cuantil correspondiente de cada hecho usando un histograma
+     * logarítmico de memoria fija por grupo, con un error relativo de a lo sumo 1.6% para valores cuyo módulo está entre
+     * 0.004 y 4.3 mil millones.
      * </p>
      * 
      * @param criteriosAgregacion Un mapa de criterios que contiene como clave la dimensión sobre la cual se quiere aplicar la operación 
      *                            y como valor el nivel de la dimensión a la cual se quiere agrupar la información.
      * @param hechosSeleccionados La lista de hechos a incluir en la operación de roll-up.
-     * @param agregacion La operación de agregación a aplicar sobre los hechos del cubo. Solo son soportadas: "sum", "max", "min", "count" (Escribir tal cual al pasar el argumento).
+     * @param agregacion La operación de agregación a aplicar sobre los hechos del cubo. Solo son soportadas: "sum", "max", "min", "count", "avg", "count_distinct", "median", "p90", "p95", "p99" (Escribir tal cual al pasar el argumento).
      * 
      * @throws AgregacionNoSoportadaException Si la operación de agregación seleccionada no está entre las disponibles.
+     * @throws DesbordamientoDecimalException Si la suma de algún hecho decimal excede su rango de valores exactos.
      * @throws DimensionNoPresenteException Si alguna dimensión especificada no está presente en el cubo.
      * @throws NivelNoPresenteException Si algún nivel especificado no está presente en alguna dimensión.
      * @throws HechoNoPresenteException Si algún hecho seleccionado no está presente en la tabla de hechos.
      * @throws ArgumentosInoperablesException Si el mapa de criterios de reducción está vacío.
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
      */
     public void rollUp(Map<Dimension, String> criteriosAgregacion, List<String> hechosSeleccionados, String agregacion){
 
-        // Verifico que 'criteriosAgregacion' no sea un mapa vacío
-        if (criteriosAgregacion.isEmpty()){
-            throw new ArgumentosInoperablesException("El mapa de criterios de reducción no puede estar vacío.");
-        }
+        // Verifico que el cubo no haya sido cerrado
+        this.verificarAbierto();
 
-        // Verifico que la operación de agregación sea una de las soportadas por el método 
-        String agregacion_parsed = agregacion.toLowerCase().trim();
-        OperacionAgregacion operacion;
-        if (OperacionAgregacion.esOperacionValida(agregacion_parsed)){
-            operacion = OperacionAgregacion.valueOf(agregacion_parsed.toUpperCase());
-        } else{
-            throw new AgregacionNoSoportadaException("La operacion de agregacion '" + agregacion + "' no esta soportada por el metodo RollUp.");
-        }
+        // Verifico que 'criteriosAgregacion' sea válido
+        this.verificarCriteriosAgregacion(criteriosAgregacion);
 
-        // Itero sobre cada entrada del mapa 'criteriosAgregacion' para verificar que los niveles y dimensiones seleccionados estén presentes
-        // en el cubo
-        for (Map.Entry<Dimension, String> criterio : criteriosAgregacion.entrySet()){
-            if (!this.tablasDimensiones.contains(criterio.getKey())){
-                throw new DimensionNoPresenteException("La dimension '" + criterio.getKey().getNombre() + "' no esta presente en el cubo <" + this.nombre + ">.");
-            }
-            if (!this.tablaOperacion.getHeaders().contains(criterio.getValue())){
-                throw new NivelNoPresenteException("El nivel '" + criterio.getValue() + "' no esta presente en el cubo <" + this.nombre + ">.");
-            }
-        }
+        // Verifico que la operación de agregación sea una de las soportadas por el método 
+        OperacionAgregacion operacion = obtenerOperacionAgregacion(agregacion);
 
         // Verifico que estén presentes todos los hechos seleccionados para la operación
         for (String hecho: hechosSeleccionados){
-            if (!this.tablaOperacion.getHeaders().contains(hecho)){
-                throw new HechoNoPresenteException("El hecho '" + hecho + "' no esta presente en el cubo <" + this.nombre + ">.");
-            }
+            this.verificarHecho(hecho);
         }
 
         // Genero una instancia de RollUp
         ComandoRollUp comando = new ComandoRollUp(this.tablaOperacion, criteriosAgregacion, hechosSeleccionados, 
-                                                  operacion, this.historialRollUp);
+                                                  operacion, this.precisionConteoDistinto, this.historialRollUp, this.obtenerPoolHilos());
+        this.usarRegistroAgregados(comando);
+
+        // Ejecuto la operación
+        comando.ejecutar();
+
+        // Guardo en el historial la operación realizada
+        this.historialRollUp = comando.getHistorial();
+
+        // Modifico el estado del cubo
+        this.tablaOperacion = comando.getResultado();
+        this.operaSobreCuerpoBase = false;
+    }
+
+    /**
+     * <p>
+     * Este método realiza una operación "Roll-Up" sobre este cubo aplicando a cada hecho seleccionado su propia lista
+     * de operaciones de agregación, modificando la estructura interna de dimensiones y hechos del mismo.
+     * </p>
+     * 
+     * <p>
+     * Todas las agregaciones se calculan en un único recorrido del cubo. El resultado tiene una columna por cada par
+     * de hecho y operación, cuyo nombre es el del hecho seguido de un guión bajo y la operación, por ejemplo 
+     * "valor_total_sum" o "costo_max". Las operaciones disponibles son las mismas que en 
+     * {@link #rollUp(Map, List, String)}.
+     * </p>
+     * 
+     * <p>
+     * Una operación "Drill-Down" posterior repite las mismas agregaciones sobre cada hecho.
+     * </p>
+     * 
+     * @param criteriosAgregacion Un mapa de criterios que contiene como clave la dimensión sobre la cual se quiere aplicar la operación 
+     *                            y como valor el nivel de la dimensión a la cual se quiere agrupar la información.
+     * @param agregacionesPorHecho Un mapa que contiene como clave cada hecho a incluir en la operación de roll-up y como valor 
+     *                             la lista de operaciones de agregación a aplicar sobre el mismo.
+     * 
+     * @throws AgregacionNoSoportadaException Si alguna operación de agregación seleccionada no está entre las disponibles.
+     * @throws DesbordamientoDecimalException Si la suma de algún hecho decimal excede su rango de valores exactos.
+     * @throws DimensionNoPresenteException Si alguna dimensión especificada no está presente en el cubo.
+     * @throws NivelNoPresenteException Si algún nivel especificado no está presente en alguna dimensión.
+     * @throws HechoNoPresenteException Si algún hecho seleccionado no está presente en la tabla de hechos.
+     * @throws ArgumentosInoperablesException Si el mapa de criterios de reducción o el de agregaciones está vacío, o si 
+     *                                        algún hecho no tiene operaciones o repite alguna de ellas.
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
+     */
+    public void rollUp(Map<Dimension, String> criteriosAgregacion, Map<String, List<String>> agregacionesPorHecho){
+
+        // Verifico que el cubo no haya sido cerrado
+        this.verificarAbierto();
+
+        // Verifico que 'criteriosAgregacion' sea válido
+        this.verificarCriteriosAgregacion(criteriosAgregacion);
+
+        // Verifico que 'agregacionesPorHecho' no sea un mapa vacío
+        if (agregacionesPorHecho.isEmpty()){
+            throw new ArgumentosInoperablesException("El mapa de agregaciones por hecho no puede estar vacío.");
+        }
+
+        // Verifico que cada hecho esté presente y tenga al menos una operación soportada sin repetir
+        for (String hecho : agregacionesPorHecho.keySet()){
+            this.verificarHecho(hecho);
+        }
+        Map<String, List<OperacionAgregacion>> operacionesPorHecho = obtenerOperacionesPorHecho(agregacionesPorHecho);
+
+        // Genero una instancia de RollUp
+        ComandoRollUp comando = new ComandoRollUp(this.tablaOperacion, criteriosAgregacion, operacionesPorHecho, 
+                                                  this.precisionConteoDistinto, this.historialRollUp, this.obtenerPoolHilos());
+        this.usarRegistroAgregados(comando);
 
         // Ejecuto la operación
         comando.ejecutar();
@@ -184,6 +465,192 @@ public class Cubo{
 
         // Modifico el estado del cubo
         this.tablaOperacion = comando.getResultado();
+        this.operaSobreCuerpoBase = false;
+    }
+
+    /**
+     * <p>
+     * Realiza una operación "Grouping Sets" sobre este cubo, que agrupa sus hechos según varios conjuntos de criterios
+     * a la vez, modificando la estructura interna de dimensiones y hechos del mismo.
+     * </p>
+     * 
+     * <p>
+     * El resultado contiene las filas de todos los conjuntos en el orden en que se indicaron. Tiene una columna por cada nivel
+     * de los conjuntos, nula en las filas de los conjuntos que no agrupan por dicho nivel, seguida de la columna "grouping_id"
+     * y de una columna por cada hecho y operación, nombrada como el hecho seguido de la operación, por ejemplo "costo_max".
+     * El valor de "grouping_id" tiene un bit por cada nivel, encendido si el conjunto de la fila no agrupa por el mismo, donde
+     * el primer nivel corresponde al bit más significativo. Un conjunto sin criterios agrupa todas las filas en una sola.
+     * </p>
+     * 
+     * <p>
+     * Los hechos se recorren una única vez, agrupando por todos los niveles de los conjuntos, y cada conjunto se obtiene
+     * reagrupando la menor agrupación ya calculada que lo contiene. Esto solo es posible con las operaciones "sum", "max",
+     * "min", "count" y "count_distinct"; con las demás cada conjunto se agrupa recorriendo los hechos. La operación no se
+     * guarda en el historial de roll-up, por lo que un drill-down posterior desagrega la última operación roll-up.
+     * </p>
+     * 
+     * @param conjuntosAgrupacion Una lista con los criterios de cada conjunto, donde cada uno contiene como clave la dimensión 
+     *                            a agrupar y como valor el nivel por el cual se agrupa.
+     * @param agregacionesPorHecho Un mapa que contiene como clave cada hecho a incluir en la operación y como valor 
+     *                             la lista de operaciones de agregación a aplicar sobre el mismo.
+     * 
+     * @throws AgregacionNoSoportadaException Si alguna operación de agregación seleccionada no está entre las disponibles.
+     * @throws DesbordamientoDecimalException Si la suma de algún hecho decimal excede su rango de valores exactos.
+     * @throws DimensionNoPresenteException Si alguna dimensión especificada no está presente en el cubo.
+     * @throws NivelNoPresenteException Si algún nivel especificado no está presente en alguna dimensión.
+     * @throws HechoNoPresenteException Si algún hecho seleccionado no está presente en la tabla de hechos.
+     * @throws ArgumentosInoperablesException Si la lista de conjuntos o el mapa de agregaciones está vacío, o si 
+     *                                        algún hecho no tiene operaciones o repite alguna de ellas.
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
+     */
+    public void groupingSets(List<Map<Dimension, String>> conjuntosAgrupacion, Map<String, List<String>> agregacionesPorHecho){
+
+        // Verifico que el cubo no haya sido cerrado
+        this.verificarAbierto();
+
+        // Verifico que 'conjuntosAgrupacion' no esté vacía y que cada conjunto sea válido
+        if (conjuntosAgrupacion.isEmpty()){
+            throw new ArgumentosInoperablesException("La lista de conjuntos de agrupacion no puede estar vacia.");
+        }
+        for (Map<Dimension, String> criterios : conjuntosAgrupacion){
+            this.verificarNivelesAgregacion(criterios);
+        }
+
+        // Verifico que cada hecho esté presente y tenga al menos una operación soportada sin repetir
+        if (agregacionesPorHecho.isEmpty()){
+            throw new ArgumentosInoperablesException("El mapa de agregaciones por hecho no puede estar vacío.");
+        }
+        for (String hecho : agregacionesPorHecho.keySet()){
+            this.verificarHecho(hecho);
+        }
+        Map<String, List<OperacionAgregacion>> operacionesPorHecho = obtenerOperacionesPorHecho(agregacionesPorHecho);
+
+        // Genero una instancia de GroupingSets, cuya agrupación por todos los niveles puede obtenerse del registro
+        ComandoGroupingSets comando = new ComandoGroupingSets(this.tablaOperacion, conjuntosAgrupacion, operacionesPorHecho,
+                                                              this.precisionConteoDistinto, this.obtenerPoolHilos());
+        this.usarRegistroAgregados(comando.getAgrupacionBase());
+
+        // Ejecuto la operación
+        comando.ejecutar();
+
+        // Modifico el estado del cubo
+        this.tablaOperacion = comando.getResultado();
+        this.operaSobreCuerpoBase = false;
+    }
+
+    /**
+     * <p>
+     * Realiza una operación "Cube" sobre este cubo, que agrupa sus hechos según cada subconjunto de los criterios indicados,
+     * desde el que incluye todos los criterios hasta el que no incluye ninguno y agrupa todas las filas en una sola.
+     * </p>
+     * 
+     * <p>
+     * Es equivalente a invocar {@link #groupingSets(List, Map)} con todos los subconjuntos de los criterios, ordenados 
+     * según el valor de "grouping_id" de sus filas de menor a mayor.
+     * </p>
+     * 
+     * @param criteriosAgregacion Un mapa de criterios que contiene como clave cada dimensión a agrupar y como valor
+     *                            el nivel por el cual se agrupa.
+     * @param agregacionesPorHecho Un mapa que contiene como clave cada hecho a incluir en la operación y como valor 
+     *                             la lista de operaciones de agregación a aplicar sobre el mismo.
+     * 
+     * @throws AgregacionNoSoportadaException Si alguna operación de agregación seleccionada no está entre las disponibles.
+     * @throws DesbordamientoDecimalException Si la suma de algún hecho decimal excede su rango de valores exactos.
+     * @throws DimensionNoPresenteException Si alguna dimensión especificada no está presente en el cubo.
+     * @throws NivelNoPresenteException Si algún nivel especificado no está presente en alguna dimensión.
+     * @throws HechoNoPresenteException Si algún hecho seleccionado no está presente en la tabla de hechos.
+     * @throws ArgumentosInoperablesException Si el mapa de criterios o el de agregaciones está vacío, o si 
+     *                                        algún hecho no tiene operaciones o repite alguna de ellas.
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
+     */
+    public void cube(Map<Dimension, String> criteriosAgregacion, Map<String, List<String>> agregacionesPorHecho){
+
+        // Verifico que 'criteriosAgregacion' no sea un mapa vacío
+        if (criteriosAgregacion.isEmpty()){
+            throw new ArgumentosInoperablesException("El mapa de criterios de reducción no puede estar vacío.");
+        }
+
+        // Armo cada subconjunto de criterios, desde el que los incluye a todos hasta el vacío
+        List<Map.Entry<Dimension, String>> criterios = new ArrayList<>(criteriosAgregacion.entrySet());
+        List<Map<Dimension, String>> conjuntosAgrupacion = new ArrayList<>();
+        for (int excluidos = 0; excluidos < 1 << criterios.size(); excluidos++){
+            Map<Dimension, String> conjunto = new LinkedHashMap<>();
+            for (int i = 0; i < criterios.size(); i++){
+                if ((excluidos & 1 << (criterios.size() - 1 - i)) == 0){
+                    conjunto.put(criterios.get(i).getKey(), criterios.get(i).getValue());
+                }
+            }
+            conjuntosAgrupacion.add(conjunto);
+        }
+        this.groupingSets(conjuntosAgrupacion, agregacionesPorHecho);
+    }
+
+    /**
+     * <p>
+     * Realiza una operación "Top-N" sobre este cubo, que obtiene dentro de cada partición los grupos con mayor o menor
+     * valor agregado de un hecho, modificando la estructura interna de dimensiones y hechos del mismo.
+     * </p>
+     * 
+     * <p>
+     * Los hechos se agrupan por los niveles de la partición junto con los de agrupación, como en un roll-up, y cada grupo se
+     * compara solo con los mejores grupos de su partición vistos hasta el momento, por lo que no se ordenan todos los grupos.
+     * Por ejemplo, particionando por "region" y agrupando por "producto" se obtienen los productos con mayor valor en cada región.
+     * Se aplica sobre el estado actual del cubo, por lo que respeta las operaciones slice y dice ya aplicadas.
+     * </p>
+     * 
+     * <p>
+     * El resultado tiene una columna por cada nivel, la del hecho agregado y la columna "ranking" con la posición de cada grupo
+     * dentro de su partición, donde los grupos con el mismo valor comparten posición. Las particiones aparecen en el orden en
+     * que se encuentran y sus grupos del mejor al peor. Si no se incluyen los empates, entre grupos con el mismo valor se elige
+     * el que aparece primero. La operación no se guarda en el historial de roll-up.
+     * </p>
+     * 
+     * @param criteriosParticion Un mapa que contiene como clave cada dimensión por la cual se particiona y como valor su nivel.
+     *                           Si está vacío, se eligen los mejores grupos de todo el cubo.
+     * @param criteriosAgregacion Un mapa que contiene como clave cada dimensión por la cual se agrupa dentro de cada partición
+     *                            y como valor su nivel.
+     * @param hecho El hecho según cuyo valor agregado se eligen los grupos.
+     * @param agregacion La operación de agregación a aplicar sobre el hecho.
+     * @param cantidad La cantidad de grupos a elegir en cada partición.
+     * @param descendente true para elegir los grupos de mayor valor, false para elegir los de menor valor.
+     * @param incluirEmpates true para incluir también los grupos con el mismo valor que el último elegido de cada partición.
+     * 
+     * @throws AgregacionNoSoportadaException Si la operación de agregación seleccionada no está entre las disponibles.
+     * @throws DesbordamientoDecimalException Si la suma de algún hecho decimal excede su rango de valores exactos.
+     * @throws DimensionNoPresenteException Si alguna dimensión especificada no está presente en el cubo.
+     * @throws NivelNoPresenteException Si algún nivel especificado no está presente en alguna dimensión.
+     * @throws HechoNoPresenteException Si el hecho seleccionado no está presente en la tabla de hechos.
+     * @throws ArgumentosInoperablesException Si el mapa de criterios de agrupación está vacío o la cantidad es menor a uno.
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
+     */
+    public void topN(Map<Dimension, String> criteriosParticion, Map<Dimension, String> criteriosAgregacion, String hecho, 
+                     String agregacion, int cantidad, boolean descendente, boolean incluirEmpates){
+
+        // Verifico que el cubo no haya sido cerrado
+        this.verificarAbierto();
+
+        // Verifico que los criterios, el hecho y la operación sean válidos
+        this.verificarNivelesAgregacion(criteriosParticion);
+        this.verificarCriteriosAgregacion(criteriosAgregacion);
+        this.verificarHecho(hecho);
+        OperacionAgregacion operacion = obtenerOperacionAgregacion(agregacion);
+
+        // Verifico que la cantidad de grupos a elegir sea válida
+        if (cantidad < 1){
+            throw new ArgumentosInoperablesException("La cantidad de grupos a elegir debe ser al menos uno.");
+        }
+
+        // Genero una instancia de TopN, cuya agregación puede obtenerse del registro
+        ComandoTopN comando = new ComandoTopN(this.tablaOperacion, criteriosParticion, criteriosAgregacion, hecho, operacion, 
+                                              this.precisionConteoDistinto, cantidad, descendente, incluirEmpates, this.obtenerPoolHilos());
+        this.usarRegistroAgregados(comando.getAgrupacion());
+
+        // Ejecuto la operación
+        comando.ejecutar();
+
+        // Modifico el estado del cubo
+        this.tablaOperacion = comando.getResultado();
+        this.operaSobreCuerpoBase = false;
     }
 
     /**
@@ -209,9 +676,14 @@ public class Cubo{
      * @throws DimensionNoPresenteException Si alguna dimensión especificada no está presente en el cubo.
      * @throws NivelNoPresenteException Si algún nivel especificado no está presente en alguna dimensión.
      * @throws NivelDesagregadoException Si algún nivel especificado ya está desagregado en el cubo.
+     * @throws DesbordamientoDecimalException Si la suma de algún hecho decimal excede su rango de valores exactos.
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
     */
     public void drillDown(Map<Dimension, String> criteriosDesagregacion){
-        
+
+        // Verifico que el cubo no haya sido cerrado
+        this.verificarAbierto();
+
         // Verifico que 'criteriosDesagregacion' no sea un mapa vacío
         if (criteriosDesagregacion.isEmpty()){
             throw new ArgumentosInoperablesException("El mapa de criterios de desagregacion no puede estar vacio.");
@@ -233,7 +705,9 @@ public class Cubo{
 
         // Genero una instancia de DrillDown
         ComandoDrillDown comando = new ComandoDrillDown(criteriosDesagregacion, this.tablaBase.getCuerpoCopy(), this.historialRollUp, 
-                                                        this.historialDice, this.historialSlice, this.historialDrillDown);
+                                                        this.historialDice, this.historialSlice, this.historialDrillDown,
+                                                        this.obtenerPoolHilos(), this.registroAgregados,
+                                                        RegistroAgregados.obtenerFirmaFiltros(this.historialDice, this.historialSlice));
 
         // Ejecuto la operación
         comando.ejecutar();
@@ -243,6 +717,7 @@ public class Cubo{
 
         // Modifico el estado del cubo
         this.tablaOperacion = comando.getResultado();
+        this.operaSobreCuerpoBase = false;
     }
 
     /**
@@ -264,9 +739,13 @@ public class Cubo{
      * @throws DimensionNoPresenteException Si la dimensión especificada no está presente en el cubo.
      * @throws NivelNoPresenteException Si el nivel especificado no está presente en el cubo.
      * @throws ValorNoPresenteException Si el valor de corte no está presente en el cubo para el nivel seleccionado de la dimensión.
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
      */
     public void slice(Dimension dimension, String nivel, String valorCorte){
 
+        // Verifico que el cubo no haya sido cerrado
+        this.verificarAbierto();
+
         // Verifico que la dimensión pasada como argumento no se haya visto involucrada en 
         // esta operación anteriormente
         if (this.historialSlice.size() > 0){
@@ -324,9 +803,13 @@ public class Cubo{
      * @throws NivelNoPresenteException Si algún nivel especificado no está presente en el cubo.
      * @throws ValorNoPresenteException Si algún valor de corte no está presente en el cubo para el nivel seleccionado de la dimensión.
      * @throws ArgumentosInoperablesException Si el mapa de criterios de filtrado está vacío.
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
      */
     public void dice(Map<Dimension, Map<String, List<String>>> criteriosDice){
-        
+
+        // Verifico que el cubo no haya sido cerrado
+        this.verificarAbierto();
+
         // Verifico que 'criteriosDice' no sea un mapa vacío
         if (criteriosDice.isEmpty()){
             throw new ArgumentosInoperablesException("El mapa de criterios para la operación Dice no puede estar vacío.");
@@ -364,6 +847,63 @@ public class Cubo{
 
     }
     
+    /**
+     * <p>
+     * Ordena las filas de este cubo según una o más de sus columnas, modificando el orden en que se proyectan 
+     * y exportan sus datos.
+     * </p>
+     * 
+     * <p>
+     * Las columnas de hechos se ordenan según su valor numérico y las de niveles según sus valores, numéricamente si 
+     * todos son números y alfabéticamente si no. A igualdad de valores las filas conservan su orden anterior, y los 
+     * valores nulos quedan primero en orden ascendente y último en orden descendente. Si las claves de orden no entran
+     * en la memoria establecida con {@link #setMemoriaOrdenamiento(long)}, se ordenan por tramos en archivos temporales
+     * que luego se mezclan.
+     * </p>
+     *
+     * @param criteriosOrden Un mapa que asocia cada columna por la cual se ordena, en orden de prioridad, con true
+     *                       si se ordena de forma descendente o false si se ordena de forma ascendente. Para respetar 
+     *                       la prioridad debe ser un mapa que conserve el orden de inserción, como {@link LinkedHashMap}.
+     * 
+     * @throws IOException Si ocurre un error de entrada/salida al usar los archivos temporales del ordenamiento.
+     * @throws ColumnaNoPresenteException Si alguna columna especificada no está presente en el cubo.
+     * @throws ArgumentosInoperablesException Si el mapa de criterios de orden está vacío.
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
+     */
+    public void ordenar(Map<String, Boolean> criteriosOrden) throws IOException{
+
+        // Verifico que el cubo no haya sido cerrado
+        this.verificarAbierto();
+
+        // Verifico que 'criteriosOrden' no sea un mapa vacío
+        if (criteriosOrden.isEmpty()){
+            throw new ArgumentosInoperablesException("El mapa de criterios para la operación Ordenar no puede estar vacío.");
+        }
+
+        // Verifico que las columnas seleccionadas estén presentes en el cubo
+        for (String columna : criteriosOrden.keySet()){
+            if (!this.tablaOperacion.getHeaders().contains(columna)){
+                throw new ColumnaNoPresenteException("La columna especificada '" + columna + "' no esta presente en el cubo <" + this.nombre + ">.");
+            }
+        }
+
+        // Genero una instancia de Ordenar
+        ComandoOrdenar comando = new ComandoOrdenar(this.tablaOperacion, criteriosOrden, this.memoriaOrdenamiento);
+
+        // Ejecuto la operación
+        try{
+            comando.ejecutar();
+        } catch (UncheckedIOException e){
+            throw e.getCause();
+        }
+
+        // Modifico el estado del cubo, cuyas filas ya no están en el orden del cuerpo base que respetan los
+        // grupos de los resultados registrados
+        this.tablaOperacion = comando.getResultado();
+        this.operaSobreCuerpoBase = false;
+
+    }
+
     /**
      * Realiza una proyección de una parte seleccionada de los datos del cubo en un formato tabular.
      *
@@ -372,9 +912,13 @@ public class Cubo{
      * 
      * @throws ColumnaNoPresenteException Si una columna solicitada no está presente en este cubo.
      * @throws FilaFueraDeRangoException Si el número solicitado de filas está fuera del rango de datos de este cubo.
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
      */
     public void proyectar(int cantFilas, List<String> nombresColumnas){
 
+        // Verifico que el cubo no haya sido cerrado
+        this.verificarAbierto();
+
         // Encierro en un bloque try-catch para lanzar las excepciones adecuandolas
         // a las excepciones de la clase Cubo
         try{
@@ -397,33 +941,345 @@ public class Cubo{
      * @param estrategiaExportacion La estrategia de exportación a utilizar.
      * 
      * @throws IOException Si ocurre un error de entrada/salida al exportar los datos del cubo.
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
      */
     public void exportar(String rutaGuardadoArchivo, EstrategiaExportarArchivo estrategiaExportacion) throws IOException{
-        
-        // Junto los encabezados del cubo con los datos asociados 
-        // a los mismos para exportar su información correctamente
-        List<List<String>> datosExportar = new ArrayList<>();
-        datosExportar.add(this.tablaOperacion.getHeaders());
-        for (List<String> fila : this.tablaOperacion.getDatosTabla()){
-            datosExportar.add(fila);
-        }
+
+        // Verifico que el cubo no haya sido cerrado
+        this.verificarAbierto();
+
+        // Obtengo los encabezados del cubo junto con los datos asociados 
+        // a los mismos sin copiar la información de la tabla
+        List<List<String>> datosExportar = this.tablaOperacion.getDatosConHeaders();
 
         // Exporto la información del cubo
         estrategiaExportacion.exportarArchivo(rutaGuardadoArchivo, datosExportar);
 
     }
 
+    /**
+     * <p>
+     * Guarda este cubo en un archivo de instantánea binario, el cual puede cargarse luego mediante
+     * el método {@link #cargarCuboOLAP(String)}.
+     * </p>
+     * 
+     * <p>
+     * Se guarda la estructura interna del cubo tal como quedó al crearlo, junto con su tabla de hechos
+     * y sus dimensiones. Las operaciones realizadas sobre el cubo no se guardan.
+     * </p>
+     *
+     * @param rutaArchivo La ruta del archivo en el cual se guarda la instantánea.
+     * 
+     * @throws IOException Si ocurre un error de entrada/salida al escribir el archivo.
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
+     */
+    public void guardar(String rutaArchivo) throws IOException{
+
+        // Verifico que el cubo no haya sido cerrado
+        this.verificarAbierto();
+
+        try (EscritorInstantanea escritor = new EscritorInstantanea(rutaArchivo)){
+
+            // Guardo las tablas del cubo, las columnas compartidas entre ellas se escriben una única vez
+            escritor.escribirTexto(this.nombre);
+            escritor.escribirEntero(this.tablasDimensiones.size());
+            for (Dimension dimension : this.tablasDimensiones){
+                escritor.escribirDimension(dimension);
+            }
+            escritor.escribirHecho(this.tablaHechos, this.tablasDimensiones);
+
+            // Guardo el cuerpo base del cubo
+            escritor.escribirTextos(this.tablaBase.getHeaders());
+            escritor.escribirTextos(this.tablaBase.getHechosCubo());
+            escritor.escribirColumnas(this.tablaBase.getColumnas());
+        }
+    }
+
     /**
      * Restaura la información de este cubo al momento en que se inicializó, agregando de vuelta
      * la información de las dimensiones y tabla de hechos asociadas a este cubo.
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
      */    
     public void reiniciar(){
+
+        // Verifico que el cubo no haya sido cerrado
+        this.verificarAbierto();
         this.tablaOperacion = tablaBase.getCuerpoCopy();
+        this.operaSobreCuerpoBase = true;
         this.historialDice = new ArrayList<>();
         this.historialRollUp = new ArrayList<>();
         this.historialSlice = new ArrayList<>();
     }
 
+    /**
+     * <p>
+     * Cierra este cubo, liberando la memoria fuera del heap o las regiones mapeadas en las cuales se guarda su estructura interna.
+     * </p>
+     * 
+     * <p>
+     * Una vez cerrado el cubo no se pueden realizar más operaciones sobre el mismo. Si el cubo ya
+     * estaba cerrado no se hace nada.
+     * </p>
+     * 
+     * <p>
+     * El cubo no debe cerrarse mientras otro hilo ejecuta una operación sobre el mismo: la memoria fuera del heap
+     * y las regiones mapeadas se liberan inmediatamente, por lo que la operación en curso leería memoria ya liberada.
+     * Quien comparta el cubo entre hilos debe esperar a que terminen sus operaciones antes de cerrarlo.
+     * </p>
+     */
+    public void cerrar(){
+        this.cerrado = true;
+        if (this.zonaMemoria != null){
+            this.zonaMemoria.close();
+        }
+        this.liberarPoolHilos();
+        if (this.registroAgregados != null){
+            this.registroAgregados.vaciar();
+        }
+    }
+
+    /**
+     * Cierra este cubo, permitiendo usarlo dentro de un bloque try-with-resources.
+     * Es equivalente a invocar {@link #cerrar()}.
+     */
+    @Override
+    public void close(){
+        this.cerrar();
+    }
+
+    /**
+     * <p>
+     * Establece la cantidad de hilos sobre los cuales se ejecutan en paralelo las operaciones que agregan
+     * los hechos de este cubo.
+     * </p>
+     * 
+     * <p>
+     * Con un único hilo las operaciones se ejecutan en el hilo que las invoca. El resultado de las operaciones
+     * no depende de la cantidad de hilos elegida.
+     * </p>
+     *
+     * @param paralelismo La cantidad de hilos a utilizar.
+     * 
+     * @throws ArgumentosInoperablesException Si la cantidad de hilos es menor a uno.
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
+     */
+    public void setParalelismo(int paralelismo){
+
+        // Verifico que el cubo no haya sido cerrado
+        this.verificarAbierto();
+
+        // Verifico que la cantidad de hilos sea válida
+        if (paralelismo < 1){
+            throw new ArgumentosInoperablesException("La cantidad de hilos debe ser al menos uno.");
+        }
+
+        // Si la cantidad cambia libero el pool actual, el nuevo se crea al ejecutar la próxima operación
+        if (paralelismo != this.paralelismo){
+            this.liberarPoolHilos();
+            this.paralelismo = paralelismo;
+        }
+    }
+
+    /**
+     * @return La cantidad de hilos sobre los cuales se ejecutan en paralelo las operaciones de este cubo.
+     */
+    public int getParalelismo(){
+        return this.paralelismo;
+    }
+
+    /**
+     * <p>
+     * Establece la precisión de los bosquejos HyperLogLog que usa la operación "count_distinct" del método rollUp.
+     * </p>
+     * 
+     * <p>
+     * Con precisión p cada grupo ocupa 2^p bytes por hecho y el error relativo de la estimación es cercano a
+     * 1.04 / raíz(2^p). Los bosquejos ya calculados por un RollUp anterior conservan su precisión.
+     * </p>
+     *
+     * @param precision La precisión de los bosquejos, entre 4 y 16. Por defecto es 12.
+     * 
+     * @throws ArgumentosInoperablesException Si la precisión está fuera del rango admitido.
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
+     */
+    public void setPrecisionConteoDistinto(int precision){
+
+        // Verifico que el cubo no haya sido cerrado
+        this.verificarAbierto();
+
+        // Verifico que la precisión esté dentro del rango admitido
+        if (precision < HyperLogLog.PRECISION_MINIMA || precision > HyperLogLog.PRECISION_MAXIMA){
+            throw new ArgumentosInoperablesException("La precision debe estar entre " + HyperLogLog.PRECISION_MINIMA + " y " 
+                                                     + HyperLogLog.PRECISION_MAXIMA + ".");
+        }
+        this.precisionConteoDistinto = precision;
+    }
+
+    /**
+     * @return La precisión de los bosquejos HyperLogLog que usa la operación "count_distinct".
+     */
+    public int getPrecisionConteoDistinto(){
+        return this.precisionConteoDistinto;
+    }
+
+    /**
+     * <p>
+     * Establece la cantidad máxima de memoria que pueden ocupar las claves de orden del método ordenar.
+     * </p>
+     * 
+     * <p>
+     * Cada fila ocupa 8 bytes por columna de orden más 8 bytes de su índice. Si las claves de todas las filas no
+     * entran en esta cantidad, se ordenan por tramos que se guardan en archivos temporales y luego se mezclan.
+     * </p>
+     *
+     * @param memoriaBytes La cantidad de bytes. Por defecto es la cuarta parte de la memoria máxima de la JVM.
+     * 
+     * @throws ArgumentosInoperablesException Si la cantidad de bytes es menor a uno.
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
+     */
+    public void setMemoriaOrdenamiento(long memoriaBytes){
+
+        // Verifico que el cubo no haya sido cerrado
+        this.verificarAbierto();
+
+        // Verifico que la cantidad de bytes sea válida
+        if (memoriaBytes < 1){
+            throw new ArgumentosInoperablesException("La memoria de ordenamiento debe ser de al menos un byte.");
+        }
+        this.memoriaOrdenamiento = memoriaBytes;
+    }
+
+    /**
+     * @return La cantidad máxima de bytes que pueden ocupar en memoria las claves de orden del método ordenar.
+     */
+    public long getMemoriaOrdenamiento(){
+        return this.memoriaOrdenamiento;
+    }
+
+    /**
+     * <p>
+     * Indica si las operaciones roll-up y drill-down reutilizan los resultados ya calculados por este cubo.
+     * </p>
+     * 
+     * <p>
+     * Si se reutilizan, los resultados calculados sobre el cubo sin agrupar se guardan en un registro junto con los
+     * niveles, hechos, operaciones y filtros que los definen. El registro solo se usa mientras el cubo no fue agrupado
+     * ni ordenado desde su creación o desde el último {@link #reiniciar()}. Una operación posterior se obtiene a partir del menor
+     * resultado registrado con los mismos filtros que agrupe por todos sus niveles y contenga todos sus hechos con la
+     * misma operación, ya sea reutilizando sus columnas o volviendo a agrupar sus filas si agrupa por más niveles. Esto
+     * último solo es posible con las operaciones "sum", "max", "min", "count" y "count_distinct", y las sumas pueden
+     * diferir en el redondeo de las calculadas sobre los hechos del cubo. Por defecto los resultados se reutilizan.
+     * </p>
+     * 
+     * @param reutilizarAgregados true para reutilizar los resultados ya calculados, false para descartarlos y 
+     *                            calcular siempre cada operación sobre los hechos del cubo.
+     * 
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
+     */
+    public void setReutilizarAgregados(boolean reutilizarAgregados){
+
+        // Verifico que el cubo no haya sido cerrado
+        this.verificarAbierto();
+
+        // Creo o descarto el registro de resultados según corresponda
+        if (!reutilizarAgregados){
+            this.registroAgregados = null;
+        } else if (this.registroAgregados == null){
+            this.registroAgregados = new RegistroAgregados();
+        }
+    }
+
+    /**
+     * @return true si las operaciones roll-up y drill-down reutilizan los resultados ya calculados por este cubo, false de lo contrario.
+     */
+    public boolean reutilizaAgregados(){
+        return this.registroAgregados != null;
+    }
+
+    /**
+     * <p>
+     * Materializa las agrupaciones de este cubo que más reducen el costo de las operaciones roll-up posteriores
+     * dentro de un presupuesto de memoria, para que dichas operaciones se obtengan a partir de ellas.
+     * </p>
+     * 
+     * <p>
+     * Las agrupaciones candidatas son todas las combinaciones de niveles de las dimensiones del cubo, donde cada nivel
+     * se agrupa junto con sus niveles superiores. Su cantidad de filas se estima a partir de la cantidad de combinaciones
+     * distintas de niveles en cada dimensión, y se eligen de a una por vez las que más filas ahorran recorrer a todas las
+     * agrupaciones candidatas por cada byte que ocupan. Las agrupaciones elegidas se calculan recorriendo una única vez
+     * el cubo sin filtros y reemplazan a las materializadas anteriormente.
+     * </p>
+     * 
+     * <p>
+     * Una operación roll-up posterior sobre el cubo sin agrupar ni filtrar se obtiene de la menor agrupación materializada
+     * que agrupe por todos sus niveles y contenga todos sus hechos con la misma operación. Por eso solo se admiten las
+     * operaciones que pueden reagregarse: "sum", "max", "min", "count" y "count_distinct". Si la reutilización de
+     * resultados estaba desactivada, se vuelve a activar.
+     * </p>
+     * 
+     * @param agregacionesPorHecho Un mapa que contiene como clave cada hecho a materializar y como valor la lista de 
+     *                             operaciones de agregación a aplicar sobre el mismo.
+     * @param presupuestoBytes La cantidad máxima de bytes que pueden ocupar, según su estimación, las agrupaciones materializadas.
+     * 
+     * @return Una lista con los niveles de cada agrupación materializada, de la que tiene más filas estimadas a la que tiene menos.
+     * 
+     * @throws AgregacionNoSoportadaException Si alguna operación de agregación no está entre las disponibles o no puede reagregarse.
+     * @throws DesbordamientoDecimalException Si la suma de algún hecho decimal excede su rango de valores exactos.
+     * @throws HechoNoPresenteException Si algún hecho seleccionado no está presente en la tabla de hechos.
+     * @throws ArgumentosInoperablesException Si el mapa de agregaciones está vacío, si algún hecho no tiene operaciones o 
+     *                                        repite alguna de ellas, o si el presupuesto es menor a un byte.
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
+     */
+    public List<List<String>> materializarAgregados(Map<String, List<String>> agregacionesPorHecho, long presupuestoBytes){
+
+        // Verifico que el cubo no haya sido cerrado
+        this.verificarAbierto();
+
+        // Verifico que el presupuesto y 'agregacionesPorHecho' sean válidos
+        if (presupuestoBytes < 1){
+            throw new ArgumentosInoperablesException("El presupuesto de memoria debe ser de al menos un byte.");
+        }
+        if (agregacionesPorHecho.isEmpty()){
+            throw new ArgumentosInoperablesException("El mapa de agregaciones por hecho no puede estar vacío.");
+        }
+        for (String hecho : agregacionesPorHecho.keySet()){
+            if (!this.tablaBase.getHeaders().contains(hecho)){
+                throw new HechoNoPresenteException("El hecho '" + hecho + "' no esta presente en el cubo <" + this.nombre + ">.");
+            }
+        }
+        Map<String, List<OperacionAgregacion>> operacionesPorHecho = obtenerOperacionesPorHecho(agregacionesPorHecho);
+        for (List<OperacionAgregacion> operaciones : operacionesPorHecho.values()){
+            for (OperacionAgregacion operacion : operaciones){
+                if (operacion.getReagregacion() == null){
+                    throw new AgregacionNoSoportadaException("La operacion de agregacion '" + operacion.getOperacion() + "' no puede materializarse.");
+                }
+            }
+        }
+
+        // Elijo las agrupaciones a materializar según su tamaño estimado y las calculo
+        ReticuloAgregados reticulo = new ReticuloAgregados(this.tablasDimensiones, this.tablaBase.getCantidadFilas(), 
+                                                           operacionesPorHecho, this.precisionConteoDistinto);
+        List<List<String>> agrupaciones = reticulo.seleccionar(presupuestoBytes);
+        this.setReutilizarAgregados(true);
+        this.registroAgregados.materializar(this.tablaBase, operacionesPorHecho, this.precisionConteoDistinto, 
+                                            agrupaciones, this.obtenerPoolHilos());
+        return agrupaciones;
+    }
+
+    /**
+     * @return Una copia de la lista que contiene las dimensiones asociadas a este cubo.
+     */
+    public List<Dimension> getDimensiones(){
+        return new ArrayList<>(this.tablasDimensiones);
+    }
+
+    /**
+     * @return true si la estructura interna de este cubo se guarda fuera del heap, false de lo contrario.
+     */
+    public boolean estaFueraDelHeap(){
+        return this.zonaMemoria != null;
+    }
+
     /**
      * <p>
      * Devuelve una representación en forma de cadena de texto de este cubo.
@@ -438,7 +1294,7 @@ public class Cubo{
      */
     @Override
     public String toString() {
-        String informacionCubo = "\nCUBO <" + this.nombre + "> / (CANTIDAD DE REGISTROS: " + this.tablaOperacion.getDatosTabla().size() + ")\n";
+        String informacionCubo = "\nCUBO <" + this.nombre + "> / (CANTIDAD DE REGISTROS: " + this.tablaOperacion.getCantidadFilas() + ")\n";
         informacionCubo += "---------------------------\n";
         informacionCubo += this.tablaHechos.toString();
         informacionCubo += "---------------------------\n";
@@ -450,5 +1306,153 @@ public class Cubo{
         return informacionCubo;
     }
 
-}
 
+    // Métodos de ayuda para la clase
+
+    /**
+     * Obtiene el pool de hilos sobre el cual se ejecutan las operaciones de este cubo, creándolo si todavía no existe.
+     *
+     * @return El pool de hilos, o null si las operaciones se ejecutan en un único hilo.
+     */
+    private ForkJoinPool obtenerPoolHilos(){
+        if (this.paralelismo == 1){
+            return null;
+        }
+        if (this.poolHilos == null){
+            this.poolHilos = new ForkJoinPool(this.paralelismo);
+        }
+        return this.poolHilos;
+    }
+
+    /**
+     * Indica a una operación RollUp el registro de resultados de este cubo, solo si la misma se aplica sobre el cuerpo
+     * base filtrado por las operaciones Dice y Slice de los historiales. Cualquier otra tabla, como el resultado de un
+     * RollUp, GroupingSets, TopN, DrillDown u Ordenar, no se corresponde con los filtros que identifican los resultados
+     * registrados.
+     *
+     * @param comando La operación RollUp a ejecutar.
+     */
+    private void usarRegistroAgregados(ComandoRollUp comando){
+        if (this.registroAgregados != null && this.operaSobreCuerpoBase){
+            comando.usarRegistro(this.registroAgregados, RegistroAgregados.obtenerFirmaFiltros(this.historialDice, this.historialSlice));
+        }
+    }
+
+    /**
+     * Libera los hilos del pool de este cubo, si es que fue creado.
+     */
+    private void liberarPoolHilos(){
+        if (this.poolHilos != null){
+            this.poolHilos.shutdown();
+            this.poolHilos = null;
+        }
+    }
+
+    /**
+     * Verifica que el mapa de criterios de una operación RollUp no esté vacío y que sus dimensiones y niveles 
+     * estén presentes en este cubo.
+     *
+     * @param criteriosAgregacion El mapa de criterios a verificar.
+     *
+     * @throws ArgumentosInoperablesException Si el mapa de criterios está vacío.
+     * @throws DimensionNoPresenteException Si alguna dimensión especificada no está presente en el cubo.
+     * @throws NivelNoPresenteException Si algún nivel especificado no está presente en el cubo.
+     */
+    private void verificarCriteriosAgregacion(Map<Dimension, String> criteriosAgregacion){
+        if (criteriosAgregacion.isEmpty()){
+            throw new ArgumentosInoperablesException("El mapa de criterios de reducción no puede estar vacío.");
+        }
+        this.verificarNivelesAgregacion(criteriosAgregacion);
+    }
+
+    /**
+     * Verifica que las dimensiones y niveles de un mapa de criterios de agrupación estén presentes en este cubo.
+     *
+     * @param criteriosAgregacion El mapa de criterios a verificar, que puede estar vacío.
+     *
+     * @throws DimensionNoPresenteException Si alguna dimensión especificada no está presente en el cubo.
+     * @throws NivelNoPresenteException Si algún nivel especificado no está presente en el cubo.
+     */
+    private void verificarNivelesAgregacion(Map<Dimension, String> criteriosAgregacion){
+        for (Map.Entry<Dimension, String> criterio : criteriosAgregacion.entrySet()){
+            if (!this.tablasDimensiones.contains(criterio.getKey())){
+                throw new DimensionNoPresenteException("La dimension '" + criterio.getKey().getNombre() + "' no esta presente en el cubo <" + this.nombre + ">.");
+            }
+            if (!this.tablaOperacion.getHeaders().contains(criterio.getValue())){
+                throw new NivelNoPresenteException("El nivel '" + criterio.getValue() + "' no esta presente en el cubo <" + this.nombre + ">.");
+            }
+        }
+    }
+
+    /**
+     * Verifica que un hecho esté presente en este cubo.
+     *
+     * @param hecho El nombre del hecho a verificar.
+     *
+     * @throws HechoNoPresenteException Si el hecho no está presente en el cubo.
+     */
+    private void verificarHecho(String hecho){
+        if (!this.tablaOperacion.getHeaders().contains(hecho)){
+            throw new HechoNoPresenteException("El hecho '" + hecho + "' no esta presente en el cubo <" + this.nombre + ">.");
+        }
+    }
+
+    /**
+     * Obtiene la operación de agregación que corresponde al nombre indicado.
+     *
+     * @param agregacion El nombre de la operación de agregación.
+     *
+     * @return La operación de agregación.
+     *
+     * @throws AgregacionNoSoportadaException Si la operación de agregación no está entre las disponibles.
+     */
+    private static OperacionAgregacion obtenerOperacionAgregacion(String agregacion){
+        String agregacion_parsed = agregacion.toLowerCase().trim();
+        if (!OperacionAgregacion.esOperacionValida(agregacion_parsed)){
+            throw new AgregacionNoSoportadaException("La operacion de agregacion '" + agregacion + "' no esta soportada por el metodo RollUp.");
+        }
+        return OperacionAgregacion.valueOf(agregacion_parsed.toUpperCase());
+    }
+
+    /**
+     * Obtiene las operaciones de agregación de cada hecho, conservando el orden en que se indicaron.
+     *
+     * @param agregacionesPorHecho Un mapa que contiene como clave cada hecho y como valor los nombres de sus operaciones de agregación.
+     *
+     * @return Un mapa que contiene como clave cada hecho y como valor sus operaciones de agregación.
+     *
+     * @throws AgregacionNoSoportadaException Si alguna operación de agregación no está entre las disponibles.
+     * @throws ArgumentosInoperablesException Si algún hecho no tiene operaciones o repite alguna de ellas.
+     */
+    private static Map<String, List<OperacionAgregacion>> obtenerOperacionesPorHecho(Map<String, List<String>> agregacionesPorHecho){
+        Map<String, List<OperacionAgregacion>> operacionesPorHecho = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entrada : agregacionesPorHecho.entrySet()){
+            String hecho = entrada.getKey();
+            if (entrada.getValue().isEmpty()){
+                throw new ArgumentosInoperablesException("El hecho '" + hecho + "' debe tener al menos una operacion de agregacion.");
+            }
+            List<OperacionAgregacion> operaciones = new ArrayList<>();
+            for (String agregacion : entrada.getValue()){
+                OperacionAgregacion operacion = obtenerOperacionAgregacion(agregacion);
+                if (operaciones.contains(operacion)){
+                    throw new ArgumentosInoperablesException("La operacion de agregacion '" + agregacion + "' esta repetida para el hecho '" + hecho + "'.");
+                }
+                operaciones.add(operacion);
+            }
+            operacionesPorHecho.put(hecho, operaciones);
+        }
+        return operacionesPorHecho;
+    }
+
+    /**
+     * Verifica que este cubo no haya sido cerrado.
+     *
+     * @throws CuboCerradoException Si el cubo ya fue cerrado.
+     */
+    private void verificarAbierto(){
+        if (this.cerrado){
+            throw new CuboCerradoException("El cubo <" + this.nombre + "> ya fue cerrado y no admite más operaciones.");
+        }
+    }
+
+}
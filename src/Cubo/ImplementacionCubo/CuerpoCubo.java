@@ -1,13 +1,15 @@
 package Cubo.implementacionCubo;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import Cubo.tablasCubo.Columna;
+import Cubo.tablasCubo.ColumnaCodificada;
 import Cubo.tablasCubo.Dimension;
 import Cubo.tablasCubo.Hecho;
 import Cubo.tablasCubo.Tabla;
+import Cubo.tablasCubo.ZonaMemoria;
 
 /** 
  * <p>
@@ -16,6 +18,11 @@ import Cubo.tablasCubo.Tabla;
  * </p>
  * 
  * <p>
+ * El cuerpo base del cubo, junto con sus copias, guarda además un {@link IndiceNivel} por cada nivel
+ * que se construye la primera vez que una operación lo necesita.
+ * </p>
+ * 
+ * <p>
  * Esta clase extiende de la clase {@link Tabla}.
  * </p>
  */
@@ -23,12 +30,22 @@ class CuerpoCubo extends Tabla{
 
     // Atributos de la clase CuerpoCubo
     private final List<String> hechosCubo;
+    private final Map<String, IndiceNivel> indicesNiveles;
 
 
     // Métodos para la creación de instancias de la clase CuerpoCubo
 
     /**
+     * <p>
      * Método para crear el <b>cuerpo interno de un cubo</b>, el cual es una instancia de CuerpoCubo.
+     * </p>
+     * 
+     * <p>
+     * El cuerpo se arma como un esquema estrella: para cada fila se guarda el ordinal de la fila de cada
+     * dimensión con la que se asocia, y las columnas de las dimensiones resuelven sus valores a través de
+     * esos ordinales, sin copiar la información de las dimensiones en cada fila de la tabla de hechos.
+     * Los ordinales se obtienen mediante una {@link UnionEstrella} que recorre la tabla de hechos en paralelo.
+     * </p>
      *
      * @param tablaHechos La tabla de hechos asociada a las dimensiones del cubo que representa esta instancia.
      * @param tablasDimensiones Una lista que contiene todas las dimensiones asociadas al cubo que representa esta instancia.
@@ -37,17 +54,41 @@ class CuerpoCubo extends Tabla{
      */
     public static CuerpoCubo configurarCubo(Hecho tablaHechos, List<Dimension> tablasDimensiones, Map<Dimension, String> clavesForaneasDims){
 
-        // Inicializo el cuerpo del cubo obteniendo la información de la tabla de hechos
-        CuerpoCubo cuerpoCubo = new CuerpoCubo(tablaHechos.getDatosTabla(), tablaHechos.getHeaders(), tablaHechos.getHechos());
+        // Obtengo la clave foránea de cada dimensión en la tabla de hechos y construyo
+        // un índice sobre la clave primaria de cada dimensión
+        Columna[] clavesForaneas = new Columna[tablasDimensiones.size()];
+        IndiceClavePrimaria[] indicesDimensiones = new IndiceClavePrimaria[tablasDimensiones.size()];
+        for (int i = 0; i < tablasDimensiones.size(); i++) {
+            Dimension dimension = tablasDimensiones.get(i);
+            clavesForaneas[i] = tablaHechos.getColumnaTabla(clavesForaneasDims.get(dimension));
+            indicesDimensiones[i] = new IndiceClavePrimaria(dimension.getColumnaTabla(dimension.getPrimaryKey()));
+        }
 
-        // Fusiono la tabla de hechos con cada una de las tablas de dimensiones
-        for (Dimension dimension : tablasDimensiones) {
-            String claveForanea = clavesForaneasDims.get(dimension);
-            cuerpoCubo.merge(cuerpoCubo, claveForanea, dimension, dimension.getPrimaryKey());
+        // Asocio en una única pasada cada fila de la tabla de hechos con las filas de todas las dimensiones
+        UnionEstrella union = new UnionEstrella(clavesForaneas, indicesDimensiones, tablaHechos.getCantidadFilas());
+        union.ejecutar();
+        int[] filasHechos = union.getFilasHechos();
+
+        // Armo las columnas del cuerpo, las de la tabla de hechos se comparten si no cambiaron sus filas
+        // y las de las dimensiones se resuelven a través de los ordinales
+        List<String> headers = tablaHechos.getHeaders();
+        List<Columna> columnas = new ArrayList<>();
+        for (Columna columna : tablaHechos.getColumnas()) {
+            columnas.add(filasHechos == null ? columna : columna.seleccionarFilas(filasHechos));
         }
+        for (int i = 0; i < tablasDimensiones.size(); i++) {
+            Dimension dimension = tablasDimensiones.get(i);
+            for (String header : dimension.getHeaders()) {
+                columnas.add(dimension.resolverColumna(header, union.getOrdinales(i)));
+                headers.add(header);
+            }
+        }
+
+        // Inicializo el cuerpo del cubo, como es el cuerpo base del cubo admite índices sobre sus niveles
+        CuerpoCubo cuerpoCubo = new CuerpoCubo(columnas, headers, tablaHechos.getHechos(), new HashMap<>());
         
         // Elimino las columnas de las claves primarias y foráneas de las dimensiones
-        // ya que una vez fusionadas con la tabla de hechos estas no sirven más
+        // ya que una vez asociadas con la tabla de hechos estas no sirven más
         for (Dimension dimension : tablasDimensiones){
             cuerpoCubo.eliminarColumna(dimension.getPrimaryKey());
             cuerpoCubo.eliminarColumna(clavesForaneasDims.get(dimension));
@@ -57,6 +98,21 @@ class CuerpoCubo extends Tabla{
         return cuerpoCubo;
     }
 
+    /**
+     * Método para restaurar el <b>cuerpo interno de un cubo</b> a partir de columnas ya configuradas,
+     * por ejemplo las leídas desde una instantánea del cubo. Como es el cuerpo base del cubo admite
+     * índices sobre sus niveles.
+     *
+     * @param columnas Las columnas que guardan la información interna del cubo.
+     * @param headers Una lista que contiene los encabezados de las columnas.
+     * @param hechosCubo Una lista que contiene los nombres de los hechos presentes en el cubo.
+     *
+     * @return El cuerpo del cubo restaurado y preparado para realizar operaciones.
+     */
+    public static CuerpoCubo restaurarCuerpo(List<Columna> columnas, List<String> headers, List<String> hechosCubo){
+        return new CuerpoCubo(columnas, headers, hechosCubo, new HashMap<>());
+    }
+
     /**
      * <p>
      * <b>Constructor para la clase CuerpoCubo.</b>
@@ -67,69 +123,38 @@ class CuerpoCubo extends Tabla{
      * toda la información interna del mismo.
      * </p>
      *
-     * @param datosTabla La matriz de información interna del cubo que representa esta instancia.
+     * @param columnas Las columnas que guardan la información interna del cubo que representa esta instancia.
      * @param headers Una lista que contiene los encabezados de las tablas contenidas en el cubo que representa esta instancia.
      * @param hechosCubo Una lista que contiene los nombres de los hechos presentes en el cubo que representa esta instancia.
      */
-    protected CuerpoCubo(List<List<String>> datosTabla, List<String> headers, List<String> hechosCubo) {
-        super("Estructura interna del cubo",datosTabla, headers);
-        this.hechosCubo = hechosCubo;
+    protected CuerpoCubo(List<Columna> columnas, List<String> headers, List<String> hechosCubo) {
+        this(columnas, headers, hechosCubo, null);
     }
 
-
-    // Métodos de ayuda para la clase
-
     /**
-     * Método para fusionar la información contenida en dos objetos de tipo tabla.
-     * 
-     * @param tablaIzq Tabla izquierda a fusionar.
-     * @param claveTablaIzq Clave de la tabla izquierda.
-     * @param tablaDer Tabla derecha a fusionar.
-     * @param claveTablaDer Clave de la tabla derecha.
+     * <p>
+     * <b>Constructor para la clase CuerpoCubo.</b>
+     * </p>
      * 
+     * <p>
+     * Se encarga de inicializar el "cuerpo" del cubo que representa esta instancia junto con los índices
+     * de sus niveles, los cuales se comparten con las copias de esta instancia.
+     * </p>
+     *
+     * @param columnas Las columnas que guardan la información interna del cubo que representa esta instancia.
+     * @param headers Una lista que contiene los encabezados de las tablas contenidas en el cubo que representa esta instancia.
+     * @param hechosCubo Una lista que contiene los nombres de los hechos presentes en el cubo que representa esta instancia.
+     * @param indicesNiveles Un mapa que contiene los índices ya construidos de cada nivel, o null si esta instancia no admite índices.
      */
-    private void merge(Tabla tablaIzq, String claveTablaIzq, Tabla tablaDer, String claveTablaDer) {
-
-        // Obtengo los índices de las claves correspondientes en ambas tablas
-        int indiceClaveIzq = tablaIzq.getHeaders().indexOf(claveTablaIzq);
-        int indiceClaveDer = tablaDer.getHeaders().indexOf(claveTablaDer);
-    
-        // Preparo la lista de headers y datos resultantes
-        List<String> headersResultado = new ArrayList<>(tablaIzq.getHeaders());
-        headersResultado.addAll(tablaDer.getHeaders());
-        List<List<String>> datosResultado = new ArrayList<>();
-    
-        // Genero un mapa que me ayudará a agrupar las filas de la 
-        // tabla izquierda según el valor de su clave
-        Map<String, List<List<String>>> mapaIzq = new LinkedHashMap<>();
-
-        // Itero sobre la tabla izquierda y voy agrupando las filas
-        for (List<String> fila : tablaIzq.getDatosTabla()) {
-            if (fila == null) continue;
-            String clave = fila.get(indiceClaveIzq);
-            mapaIzq.computeIfAbsent(clave, k -> new ArrayList<>()).add(fila);
-        }
-    
-        // Itero sobre la tabla derecha y voy agrupando sus filas
-        // junto con las filas de la tabla izquierda
-        for (List<String> filaDer : tablaDer.getDatosTabla()) {
-            if (filaDer == null) continue;
-            String clave = filaDer.get(indiceClaveDer);
-            List<List<String>> filasIzq = mapaIzq.get(clave);
-            if (filasIzq != null) {
-                for (List<String> filaIzq : filasIzq) {
-                    List<String> filaCombinada = new ArrayList<>(filaIzq);
-                    filaCombinada.addAll(filaDer);
-                    datosResultado.add(filaCombinada);
-                }
-            }
-        }
-    
-        // Actualizo la información interna de esta instancia
-        this.datosTabla = datosResultado;
-        this.headers = headersResultado;
+    private CuerpoCubo(List<Columna> columnas, List<String> headers, List<String> hechosCubo, Map<String, IndiceNivel> indicesNiveles) {
+        super("Estructura interna del cubo", columnas, headers);
+        this.hechosCubo = hechosCubo;
+        this.indicesNiveles = indicesNiveles;
     }
 
+
+    // Métodos de ayuda para la clase
+
     /**
      * <p>
      * Elimina todas las columnas de la tabla que tengan el nombre especificado.
@@ -144,31 +169,12 @@ class CuerpoCubo extends Tabla{
      */
     private void eliminarColumna(String nombreColumna){
 
-        // Encuentro todos los indices de las columnas que coinciden con el nombre
-        List<Integer> indicesColumnas = new ArrayList<>();
-        for (int i = 0; i < this.headers.size(); i++) {
+        // Elimino en orden inverso todas las columnas que coinciden con el nombre
+        // para evitar problemas de desplazamiento, si no hay coincidencias no se hace nada
+        for (int i = this.headers.size() - 1; i >= 0; i--) {
             if (this.headers.get(i).equals(nombreColumna)) {
-                indicesColumnas.add(i);
-            }
-        }
-
-        // Si no se encontraron índices, no se hace nada
-        if (indicesColumnas.isEmpty()) {
-            return;
-        }
-
-        // Elimino los encabezados de las columnas en orden inverso para evitar problemas de desplazamiento
-        Collections.sort(indicesColumnas, Collections.reverseOrder());
-        for (int indiceColumna : indicesColumnas) {
-            this.headers.remove(indiceColumna);
-        }
-
-        // Elimino los datos de las columnas en cada fila
-        for (List<String> fila : this.datosTabla) {
-            for (int indiceColumna : indicesColumnas) {
-                if (fila.size() > indiceColumna) {
-                    fila.remove(indiceColumna);
-                }
+                this.headers.remove(i);
+                this.columnas.remove(i);
             }
         }
     }
@@ -188,13 +194,60 @@ class CuerpoCubo extends Tabla{
     }    
 
     /**
-     * Devuelve una copia profunda del cuerpo del cubo
-     * que representa esta instancia.
+     * Devuelve una copia del cuerpo del cubo que representa esta instancia cuyas columnas
+     * numéricas y codificadas guardan sus valores fuera del heap, en la zona de memoria indicada.
+     *
+     * @param zona La zona de memoria en la cual se reservan los valores de las columnas.
      *
-     * @return Una copia profunda del cuerpo del cubo.
+     * @return Una copia del cuerpo del cubo almacenada fuera del heap.
+     */
+    public CuerpoCubo copiarEn(ZonaMemoria zona){
+        List<Columna> columnasFueraHeap = new ArrayList<>();
+        for (Columna columna : this.columnas) {
+            columnasFueraHeap.add(columna.copiarEn(zona));
+        }
+        return new CuerpoCubo(columnasFueraHeap, this.getHeaders(), this.getHechosCubo(), this.indicesNiveles == null ? null : new HashMap<>());
+    }
+
+    /**
+     * Devuelve una copia del cuerpo del cubo que representa esta instancia.
+     * Como las columnas son inmutables, la copia las comparte con el original.
+     *
+     * @return Una copia del cuerpo del cubo.
      */
     public CuerpoCubo getCuerpoCopy(){
-        return new CuerpoCubo(this.getDatosTabla(), this.getHeaders(), this.getHechosCubo());
+        return new CuerpoCubo(this.getColumnas(), this.getHeaders(), this.getHechosCubo(), this.indicesNiveles);
+    }
+
+    /**
+     * <p>
+     * Obtiene el índice de un nivel presente en el cubo que representa esta instancia, construyéndolo
+     * la primera vez que se solicita.
+     * </p>
+     * 
+     * <p>
+     * Solo el cuerpo base del cubo y sus copias admiten índices, ya que los resultados de las operaciones
+     * se usan una única vez y construir un índice sobre ellos es más costoso que recorrerlos.
+     * </p>
+     *
+     * @param nivel El nombre del nivel del cual se quiere obtener el índice.
+     *
+     * @return El índice del nivel, o null si esta instancia no admite índices o el nivel no está codificado.
+     */
+    public IndiceNivel getIndiceNivel(String nivel){
+        if (this.indicesNiveles == null) {
+            return null;
+        }
+        IndiceNivel indice = this.indicesNiveles.get(nivel);
+        if (indice == null) {
+            Columna columnaNivel = this.getColumnaTabla(nivel);
+            if (!(columnaNivel instanceof ColumnaCodificada)) {
+                return null;
+            }
+            indice = new IndiceNivel((ColumnaCodificada) columnaNivel);
+            this.indicesNiveles.put(nivel, indice);
+        }
+        return indice;
     }
 
 }
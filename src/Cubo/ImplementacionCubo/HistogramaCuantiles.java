@@ -0,0 +1,145 @@
+package Cubo.implementacionCubo;
+
+/**
+ * <p>
+ * Esta clase reúne las operaciones de los histogramas logarítmicos que permiten estimar los cuantiles de un conjunto
+ * de valores, como la mediana o el percentil 95, usando una cantidad de memoria fija.
+ * </p>
+ *
+ * <p>
+ * Cada potencia de dos se divide en {@value #SUBDIVISIONES} cubetas del mismo ancho, y cada histograma cuenta cuántos
+ * valores caen en cada cubeta, tanto para los valores positivos como para los negativos, más una cubeta para los valores
+ * cercanos a cero. El cuantil estimado es el punto medio de la cubeta que contiene al valor del cuantil exacto, por lo
+ * que para los valores cuyo módulo está entre 2^-8 (cerca de 0.004) y 2^32 (cerca de 4.3 mil millones) el error
+ * relativo es a lo sumo 1/64 (cerca del 1.6%). Los módulos menores se estiman como cero y los mayores se acumulan en
+ * la última cubeta, por lo que pierden precisión.
+ * </p>
+ *
+ * <p>
+ * Dos histogramas se combinan sumando sus cubetas, por lo que el resultado es exactamente el mismo que si todos los
+ * valores se hubieran agregado en uno solo. Los histogramas de varios grupos se guardan uno a continuación del otro en
+ * un único arreglo, ocupando {@value #CANTIDAD_CUBETAS} enteros cada uno.
+ * </p>
+ */
+final class HistogramaCuantiles {
+
+    // Cantidad de cubetas en las que se divide cada potencia de dos
+    private static final int BITS_SUBDIVISION = 5;
+    private static final int SUBDIVISIONES = 1 << BITS_SUBDIVISION;
+
+    // Rango de exponentes de los módulos que se estiman con precisión
+    private static final int EXPONENTE_MINIMO = -8;
+    private static final int EXPONENTE_MAXIMO = 32;
+    private static final double MODULO_MINIMO = Math.scalb(1.0, EXPONENTE_MINIMO);
+
+    // Disposición de las cubetas: negativos de mayor a menor módulo, cero, y positivos de menor a mayor módulo
+    private static final int CUBETAS_POR_SIGNO = (EXPONENTE_MAXIMO - EXPONENTE_MINIMO) * SUBDIVISIONES;
+    private static final int CUBETA_CERO = CUBETAS_POR_SIGNO;
+    public static final int CANTIDAD_CUBETAS = 2 * CUBETAS_POR_SIGNO + 1;
+
+    private HistogramaCuantiles() {
+    }
+
+    /**
+     * Agrega un valor a un histograma.
+     *
+     * @param conteos El arreglo que contiene las cubetas del histograma.
+     * @param inicio La posición de la primera cubeta del histograma en el arreglo.
+     * @param valor El valor a agregar.
+     */
+    public static void agregar(int[] conteos, int inicio, double valor) {
+        conteos[inicio + obtenerCubeta(valor)]++;
+    }
+
+    /**
+     * Combina un histograma en otro.
+     *
+     * @param destino El arreglo que contiene las cubetas del histograma que se actualiza.
+     * @param inicioDestino La posición de la primera cubeta del histograma que se actualiza.
+     * @param origen El arreglo que contiene las cubetas del histograma a combinar, que no se modifica.
+     * @param inicioOrigen La posición de la primera cubeta del histograma a combinar.
+     */
+    public static void combinar(int[] destino, int inicioDestino, int[] origen, int inicioOrigen) {
+        for (int c = 0; c < CANTIDAD_CUBETAS; c++) {
+            destino[inicioDestino + c] += origen[inicioOrigen + c];
+        }
+    }
+
+    /**
+     * Cuenta los valores agregados a un histograma.
+     *
+     * @param conteos El arreglo que contiene las cubetas del histograma.
+     * @param inicio La posición de la primera cubeta del histograma en el arreglo.
+     *
+     * @return La cantidad de valores agregados al histograma.
+     */
+    public static long contar(int[] conteos, int inicio) {
+        long total = 0;
+        for (int c = 0; c < CANTIDAD_CUBETAS; c++) {
+            total += conteos[inicio + c];
+        }
+        return total;
+    }
+
+    /**
+     * Estima un cuantil de los valores agregados a un histograma.
+     *
+     * @param conteos El arreglo que contiene las cubetas del histograma.
+     * @param inicio La posición de la primera cubeta del histograma en el arreglo.
+     * @param cuantil El cuantil a estimar, entre 0 y 1.
+     *
+     * @return El valor estimado del cuantil, o NaN si el histograma no tiene valores y el cuantil no está definido.
+     */
+    public static double estimar(int[] conteos, int inicio, double cuantil) {
+        long total = contar(conteos, inicio);
+        if (total == 0) {
+            return Double.NaN;
+        }
+
+        // Busco la cubeta que contiene al valor cuya posición en el orden es la del cuantil
+        long posicion = Math.max(1, (long) Math.ceil(cuantil * total));
+        long acumulado = 0;
+        for (int c = 0; c < CANTIDAD_CUBETAS; c++) {
+            acumulado += conteos[inicio + c];
+            if (acumulado >= posicion) {
+                return obtenerValor(c);
+            }
+        }
+        return obtenerValor(CANTIDAD_CUBETAS - 1);
+    }
+
+    /**
+     * Se encarga de obtener la cubeta en la que cae un valor.
+     */
+    private static int obtenerCubeta(double valor) {
+        double modulo = Math.abs(valor);
+        if (!(modulo >= MODULO_MINIMO)) {
+            return CUBETA_CERO;
+        }
+        int exponente = Math.getExponent(modulo);
+        int cubeta;
+        if (exponente >= EXPONENTE_MAXIMO) {
+            cubeta = CUBETAS_POR_SIGNO - 1;
+        } else {
+            // La subdivisión son los primeros bits de la mantisa del valor
+            int subdivision = (int) (Double.doubleToRawLongBits(modulo) >>> (52 - BITS_SUBDIVISION)) & (SUBDIVISIONES - 1);
+            cubeta = (exponente - EXPONENTE_MINIMO) * SUBDIVISIONES + subdivision;
+        }
+        return valor < 0 ? CUBETA_CERO - 1 - cubeta : CUBETA_CERO + 1 + cubeta;
+    }
+
+    /**
+     * Se encarga de obtener el punto medio de una cubeta.
+     */
+    private static double obtenerValor(int cubeta) {
+        if (cubeta == CUBETA_CERO) {
+            return 0;
+        }
+        int cubetaModulo = cubeta < CUBETA_CERO ? CUBETA_CERO - 1 - cubeta : cubeta - CUBETA_CERO - 1;
+        int exponente = cubetaModulo / SUBDIVISIONES + EXPONENTE_MINIMO;
+        int subdivision = cubetaModulo % SUBDIVISIONES;
+        double modulo = Math.scalb(1 + (subdivision + 0.5) / SUBDIVISIONES, exponente);
+        return cubeta < CUBETA_CERO ? -modulo : modulo;
+    }
+
+}
@@ -0,0 +1,162 @@
+package Cubo.implementacionCubo;
+
+/**
+ * <p>
+ * Esta clase reúne las operaciones de los bosquejos HyperLogLog, que permiten estimar la cantidad de valores
+ * distintos de un conjunto usando una cantidad de memoria fija.
+ * </p>
+ *
+ * <p>
+ * Un bosquejo de precisión p tiene 2^p registros de un byte. Cada valor se resume en un hash de 64 bits, cuyos
+ * primeros p bits eligen un registro y el resto indica la cantidad de ceros con la que empieza, guardando cada
+ * registro el máximo observado. Dos bosquejos de la misma precisión se combinan tomando el máximo de cada
+ * registro, por lo que el resultado es el mismo que si todos los valores se hubieran agregado en uno solo.
+ * El error relativo de la estimación es cercano a 1.04 / raíz(2^p).
+ * </p>
+ *
+ * <p>
+ * Los registros de varios bosquejos se guardan uno a continuación del otro en un único arreglo de bytes, de
+ * forma que los bosquejos de todos los grupos de una agregación no crean un objeto por grupo.
+ * </p>
+ */
+final class HyperLogLog {
+
+    // Precisiones admitidas y precisión por defecto de los bosquejos
+    public static final int PRECISION_MINIMA = 4;
+    public static final int PRECISION_MAXIMA = 16;
+    public static final int PRECISION_POR_DEFECTO = 12;
+
+    private HyperLogLog() {
+    }
+
+    /**
+     * @param precision La precisión del bosquejo.
+     *
+     * @return La cantidad de registros que tiene un bosquejo de la precisión indicada.
+     */
+    public static int getCantidadRegistros(int precision) {
+        return 1 << precision;
+    }
+
+    /**
+     * Agrega el hash de un valor a un bosquejo.
+     *
+     * @param registros El arreglo que contiene los registros del bosquejo.
+     * @param inicio La posición del primer registro del bosquejo en el arreglo.
+     * @param precision La precisión del bosquejo.
+     * @param hash El hash de 64 bits del valor.
+     */
+    public static void agregar(byte[] registros, int inicio, int precision, long hash) {
+        int registro = (int) (hash >>> (Long.SIZE - precision));
+        // El bit agregado al final limita el rango cuando el resto del hash es cero
+        int rango = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rango > registros[inicio + registro]) {
+            registros[inicio + registro] = (byte) rango;
+        }
+    }
+
+    /**
+     * Combina un bosquejo en otro de la misma precisión.
+     *
+     * @param destino El arreglo que contiene los registros del bosquejo que se actualiza.
+     * @param inicioDestino La posición del primer registro del bosquejo que se actualiza.
+     * @param origen El arreglo que contiene los registros del bosquejo a combinar, que no se modifica.
+     * @param inicioOrigen La posición del primer registro del bosquejo a combinar.
+     * @param precision La precisión de ambos bosquejos.
+     */
+    public static void combinar(byte[] destino, int inicioDestino, byte[] origen, int inicioOrigen, int precision) {
+        int cantidadRegistros = getCantidadRegistros(precision);
+        for (int r = 0; r < cantidadRegistros; r++) {
+            byte valor = origen[inicioOrigen + r];
+            if (valor > destino[inicioDestino + r]) {
+                destino[inicioDestino + r] = valor;
+            }
+        }
+    }
+
+    /**
+     * Estima la cantidad de valores distintos agregados a un bosquejo.
+     *
+     * @param registros El arreglo que contiene los registros del bosquejo.
+     * @param inicio La posición del primer registro del bosquejo en el arreglo.
+     * @param precision La precisión del bosquejo.
+     *
+     * @return La estimación redondeada de la cantidad de valores distintos.
+     */
+    public static double estimar(byte[] registros, int inicio, int precision) {
+        int cantidadRegistros = getCantidadRegistros(precision);
+        double suma = 0;
+        int registrosVacios = 0;
+        for (int r = 0; r < cantidadRegistros; r++) {
+            int valor = registros[inicio + r];
+            suma += Double.longBitsToDouble((long) (1023 - valor) << 52);
+            if (valor == 0) {
+                registrosVacios++;
+            }
+        }
+        double estimacion = alfa(cantidadRegistros) * cantidadRegistros * cantidadRegistros / suma;
+
+        // Para cantidades chicas es más precisa la estimación por la proporción de registros vacíos
+        if (estimacion <= 2.5 * cantidadRegistros && registrosVacios > 0) {
+            estimacion = cantidadRegistros * Math.log((double) cantidadRegistros / registrosVacios);
+        }
+        return Math.round(estimacion);
+    }
+
+    /**
+     * Se encarga de obtener la constante de corrección de la estimación según la cantidad de registros.
+     */
+    private static double alfa(int cantidadRegistros) {
+        switch (cantidadRegistros) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / cantidadRegistros);
+        }
+    }
+
+    /**
+     * Calcula el hash de 64 bits de un valor de texto.
+     *
+     * @param valor El valor de texto.
+     *
+     * @return El hash del valor.
+     */
+    public static long hash(String valor) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            hash ^= valor.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mezclar(hash);
+    }
+
+    /**
+     * Calcula el hash de 64 bits de un valor numérico.
+     *
+     * @param valor El valor numérico.
+     *
+     * @return El hash del valor.
+     */
+    public static long hash(double valor) {
+        // Sumo cero para que 0.0 y -0.0 se consideren el mismo valor
+        return mezclar(Double.doubleToLongBits(valor + 0.0));
+    }
+
+    /**
+     * Se encarga de mezclar todos los bits de un número de 64 bits.
+     */
+    private static long mezclar(long clave) {
+        clave ^= clave >>> 33;
+        clave *= 0xff51afd7ed558ccdL;
+        clave ^= clave >>> 33;
+        clave *= 0xc4ceb9fe1a85ec53L;
+        clave ^= clave >>> 33;
+        return clave;
+    }
+
+}
@@ -0,0 +1,61 @@
+package Cubo.implementacionCubo;
+
+import java.util.HashMap;
+import java.util.Map;
+import Cubo.tablasCubo.Columna;
+
+/**
+ * <p>
+ * Esta clase representa el índice de la clave primaria de una dimensión, el cual permite
+ * encontrar las filas de la dimensión que tienen un valor de clave determinado.
+ * </p>
+ *
+ * <p>
+ * Las filas que comparten el mismo valor de clave quedan encadenadas en orden ascendente. Una vez
+ * construido el índice no se modifica, por lo que puede consultarse desde varios hilos a la vez.
+ * </p>
+ */
+class IndiceClavePrimaria {
+
+    // Atributos de la clase IndiceClavePrimaria
+    private final Map<String, Integer> primeraFila;
+    private final int[] siguienteFila;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase IndiceClavePrimaria.</b>
+     * </p>
+     *
+     * @param clavePrimaria La columna de la dimensión que contiene su clave primaria.
+     */
+    public IndiceClavePrimaria(Columna clavePrimaria) {
+        this.primeraFila = new HashMap<>();
+        this.siguienteFila = new int[clavePrimaria.getLongitud()];
+
+        // Recorro las filas desde la última para que cada cadena quede en orden ascendente
+        for (int j = clavePrimaria.getLongitud() - 1; j >= 0; j--) {
+            Integer anterior = this.primeraFila.put(clavePrimaria.getValor(j), j);
+            this.siguienteFila[j] = anterior == null ? -1 : anterior;
+        }
+    }
+
+    /**
+     * @param clave El valor de clave buscado.
+     *
+     * @return La primera fila de la dimensión que tiene el valor de clave, o -1 si no hay ninguna.
+     */
+    public int getPrimeraFila(String clave) {
+        Integer fila = this.primeraFila.get(clave);
+        return fila == null ? -1 : fila;
+    }
+
+    /**
+     * @param fila Una fila de la dimensión.
+     *
+     * @return La siguiente fila de la dimensión con el mismo valor de clave, o -1 si no hay ninguna.
+     */
+    public int getSiguienteFila(int fila) {
+        return this.siguienteFila[fila];
+    }
+
+}
@@ -0,0 +1,79 @@
+package Cubo.implementacionCubo;
+
+import Cubo.tablasCubo.ColumnaCodificada;
+
+/**
+ * <p>
+ * Esta clase representa el índice de un nivel presente en la estructura interna del cubo.
+ * </p>
+ *
+ * <p>
+ * El índice guarda un {@link MapaBits} por cada valor del diccionario del nivel con las filas
+ * en las que aparece ese valor, más uno adicional con las filas que no tienen valor. De esta forma
+ * los métodos Slice y Dice obtienen las filas que cumplen un criterio sin recorrer la columna.
+ * </p>
+ */
+class IndiceNivel {
+
+    // Atributos de la clase IndiceNivel
+    private final MapaBits[] mapasPorCodigo;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase IndiceNivel.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de construir el mapa de bits de cada valor del nivel recorriendo una única vez su columna.
+     * </p>
+     *
+     * @param columnaNivel La columna codificada del nivel a indexar.
+     */
+    public IndiceNivel(ColumnaCodificada columnaNivel) {
+
+        // Cuento las filas de cada código, los valores nulos van en la última posición
+        int cantidadCodigos = columnaNivel.getDiccionario().getCantidad() + 1;
+        int[] inicios = new int[cantidadCodigos + 1];
+        for (int i = 0; i < columnaNivel.getLongitud(); i++) {
+            inicios[posicion(columnaNivel.getCodigo(i), cantidadCodigos) + 1]++;
+        }
+        for (int c = 0; c < cantidadCodigos; c++) {
+            inicios[c + 1] += inicios[c];
+        }
+
+        // Ordeno las filas por código conservando el orden ascendente dentro de cada código
+        int[] filasOrdenadas = new int[columnaNivel.getLongitud()];
+        int[] siguientes = inicios.clone();
+        for (int i = 0; i < columnaNivel.getLongitud(); i++) {
+            filasOrdenadas[siguientes[posicion(columnaNivel.getCodigo(i), cantidadCodigos)]++] = i;
+        }
+
+        // Genero el mapa de bits de cada código
+        this.mapasPorCodigo = new MapaBits[cantidadCodigos];
+        for (int c = 0; c < cantidadCodigos; c++) {
+            this.mapasPorCodigo[c] = MapaBits.desdeFilas(filasOrdenadas, inicios[c], inicios[c + 1]);
+        }
+    }
+
+    /**
+     * Se encarga de obtener la posición del mapa de bits asociado a un código.
+     */
+    private static int posicion(int codigo, int cantidadCodigos) {
+        return codigo == -1 ? cantidadCodigos - 1 : codigo;
+    }
+
+    /**
+     * Obtiene las filas en las que aparece un código del nivel.
+     *
+     * @param codigo El código del valor buscado, o -1 para obtener las filas sin valor.
+     *
+     * @return Un mapa de bits con las filas en las que aparece el código.
+     */
+    public MapaBits getMapa(int codigo) {
+        if (codigo >= this.mapasPorCodigo.length - 1) {
+            return MapaBits.vacio();
+        }
+        return this.mapasPorCodigo[posicion(codigo, this.mapasPorCodigo.length)];
+    }
+
+}
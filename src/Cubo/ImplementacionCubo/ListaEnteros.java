@@ -0,0 +1,81 @@
+package Cubo.implementacionCubo;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Esta clase representa una lista de enteros primitivos que crece a medida que se le
+ * agregan elementos.
+ * </p>
+ *
+ * <p>
+ * Se utiliza para acumular índices de filas durante las operaciones sobre el cubo sin
+ * tener que envolver cada índice en un objeto.
+ * </p>
+ */
+class ListaEnteros {
+
+    // Atributos de la clase ListaEnteros
+    private int[] elementos;
+    private int cantidad;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ListaEnteros.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar una lista vacía.
+     * </p>
+     */
+    public ListaEnteros() {
+        this.elementos = new int[16];
+        this.cantidad = 0;
+    }
+
+    /**
+     * Agrega un elemento al final de esta lista.
+     *
+     * @param elemento El elemento a agregar.
+     */
+    public void agregar(int elemento) {
+        if (this.cantidad == this.elementos.length) {
+            this.elementos = Arrays.copyOf(this.elementos, this.elementos.length * 2);
+        }
+        this.elementos[this.cantidad++] = elemento;
+    }
+
+    /**
+     * @param indice La posición del elemento a obtener.
+     *
+     * @return El elemento ubicado en la posición indicada.
+     */
+    public int obtener(int indice) {
+        return this.elementos[indice];
+    }
+
+    /**
+     * @return La cantidad de elementos presentes en esta lista.
+     */
+    public int getCantidad() {
+        return this.cantidad;
+    }
+
+    /**
+     * @return Un arreglo que contiene únicamente los elementos presentes en esta lista.
+     */
+    public int[] aArreglo() {
+        return Arrays.copyOf(this.elementos, this.cantidad);
+    }
+
+    /**
+     * Copia los elementos de esta lista en un arreglo, a partir de la posición indicada.
+     *
+     * @param destino El arreglo en el cual se copian los elementos.
+     * @param posicion La posición del arreglo en la cual se copia el primer elemento.
+     */
+    public void copiarEn(int[] destino, int posicion) {
+        System.arraycopy(this.elementos, 0, destino, posicion, this.cantidad);
+    }
+
+}
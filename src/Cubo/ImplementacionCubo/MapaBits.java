@@ -0,0 +1,397 @@
+package Cubo.implementacionCubo;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Esta clase representa un mapa de bits comprimido que guarda un conjunto de índices de filas.
+ * </p>
+ *
+ * <p>
+ * Los índices se reparten en bloques de 65536 filas según sus 16 bits más altos. Cada bloque
+ * guarda sus 16 bits más bajos como un arreglo ordenado si tiene pocas filas, o como un mapa de
+ * bits de 1024 palabras si tiene muchas, de modo que tanto los conjuntos dispersos como los densos
+ * ocupan poco espacio y se pueden combinar rápidamente.
+ * </p>
+ *
+ * <p>
+ * Las instancias de esta clase son inmutables, por lo que los bloques pueden compartirse entre
+ * el resultado de una operación y sus operandos.
+ * </p>
+ */
+class MapaBits {
+
+    // Cantidad máxima de filas de un bloque guardado como arreglo
+    private static final int MAXIMO_ARREGLO = 4096;
+
+    // Cantidad de palabras de un bloque guardado como mapa de bits
+    private static final int PALABRAS_BLOQUE = 1024;
+
+    private static final MapaBits VACIO = new MapaBits(new char[0], new Object[0], new int[0], 0);
+
+    // Atributos de la clase MapaBits
+    private final char[] claves;
+    private final Object[] bloques;
+    private final int[] cardinalidades;
+    private final int cantidadBloques;
+    private final int cardinalidad;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase MapaBits.</b>
+     * </p>
+     *
+     * @param claves Los 16 bits más altos de las filas de cada bloque, en orden ascendente.
+     * @param bloques Los bloques del mapa, cada uno es un arreglo de tipo char[] o un mapa de bits de tipo long[].
+     * @param cardinalidades La cantidad de filas presentes en cada bloque.
+     * @param cantidadBloques La cantidad de bloques utilizados de los arreglos anteriores.
+     */
+    private MapaBits(char[] claves, Object[] bloques, int[] cardinalidades, int cantidadBloques) {
+        this.claves = claves;
+        this.bloques = bloques;
+        this.cardinalidades = cardinalidades;
+        this.cantidadBloques = cantidadBloques;
+        int total = 0;
+        for (int i = 0; i < cantidadBloques; i++) {
+            total += cardinalidades[i];
+        }
+        this.cardinalidad = total;
+    }
+
+
+    // Métodos para la creación de instancias de la clase MapaBits
+
+    /**
+     * @return Un mapa de bits que no contiene ninguna fila.
+     */
+    public static MapaBits vacio() {
+        return VACIO;
+    }
+
+    /**
+     * Se encarga de crear un mapa de bits a partir de una parte de un arreglo de filas.
+     *
+     * @param filas Un arreglo que contiene índices de filas no negativos en orden ascendente.
+     * @param desde La posición del primer índice a incluir.
+     * @param hasta La posición siguiente al último índice a incluir.
+     *
+     * @return Un mapa de bits que contiene las filas indicadas.
+     */
+    public static MapaBits desdeFilas(int[] filas, int desde, int hasta) {
+        char[] claves = new char[8];
+        Object[] bloques = new Object[8];
+        int[] cardinalidades = new int[8];
+        int cantidad = 0;
+
+        int inicio = desde;
+        while (inicio < hasta) {
+
+            // Busco el final del bloque al que pertenece la fila actual
+            int clave = filas[inicio] >>> 16;
+            int fin = inicio;
+            while (fin < hasta && (filas[fin] >>> 16) == clave) {
+                fin++;
+            }
+
+            // Guardo el bloque como arreglo o como mapa de bits según su cantidad de filas
+            int cardinalidadBloque = fin - inicio;
+            Object bloque;
+            if (cardinalidadBloque <= MAXIMO_ARREGLO) {
+                char[] arreglo = new char[cardinalidadBloque];
+                for (int i = 0; i < cardinalidadBloque; i++) {
+                    arreglo[i] = (char) filas[inicio + i];
+                }
+                bloque = arreglo;
+            } else {
+                long[] palabras = new long[PALABRAS_BLOQUE];
+                for (int i = inicio; i < fin; i++) {
+                    int bajo = filas[i] & 0xFFFF;
+                    palabras[bajo >>> 6] |= 1L << bajo;
+                }
+                bloque = palabras;
+            }
+
+            if (cantidad == claves.length) {
+                claves = Arrays.copyOf(claves, cantidad * 2);
+                bloques = Arrays.copyOf(bloques, cantidad * 2);
+                cardinalidades = Arrays.copyOf(cardinalidades, cantidad * 2);
+            }
+            claves[cantidad] = (char) clave;
+            bloques[cantidad] = bloque;
+            cardinalidades[cantidad] = cardinalidadBloque;
+            cantidad++;
+            inicio = fin;
+        }
+        return new MapaBits(claves, bloques, cardinalidades, cantidad);
+    }
+
+
+    // Métodos de la clase
+
+    /**
+     * Calcula la unión entre dos mapas de bits.
+     *
+     * @param a El primer mapa de bits.
+     * @param b El segundo mapa de bits.
+     *
+     * @return Un mapa de bits que contiene las filas presentes en alguno de los dos mapas.
+     */
+    public static MapaBits or(MapaBits a, MapaBits b) {
+        int maximo = a.cantidadBloques + b.cantidadBloques;
+        char[] claves = new char[maximo];
+        Object[] bloques = new Object[maximo];
+        int[] cardinalidades = new int[maximo];
+        int cantidad = 0;
+
+        int i = 0;
+        int j = 0;
+        while (i < a.cantidadBloques || j < b.cantidadBloques) {
+            int claveA = i < a.cantidadBloques ? a.claves[i] : Integer.MAX_VALUE;
+            int claveB = j < b.cantidadBloques ? b.claves[j] : Integer.MAX_VALUE;
+            if (claveA < claveB) {
+                claves[cantidad] = (char) claveA;
+                bloques[cantidad] = a.bloques[i];
+                cardinalidades[cantidad] = a.cardinalidades[i];
+                i++;
+            } else if (claveB < claveA) {
+                claves[cantidad] = (char) claveB;
+                bloques[cantidad] = b.bloques[j];
+                cardinalidades[cantidad] = b.cardinalidades[j];
+                j++;
+            } else {
+                Object bloque = unirBloques(a.bloques[i], a.cardinalidades[i], b.bloques[j], b.cardinalidades[j]);
+                claves[cantidad] = (char) claveA;
+                bloques[cantidad] = bloque;
+                cardinalidades[cantidad] = cardinalidadBloque(bloque);
+                i++;
+                j++;
+            }
+            cantidad++;
+        }
+        return new MapaBits(claves, bloques, cardinalidades, cantidad);
+    }
+
+    /**
+     * Calcula la intersección entre dos mapas de bits.
+     *
+     * @param a El primer mapa de bits.
+     * @param b El segundo mapa de bits.
+     *
+     * @return Un mapa de bits que contiene las filas presentes en ambos mapas.
+     */
+    public static MapaBits and(MapaBits a, MapaBits b) {
+        int maximo = Math.min(a.cantidadBloques, b.cantidadBloques);
+        char[] claves = new char[maximo];
+        Object[] bloques = new Object[maximo];
+        int[] cardinalidades = new int[maximo];
+        int cantidad = 0;
+
+        int i = 0;
+        int j = 0;
+        while (i < a.cantidadBloques && j < b.cantidadBloques) {
+            if (a.claves[i] < b.claves[j]) {
+                i++;
+            } else if (b.claves[j] < a.claves[i]) {
+                j++;
+            } else {
+                Object bloque = intersectarBloques(a.bloques[i], b.bloques[j]);
+                int cardinalidadBloque = cardinalidadBloque(bloque);
+                if (cardinalidadBloque > 0) {
+                    claves[cantidad] = a.claves[i];
+                    bloques[cantidad] = bloque;
+                    cardinalidades[cantidad] = cardinalidadBloque;
+                    cantidad++;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new MapaBits(claves, bloques, cardinalidades, cantidad);
+    }
+
+    /**
+     * @return Un arreglo que contiene en orden ascendente todas las filas presentes en este mapa de bits.
+     */
+    public int[] aArreglo() {
+        int[] filas = new int[this.cardinalidad];
+        int posicion = 0;
+        for (int i = 0; i < this.cantidadBloques; i++) {
+            int base = this.claves[i] << 16;
+            Object bloque = this.bloques[i];
+            if (bloque instanceof char[]) {
+                for (char bajo : (char[]) bloque) {
+                    filas[posicion++] = base | bajo;
+                }
+            } else {
+                long[] palabras = (long[]) bloque;
+                for (int k = 0; k < palabras.length; k++) {
+                    long palabra = palabras[k];
+                    while (palabra != 0) {
+                        filas[posicion++] = base | (k << 6) | Long.numberOfTrailingZeros(palabra);
+                        palabra &= palabra - 1;
+                    }
+                }
+            }
+        }
+        return filas;
+    }
+
+    /**
+     * @return La cantidad de filas presentes en este mapa de bits.
+     */
+    public int getCardinalidad() {
+        return this.cardinalidad;
+    }
+
+
+    // Métodos de ayuda para las operaciones entre mapas de bits
+
+    /**
+     * Se encarga de unir dos bloques con la misma clave.
+     */
+    private static Object unirBloques(Object a, int cardinalidadA, Object b, int cardinalidadB) {
+        if (a instanceof char[] && b instanceof char[] && cardinalidadA + cardinalidadB <= MAXIMO_ARREGLO) {
+            return unirArreglos((char[]) a, (char[]) b);
+        }
+        long[] palabras = aPalabras(a);
+        if (b instanceof char[]) {
+            for (char bajo : (char[]) b) {
+                palabras[bajo >>> 6] |= 1L << bajo;
+            }
+        } else {
+            long[] palabrasB = (long[]) b;
+            for (int k = 0; k < PALABRAS_BLOQUE; k++) {
+                palabras[k] |= palabrasB[k];
+            }
+        }
+        return compactar(palabras);
+    }
+
+    /**
+     * Se encarga de intersectar dos bloques con la misma clave.
+     */
+    private static Object intersectarBloques(Object a, Object b) {
+        if (a instanceof char[] && b instanceof char[]) {
+            return intersectarArreglos((char[]) a, (char[]) b);
+        }
+        if (a instanceof char[] || b instanceof char[]) {
+            char[] arreglo = (char[]) (a instanceof char[] ? a : b);
+            long[] palabras = (long[]) (a instanceof char[] ? b : a);
+            char[] resultado = new char[arreglo.length];
+            int cantidad = 0;
+            for (char bajo : arreglo) {
+                if ((palabras[bajo >>> 6] & (1L << bajo)) != 0) {
+                    resultado[cantidad++] = bajo;
+                }
+            }
+            return Arrays.copyOf(resultado, cantidad);
+        }
+        long[] palabrasA = (long[]) a;
+        long[] palabrasB = (long[]) b;
+        long[] palabras = new long[PALABRAS_BLOQUE];
+        for (int k = 0; k < PALABRAS_BLOQUE; k++) {
+            palabras[k] = palabrasA[k] & palabrasB[k];
+        }
+        return compactar(palabras);
+    }
+
+    /**
+     * Se encarga de unir dos arreglos ordenados sin repetir valores.
+     */
+    private static char[] unirArreglos(char[] a, char[] b) {
+        char[] resultado = new char[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int cantidad = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                resultado[cantidad++] = a[i++];
+            } else if (b[j] < a[i]) {
+                resultado[cantidad++] = b[j++];
+            } else {
+                resultado[cantidad++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            resultado[cantidad++] = a[i++];
+        }
+        while (j < b.length) {
+            resultado[cantidad++] = b[j++];
+        }
+        return Arrays.copyOf(resultado, cantidad);
+    }
+
+    /**
+     * Se encarga de intersectar dos arreglos ordenados.
+     */
+    private static char[] intersectarArreglos(char[] a, char[] b) {
+        char[] resultado = new char[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int cantidad = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (b[j] < a[i]) {
+                j++;
+            } else {
+                resultado[cantidad++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(resultado, cantidad);
+    }
+
+    /**
+     * Se encarga de obtener una copia de un bloque en formato de mapa de bits.
+     */
+    private static long[] aPalabras(Object bloque) {
+        if (bloque instanceof long[]) {
+            return ((long[]) bloque).clone();
+        }
+        long[] palabras = new long[PALABRAS_BLOQUE];
+        for (char bajo : (char[]) bloque) {
+            palabras[bajo >>> 6] |= 1L << bajo;
+        }
+        return palabras;
+    }
+
+    /**
+     * Se encarga de convertir un mapa de bits en arreglo si tiene pocas filas.
+     */
+    private static Object compactar(long[] palabras) {
+        int cardinalidadBloque = 0;
+        for (long palabra : palabras) {
+            cardinalidadBloque += Long.bitCount(palabra);
+        }
+        if (cardinalidadBloque > MAXIMO_ARREGLO) {
+            return palabras;
+        }
+        char[] arreglo = new char[cardinalidadBloque];
+        int posicion = 0;
+        for (int k = 0; k < palabras.length; k++) {
+            long palabra = palabras[k];
+            while (palabra != 0) {
+                arreglo[posicion++] = (char) ((k << 6) | Long.numberOfTrailingZeros(palabra));
+                palabra &= palabra - 1;
+            }
+        }
+        return arreglo;
+    }
+
+    /**
+     * Se encarga de contar la cantidad de filas presentes en un bloque.
+     */
+    private static int cardinalidadBloque(Object bloque) {
+        if (bloque instanceof char[]) {
+            return ((char[]) bloque).length;
+        }
+        int cardinalidadBloque = 0;
+        for (long palabra : (long[]) bloque) {
+            cardinalidadBloque += Long.bitCount(palabra);
+        }
+        return cardinalidadBloque;
+    }
+
+}
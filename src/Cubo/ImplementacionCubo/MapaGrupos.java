@@ -0,0 +1,172 @@
+package Cubo.implementacionCubo;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Esta clase representa un mapa de direccionamiento abierto que asocia las claves empaquetadas
+ * por un {@link CodificadorClaveGrupo} con el número de su grupo.
+ * </p>
+ *
+ * <p>
+ * Los grupos se numeran de forma consecutiva según el orden en que aparecen por primera vez. Las claves
+ * se guardan una a continuación de la otra en un arreglo primitivo, ordenadas por número de grupo, y la
+ * tabla de búsqueda solo guarda números de grupo, por lo que buscar o agregar una clave no crea objetos
+ * y se resuelve con una única búsqueda.
+ * </p>
+ */
+class MapaGrupos {
+
+    // Atributos de la clase MapaGrupos
+    private final int cantidadPalabras;
+    private long[] claves;
+    private int[] tabla;
+    private int cantidadGrupos;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase MapaGrupos.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar un mapa vacío para claves de la cantidad de palabras indicada.
+     * </p>
+     *
+     * @param cantidadPalabras La cantidad de palabras de tipo long que ocupa cada clave.
+     */
+    public MapaGrupos(int cantidadPalabras) {
+        this.cantidadPalabras = cantidadPalabras;
+        this.claves = new long[16 * cantidadPalabras];
+        this.tabla = new int[32];
+        this.cantidadGrupos = 0;
+    }
+
+    /**
+     * Obtiene el número del grupo de una clave de una única palabra, agregándola si todavía no está presente.
+     *
+     * @param clave La clave del grupo.
+     *
+     * @return El número del grupo. Si es igual a la cantidad de grupos previa, la clave es nueva.
+     */
+    public int obtenerGrupo(long clave) {
+        int mascara = this.tabla.length - 1;
+        int posicion = mezclar(clave) & mascara;
+        while (true) {
+            int grupo = this.tabla[posicion] - 1;
+            if (grupo < 0) {
+                return this.agregar(posicion, clave, null);
+            }
+            if (this.claves[grupo] == clave) {
+                return grupo;
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+    }
+
+    /**
+     * Obtiene el número del grupo de una clave de cualquier cantidad de palabras, agregándola si todavía no está presente.
+     *
+     * @param clave Un arreglo que contiene las palabras de la clave del grupo, el cual no se guarda.
+     *
+     * @return El número del grupo. Si es igual a la cantidad de grupos previa, la clave es nueva.
+     */
+    public int obtenerGrupo(long[] clave) {
+        int mascara = this.tabla.length - 1;
+        int posicion = this.mezclar(clave, 0) & mascara;
+        while (true) {
+            int grupo = this.tabla[posicion] - 1;
+            if (grupo < 0) {
+                return this.agregar(posicion, 0, clave);
+            }
+            if (Arrays.equals(this.claves, grupo * this.cantidadPalabras, (grupo + 1) * this.cantidadPalabras,
+                              clave, 0, this.cantidadPalabras)) {
+                return grupo;
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+    }
+
+    /**
+     * Se encarga de agregar una clave nueva en una posición libre de la tabla.
+     */
+    private int agregar(int posicion, long clave, long[] claveCompuesta) {
+        int grupo = this.cantidadGrupos++;
+        if ((grupo + 1) * this.cantidadPalabras > this.claves.length) {
+            this.claves = Arrays.copyOf(this.claves, this.claves.length * 2);
+        }
+        if (claveCompuesta == null) {
+            this.claves[grupo] = clave;
+        } else {
+            System.arraycopy(claveCompuesta, 0, this.claves, grupo * this.cantidadPalabras, this.cantidadPalabras);
+        }
+        this.tabla[posicion] = grupo + 1;
+
+        // Mantengo la tabla ocupada como máximo hasta la mitad para que las búsquedas sean cortas
+        if (this.cantidadGrupos * 2 > this.tabla.length) {
+            this.agrandar();
+        }
+        return grupo;
+    }
+
+    /**
+     * Se encarga de duplicar el tamaño de la tabla y volver a ubicar todos los grupos.
+     */
+    private void agrandar() {
+        this.tabla = new int[this.tabla.length * 2];
+        int mascara = this.tabla.length - 1;
+        for (int grupo = 0; grupo < this.cantidadGrupos; grupo++) {
+            int posicion = this.mezclar(this.claves, grupo * this.cantidadPalabras) & mascara;
+            while (this.tabla[posicion] != 0) {
+                posicion = (posicion + 1) & mascara;
+            }
+            this.tabla[posicion] = grupo + 1;
+        }
+    }
+
+    /**
+     * Se encarga de calcular el hash de una clave de una única palabra, mezclando todos sus bits.
+     */
+    private static int mezclar(long clave) {
+        clave ^= clave >>> 33;
+        clave *= 0xff51afd7ed558ccdL;
+        clave ^= clave >>> 33;
+        clave *= 0xc4ceb9fe1a85ec53L;
+        clave ^= clave >>> 33;
+        return (int) clave;
+    }
+
+    /**
+     * Se encarga de calcular el hash de una clave guardada a partir de una posición de un arreglo.
+     */
+    private int mezclar(long[] arreglo, int inicio) {
+        if (this.cantidadPalabras == 1) {
+            return mezclar(arreglo[inicio]);
+        }
+        long hash = 0;
+        for (int p = 0; p < this.cantidadPalabras; p++) {
+            hash = hash * 0x9e3779b97f4a7c15L + arreglo[inicio + p];
+        }
+        return mezclar(hash);
+    }
+
+
+    // Getters de la clase
+
+    /**
+     * @return La cantidad de grupos presentes en este mapa.
+     */
+    public int getCantidadGrupos() {
+        return this.cantidadGrupos;
+    }
+
+    /**
+     * @param grupo El número del grupo.
+     * @param palabra La posición de la palabra dentro de la clave.
+     *
+     * @return La palabra indicada de la clave del grupo.
+     */
+    public long getPalabra(int grupo, int palabra) {
+        return this.claves[grupo * this.cantidadPalabras + palabra];
+    }
+
+}
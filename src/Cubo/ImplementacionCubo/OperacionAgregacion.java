@@ -1,96 +1,208 @@
 package Cubo.implementacionCubo;
 
-import java.util.List;
+import Cubo.excepciones.excepcionesOperacion.DesbordamientoDecimalException;
 
 /**
+ * <p>
  * Enum que contiene las operaciones de agregación permitidas en el método RollUp.
+ * </p>
+ * 
+ * <p>
+ * Cada operación se aplica de forma incremental: el acumulador de un grupo comienza con el valor
+ * inicial de la operación y se actualiza una única vez por cada hecho no nulo del grupo, por lo que
+ * no es necesario guardar los valores de los hechos agrupados.
+ * </p>
+ * 
+ * <p>
+ * Los acumuladores de un mismo grupo calculados sobre distintas particiones de filas pueden
+ * combinarse entre sí, lo que permite agregar las particiones en paralelo.
+ * </p>
+ * 
+ * <p>
+ * La operación COUNT_DISTINCT no usa un acumulador numérico sino un bosquejo {@link HyperLogLog} por grupo,
+ * que estima la cantidad de valores distintos de cualquier columna del cubo usando una memoria fija por grupo.
+ * Del mismo modo, las operaciones de cuantiles usan un {@link HistogramaCuantiles} por grupo.
+ * </p>
+ * 
+ * <p>
+ * Las operaciones SUM, MAX y MIN tienen además una versión entera que acumula los hechos decimales de punto fijo
+ * como unidades de tipo long, sin convertirlos a double. Las sumas que exceden el rango de un long lanzan una
+ * {@link DesbordamientoDecimalException} en lugar de dar la vuelta.
+ * </p>
+ * 
+ * <p>
+ * La operación AVG tampoco usa un único acumulador, sino la suma y la cantidad de hechos de cada grupo, que
+ * se combinan por separado y se dividen recién al obtener el resultado.
+ * </p>
  */
 enum OperacionAgregacion {
     /**
      * Operación de suma.
      */
-    SUM("sum") {
+    SUM("sum", 0) {
         /**
-         * Suma los valores de todos los hechos agregados.
+         * Suma un hecho al acumulador del grupo.
          * 
-         * @param hechosAgregados La lista de valores de los hechos implicados en la operación.
+         * @param acumulado La suma de los hechos ya agregados.
+         * @param hecho El valor no nulo del hecho a agregar.
          * 
-         * @return Un valor que representa a todos los hechos agregados sumados.
+         * @return La suma de los hechos agregados incluyendo el nuevo hecho.
          */
         @Override
-        public double aplicar(List<Double> hechosAgregados) {
-            double sumaHechos = 0;
-            for (Double hecho : hechosAgregados) {
-                if (hecho != null) {
-                    sumaHechos += hecho;
-                }
-            }
-            return sumaHechos;
+        public double acumular(double acumulado, double hecho) {
+            return acumulado + hecho;
+        }
+
+        @Override
+        public double combinar(double acumulado, double otroAcumulado) {
+            return acumulado + otroAcumulado;
+        }
+
+        @Override
+        public long acumular(long acumulado, long hecho) {
+            return sumarUnidades(acumulado, hecho);
+        }
+
+        @Override
+        public long combinar(long acumulado, long otroAcumulado) {
+            return sumarUnidades(acumulado, otroAcumulado);
+        }
+
+        @Override
+        public long getValorInicialUnidades() {
+            return 0;
         }
     },
     /**
      * Operación de hallar máximo.
      */
-    MAX("max") {
+    MAX("max", Double.NEGATIVE_INFINITY) {
         /**
-         * Encuentra el valor máximo entre los hechos agregados.
+         * Compara un hecho con el máximo del grupo.
          * 
-         * @param hechosAgregados La lista de valores de los hechos implicados en la operación.
+         * @param acumulado El valor máximo entre los hechos ya agregados.
+         * @param hecho El valor no nulo del hecho a agregar.
          * 
-         * @return El valor máximo entre los hechos en la lista.
+         * @return El valor máximo entre los hechos agregados incluyendo el nuevo hecho.
          */
         @Override
-        public double aplicar(List<Double> hechosAgregados) {
-            double maxHecho = Double.MIN_VALUE;
-            for (Double hecho : hechosAgregados) {
-                if (hecho != null && hecho > maxHecho) {
-                    maxHecho = hecho;
-                }
-            }
-            return maxHecho;
+        public double acumular(double acumulado, double hecho) {
+            return hecho > acumulado ? hecho : acumulado;
+        }
+
+        @Override
+        public double combinar(double acumulado, double otroAcumulado) {
+            return this.acumular(acumulado, otroAcumulado);
+        }
+
+        @Override
+        public long acumular(long acumulado, long hecho) {
+            return hecho > acumulado ? hecho : acumulado;
+        }
+
+        @Override
+        public long combinar(long acumulado, long otroAcumulado) {
+            return this.acumular(acumulado, otroAcumulado);
+        }
+
+        @Override
+        public long getValorInicialUnidades() {
+            return Long.MIN_VALUE;
         }
     },
     /**
      * Operación de hallar mínimo.
      */
-    MIN("min") {
+    MIN("min", Double.POSITIVE_INFINITY) {
         /**
-         * Encuentra el valor mínimo entre los hechos agregados.
+         * Compara un hecho con el mínimo del grupo.
          * 
-         * @param hechosAgregados La lista de valores de los hechos implicados en la operación.
+         * @param acumulado El valor mínimo entre los hechos ya agregados.
+         * @param hecho El valor no nulo del hecho a agregar.
          * 
-         * @return El valor mínimo entre los hechos en la lista.
+         * @return El valor mínimo entre los hechos agregados incluyendo el nuevo hecho.
          */
         @Override
-        public double aplicar(List<Double> hechosAgregados) {
-            double minHecho = Double.MAX_VALUE;
-            for (Double hecho : hechosAgregados) {
-                if (hecho != null && hecho < minHecho) {
-                    minHecho = hecho;
-                }
-            }
-            return minHecho;
+        public double acumular(double acumulado, double hecho) {
+            return hecho < acumulado ? hecho : acumulado;
+        }
+
+        @Override
+        public double combinar(double acumulado, double otroAcumulado) {
+            return this.acumular(acumulado, otroAcumulado);
+        }
+
+        @Override
+        public long acumular(long acumulado, long hecho) {
+            return hecho < acumulado ? hecho : acumulado;
+        }
+
+        @Override
+        public long combinar(long acumulado, long otroAcumulado) {
+            return this.acumular(acumulado, otroAcumulado);
+        }
+
+        @Override
+        public long getValorInicialUnidades() {
+            return Long.MAX_VALUE;
         }
     },
     /**
      * Operación de conteo.
      */
-    COUNT("count") {
+    COUNT("count", 0) {
         /**
-         * Aplica la operación de conteo a los hechos agregados.
+         * Cuenta un hecho más en el grupo.
          * 
-         * @param hechosAgregados La lista de valores de los hechos implicados en la operación.
+         * @param acumulado La cantidad de hechos ya agregados.
+         * @param hecho El valor no nulo del hecho a agregar.
          * 
-         * @return El número de hechos presentes en la lista.
+         * @return La cantidad de hechos agregados incluyendo el nuevo hecho.
          */
         @Override
-        public double aplicar(List<Double> hechosAgregados) {
-            return hechosAgregados.size();
+        public double acumular(double acumulado, double hecho) {
+            return acumulado + 1;
         }
-    };
+
+        @Override
+        public double combinar(double acumulado, double otroAcumulado) {
+            return acumulado + otroAcumulado;
+        }
+    },
+    /**
+     * Operación de promedio, que se calcula a partir de la suma y la cantidad de hechos de cada grupo.
+     */
+    AVG("avg", 0),
+    /**
+     * Operación de conteo aproximado de valores distintos.
+     */
+    COUNT_DISTINCT("count_distinct", 0) {
+        @Override
+        public boolean usaBosquejos() {
+            return true;
+        }
+    },
+    /**
+     * Operación de mediana aproximada.
+     */
+    MEDIAN("median", 0, 0.5),
+    /**
+     * Operación de percentil 90 aproximado.
+     */
+    P90("p90", 0, 0.9),
+    /**
+     * Operación de percentil 95 aproximado.
+     */
+    P95("p95", 0, 0.95),
+    /**
+     * Operación de percentil 99 aproximado.
+     */
+    P99("p99", 0, 0.99);
 
     // Atributos del enum OperacionAgregacion
     private final String operacion;
+    private final double valorInicial;
+    private final double cuantil;
 
     /**
      * <p>
@@ -102,9 +214,25 @@ enum OperacionAgregacion {
      * </p>
      * 
      * @param operacion El nombre de la operación.
+     * @param valorInicial El valor del acumulador de un grupo antes de agregar sus hechos.
+     */
+    OperacionAgregacion(String operacion, double valorInicial) {
+        this(operacion, valorInicial, Double.NaN);
+    }
+
+    /**
+     * <p>
+     * <b>Constructor para las operaciones de cuantiles del enum OperacionAgregacion.</b>
+     * </p>
+     * 
+     * @param operacion El nombre de la operación.
+     * @param valorInicial El resultado de la operación para un grupo sin hechos no nulos.
+     * @param cuantil El cuantil que estima la operación, entre 0 y 1.
      */
-    OperacionAgregacion(String operacion) {
+    OperacionAgregacion(String operacion, double valorInicial, double cuantil) {
         this.operacion = operacion;
+        this.valorInicial = valorInicial;
+        this.cuantil = cuantil;
     }
 
     /**
@@ -113,20 +241,185 @@ enum OperacionAgregacion {
      * 
      * @return El nombre de la operación.
      */
-    private String getOperacion() {
+    public String getOperacion() {
         return this.operacion;
     }
 
     /**
-     * Aplica la operación de agregación a una lista de valores
-     * que representan los hechos seleccionados en la operación
-     * rollUp.
+     * @return El valor del acumulador de un grupo antes de agregar sus hechos, que es el elemento neutro de la
+     *         operación. En los máximos y mínimos no es un resultado válido, por lo que los grupos sin hechos no
+     *         nulos que lo conservan quedan nulos en el resultado.
+     */
+    public double getValorInicial() {
+        return this.valorInicial;
+    }
+
+    /**
+     * Actualiza el acumulador de un grupo con el valor de un hecho del mismo.
      * 
-     * @param hechosAgregados La lista de valores de los hechos implicados en la operación.
+     * @param acumulado El valor actual del acumulador del grupo.
+     * @param hecho El valor no nulo del hecho a agregar.
      * 
-     * @return El resultado de la operación de agregación.
+     * @return El nuevo valor del acumulador del grupo.
+     * 
+     * @throws UnsupportedOperationException Si la operación no usa un único acumulador numérico.
      */
-    public abstract double aplicar(List<Double> hechosAgregados);
+    public double acumular(double acumulado, double hecho) {
+        throw new UnsupportedOperationException("La operacion " + this.operacion + " no usa un acumulador numerico.");
+    }
+
+    /**
+     * Combina los acumuladores de un mismo grupo obtenidos sobre dos particiones distintas de filas.
+     * 
+     * @param acumulado El acumulador del grupo en la primera partición.
+     * @param otroAcumulado El acumulador del grupo en la partición siguiente.
+     * 
+     * @return El acumulador del grupo sobre ambas particiones.
+     * 
+     * @throws UnsupportedOperationException Si la operación no usa un único acumulador numérico.
+     */
+    public double combinar(double acumulado, double otroAcumulado) {
+        throw new UnsupportedOperationException("La operacion " + this.operacion + " no usa un acumulador numerico.");
+    }
+
+    /**
+     * Actualiza el acumulador entero de un grupo con el valor de un hecho decimal del mismo, ambos expresados
+     * en unidades de la última posición decimal.
+     * 
+     * @param acumulado El valor actual del acumulador del grupo.
+     * @param hecho El valor no nulo del hecho a agregar.
+     * 
+     * @return El nuevo valor del acumulador del grupo.
+     * 
+     * @throws UnsupportedOperationException Si la operación no admite acumuladores enteros.
+     */
+    public long acumular(long acumulado, long hecho) {
+        throw new UnsupportedOperationException("La operacion " + this.operacion + " no admite acumuladores enteros.");
+    }
+
+    /**
+     * Combina los acumuladores enteros de un mismo grupo obtenidos sobre dos particiones distintas de filas.
+     * 
+     * @param acumulado El acumulador del grupo en la primera partición.
+     * @param otroAcumulado El acumulador del grupo en la partición siguiente.
+     * 
+     * @return El acumulador del grupo sobre ambas particiones.
+     * 
+     * @throws UnsupportedOperationException Si la operación no admite acumuladores enteros.
+     */
+    public long combinar(long acumulado, long otroAcumulado) {
+        throw new UnsupportedOperationException("La operacion " + this.operacion + " no admite acumuladores enteros.");
+    }
+
+    /**
+     * @return El valor del acumulador entero de un grupo antes de agregar sus hechos.
+     * 
+     * @throws UnsupportedOperationException Si la operación no admite acumuladores enteros.
+     */
+    public long getValorInicialUnidades() {
+        throw new UnsupportedOperationException("La operacion " + this.operacion + " no admite acumuladores enteros.");
+    }
+
+    /**
+     * Suma dos cantidades de unidades de hechos decimales verificando que el resultado entre en un long, ya que de
+     * lo contrario se obtendría un valor erróneo con el signo opuesto.
+     * 
+     * @param unidades Las unidades del primer sumando.
+     * @param otrasUnidades Las unidades del segundo sumando.
+     * 
+     * @return La suma de ambas cantidades de unidades.
+     * 
+     * @throws DesbordamientoDecimalException Si la suma excede el rango de un long.
+     */
+    static long sumarUnidades(long unidades, long otrasUnidades) {
+        try {
+            return Math.addExact(unidades, otrasUnidades);
+        } catch (ArithmeticException e) {
+            throw new DesbordamientoDecimalException("La suma de un hecho decimal excede los 18 digitos que admite su representacion exacta.", e);
+        }
+    }
+
+    /**
+     * <p>
+     * Indica si la operación puede aplicarse a los hechos decimales de punto fijo sin convertirlos a double,
+     * acumulando sus unidades en un long. Solo es posible con las operaciones SUM, MAX y MIN, cuyos resultados
+     * son exactos y tienen los mismos decimales que los hechos.
+     * </p>
+     * 
+     * @return true si la operación admite acumuladores enteros, false de lo contrario.
+     */
+    public boolean admiteUnidades() {
+        return this == SUM || this == MAX || this == MIN;
+    }
+
+    /**
+     * <p>
+     * Indica si el resultado de la operación es un número entero, de modo que la columna resultante conserve el
+     * tipo de sus valores y se muestre sin decimales al proyectarla o exportarla.
+     * </p>
+     * 
+     * <p>
+     * Los conteos siempre son enteros, y las sumas, máximos y mínimos lo son si el hecho agregado es entero.
+     * Los máximos y mínimos de los grupos sin valores no nulos conservan el valor inicial de la operación, que
+     * no es entero, por lo que esos grupos deben quedar nulos en la columna resultante.
+     * </p>
+     * 
+     * @param hechoEntero true si los valores del hecho agregado son números enteros.
+     * 
+     * @return true si el resultado de la operación es un número entero, false de lo contrario.
+     */
+    public boolean conservaEnteros(boolean hechoEntero) {
+        return this == COUNT || (hechoEntero && (this == SUM || this == MAX || this == MIN));
+    }
+
+    /**
+     * @return true si la operación acumula cada grupo en un bosquejo {@link HyperLogLog} o en un
+     *         {@link HistogramaCuantiles} en lugar de un acumulador numérico, false de lo contrario.
+     */
+    public boolean usaBosquejos() {
+        return this.esCuantil();
+    }
+
+    /**
+     * @return true si la operación estima un cuantil de los hechos de cada grupo, false de lo contrario.
+     */
+    public boolean esCuantil() {
+        return !Double.isNaN(this.cuantil);
+    }
+
+    /**
+     * @return El cuantil que estima la operación, entre 0 y 1, o NaN si la operación no estima un cuantil.
+     */
+    public double getCuantil() {
+        return this.cuantil;
+    }
+
+    /**
+     * <p>
+     * Obtiene la operación que, aplicada sobre los resultados de esta operación en grupos más detallados, da el
+     * mismo resultado que esta operación aplicada sobre los hechos originales.
+     * </p>
+     * 
+     * <p>
+     * Las sumas, máximos y mínimos se reagregan con la misma operación, los conteos se suman y los bosquejos
+     * {@link HyperLogLog} se combinan. El promedio y los cuantiles no pueden obtenerse a partir de sus resultados.
+     * </p>
+     * 
+     * @return La operación que reagrega los resultados de esta operación, o null si no pueden reagregarse.
+     */
+    public OperacionAgregacion getReagregacion() {
+        switch (this) {
+            case SUM:
+            case COUNT:
+                return SUM;
+            case MAX:
+            case MIN:
+            case COUNT_DISTINCT:
+                return this;
+            default:
+                return null;
+        }
+    }
 
     /**
      * Verifica si la operación de agregación ingresada en formato
@@ -0,0 +1,332 @@
+package Cubo.implementacionCubo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * <p>
+ * Esta clase se encarga de obtener el orden de las filas de una tabla según las claves de cada fila, usando
+ * una cantidad acotada de memoria.
+ * </p>
+ *
+ * <p>
+ * Cada fila se representa con una o más claves de tipo long, que se comparan en orden y con signo, y a
+ * igualdad de claves las filas conservan su orden original. Las filas se ordenan en tramos consecutivos cuyas
+ * claves entran en la memoria indicada. Si todas las filas entran en un único tramo se ordenan directamente en
+ * memoria; si no, cada tramo ordenado se guarda en un archivo temporal y luego los tramos se mezclan de a
+ * {@value #FACTOR_MEZCLA} por vez, leyendo de cada uno solo la fila siguiente, hasta obtener el orden final.
+ * </p>
+ *
+ * <p>
+ * Los archivos temporales se borran al terminar, aun si el ordenamiento falla.
+ * </p>
+ */
+class OrdenadorExterno {
+
+    // Cantidad máxima de tramos que se mezclan a la vez
+    static final int FACTOR_MEZCLA = 64;
+
+    // Bytes del buffer de lectura y escritura de cada archivo temporal
+    private static final int BYTES_BUFFER = 1 << 16;
+
+    /**
+     * Esta interfaz define el acceso a las claves de cada fila a ordenar.
+     */
+    interface ClavesFilas {
+
+        /**
+         * @return La cantidad de claves de cada fila.
+         */
+        int getCantidadClaves();
+
+        /**
+         * @param fila El índice de la fila.
+         * @param clave La posición de la clave entre las claves de la fila.
+         *
+         * @return El valor de la clave de la fila.
+         */
+        long getClave(int fila, int clave);
+    }
+
+    // Atributos de la clase OrdenadorExterno
+    private final ClavesFilas claves;
+    private final int cantidadClaves;
+    private final int cantidadFilas;
+    private final int filasPorTramo;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase OrdenadorExterno.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de calcular la cantidad de filas de cada tramo según la memoria disponible, considerando las claves
+     * de cada fila junto con su índice y el espacio auxiliar del ordenamiento.
+     * </p>
+     *
+     * @param claves Las claves de cada fila.
+     * @param cantidadFilas La cantidad de filas a ordenar.
+     * @param memoriaBytes La cantidad máxima de bytes que pueden ocupar las claves de un tramo en memoria.
+     */
+    public OrdenadorExterno(ClavesFilas claves, int cantidadFilas, long memoriaBytes) {
+        this.claves = claves;
+        this.cantidadClaves = claves.getCantidadClaves();
+        this.cantidadFilas = cantidadFilas;
+        long bytesPorFila = (long) this.cantidadClaves * Long.BYTES + 2L * Integer.BYTES;
+        this.filasPorTramo = (int) Math.max(1, Math.min(cantidadFilas, memoriaBytes / bytesPorFila));
+    }
+
+    /**
+     * Obtiene el orden de las filas según sus claves.
+     *
+     * @return Un arreglo con el índice de cada fila, en el orden en que deben aparecer.
+     *
+     * @throws IOException Si ocurre un error al escribir o leer los tramos en archivos temporales.
+     */
+    public int[] ordenar() throws IOException {
+
+        // Si todas las filas entran en un único tramo las ordeno en memoria
+        if (this.filasPorTramo >= this.cantidadFilas) {
+            return this.ordenarTramo(0, this.cantidadFilas).filas;
+        }
+
+        // Si no, guardo cada tramo ordenado en un archivo y los mezclo de a grupos hasta que queden pocos
+        List<Path> temporales = new ArrayList<>();
+        List<Path> archivos = new ArrayList<>();
+        try {
+            for (int desde = 0; desde < this.cantidadFilas; desde += this.filasPorTramo) {
+                Tramo tramo = this.ordenarTramo(desde, Math.min(this.cantidadFilas, desde + this.filasPorTramo));
+                Path archivo = crearArchivoTemporal(temporales);
+                this.escribirTramo(tramo, archivo);
+                archivos.add(archivo);
+            }
+            while (archivos.size() > FACTOR_MEZCLA) {
+                List<Path> mezclados = new ArrayList<>();
+                for (int i = 0; i < archivos.size(); i += FACTOR_MEZCLA) {
+                    List<Path> grupo = archivos.subList(i, Math.min(archivos.size(), i + FACTOR_MEZCLA));
+                    Path archivo = crearArchivoTemporal(temporales);
+                    mezclados.add(archivo);
+                    try (DataOutputStream salida = abrirSalida(archivo)) {
+                        this.mezclar(grupo, salida, null);
+                    }
+                    borrar(grupo);
+                }
+                archivos = mezclados;
+            }
+            int[] orden = new int[this.cantidadFilas];
+            this.mezclar(archivos, null, orden);
+            return orden;
+        } finally {
+            borrar(temporales);
+        }
+    }
+
+
+    // Métodos de ayuda para método ordenar()
+
+    /**
+     * Se encarga de leer las claves de un rango de filas y de ordenar sus índices en memoria.
+     */
+    private Tramo ordenarTramo(int desde, int hasta) {
+        int cantidad = hasta - desde;
+        long[] clavesTramo = new long[cantidad * this.cantidadClaves];
+        int[] filas = new int[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            filas[i] = i;
+            for (int c = 0; c < this.cantidadClaves; c++) {
+                clavesTramo[i * this.cantidadClaves + c] = this.claves.getClave(desde + i, c);
+            }
+        }
+        ordenarFilas(filas, new int[cantidad], 0, cantidad, clavesTramo, this.cantidadClaves);
+        return new Tramo(clavesTramo, filas, desde);
+    }
+
+    /**
+     * Se encarga de ordenar de forma estable un rango de índices de filas según sus claves, mezclando mitades ordenadas.
+     */
+    private static void ordenarFilas(int[] filas, int[] auxiliar, int desde, int hasta, long[] claves, int cantidadClaves) {
+        if (hasta - desde <= 16) {
+            for (int i = desde + 1; i < hasta; i++) {
+                int fila = filas[i];
+                int j = i - 1;
+                while (j >= desde && comparar(claves, filas[j] * cantidadClaves, claves, fila * cantidadClaves, cantidadClaves) > 0) {
+                    filas[j + 1] = filas[j];
+                    j--;
+                }
+                filas[j + 1] = fila;
+            }
+            return;
+        }
+        int medio = (desde + hasta) >>> 1;
+        ordenarFilas(filas, auxiliar, desde, medio, claves, cantidadClaves);
+        ordenarFilas(filas, auxiliar, medio, hasta, claves, cantidadClaves);
+        if (comparar(claves, filas[medio - 1] * cantidadClaves, claves, filas[medio] * cantidadClaves, cantidadClaves) <= 0) {
+            return;
+        }
+        System.arraycopy(filas, desde, auxiliar, desde, hasta - desde);
+        int i = desde;
+        int j = medio;
+        for (int k = desde; k < hasta; k++) {
+            if (j >= hasta || (i < medio && comparar(claves, auxiliar[i] * cantidadClaves, claves, auxiliar[j] * cantidadClaves, cantidadClaves) <= 0)) {
+                filas[k] = auxiliar[i++];
+            } else {
+                filas[k] = auxiliar[j++];
+            }
+        }
+    }
+
+    /**
+     * Se encarga de comparar con signo dos grupos de claves, clave por clave.
+     */
+    private static int comparar(long[] claves, int inicio, long[] otrasClaves, int otroInicio, int cantidadClaves) {
+        for (int c = 0; c < cantidadClaves; c++) {
+            int comparacion = Long.compare(claves[inicio + c], otrasClaves[otroInicio + c]);
+            if (comparacion != 0) {
+                return comparacion;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Se encarga de guardar un tramo ordenado en un archivo temporal, escribiendo por cada fila sus claves y su índice.
+     */
+    private void escribirTramo(Tramo tramo, Path archivo) throws IOException {
+        try (DataOutputStream salida = abrirSalida(archivo)) {
+            for (int i = 0; i < tramo.filas.length; i++) {
+                int fila = tramo.filas[i];
+                for (int c = 0; c < this.cantidadClaves; c++) {
+                    salida.writeLong(tramo.claves[fila * this.cantidadClaves + c]);
+                }
+                salida.writeInt(tramo.desde + fila);
+            }
+        }
+    }
+
+    /**
+     * Se encarga de mezclar varios tramos ordenados, escribiendo el resultado en otro archivo o, si no se indica
+     * uno, guardando el índice de cada fila en el arreglo del orden final.
+     */
+    private void mezclar(List<Path> archivos, DataOutputStream salida, int[] orden) throws IOException {
+        PriorityQueue<LectorTramo> lectores = new PriorityQueue<>((a, b) -> {
+            int comparacion = comparar(a.claves, 0, b.claves, 0, this.cantidadClaves);
+            return comparacion != 0 ? comparacion : Integer.compare(a.fila, b.fila);
+        });
+        try {
+            for (Path archivo : archivos) {
+                LectorTramo lector = new LectorTramo(archivo, this.cantidadClaves);
+                if (lector.avanzar()) {
+                    lectores.add(lector);
+                } else {
+                    lector.entrada.close();
+                }
+            }
+            int posicion = 0;
+            while (!lectores.isEmpty()) {
+                LectorTramo lector = lectores.poll();
+                if (salida != null) {
+                    for (long clave : lector.claves) {
+                        salida.writeLong(clave);
+                    }
+                    salida.writeInt(lector.fila);
+                } else {
+                    orden[posicion++] = lector.fila;
+                }
+                if (lector.avanzar()) {
+                    lectores.add(lector);
+                } else {
+                    lector.entrada.close();
+                }
+            }
+        } finally {
+            for (LectorTramo lector : lectores) {
+                lector.entrada.close();
+            }
+        }
+    }
+
+    /**
+     * Se encarga de crear un archivo temporal, agregándolo a la lista de archivos a borrar al terminar.
+     */
+    private static Path crearArchivoTemporal(List<Path> temporales) throws IOException {
+        Path archivo = Files.createTempFile("cubo-orden-", ".tmp");
+        temporales.add(archivo);
+        return archivo;
+    }
+
+    private static DataOutputStream abrirSalida(Path archivo) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(archivo), BYTES_BUFFER));
+    }
+
+    /**
+     * Se encarga de borrar los archivos temporales indicados, si todavía existen.
+     */
+    private static void borrar(List<Path> archivos) throws IOException {
+        for (Path archivo : archivos) {
+            Files.deleteIfExists(archivo);
+        }
+    }
+
+
+    /**
+     * Esta clase representa un tramo ordenado en memoria, con las claves de cada fila una a continuación de la otra
+     * y los índices de sus filas, relativos a la primera fila del tramo, en el orden en que deben aparecer.
+     */
+    private static class Tramo {
+
+        // Atributos de la clase Tramo
+        private final long[] claves;
+        private final int[] filas;
+        private final int desde;
+
+        Tramo(long[] claves, int[] filas, int desde) {
+            this.claves = claves;
+            this.filas = filas;
+            this.desde = desde;
+        }
+    }
+
+    /**
+     * Esta clase representa la lectura secuencial de un tramo guardado en un archivo temporal.
+     */
+    private static class LectorTramo {
+
+        // Atributos de la clase LectorTramo
+        private final DataInputStream entrada;
+        private final long[] claves;
+        private int fila;
+
+        LectorTramo(Path archivo, int cantidadClaves) throws IOException {
+            this.entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo), BYTES_BUFFER));
+            this.claves = new long[cantidadClaves];
+        }
+
+        /**
+         * Lee la fila siguiente del tramo.
+         *
+         * @return true si se leyó una fila, false si el tramo no tiene más filas.
+         */
+        boolean avanzar() throws IOException {
+            try {
+                this.claves[0] = this.entrada.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            for (int c = 1; c < this.claves.length; c++) {
+                this.claves[c] = this.entrada.readLong();
+            }
+            this.fila = this.entrada.readInt();
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package Cubo.implementacionCubo;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import Cubo.tablasCubo.ColumnaCodificada;
+
+/**
+ * <p>
+ * Esta clase representa los criterios de filtrado de un Dice ya compilados para evaluarlos recorriendo
+ * la tabla, cuando los niveles no están indexados.
+ * </p>
+ *
+ * <p>
+ * Cada criterio queda como la columna codificada de su nivel junto con un arreglo que marca los códigos
+ * permitidos, desplazado en una posición para que el código nulo -1 ocupe la primera y la pertenencia de
+ * cada fila se resuelva con un único acceso, sin búsquedas por nombre ni comparaciones de valores.
+ * </p>
+ *
+ * <p>
+ * Los criterios se ordenan de más a menos selectivo según cuántas filas de una muestra de la tabla cumplen
+ * cada uno. Luego se evalúan de a una columna por vez: el primer criterio recorre todas las filas y guarda las
+ * que lo cumplen, y cada criterio siguiente solo revisa las filas que quedaron, descartando las que no lo cumplen.
+ * </p>
+ */
+class PredicadoDice {
+
+    // Cantidad máxima de filas de la muestra con la que se estima la selectividad de cada criterio
+    private static final int FILAS_MUESTRA = 1024;
+
+    // Atributos de la clase PredicadoDice
+    private final ColumnaCodificada[] columnas;
+    private final boolean[][] permitidos;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase PredicadoDice.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de compilar los criterios y de ordenarlos según su selectividad estimada.
+     * </p>
+     *
+     * @param columnas La columna codificada del nivel de cada criterio.
+     * @param codigosPermitidos Por cada criterio, un arreglo que marca los códigos permitidos en su nivel
+     *                          y en su última posición si se permiten los valores nulos.
+     * @param cantidadFilas La cantidad de filas de la tabla sobre la cual se evalúan los criterios.
+     */
+    public PredicadoDice(List<ColumnaCodificada> columnas, List<boolean[]> codigosPermitidos, int cantidadFilas) {
+        int cantidadCriterios = columnas.size();
+
+        // Desplazo los códigos permitidos para que el código nulo quede en la primera posición
+        boolean[][] desplazados = new boolean[cantidadCriterios][];
+        for (int c = 0; c < cantidadCriterios; c++) {
+            boolean[] permitidosNivel = codigosPermitidos.get(c);
+            desplazados[c] = new boolean[permitidosNivel.length];
+            desplazados[c][0] = permitidosNivel[permitidosNivel.length - 1];
+            System.arraycopy(permitidosNivel, 0, desplazados[c], 1, permitidosNivel.length - 1);
+        }
+
+        // Cuento cuántas filas de la muestra cumple cada criterio y los ordeno de menor a mayor
+        int[] cumplen = new int[cantidadCriterios];
+        int paso = Math.max(1, cantidadFilas / FILAS_MUESTRA);
+        for (int c = 0; c < cantidadCriterios; c++) {
+            for (int fila = 0; fila < cantidadFilas; fila += paso) {
+                if (desplazados[c][columnas.get(c).getCodigo(fila) + 1]) {
+                    cumplen[c]++;
+                }
+            }
+        }
+        Integer[] orden = new Integer[cantidadCriterios];
+        for (int c = 0; c < cantidadCriterios; c++) {
+            orden[c] = c;
+        }
+        Arrays.sort(orden, Comparator.comparingInt(c -> cumplen[c]));
+
+        this.columnas = new ColumnaCodificada[cantidadCriterios];
+        this.permitidos = new boolean[cantidadCriterios][];
+        for (int i = 0; i < cantidadCriterios; i++) {
+            this.columnas[i] = columnas.get(orden[i]);
+            this.permitidos[i] = desplazados[orden[i]];
+        }
+    }
+
+    /**
+     * Obtiene las filas de la tabla que cumplen con todos los criterios.
+     *
+     * @param cantidadFilas La cantidad de filas de la tabla.
+     *
+     * @return Un arreglo con los índices de las filas que cumplen los criterios en orden ascendente.
+     */
+    public int[] filtrar(int cantidadFilas) {
+        int[] filas = new int[cantidadFilas];
+        if (this.columnas.length == 0) {
+            for (int i = 0; i < cantidadFilas; i++) {
+                filas[i] = i;
+            }
+            return filas;
+        }
+
+        // El criterio más selectivo recorre todas las filas, guardando cada una y avanzando solo si lo cumple
+        ColumnaCodificada columna = this.columnas[0];
+        boolean[] permitidosNivel = this.permitidos[0];
+        int cantidad = 0;
+        for (int i = 0; i < cantidadFilas; i++) {
+            filas[cantidad] = i;
+            cantidad += permitidosNivel[columna.getCodigo(i) + 1] ? 1 : 0;
+        }
+
+        // Los criterios siguientes solo revisan las filas que quedaron
+        for (int c = 1; c < this.columnas.length && cantidad > 0; c++) {
+            columna = this.columnas[c];
+            permitidosNivel = this.permitidos[c];
+            int quedan = 0;
+            for (int k = 0; k < cantidad; k++) {
+                int fila = filas[k];
+                filas[quedan] = fila;
+                quedan += permitidosNivel[columna.getCodigo(fila) + 1] ? 1 : 0;
+            }
+            cantidad = quedan;
+        }
+        return Arrays.copyOf(filas, cantidad);
+    }
+
+}
@@ -0,0 +1,345 @@
+package Cubo.implementacionCubo;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import Cubo.tablasCubo.Columna;
+
+/**
+ * <p>
+ * Esta clase representa el registro de los resultados de operaciones RollUp ya calculados sobre el cuerpo base de
+ * un {@link Cubo}, que permite obtener el resultado de una nueva operación sin volver a recorrer el cuerpo base.
+ * </p>
+ *
+ * <p>
+ * Cada resultado se registra junto con los niveles por los que se agrupó, el hecho y la operación de cada columna
+ * de hechos, y la firma de las operaciones Dice y Slice aplicadas antes de agrupar. Un resultado registrado puede
+ * responder una operación con la misma firma de filtros si agrupa por todos sus niveles y contiene cada uno de sus
+ * pares de hecho y operación:
+ * </p>
+ *
+ * <ul>
+ *   <li>Si agrupa exactamente por los mismos niveles, sus columnas se reutilizan tal cual.</li>
+ *   <li>Si agrupa por más niveles, sus filas se vuelven a agrupar con la operación que reagrega cada columna, lo
+ *       cual solo es posible si todas las operaciones pueden reagregarse. Como cada nivel se agrupa siempre junto
+ *       con sus niveles superiores según la jerarquía de su dimensión, por ejemplo un resultado por "pais" también
+ *       agrupa por "region" y puede responder una operación por "region".</li>
+ * </ul>
+ *
+ * <p>
+ * Entre los resultados que pueden responder una operación se elige el de menor cantidad de filas. Los grupos de un
+ * resultado reagregado conservan el orden de su primera aparición en el cuerpo base, aunque las sumas pueden diferir
+ * en el redondeo de las calculadas sobre el cuerpo base por sumarse en otro orden.
+ * </p>
+ *
+ * <p>
+ * El registro guarda a lo sumo {@value #MAXIMO_RESULTADOS} resultados, descartando el que hace más tiempo no se usa.
+ * Aparte de ellos guarda las agrupaciones materializadas elegidas por un {@link ReticuloAgregados}, que no se
+ * descartan hasta que se materializan otras o se vacía el registro.
+ * </p>
+ */
+class RegistroAgregados {
+
+    // Cantidad máxima de resultados que guarda el registro
+    private static final int MAXIMO_RESULTADOS = 32;
+
+    // Firma de los resultados calculados sobre el cuerpo base sin operaciones Dice ni Slice
+    private static final String FIRMA_SIN_FILTROS = obtenerFirmaFiltros(List.of(), List.of());
+
+    // Atributos de la clase RegistroAgregados
+    private final List<ResultadoRegistrado> resultados;
+    private long usos;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase RegistroAgregados.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar un registro sin resultados.
+     * </p>
+     */
+    public RegistroAgregados() {
+        this.resultados = new ArrayList<>();
+        this.usos = 0;
+    }
+
+    /**
+     * Arma la firma de las operaciones Dice y Slice aplicadas sobre el cuerpo base de un cubo, la cual no depende del
+     * orden en que se aplicaron las operaciones ni del orden de los valores permitidos en cada nivel.
+     *
+     * @param historialDice El historial de operaciones Dice aplicadas sobre el cubo.
+     * @param historialSlice El historial de operaciones Slice aplicadas sobre el cubo.
+     *
+     * @return La firma de los filtros aplicados.
+     */
+    public static String obtenerFirmaFiltros(List<ComandoDice> historialDice, List<ComandoSlice> historialSlice) {
+        Set<String> filtros = new TreeSet<>();
+        for (ComandoDice comando : historialDice) {
+            Set<String> criterios = new TreeSet<>();
+            for (Map<String, List<String>> valoresNiveles : comando.getCriteriosDice().values()) {
+                for (Map.Entry<String, List<String>> valoresNivel : valoresNiveles.entrySet()) {
+                    criterios.add(valoresNivel.getKey() + "=" + new TreeSet<>(valoresNivel.getValue()));
+                }
+            }
+            filtros.add("dice" + criterios);
+        }
+        for (ComandoSlice comando : historialSlice) {
+            filtros.add("slice[" + comando.getNivelCorte() + "=" + comando.getValorCorte() + "]");
+        }
+        return filtros.toString();
+    }
+
+    /**
+     * Obtiene el resultado de una operación RollUp a partir del menor resultado registrado que pueda responderla,
+     * registrando además el resultado obtenido si tuvo que reagregarse.
+     *
+     * @param consulta La operación RollUp cuyo resultado se busca.
+     * @param firmaFiltros La firma de los filtros aplicados sobre el cuerpo base antes de la operación.
+     * @param poolHilos El pool de hilos sobre el cual se reagrega el resultado, o null para reagregarlo en este hilo.
+     *
+     * @return El resultado de la operación, o null si ningún resultado registrado puede responderla.
+     */
+    public CuerpoCubo resolver(ComandoRollUp consulta, String firmaFiltros, ForkJoinPool poolHilos) {
+        ResultadoRegistrado elegido = this.buscar(consulta, firmaFiltros);
+        if (elegido == null) {
+            return null;
+        }
+        elegido.ultimoUso = ++this.usos;
+
+        // Si agrupa por los mismos niveles reutilizo sus columnas, y si no, registro el resultado reagregado
+        CuerpoCubo resultado = obtenerResultado(elegido, consulta, poolHilos);
+        if (elegido.niveles.size() != new HashSet<>(consulta.getNivelesOperacion()).size()) {
+            this.registrar(consulta, firmaFiltros, resultado);
+        }
+        return resultado;
+    }
+
+    /**
+     * <p>
+     * Materializa un conjunto de agrupaciones del cuerpo base sin filtros de un cubo, descartando las agrupaciones
+     * materializadas anteriormente.
+     * </p>
+     * 
+     * <p>
+     * El cuerpo base se recorre una única vez, agrupando por todos los niveles de las agrupaciones a materializar.
+     * Luego cada agrupación se obtiene, de la más detallada a la menos detallada, reagregando la menor agrupación ya
+     * calculada que agrupa por todos sus niveles.
+     * </p>
+     *
+     * @param tablaBase El cuerpo base del cubo, sin operaciones Dice ni Slice aplicadas.
+     * @param agregacionesPorHecho Un mapa que como clave tiene cada hecho a materializar y como valor las operaciones
+     *                             de agregación que se le aplican, todas ellas reagregables.
+     * @param precisionBosquejos La precisión de los bosquejos {@link HyperLogLog} de los hechos cuya operación es COUNT_DISTINCT.
+     * @param agrupaciones Los niveles de cada agrupación a materializar, de la más detallada a la menos detallada.
+     * @param poolHilos El pool de hilos sobre el cual se agregan las agrupaciones, o null para agregarlas en este hilo.
+     */
+    public void materializar(CuerpoCubo tablaBase, Map<String, List<OperacionAgregacion>> agregacionesPorHecho, int precisionBosquejos,
+                             List<List<String>> agrupaciones, ForkJoinPool poolHilos) {
+
+        // Descarto las agrupaciones materializadas anteriormente
+        this.resultados.removeIf(registrado -> registrado.materializado);
+        if (agrupaciones.isEmpty()) {
+            return;
+        }
+
+        // Recorro una única vez el cuerpo base agrupando por todos los niveles de las agrupaciones
+        Set<String> todosNiveles = new LinkedHashSet<>();
+        for (List<String> niveles : agrupaciones) {
+            todosNiveles.addAll(niveles);
+        }
+        ComandoRollUp agrupacionBase = new ComandoRollUp(tablaBase, agregacionesPorHecho, precisionBosquejos,
+                                                         new ArrayList<>(todosNiveles), new ArrayList<>(), poolHilos);
+        agrupacionBase.ejecutar();
+        List<ResultadoRegistrado> fuentes = new ArrayList<>();
+        fuentes.add(new ResultadoRegistrado(agrupacionBase, FIRMA_SIN_FILTROS, agrupacionBase.getResultado(), 0, false));
+
+        // Obtengo cada agrupación a partir de la menor agrupación ya calculada que la contiene
+        for (List<String> niveles : agrupaciones) {
+            ComandoRollUp agrupacion = new ComandoRollUp(tablaBase, agregacionesPorHecho, precisionBosquejos, niveles,
+                                                         new ArrayList<>(), poolHilos);
+            ResultadoRegistrado fuente = null;
+            for (ResultadoRegistrado candidato : fuentes) {
+                if (candidato.niveles.containsAll(niveles)
+                    && (fuente == null || candidato.resultado.getCantidadFilas() < fuente.resultado.getCantidadFilas())) {
+                    fuente = candidato;
+                }
+            }
+            ResultadoRegistrado materializada = new ResultadoRegistrado(agrupacion, FIRMA_SIN_FILTROS,
+                                                                        obtenerResultado(fuente, agrupacion, poolHilos), ++this.usos, true);
+            fuentes.add(materializada);
+            this.resultados.add(materializada);
+        }
+    }
+
+    /**
+     * @param consulta La operación RollUp cuyo resultado se busca.
+     * @param firmaFiltros La firma de los filtros aplicados sobre el cuerpo base antes de la operación.
+     *
+     * @return true si algún resultado registrado puede responder la operación, false de lo contrario.
+     */
+    public boolean puedeResolver(ComandoRollUp consulta, String firmaFiltros) {
+        return this.buscar(consulta, firmaFiltros) != null;
+    }
+
+    /**
+     * Registra el resultado de una operación RollUp calculado sobre el cuerpo base, descartando el resultado que hace
+     * más tiempo no se usa si el registro está lleno. Las agrupaciones materializadas no se descartan ni se cuentan.
+     *
+     * @param comando La operación RollUp cuyo resultado se registra.
+     * @param firmaFiltros La firma de los filtros aplicados sobre el cuerpo base antes de la operación.
+     * @param resultado El resultado de la operación.
+     */
+    public void registrar(ComandoRollUp comando, String firmaFiltros, CuerpoCubo resultado) {
+        ResultadoRegistrado descartado = null;
+        int registrados = 0;
+        for (ResultadoRegistrado registrado : this.resultados) {
+            if (!registrado.materializado) {
+                registrados++;
+                if (descartado == null || registrado.ultimoUso < descartado.ultimoUso) {
+                    descartado = registrado;
+                }
+            }
+        }
+        if (registrados == MAXIMO_RESULTADOS) {
+            this.resultados.remove(descartado);
+        }
+        this.resultados.add(new ResultadoRegistrado(comando, firmaFiltros, resultado, ++this.usos, false));
+    }
+
+    /**
+     * Descarta todos los resultados registrados, incluidas las agrupaciones materializadas.
+     */
+    public void vaciar() {
+        this.resultados.clear();
+    }
+
+
+    // Métodos de ayuda para método resolver()
+
+    /**
+     * Se encarga de buscar el resultado registrado de menor cantidad de filas que puede responder una operación.
+     */
+    private ResultadoRegistrado buscar(ComandoRollUp consulta, String firmaFiltros) {
+        Set<String> niveles = new HashSet<>(consulta.getNivelesOperacion());
+        ResultadoRegistrado elegido = null;
+        for (ResultadoRegistrado registrado : this.resultados) {
+            if (registrado.firmaFiltros.equals(firmaFiltros) && registrado.niveles.containsAll(niveles)
+                && registrado.puedeResponder(consulta, registrado.niveles.size() == niveles.size())
+                && (elegido == null || registrado.resultado.getCantidadFilas() < elegido.resultado.getCantidadFilas())) {
+                elegido = registrado;
+            }
+        }
+        return elegido;
+    }
+
+    /**
+     * Se encarga de obtener el resultado de una operación a partir de un resultado registrado que puede responderla.
+     */
+    private static CuerpoCubo obtenerResultado(ResultadoRegistrado elegido, ComandoRollUp consulta, ForkJoinPool poolHilos) {
+
+        // Obtengo la columna del resultado registrado que corresponde a cada columna de hechos de la consulta
+        List<String> columnasHechos = consulta.getColumnasHechos();
+        List<OperacionAgregacion> agregacionesHechos = consulta.getAgregacionesHechos();
+        List<String> columnasRegistradas = new ArrayList<>();
+        for (int i = 0; i < columnasHechos.size(); i++) {
+            columnasRegistradas.add(elegido.obtenerHeader(columnasHechos.get(i), agregacionesHechos.get(i)));
+        }
+
+        // Si agrupa por los mismos niveles reutilizo sus columnas en el orden de la consulta
+        List<String> nivelesOperacion = consulta.getNivelesOperacion();
+        List<String> headersHechos = consulta.getHeadersHechos();
+        if (elegido.niveles.size() == new HashSet<>(nivelesOperacion).size()) {
+            List<Columna> columnas = new ArrayList<>();
+            for (String nivel : nivelesOperacion) {
+                columnas.add(elegido.resultado.getColumnaTabla(nivel));
+            }
+            for (String columna : columnasRegistradas) {
+                columnas.add(elegido.resultado.getColumnaTabla(columna));
+            }
+            List<String> headers = new ArrayList<>(nivelesOperacion);
+            headers.addAll(headersHechos);
+            return new CuerpoCubo(columnas, headers, headersHechos);
+        }
+
+        // Si no, vuelvo a agrupar sus filas reagregando cada columna
+        List<OperacionAgregacion> reagregaciones = new ArrayList<>();
+        for (OperacionAgregacion agregacion : agregacionesHechos) {
+            reagregaciones.add(agregacion.getReagregacion());
+        }
+        ComandoRollUp reagregacion = new ComandoRollUp(elegido.resultado, nivelesOperacion, columnasRegistradas, reagregaciones,
+                                                       headersHechos, consulta.getPrecisionBosquejos(), new ArrayList<>(), poolHilos);
+        reagregacion.ejecutar();
+        return reagregacion.getResultado();
+    }
+
+
+    /**
+     * Esta clase representa un resultado registrado junto con la información que permite decidir si responde una operación.
+     */
+    private static class ResultadoRegistrado {
+
+        // Atributos de la clase ResultadoRegistrado
+        private final String firmaFiltros;
+        private final Set<String> niveles;
+        private final List<String> columnasHechos;
+        private final List<OperacionAgregacion> agregacionesHechos;
+        private final List<String> headersHechos;
+        private final int precisionBosquejos;
+        private final CuerpoCubo resultado;
+        private final boolean materializado;
+        private long ultimoUso;
+
+        ResultadoRegistrado(ComandoRollUp comando, String firmaFiltros, CuerpoCubo resultado, long ultimoUso, boolean materializado) {
+            this.firmaFiltros = firmaFiltros;
+            this.niveles = new HashSet<>(comando.getNivelesOperacion());
+            this.columnasHechos = comando.getColumnasHechos();
+            this.agregacionesHechos = comando.getAgregacionesHechos();
+            this.headersHechos = comando.getHeadersHechos();
+            this.precisionBosquejos = comando.getPrecisionBosquejos();
+            this.resultado = resultado;
+            this.materializado = materializado;
+            this.ultimoUso = ultimoUso;
+        }
+
+        /**
+         * Verifica si este resultado contiene cada par de hecho y operación de una operación RollUp, y si
+         * agrupa por más niveles, que todas sus operaciones puedan reagregarse.
+         */
+        boolean puedeResponder(ComandoRollUp consulta, boolean mismosNiveles) {
+            List<String> columnas = consulta.getColumnasHechos();
+            List<OperacionAgregacion> agregaciones = consulta.getAgregacionesHechos();
+            for (int i = 0; i < columnas.size(); i++) {
+                OperacionAgregacion agregacion = agregaciones.get(i);
+                if (!mismosNiveles && agregacion.getReagregacion() == null) {
+                    return false;
+                }
+                if (agregacion == OperacionAgregacion.COUNT_DISTINCT && consulta.getPrecisionBosquejos() != this.precisionBosquejos) {
+                    return false;
+                }
+                if (this.obtenerHeader(columnas.get(i), agregacion) == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Obtiene el encabezado de la columna de este resultado que agrega un hecho con una operación, o null si no la tiene.
+         */
+        String obtenerHeader(String hecho, OperacionAgregacion agregacion) {
+            for (int i = 0; i < this.columnasHechos.size(); i++) {
+                if (this.columnasHechos.get(i).equals(hecho) && this.agregacionesHechos.get(i) == agregacion) {
+                    return this.headersHechos.get(i);
+                }
+            }
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,271 @@
+package Cubo.implementacionCubo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import Cubo.tablasCubo.Dimension;
+
+/**
+ * <p>
+ * Esta clase representa el retículo de agrupaciones posibles de un {@link Cubo}, y se encarga de elegir cuáles
+ * conviene materializar dentro de un presupuesto de memoria.
+ * </p>
+ *
+ * <p>
+ * Cada agrupación del retículo indica, para cada dimensión, hasta qué nivel de su jerarquía se agrupa: ninguno, el
+ * nivel más alto, o el nivel más alto junto con los siguientes hasta alguno más detallado. Una agrupación puede
+ * obtenerse a partir de otra si para cada dimensión agrupa hasta un nivel igual o más alto. La agrupación que no
+ * agrupa por ninguna dimensión no forma parte del retículo.
+ * </p>
+ *
+ * <p>
+ * La cantidad de filas de cada agrupación se estima sin recorrer el cuerpo del cubo: para cada dimensión se cuentan
+ * las combinaciones distintas de sus niveles en la tabla de la dimensión, y la cantidad de grupos esperada al repartir
+ * las filas del cuerpo entre el producto de esas combinaciones se obtiene con la fórmula de Cardenas.
+ * </p>
+ *
+ * <p>
+ * Las agrupaciones se eligen de forma golosa: el costo de responder una agrupación es la cantidad de filas de la menor
+ * agrupación materializada a partir de la cual puede obtenerse, o la del cuerpo del cubo si no hay ninguna, y en cada
+ * paso se materializa la agrupación que más reduce el costo total de responder todas las agrupaciones del retículo
+ * por cada byte que ocupa, mientras entre en el presupuesto restante.
+ * </p>
+ */
+class ReticuloAgregados {
+
+    // Bytes que ocupa en cada fila un nivel y un hecho numérico de una agrupación materializada
+    private static final int BYTES_NIVEL = Integer.BYTES;
+    private static final int BYTES_HECHO = Double.BYTES;
+
+    // Atributos de la clase ReticuloAgregados
+    private final List<List<String>> nivelesDimensiones;
+    private final List<int[]> profundidades;
+    private final double[] filasEstimadas;
+    private final long[] bytesEstimados;
+    private final double filasCuerpo;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ReticuloAgregados.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de enumerar las agrupaciones del retículo y de estimar la cantidad de filas y de bytes de cada una.
+     * </p>
+     *
+     * @param dimensiones Las dimensiones del cubo, en el orden en que se agrupan.
+     * @param cantidadFilas La cantidad de filas del cuerpo base del cubo.
+     * @param agregacionesPorHecho Un mapa que como clave tiene cada hecho a materializar y como valor las operaciones
+     *                             de agregación que se le aplican.
+     * @param precisionBosquejos La precisión de los bosquejos {@link HyperLogLog} de los hechos cuya operación es COUNT_DISTINCT.
+     */
+    public ReticuloAgregados(List<Dimension> dimensiones, int cantidadFilas, Map<String, List<OperacionAgregacion>> agregacionesPorHecho,
+                             int precisionBosquejos) {
+
+        // Obtengo los niveles de cada dimensión ordenados según su jerarquía, junto con la cantidad de
+        // combinaciones distintas de cada nivel con sus niveles superiores
+        this.nivelesDimensiones = new ArrayList<>();
+        List<long[]> combinacionesDimensiones = new ArrayList<>();
+        for (Dimension dimension : dimensiones) {
+            List<String> niveles = obtenerNivelesOrdenados(dimension);
+            this.nivelesDimensiones.add(niveles);
+            combinacionesDimensiones.add(contarCombinaciones(dimension, niveles));
+        }
+
+        // Calculo los bytes que ocupa cada fila de hechos agregados
+        long bytesHechos = 0;
+        for (List<OperacionAgregacion> agregaciones : agregacionesPorHecho.values()) {
+            for (OperacionAgregacion agregacion : agregaciones) {
+                bytesHechos += BYTES_HECHO;
+                if (agregacion == OperacionAgregacion.COUNT_DISTINCT) {
+                    bytesHechos += HyperLogLog.getCantidadRegistros(precisionBosquejos);
+                }
+            }
+        }
+
+        // Enumero las agrupaciones y estimo su tamaño
+        this.filasCuerpo = cantidadFilas;
+        this.profundidades = new ArrayList<>();
+        enumerarAgrupaciones(new int[dimensiones.size()], 0);
+        this.filasEstimadas = new double[this.profundidades.size()];
+        this.bytesEstimados = new long[this.profundidades.size()];
+        for (int v = 0; v < this.profundidades.size(); v++) {
+            int[] profundidad = this.profundidades.get(v);
+            double combinaciones = 1;
+            int cantidadNiveles = 0;
+            for (int d = 0; d < profundidad.length; d++) {
+                if (profundidad[d] > 0) {
+                    combinaciones *= combinacionesDimensiones.get(d)[profundidad[d] - 1];
+                    cantidadNiveles += profundidad[d];
+                }
+            }
+            this.filasEstimadas[v] = estimarGrupos(combinaciones, cantidadFilas);
+            this.bytesEstimados[v] = (long) Math.ceil(this.filasEstimadas[v]) * (cantidadNiveles * BYTES_NIVEL + bytesHechos);
+        }
+    }
+
+    /**
+     * Elige de forma golosa las agrupaciones a materializar dentro de un presupuesto de memoria.
+     *
+     * @param presupuestoBytes La cantidad máxima de bytes que pueden ocupar las agrupaciones elegidas.
+     *
+     * @return Una lista con los niveles de cada agrupación elegida, ordenada de la agrupación con más filas
+     *         estimadas a la que tiene menos.
+     */
+    public List<List<String>> seleccionar(long presupuestoBytes) {
+
+        // Inicialmente cada agrupación se responde recorriendo el cuerpo del cubo
+        int cantidadAgrupaciones = this.profundidades.size();
+        double[] costos = new double[cantidadAgrupaciones];
+        Arrays.fill(costos, this.filasCuerpo);
+        boolean[] elegidas = new boolean[cantidadAgrupaciones];
+        long presupuestoRestante = presupuestoBytes;
+
+        while (true) {
+
+            // Busco la agrupación que entra en el presupuesto con mayor beneficio por byte
+            int mejor = -1;
+            double mejorBeneficio = 0;
+            for (int v = 0; v < cantidadAgrupaciones; v++) {
+                if (elegidas[v] || this.bytesEstimados[v] > presupuestoRestante) {
+                    continue;
+                }
+                double beneficio = 0;
+                for (int w = 0; w < cantidadAgrupaciones; w++) {
+                    if (costos[w] > this.filasEstimadas[v] && puedeObtenerse(this.profundidades.get(w), this.profundidades.get(v))) {
+                        beneficio += costos[w] - this.filasEstimadas[v];
+                    }
+                }
+                double beneficioPorByte = beneficio / Math.max(1, this.bytesEstimados[v]);
+                if (beneficioPorByte > mejorBeneficio) {
+                    mejorBeneficio = beneficioPorByte;
+                    mejor = v;
+                }
+            }
+            if (mejor < 0) {
+                break;
+            }
+
+            // Materializo la agrupación y actualizo el costo de las que pueden obtenerse a partir de ella
+            elegidas[mejor] = true;
+            presupuestoRestante -= this.bytesEstimados[mejor];
+            for (int w = 0; w < cantidadAgrupaciones; w++) {
+                if (puedeObtenerse(this.profundidades.get(w), this.profundidades.get(mejor))) {
+                    costos[w] = Math.min(costos[w], this.filasEstimadas[mejor]);
+                }
+            }
+        }
+
+        // Ordeno las agrupaciones elegidas de mayor a menor cantidad de filas estimadas
+        List<Integer> indices = new ArrayList<>();
+        for (int v = 0; v < cantidadAgrupaciones; v++) {
+            if (elegidas[v]) {
+                indices.add(v);
+            }
+        }
+        indices.sort((v, w) -> Double.compare(this.filasEstimadas[w], this.filasEstimadas[v]));
+        List<List<String>> seleccion = new ArrayList<>();
+        for (int v : indices) {
+            seleccion.add(this.obtenerNiveles(this.profundidades.get(v)));
+        }
+        return seleccion;
+    }
+
+
+    // Métodos de ayuda para la clase
+
+    /**
+     * Se encarga de enumerar recursivamente todas las combinaciones de profundidades de las dimensiones, salvo la
+     * que no agrupa por ninguna.
+     */
+    private void enumerarAgrupaciones(int[] profundidad, int dimension) {
+        if (dimension == profundidad.length) {
+            for (int p : profundidad) {
+                if (p > 0) {
+                    this.profundidades.add(profundidad.clone());
+                    return;
+                }
+            }
+            return;
+        }
+        for (int p = 0; p <= this.nivelesDimensiones.get(dimension).size(); p++) {
+            profundidad[dimension] = p;
+            enumerarAgrupaciones(profundidad, dimension + 1);
+        }
+    }
+
+    /**
+     * Se encarga de obtener los niveles de una agrupación, dimensión por dimensión y del más alto al más detallado.
+     */
+    private List<String> obtenerNiveles(int[] profundidad) {
+        List<String> niveles = new ArrayList<>();
+        for (int d = 0; d < profundidad.length; d++) {
+            niveles.addAll(this.nivelesDimensiones.get(d).subList(0, profundidad[d]));
+        }
+        return niveles;
+    }
+
+    /**
+     * Verifica si una agrupación puede obtenerse a partir de otra, es decir si para cada dimensión agrupa hasta
+     * un nivel igual o más alto.
+     */
+    private static boolean puedeObtenerse(int[] agrupacion, int[] fuente) {
+        for (int d = 0; d < agrupacion.length; d++) {
+            if (agrupacion[d] > fuente[d]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Se encarga de obtener los niveles de una dimensión ordenados del más alto al más detallado.
+     */
+    private static List<String> obtenerNivelesOrdenados(Dimension dimension) {
+        Map<String, Integer> indicesNiveles = dimension.getIndicesNiveles();
+        List<String> niveles = new ArrayList<>(indicesNiveles.keySet());
+        niveles.sort((a, b) -> Integer.compare(indicesNiveles.get(a), indicesNiveles.get(b)));
+        return niveles;
+    }
+
+    /**
+     * Se encarga de contar, para cada nivel de una dimensión, las combinaciones distintas del nivel con sus niveles
+     * superiores entre las filas de la dimensión, numerando las combinaciones de a un nivel por vez.
+     */
+    private static long[] contarCombinaciones(Dimension dimension, List<String> niveles) {
+        long[] combinaciones = new long[niveles.size()];
+        int[] numeros = null;
+        for (int n = 0; n < niveles.size(); n++) {
+            int[] codigos = dimension.getCodigosNivel(niveles.get(n));
+            if (numeros == null) {
+                numeros = new int[codigos.length];
+            }
+            Map<Long, Integer> numeracion = new HashMap<>();
+            for (int fila = 0; fila < codigos.length; fila++) {
+                long clave = ((long) numeros[fila] << 32) | (codigos[fila] & 0xffffffffL);
+                Integer numero = numeracion.get(clave);
+                if (numero == null) {
+                    numero = numeracion.size();
+                    numeracion.put(clave, numero);
+                }
+                numeros[fila] = numero;
+            }
+            combinaciones[n] = Math.max(1, numeracion.size());
+        }
+        return combinaciones;
+    }
+
+    /**
+     * Se encarga de estimar la cantidad de grupos distintos que resultan de repartir al azar una cantidad de filas
+     * entre una cantidad de combinaciones posibles, según la fórmula de Cardenas.
+     */
+    private static double estimarGrupos(double combinaciones, int cantidadFilas) {
+        if (combinaciones <= 1) {
+            return Math.min(1, cantidadFilas);
+        }
+        return -combinaciones * Math.expm1(cantidadFilas * Math.log1p(-1 / combinaciones));
+    }
+
+}
@@ -0,0 +1,466 @@
+package Cubo.implementacionCubo;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * <p>
+ * Esta clase representa la tabla de grupos que arma la operación RollUp mientras recorre el cuerpo del cubo.
+ * </p>
+ *
+ * <p>
+ * Cada grupo se identifica por un número consecutivo según el orden en que aparece por primera vez, y guarda
+ * un acumulador primitivo por cada hecho agregado que se actualiza una única vez por fila, de a bloques de filas
+ * mediante un {@link AgregadorBloques}. De esta forma la
+ * memoria que ocupa la tabla depende de la cantidad de grupos y no de la cantidad de filas recorridas.
+ * </p>
+ *
+ * <p>
+ * Cada hecho agregado tiene su propia operación de agregación, por lo que un mismo recorrido de las filas puede
+ * calcular distintas operaciones sobre distintos hechos, o sobre el mismo hecho. Los hechos con la operación AVG
+ * guardan además la cantidad de valores de cada grupo, y su resultado se obtiene dividiendo la suma por la misma.
+ * Los hechos decimales de punto fijo con las operaciones SUM, MAX y MIN se acumulan en cambio en acumuladores
+ * de tipo long, como unidades de su última posición decimal.
+ * </p>
+ *
+ * <p>
+ * La clave de cada fila se empaqueta mediante un {@link CodificadorClaveGrupo} y se busca en un {@link MapaGrupos},
+ * por lo que recorrer las filas no crea ningún objeto.
+ * </p>
+ *
+ * <p>
+ * Si la operación de un hecho usa bosquejos, el hecho guarda en cambio los registros de un bosquejo {@link HyperLogLog} o las
+ * cubetas de un {@link HistogramaCuantiles} por grupo, uno a continuación del otro en un único arreglo.
+ * </p>
+ */
+class TablaAgregacion {
+
+    // Atributos de la clase TablaAgregacion
+    private final OperacionAgregacion[] agregaciones;
+    private final CodificadorClaveGrupo codificador;
+    private final MapaGrupos mapaGrupos;
+    private final long[] claveFila;
+    private final double[][] acumuladores;
+    private final long[][] acumuladoresUnidades;
+    private final int[] escalas;
+    private final AgregadorBloques[] agregadores;
+    private final double[][] cantidadesPromedio;
+    private final AgregadorBloques[] contadoresPromedio;
+    private final int[] precisiones;
+    private final byte[][] registros;
+    private final int[][] conteos;
+    private int capacidad;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase TablaAgregacion.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar una tabla sin grupos.
+     * </p>
+     *
+     * @param agregaciones La operación de agregación que se aplica a cada hecho de cada grupo.
+     * @param codificador El codificador que arma la clave del grupo de cada fila.
+     * @param precisiones La precisión del bosquejo de cada hecho cuya operación es COUNT_DISTINCT, o null si ninguno lo es.
+     * @param escalas La cantidad de decimales de cada hecho decimal de punto fijo que se acumula en unidades, o -1 para
+     *                los hechos que se acumulan como double. Puede ser null si ningún hecho se acumula en unidades.
+     */
+    public TablaAgregacion(OperacionAgregacion[] agregaciones, CodificadorClaveGrupo codificador, int[] precisiones, int[] escalas) {
+        int cantidadHechos = agregaciones.length;
+        this.agregaciones = agregaciones;
+        this.codificador = codificador;
+        this.mapaGrupos = new MapaGrupos(codificador.getCantidadPalabras());
+        this.claveFila = new long[codificador.getCantidadPalabras()];
+        this.capacidad = 16;
+        this.acumuladores = new double[cantidadHechos][];
+        this.acumuladoresUnidades = new long[cantidadHechos][];
+        this.escalas = escalas;
+        this.agregadores = new AgregadorBloques[cantidadHechos];
+        this.cantidadesPromedio = new double[cantidadHechos][];
+        this.contadoresPromedio = new AgregadorBloques[cantidadHechos];
+        this.precisiones = precisiones;
+        this.registros = new byte[cantidadHechos][];
+        this.conteos = new int[cantidadHechos][];
+
+        // Reservo para cada hecho los acumuladores, bosquejos o histogramas que necesita su operación
+        for (int i = 0; i < cantidadHechos; i++) {
+            OperacionAgregacion agregacion = agregaciones[i];
+            if (escalas != null && escalas[i] >= 0) {
+                this.acumuladoresUnidades[i] = new long[this.capacidad];
+                this.agregadores[i] = new AgregadorBloques(agregacion);
+            } else if (agregacion == OperacionAgregacion.COUNT_DISTINCT) {
+                this.registros[i] = new byte[this.capacidad * HyperLogLog.getCantidadRegistros(precisiones[i])];
+            } else if (agregacion.esCuantil()) {
+                this.conteos[i] = new int[this.capacidad * HistogramaCuantiles.CANTIDAD_CUBETAS];
+            } else if (agregacion == OperacionAgregacion.AVG) {
+                // El promedio acumula por separado la suma y la cantidad de valores de cada grupo
+                this.acumuladores[i] = new double[this.capacidad];
+                this.agregadores[i] = new AgregadorBloques(OperacionAgregacion.SUM);
+                this.cantidadesPromedio[i] = new double[this.capacidad];
+                this.contadoresPromedio[i] = new AgregadorBloques(OperacionAgregacion.COUNT);
+            } else {
+                this.acumuladores[i] = new double[this.capacidad];
+                this.agregadores[i] = new AgregadorBloques(agregacion);
+            }
+        }
+    }
+
+    /**
+     * Obtiene el número del grupo al que pertenece una fila, agregando el grupo a la tabla si todavía no está presente.
+     *
+     * @param fila El índice de la fila en las columnas que agrupan.
+     *
+     * @return El número del grupo, que coincide con el orden en que apareció por primera vez.
+     */
+    public int obtenerGrupo(int fila) {
+        int cantidadGrupos = this.mapaGrupos.getCantidadGrupos();
+        int grupo;
+        if (this.claveFila.length == 1) {
+            grupo = this.mapaGrupos.obtenerGrupo(this.codificador.codificar(fila));
+        } else {
+            this.codificador.codificar(fila, this.claveFila);
+            grupo = this.mapaGrupos.obtenerGrupo(this.claveFila);
+        }
+        if (grupo == cantidadGrupos) {
+            this.inicializarGrupo(grupo);
+        }
+        return grupo;
+    }
+
+    /**
+     * <p>
+     * Combina en esta tabla los grupos de otra tabla armada con el mismo codificador sobre las filas
+     * siguientes a las de esta tabla.
+     * </p>
+     *
+     * <p>
+     * Los grupos de la otra tabla que no están presentes en esta se agregan al final en su mismo orden,
+     * por lo que los grupos siguen ordenados según su primera aparición en el conjunto de las filas.
+     * </p>
+     *
+     * @param otra La tabla a combinar, la cual no se modifica.
+     */
+    public void combinar(TablaAgregacion otra) {
+        int cantidadPalabras = this.claveFila.length;
+        for (int grupoOtra = 0; grupoOtra < otra.getCantidadGrupos(); grupoOtra++) {
+
+            // Busco el grupo en esta tabla a partir de la clave guardada en la otra tabla
+            int cantidadGrupos = this.mapaGrupos.getCantidadGrupos();
+            int grupo;
+            if (cantidadPalabras == 1) {
+                grupo = this.mapaGrupos.obtenerGrupo(otra.mapaGrupos.getPalabra(grupoOtra, 0));
+            } else {
+                for (int p = 0; p < cantidadPalabras; p++) {
+                    this.claveFila[p] = otra.mapaGrupos.getPalabra(grupoOtra, p);
+                }
+                grupo = this.mapaGrupos.obtenerGrupo(this.claveFila);
+            }
+            if (grupo == cantidadGrupos) {
+                this.inicializarGrupo(grupo);
+            }
+
+            // Combino los acumuladores o los bosquejos de cada hecho
+            for (int hecho = 0; hecho < this.agregaciones.length; hecho++) {
+                if (this.conteos[hecho] != null) {
+                    HistogramaCuantiles.combinar(this.conteos[hecho], grupo * HistogramaCuantiles.CANTIDAD_CUBETAS, otra.conteos[hecho],
+                                                 grupoOtra * HistogramaCuantiles.CANTIDAD_CUBETAS);
+                } else if (this.registros[hecho] != null) {
+                    int cantidadRegistros = HyperLogLog.getCantidadRegistros(this.precisiones[hecho]);
+                    HyperLogLog.combinar(this.registros[hecho], grupo * cantidadRegistros, otra.registros[hecho],
+                                         grupoOtra * cantidadRegistros, this.precisiones[hecho]);
+                } else if (this.acumuladoresUnidades[hecho] != null) {
+                    long[] acumuladoresHecho = this.acumuladoresUnidades[hecho];
+                    acumuladoresHecho[grupo] = this.agregaciones[hecho].combinar(acumuladoresHecho[grupo],
+                                                                                 otra.acumuladoresUnidades[hecho][grupoOtra]);
+                } else if (this.cantidadesPromedio[hecho] != null) {
+                    this.acumuladores[hecho][grupo] += otra.acumuladores[hecho][grupoOtra];
+                    this.cantidadesPromedio[hecho][grupo] += otra.cantidadesPromedio[hecho][grupoOtra];
+                } else {
+                    double[] acumuladoresHecho = this.acumuladores[hecho];
+                    acumuladoresHecho[grupo] = this.agregaciones[hecho].combinar(acumuladoresHecho[grupo], otra.acumuladores[hecho][grupoOtra]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Se encarga de inicializar los acumuladores de un grupo nuevo.
+     */
+    private void inicializarGrupo(int grupo) {
+        if (grupo == this.capacidad) {
+            this.agrandar();
+        }
+        for (int hecho = 0; hecho < this.agregaciones.length; hecho++) {
+            if (this.acumuladores[hecho] != null) {
+                this.acumuladores[hecho][grupo] = this.agregaciones[hecho].getValorInicial();
+            } else if (this.acumuladoresUnidades[hecho] != null) {
+                this.acumuladoresUnidades[hecho][grupo] = this.agregaciones[hecho].getValorInicialUnidades();
+            }
+        }
+    }
+
+    /**
+     * Actualiza los acumuladores de un hecho con los valores no nulos de un bloque de filas cuyos grupos ya fueron obtenidos.
+     *
+     * @param hecho La posición del hecho entre los hechos agregados.
+     * @param grupos El número de grupo de cada fila del bloque.
+     * @param valores El valor del hecho en cada fila del bloque.
+     * @param nulos El mapa de bits con las filas nulas del bloque, una palabra cada 64 filas, o null si no hay filas nulas.
+     * @param cantidad La cantidad de filas del bloque.
+     */
+    public void acumularBloque(int hecho, int[] grupos, double[] valores, long[] nulos, int cantidad) {
+        if (this.conteos[hecho] == null) {
+            int cantidadGrupos = this.getCantidadGrupos();
+            this.agregadores[hecho].acumular(this.acumuladores[hecho], cantidadGrupos, grupos, valores, nulos, cantidad);
+            if (this.cantidadesPromedio[hecho] != null) {
+                this.contadoresPromedio[hecho].acumular(this.cantidadesPromedio[hecho], cantidadGrupos, grupos, valores, nulos, cantidad);
+            }
+            return;
+        }
+
+        // Si la operación estima un cuantil, agrego cada valor no nulo al histograma de su grupo
+        int[] conteosHecho = this.conteos[hecho];
+        for (int i = 0; i < cantidad; i++) {
+            if (nulos == null || (nulos[i >>> 6] & (1L << i)) == 0) {
+                HistogramaCuantiles.agregar(conteosHecho, grupos[i] * HistogramaCuantiles.CANTIDAD_CUBETAS, valores[i]);
+            }
+        }
+    }
+
+    /**
+     * Actualiza los acumuladores enteros de un hecho decimal con las unidades no nulas de un bloque de filas cuyos
+     * grupos ya fueron obtenidos.
+     *
+     * @param hecho La posición del hecho entre los hechos agregados, el cual debe acumularse en unidades.
+     * @param grupos El número de grupo de cada fila del bloque.
+     * @param unidades Las unidades del hecho en cada fila del bloque.
+     * @param nulos El mapa de bits con las filas nulas del bloque, una palabra cada 64 filas, o null si no hay filas nulas.
+     * @param cantidad La cantidad de filas del bloque.
+     */
+    public void acumularBloque(int hecho, int[] grupos, long[] unidades, long[] nulos, int cantidad) {
+        this.agregadores[hecho].acumular(this.acumuladoresUnidades[hecho], this.getCantidadGrupos(), grupos, unidades, nulos, cantidad);
+    }
+
+    /**
+     * Agrega a los bosquejos de un hecho los hashes de los valores no nulos de un bloque de filas cuyos grupos ya fueron obtenidos.
+     *
+     * @param hecho La posición del hecho entre los hechos agregados.
+     * @param grupos El número de grupo de cada fila del bloque.
+     * @param hashes El hash del valor del hecho en cada fila del bloque.
+     * @param nulos El mapa de bits con las filas nulas del bloque, una palabra cada 64 filas, o null si no hay filas nulas.
+     * @param cantidad La cantidad de filas del bloque.
+     */
+    public void acumularHashes(int hecho, int[] grupos, long[] hashes, long[] nulos, int cantidad) {
+        byte[] registrosHecho = this.registros[hecho];
+        int precision = this.precisiones[hecho];
+        for (int i = 0; i < cantidad; i++) {
+            if (nulos == null || (nulos[i >>> 6] & (1L << i)) == 0) {
+                HyperLogLog.agregar(registrosHecho, grupos[i] << precision, precision, hashes[i]);
+            }
+        }
+    }
+
+    /**
+     * Combina en los bosquejos de un hecho los bosquejos ya calculados de un bloque de filas cuyos grupos ya fueron obtenidos.
+     *
+     * @param hecho La posición del hecho entre los hechos agregados.
+     * @param grupos El número de grupo de cada fila del bloque.
+     * @param registrosFilas Los registros de los bosquejos de cada fila, con la misma precisión que los del hecho.
+     * @param primeraFila La fila de los bosquejos que corresponde a la primera fila del bloque.
+     * @param cantidad La cantidad de filas del bloque.
+     */
+    public void combinarBosquejos(int hecho, int[] grupos, byte[] registrosFilas, int primeraFila, int cantidad) {
+        byte[] registrosHecho = this.registros[hecho];
+        int precision = this.precisiones[hecho];
+        for (int i = 0; i < cantidad; i++) {
+            HyperLogLog.combinar(registrosHecho, grupos[i] << precision, registrosFilas, (primeraFila + i) << precision, precision);
+        }
+    }
+
+    /**
+     * Se encarga de duplicar la capacidad de los acumuladores.
+     */
+    private void agrandar() {
+        this.capacidad *= 2;
+        for (int i = 0; i < this.agregaciones.length; i++) {
+            if (this.acumuladores[i] != null) {
+                this.acumuladores[i] = Arrays.copyOf(this.acumuladores[i], this.capacidad);
+            }
+            if (this.acumuladoresUnidades[i] != null) {
+                this.acumuladoresUnidades[i] = Arrays.copyOf(this.acumuladoresUnidades[i], this.capacidad);
+            }
+            if (this.cantidadesPromedio[i] != null) {
+                this.cantidadesPromedio[i] = Arrays.copyOf(this.cantidadesPromedio[i], this.capacidad);
+            }
+            if (this.conteos[i] != null) {
+                this.conteos[i] = Arrays.copyOf(this.conteos[i], this.capacidad * HistogramaCuantiles.CANTIDAD_CUBETAS);
+            }
+            if (this.registros[i] != null) {
+                this.registros[i] = Arrays.copyOf(this.registros[i], this.capacidad * HyperLogLog.getCantidadRegistros(this.precisiones[i]));
+            }
+        }
+    }
+
+
+    // Getters de la clase
+
+    /**
+     * @return La cantidad de grupos presentes en esta tabla.
+     */
+    public int getCantidadGrupos() {
+        return this.mapaGrupos.getCantidadGrupos();
+    }
+
+    /**
+     * @param grupo El número del grupo.
+     * @param columna La posición de la columna entre las columnas que agrupan.
+     *
+     * @return El código que tiene el grupo indicado en la columna indicada.
+     */
+    public int getCodigo(int grupo, int columna) {
+        long palabra = this.mapaGrupos.getPalabra(grupo, this.codificador.getPalabraColumna(columna));
+        return this.codificador.decodificar(palabra, columna);
+    }
+
+    /**
+     * @param hecho La posición del hecho entre los hechos agregados.
+     *
+     * @return Un arreglo con el resultado de la agregación del hecho en cada grupo, ordenado por número de grupo.
+     *         Los grupos sin valores no nulos tienen resultado cero, que en los máximos, mínimos, promedios y cuantiles
+     *         se marca como nulo con {@link #getGruposSinValores(int)}.
+     */
+    public double[] getValores(int hecho) {
+        if (this.conteos[hecho] != null) {
+            // El cuantil de los grupos con el histograma vacío no está definido, por lo que queda en cero y se marca como nulo
+            double[] cuantiles = new double[this.getCantidadGrupos()];
+            for (int grupo = 0; grupo < cuantiles.length; grupo++) {
+                double cuantil = HistogramaCuantiles.estimar(this.conteos[hecho], grupo * HistogramaCuantiles.CANTIDAD_CUBETAS,
+                                                             this.agregaciones[hecho].getCuantil());
+                cuantiles[grupo] = Double.isNaN(cuantil) ? 0 : cuantil;
+            }
+            return cuantiles;
+        }
+        if (this.cantidadesPromedio[hecho] != null) {
+            // El promedio de los grupos sin valores no nulos no está definido, por lo que queda en cero y se marca como nulo
+            double[] promedios = new double[this.getCantidadGrupos()];
+            for (int grupo = 0; grupo < promedios.length; grupo++) {
+                double cantidad = this.cantidadesPromedio[hecho][grupo];
+                promedios[grupo] = cantidad == 0 ? 0 : this.acumuladores[hecho][grupo] / cantidad;
+            }
+            return promedios;
+        }
+        double[] valores = Arrays.copyOf(this.acumuladores[hecho], this.getCantidadGrupos());
+        double valorInicial = this.agregaciones[hecho].getValorInicial();
+        for (int grupo = 0; grupo < valores.length; grupo++) {
+            if (valores[grupo] == valorInicial) {
+                valores[grupo] = 0;
+            }
+        }
+        return valores;
+    }
+
+    /**
+     * @param hecho La posición del hecho entre los hechos agregados.
+     *
+     * @return true si el hecho es decimal de punto fijo y se acumula en unidades, false de lo contrario.
+     */
+    public boolean acumulaUnidades(int hecho) {
+        return this.acumuladoresUnidades[hecho] != null;
+    }
+
+    /**
+     * @param hecho La posición del hecho entre los hechos agregados, el cual debe acumularse en unidades.
+     *
+     * @return Un arreglo con el resultado de la agregación del hecho en cada grupo expresado en unidades de la
+     *         última posición decimal, ordenado por número de grupo. Los grupos sin valores no nulos tienen resultado cero,
+     *         que en los máximos y mínimos se marca como nulo con {@link #getGruposSinValores(int)}.
+     */
+    public long[] getUnidades(int hecho) {
+        long[] unidades = Arrays.copyOf(this.acumuladoresUnidades[hecho], this.getCantidadGrupos());
+        long valorInicial = this.agregaciones[hecho].getValorInicialUnidades();
+        for (int grupo = 0; grupo < unidades.length; grupo++) {
+            if (unidades[grupo] == valorInicial) {
+                unidades[grupo] = 0;
+            }
+        }
+        return unidades;
+    }
+
+    /**
+     * <p>
+     * Obtiene los grupos en los que no se acumuló ningún valor de un hecho cuyo máximo, mínimo, promedio o cuantil no está definido,
+     * los cuales deben quedar nulos en el resultado en lugar de mostrar el valor inicial de la operación.
+     * </p>
+     *
+     * <p>
+     * Un grupo sin valores conserva el valor inicial de la operación. En los hechos decimales ese valor no puede ser
+     * el resultado de ningún grupo con valores, ya que tienen a lo sumo 18 dígitos, y en los demás hechos es infinito,
+     * por lo que solo lo alcanza un grupo cuyos valores son todos infinitos. Los promedios y los histogramas de los cuantiles
+     * en cambio guardan la cantidad de valores de cada grupo. Las sumas y los conteos de los grupos sin valores son cero, por lo que nunca son nulos.
+     * </p>
+     *
+     * @param hecho La posición del hecho entre los hechos agregados.
+     *
+     * @return Un mapa de bits con los grupos sin valores del hecho, o null si todos los grupos tienen resultado.
+     */
+    public BitSet getGruposSinValores(int hecho) {
+        OperacionAgregacion agregacion = this.agregaciones[hecho];
+        if (agregacion != OperacionAgregacion.MAX && agregacion != OperacionAgregacion.MIN && agregacion != OperacionAgregacion.AVG
+                && !agregacion.esCuantil()) {
+            return null;
+        }
+        BitSet sinValores = null;
+        for (int grupo = 0; grupo < this.getCantidadGrupos(); grupo++) {
+            if (this.estaSinValores(hecho, grupo)) {
+                sinValores = sinValores == null ? new BitSet() : sinValores;
+                sinValores.set(grupo);
+            }
+        }
+        return sinValores;
+    }
+
+    /**
+     * Se encarga de verificar si un grupo no acumuló ningún valor de un hecho.
+     */
+    private boolean estaSinValores(int hecho, int grupo) {
+        if (this.conteos[hecho] != null) {
+            return HistogramaCuantiles.contar(this.conteos[hecho], grupo * HistogramaCuantiles.CANTIDAD_CUBETAS) == 0;
+        }
+        if (this.cantidadesPromedio[hecho] != null) {
+            return this.cantidadesPromedio[hecho][grupo] == 0;
+        }
+        if (this.acumuladoresUnidades[hecho] != null) {
+            return this.acumuladoresUnidades[hecho][grupo] == this.agregaciones[hecho].getValorInicialUnidades();
+        }
+        return this.acumuladores[hecho][grupo] == this.agregaciones[hecho].getValorInicial();
+    }
+
+    /**
+     * @param hecho La posición del hecho entre los hechos agregados, el cual debe acumularse en unidades.
+     *
+     * @return La cantidad de decimales del hecho.
+     */
+    public int getEscala(int hecho) {
+        return this.escalas[hecho];
+    }
+
+    /**
+     * @param hecho La posición del hecho entre los hechos agregados.
+     *
+     * @return Un arreglo con los registros del bosquejo del hecho en cada grupo, ordenados por número de grupo.
+     */
+    public byte[] getRegistros(int hecho) {
+        return Arrays.copyOf(this.registros[hecho], this.getCantidadGrupos() * HyperLogLog.getCantidadRegistros(this.precisiones[hecho]));
+    }
+
+    /**
+     * @param hecho La posición del hecho entre los hechos agregados.
+     *
+     * @return La precisión del bosquejo del hecho.
+     */
+    public int getPrecision(int hecho) {
+        return this.precisiones[hecho];
+    }
+
+}
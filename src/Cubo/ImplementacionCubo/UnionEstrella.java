@@ -0,0 +1,198 @@
+package Cubo.implementacionCubo;
+
+import java.util.stream.IntStream;
+import Cubo.tablasCubo.Columna;
+
+/**
+ * <p>
+ * Esta clase se encarga de asociar cada fila de la tabla de hechos con las filas de todas las
+ * dimensiones del cubo cuya clave primaria coincide con su clave foránea.
+ * </p>
+ *
+ * <p>
+ * Se trata de una unión por hash en la que los índices se construyen sobre las dimensiones, que son
+ * las tablas más chicas, y la tabla de hechos se recorre una única vez para todas las dimensiones.
+ * El recorrido se divide en particiones de filas consecutivas que se procesan en paralelo sobre el
+ * {@link java.util.concurrent.ForkJoinPool} común, y sus resultados se concatenan en el orden de las
+ * particiones, por lo que el resultado siempre respeta el orden de la tabla de hechos.
+ * </p>
+ */
+class UnionEstrella {
+
+    // Cantidad de filas de la tabla de hechos que procesa cada partición
+    private static final int FILAS_POR_PARTICION = 1 << 15;
+
+    // Atributos de la clase UnionEstrella
+    private final Columna[] clavesForaneas;
+    private final IndiceClavePrimaria[] indicesDimensiones;
+    private final int cantidadHechos;
+    private int[] filasHechos;
+    private int[][] ordinales;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase UnionEstrella.</b>
+     * </p>
+     *
+     * @param clavesForaneas Las columnas de la tabla de hechos con la clave foránea de cada dimensión.
+     * @param indicesDimensiones Los índices de la clave primaria de cada dimensión, en el mismo orden.
+     * @param cantidadHechos La cantidad de filas de la tabla de hechos.
+     */
+    public UnionEstrella(Columna[] clavesForaneas, IndiceClavePrimaria[] indicesDimensiones, int cantidadHechos) {
+        this.clavesForaneas = clavesForaneas;
+        this.indicesDimensiones = indicesDimensiones;
+        this.cantidadHechos = cantidadHechos;
+    }
+
+    /**
+     * Ejecuta la unión entre la tabla de hechos y todas las dimensiones.
+     */
+    public void ejecutar() {
+
+        // Proceso cada partición de la tabla de hechos en paralelo
+        int cantidadParticiones = (this.cantidadHechos + FILAS_POR_PARTICION - 1) / FILAS_POR_PARTICION;
+        ParticionUnion[] particiones = new ParticionUnion[cantidadParticiones];
+        IntStream.range(0, cantidadParticiones).parallel().forEach(p -> {
+            int desde = p * FILAS_POR_PARTICION;
+            int hasta = Math.min(desde + FILAS_POR_PARTICION, this.cantidadHechos);
+            particiones[p] = unirParticion(desde, hasta);
+        });
+
+        // Concateno los resultados de las particiones respetando su orden
+        int total = 0;
+        boolean identidad = true;
+        for (ParticionUnion particion : particiones) {
+            total += particion.filas.getCantidad();
+            identidad = identidad && particion.identidad;
+        }
+        int cantidadDimensiones = this.clavesForaneas.length;
+        this.ordinales = new int[cantidadDimensiones][total];
+        this.filasHechos = identidad ? null : new int[total];
+        int posicion = 0;
+        for (ParticionUnion particion : particiones) {
+            int cantidad = particion.filas.getCantidad();
+            for (int d = 0; d < cantidadDimensiones; d++) {
+                particion.ordinales[d].copiarEn(this.ordinales[d], posicion);
+            }
+            if (this.filasHechos != null) {
+                particion.filas.copiarEn(this.filasHechos, posicion);
+            }
+            posicion += cantidad;
+        }
+    }
+
+
+    // Métodos de ayuda para método ejecutar()
+
+    /**
+     * <p>
+     * Se encarga de asociar las filas de una partición de la tabla de hechos con las filas de cada dimensión.
+     * </p>
+     *
+     * <p>
+     * Si una fila encuentra varias filas en alguna dimensión se genera una fila por cada combinación,
+     * y si no encuentra ninguna en alguna dimensión se descarta.
+     * </p>
+     *
+     * @param desde La primera fila de la partición.
+     * @param hasta La fila siguiente a la última de la partición.
+     *
+     * @return El resultado de la unión para las filas de la partición.
+     */
+    private ParticionUnion unirParticion(int desde, int hasta) {
+        int cantidadDimensiones = this.clavesForaneas.length;
+        ParticionUnion particion = new ParticionUnion(cantidadDimensiones);
+        int[] primeras = new int[cantidadDimensiones];
+        int[] actuales = new int[cantidadDimensiones];
+
+        for (int i = desde; i < hasta; i++) {
+
+            // Busco la primera fila de cada dimensión asociada a la fila de hechos
+            boolean encontrada = true;
+            boolean unica = true;
+            for (int d = 0; d < cantidadDimensiones && encontrada; d++) {
+                primeras[d] = this.indicesDimensiones[d].getPrimeraFila(this.clavesForaneas[d].getValor(i));
+                encontrada = primeras[d] != -1;
+                unica = unica && encontrada && this.indicesDimensiones[d].getSiguienteFila(primeras[d]) == -1;
+            }
+            if (!encontrada) {
+                particion.identidad = false;
+                continue;
+            }
+
+            // Caso más común, la fila encuentra exactamente una fila en cada dimensión
+            if (unica) {
+                particion.agregar(i, primeras);
+                continue;
+            }
+
+            // De lo contrario recorro todas las combinaciones, variando primero la última dimensión
+            particion.identidad = false;
+            System.arraycopy(primeras, 0, actuales, 0, cantidadDimensiones);
+            while (true) {
+                particion.agregar(i, actuales);
+                int d = cantidadDimensiones - 1;
+                while (d >= 0) {
+                    actuales[d] = this.indicesDimensiones[d].getSiguienteFila(actuales[d]);
+                    if (actuales[d] != -1) {
+                        break;
+                    }
+                    actuales[d] = primeras[d];
+                    d--;
+                }
+                if (d < 0) {
+                    break;
+                }
+            }
+        }
+        return particion;
+    }
+
+
+    // Getters de la clase
+
+    /**
+     * @return Un arreglo con la fila de la tabla de hechos de cada fila resultante, o null si
+     *         cada fila de hechos generó exactamente una fila resultante en el mismo orden.
+     */
+    public int[] getFilasHechos() {
+        return this.filasHechos;
+    }
+
+    /**
+     * @param dimension La posición de la dimensión.
+     *
+     * @return Un arreglo con el ordinal de la fila de la dimensión asociada a cada fila resultante.
+     */
+    public int[] getOrdinales(int dimension) {
+        return this.ordinales[dimension];
+    }
+
+    /**
+     * Esta clase representa el resultado de la unión para una partición de la tabla de hechos.
+     */
+    private static class ParticionUnion {
+
+        // Atributos de la clase ParticionUnion
+        private final ListaEnteros filas;
+        private final ListaEnteros[] ordinales;
+        private boolean identidad;
+
+        ParticionUnion(int cantidadDimensiones) {
+            this.filas = new ListaEnteros();
+            this.ordinales = new ListaEnteros[cantidadDimensiones];
+            for (int d = 0; d < cantidadDimensiones; d++) {
+                this.ordinales[d] = new ListaEnteros();
+            }
+            this.identidad = true;
+        }
+
+        void agregar(int fila, int[] ordinalesFila) {
+            this.filas.agregar(fila);
+            for (int d = 0; d < ordinalesFila.length; d++) {
+                this.ordinales[d].agregar(ordinalesFila[d]);
+            }
+        }
+    }
+
+}
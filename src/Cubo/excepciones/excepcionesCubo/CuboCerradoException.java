@@ -0,0 +1,13 @@
+package Cubo.excepciones.excepcionesCubo;
+
+public class CuboCerradoException extends CuboException{
+
+    public CuboCerradoException(String message) {
+        super(message);
+    }
+
+    public CuboCerradoException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
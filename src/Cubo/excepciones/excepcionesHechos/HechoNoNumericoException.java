@@ -0,0 +1,11 @@
+package Cubo.excepciones.excepcionesHechos;
+
+public class HechoNoNumericoException extends HechoException{
+    public HechoNoNumericoException(String message) {
+        super(message);
+    }
+
+    public HechoNoNumericoException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
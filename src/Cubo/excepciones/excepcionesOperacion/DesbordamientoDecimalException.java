@@ -0,0 +1,11 @@
+package Cubo.excepciones.excepcionesOperacion;
+
+public class DesbordamientoDecimalException extends RuntimeException {
+    public DesbordamientoDecimalException(String mensaje){
+        super(mensaje);
+    }
+
+    public DesbordamientoDecimalException(String mensaje, Throwable causa){
+        super(mensaje, causa);
+    }
+}
@@ -0,0 +1,10 @@
+package Cubo.excepciones.excepcionesTabla;
+
+public class InstantaneaCorruptaException extends TablaException {
+    public InstantaneaCorruptaException(String message) {
+        super(message);
+    }
+    public InstantaneaCorruptaException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
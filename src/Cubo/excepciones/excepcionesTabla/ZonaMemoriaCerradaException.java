@@ -0,0 +1,10 @@
+package Cubo.excepciones.excepcionesTabla;
+
+public class ZonaMemoriaCerradaException extends TablaException {
+    public ZonaMemoriaCerradaException(String message) {
+        super(message);
+    }
+    public ZonaMemoriaCerradaException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,54 @@
+package Cubo.tablasCubo;
+
+/**
+ * <p>
+ * Esta clase es una abstracción para representar una columna de información
+ * dentro de una {@link Tabla}.
+ * </p>
+ *
+ * <p>
+ * Cada columna guarda de forma contigua todos los valores de un mismo encabezado,
+ * lo que permite que las operaciones recorran únicamente las columnas que necesitan.
+ * Las instancias de esta clase son inmutables, por lo que pueden ser compartidas
+ * entre distintas tablas sin necesidad de copiarlas.
+ * </p>
+ */
+public abstract class Columna {
+
+    /**
+     * @return La cantidad de valores presentes en esta columna.
+     */
+    public abstract int getLongitud();
+
+    /**
+     * Obtiene el valor de una fila de esta columna en formato cadena.
+     *
+     * @param fila El índice de la fila de la cual se quiere obtener el valor.
+     *
+     * @return El valor de la fila en formato cadena, o null si la fila no tiene valor.
+     */
+    public abstract String getValor(int fila);
+
+    /**
+     * Genera una nueva columna del mismo tipo que contiene únicamente las filas indicadas,
+     * respetando el orden en que fueron pasadas.
+     *
+     * @param filas Un arreglo que contiene los índices de las filas a conservar.
+     *
+     * @return Una nueva columna con las filas seleccionadas.
+     */
+    public abstract Columna seleccionarFilas(int[] filas);
+
+    /**
+     * Genera una columna con los mismos valores que esta, guardados en una {@link ZonaMemoria}
+     * fuera del heap. Las columnas que no admiten este almacenamiento devuelven la misma instancia.
+     *
+     * @param zona La zona de memoria en la cual se reservan los valores de la columna.
+     *
+     * @return Una columna con los mismos valores guardados en la zona, o esta misma columna.
+     */
+    public Columna copiarEn(ZonaMemoria zona) {
+        return this;
+    }
+
+}
@@ -0,0 +1,272 @@
+package Cubo.tablasCubo;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+
+/**
+ * <p>
+ * Esta clase representa una columna que guarda sus valores como códigos enteros
+ * junto con el {@link Diccionario} que permite decodificarlos.
+ * </p>
+ *
+ * <p>
+ * Se usa para los niveles de las dimensiones, que tienen pocos valores distintos que se
+ * repiten en muchas filas. Los valores nulos se representan con el código -1.
+ * </p>
+ *
+ * <p>
+ * Los códigos pueden guardarse en un arreglo del heap o en un bloque de una {@link ZonaMemoria},
+ * en cuyo caso se leen directamente de la memoria fuera del heap.
+ * </p>
+ *
+ * <p>
+ * También pueden resolverse de forma indirecta: cada fila guarda el ordinal de una fila de la dimensión
+ * y el código se obtiene de un arreglo que asocia cada ordinal con su código en el nivel, sin copiar
+ * los códigos de la dimensión en cada fila.
+ * </p>
+ *
+ * <p>
+ * Esta clase extiende de la clase {@link Columna}.
+ * </p>
+ */
+public class ColumnaCodificada extends Columna {
+
+    // Atributos de la clase ColumnaCodificada
+    private final int[] codigos;
+    private final int[] ordinales;
+    private final IntBuffer codigosFueraHeap;
+    private final IntBuffer ordinalesFueraHeap;
+    private final ZonaMemoria zona;
+    private final Diccionario diccionario;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ColumnaCodificada.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar una nueva columna con los códigos y el diccionario pasados como argumento.
+     * El arreglo no se copia, por lo que no debe ser modificado luego de crear la columna.
+     * </p>
+     *
+     * @param codigos Un arreglo que contiene el código de cada fila de la columna.
+     * @param diccionario El diccionario que asocia cada código con su valor.
+     */
+    public ColumnaCodificada(int[] codigos, Diccionario diccionario) {
+        this(codigos, null, diccionario);
+    }
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ColumnaCodificada.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar una nueva columna con los códigos, los ordinales y el diccionario pasados como argumento.
+     * Si los ordinales no son nulos, el código de cada fila se busca en la posición que indica su ordinal.
+     * </p>
+     *
+     * @param codigos Un arreglo que contiene los códigos de la columna, o los códigos de cada ordinal.
+     * @param ordinales Un arreglo que contiene el ordinal de cada fila de la columna, o null si los códigos son directos.
+     * @param diccionario El diccionario que asocia cada código con su valor.
+     */
+    private ColumnaCodificada(int[] codigos, int[] ordinales, Diccionario diccionario) {
+        this.codigos = codigos;
+        this.ordinales = ordinales;
+        this.codigosFueraHeap = null;
+        this.ordinalesFueraHeap = null;
+        this.zona = null;
+        this.diccionario = diccionario;
+    }
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ColumnaCodificada.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar una nueva columna cuyos códigos están guardados en un bloque
+     * de la zona de memoria pasada como argumento, ya sea reservado o mapeado desde un archivo.
+     * </p>
+     *
+     * @param codigosFueraHeap Un buffer que contiene el código de cada fila de la columna.
+     * @param zona La zona de memoria en la cual se encuentra el buffer.
+     * @param diccionario El diccionario que asocia cada código con su valor.
+     */
+    ColumnaCodificada(IntBuffer codigosFueraHeap, ZonaMemoria zona, Diccionario diccionario) {
+        this.codigos = null;
+        this.ordinales = null;
+        this.codigosFueraHeap = codigosFueraHeap;
+        this.ordinalesFueraHeap = null;
+        this.zona = zona;
+        this.diccionario = diccionario;
+    }
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ColumnaCodificada.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar una nueva columna indirecta cuyos ordinales están guardados en un bloque
+     * de la zona de memoria pasada como argumento, mientras que el código de cada ordinal se guarda en el heap.
+     * </p>
+     *
+     * @param ordinalesFueraHeap Un buffer que contiene el ordinal de cada fila de la columna.
+     * @param codigosPorOrdinal Un arreglo que contiene el código asociado a cada ordinal.
+     * @param zona La zona de memoria en la cual se encuentra el buffer.
+     * @param diccionario El diccionario que asocia cada código con su valor.
+     */
+    ColumnaCodificada(IntBuffer ordinalesFueraHeap, int[] codigosPorOrdinal, ZonaMemoria zona, Diccionario diccionario) {
+        this.codigos = codigosPorOrdinal;
+        this.ordinales = null;
+        this.codigosFueraHeap = null;
+        this.ordinalesFueraHeap = ordinalesFueraHeap;
+        this.zona = zona;
+        this.diccionario = diccionario;
+    }
+
+    /**
+     * Se encarga de codificar una columna usando un diccionario existente.
+     *
+     * @param columna La columna a codificar.
+     * @param diccionario El diccionario que contiene todos los valores no nulos de la columna.
+     *
+     * @return Una nueva columna codificada con los mismos valores que la columna original.
+     */
+    public static ColumnaCodificada codificar(Columna columna, Diccionario diccionario) {
+        int[] codigos = new int[columna.getLongitud()];
+        for (int i = 0; i < codigos.length; i++) {
+            String valor = columna.getValor(i);
+            codigos[i] = valor == null ? -1 : diccionario.codificar(valor);
+        }
+        return new ColumnaCodificada(codigos, diccionario);
+    }
+
+    /**
+     * Se encarga de crear una columna que resuelve sus códigos de forma indirecta a través de los
+     * ordinales de cada fila. Ninguno de los arreglos se copia, por lo que no deben ser modificados
+     * luego de crear la columna.
+     *
+     * @param ordinales Un arreglo que contiene el ordinal de cada fila de la columna.
+     * @param codigosPorOrdinal Un arreglo que contiene el código asociado a cada ordinal.
+     * @param diccionario El diccionario que asocia cada código con su valor.
+     *
+     * @return Una nueva columna codificada cuyos códigos se resuelven mediante los ordinales.
+     */
+    public static ColumnaCodificada indirecta(int[] ordinales, int[] codigosPorOrdinal, Diccionario diccionario) {
+        return new ColumnaCodificada(codigosPorOrdinal, ordinales, diccionario);
+    }
+
+    /**
+     * Se encarga de codificar una columna construyendo su diccionario a partir de sus valores,
+     * si la columna ya está codificada se devuelve la misma instancia.
+     *
+     * @param columna La columna a codificar.
+     *
+     * @return Una columna codificada con los mismos valores que la columna original.
+     */
+    public static ColumnaCodificada codificar(Columna columna) {
+        if (columna instanceof ColumnaCodificada) {
+            return (ColumnaCodificada) columna;
+        }
+        return codificar(columna, new Diccionario(new ArrayList<>()));
+    }
+
+    /**
+     * Obtiene el código de una fila de esta columna.
+     *
+     * @param fila El índice de la fila de la cual se quiere obtener el código.
+     *
+     * @return El código de la fila, o -1 si la fila no tiene valor.
+     */
+    public int getCodigo(int fila) {
+        if (this.zona == null) {
+            return this.ordinales != null ? this.codigos[this.ordinales[fila]] : this.codigos[fila];
+        }
+        this.zona.verificarAbierta();
+        if (this.ordinalesFueraHeap != null) {
+            return this.codigos[this.ordinalesFueraHeap.get(fila)];
+        }
+        return this.codigosFueraHeap.get(fila);
+    }
+
+    /**
+     * @return El diccionario que permite decodificar los códigos de esta columna.
+     */
+    public Diccionario getDiccionario() {
+        return this.diccionario;
+    }
+
+    /**
+     * @return El arreglo que guarda los códigos de esta columna, o el código de cada ordinal si la columna
+     *         es indirecta, o null si los códigos de cada fila se guardan fuera del heap.
+     */
+    int[] getArregloCodigos() {
+        return this.codigos;
+    }
+
+    /**
+     * @return El arreglo que guarda el ordinal de cada fila, o null si la columna no es indirecta
+     *         o sus ordinales se guardan fuera del heap.
+     */
+    int[] getOrdinales() {
+        return this.ordinales;
+    }
+
+    /**
+     * @return true si los códigos de esta columna se resuelven a través de los ordinales de cada fila, false de lo contrario.
+     */
+    boolean esIndirecta() {
+        return this.ordinales != null || this.ordinalesFueraHeap != null;
+    }
+
+    /**
+     * @return El buffer que guarda el ordinal de cada fila, o null si los ordinales no se guardan fuera del heap.
+     */
+    IntBuffer getOrdinalesFueraHeap() {
+        return this.ordinalesFueraHeap;
+    }
+
+    /**
+     * @return true si los códigos o los ordinales de esta columna están guardados fuera del heap, false de lo contrario.
+     */
+    public boolean estaFueraDelHeap() {
+        return this.zona != null;
+    }
+
+    @Override
+    public int getLongitud() {
+        if (this.ordinales != null) {
+            return this.ordinales.length;
+        }
+        if (this.ordinalesFueraHeap != null) {
+            return this.ordinalesFueraHeap.capacity();
+        }
+        return this.codigosFueraHeap != null ? this.codigosFueraHeap.capacity() : this.codigos.length;
+    }
+
+    @Override
+    public String getValor(int fila) {
+        return this.diccionario.getValor(this.getCodigo(fila));
+    }
+
+    @Override
+    public ColumnaCodificada seleccionarFilas(int[] filas) {
+        int[] seleccion = new int[filas.length];
+        for (int i = 0; i < filas.length; i++) {
+            seleccion[i] = this.getCodigo(filas[i]);
+        }
+        return new ColumnaCodificada(seleccion, this.diccionario);
+    }
+
+    @Override
+    public ColumnaCodificada copiarEn(ZonaMemoria zona) {
+        IntBuffer bloque = zona.reservarEnteros(this.getLongitud());
+        for (int i = 0; i < this.getLongitud(); i++) {
+            bloque.put(i, this.getCodigo(i));
+        }
+        return new ColumnaCodificada(bloque, zona, this.diccionario);
+    }
+
+}
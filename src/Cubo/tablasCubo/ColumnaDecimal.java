@@ -0,0 +1,332 @@
+package Cubo.tablasCubo;
+
+import java.nio.LongBuffer;
+import java.util.BitSet;
+
+/**
+ * <p>
+ * Esta clase representa una columna numérica que guarda sus valores como números decimales de punto fijo,
+ * es decir como enteros de tipo long que cuentan unidades de la última posición decimal. Por ejemplo, con
+ * dos decimales el valor 4049.98 se guarda como 404998.
+ * </p>
+ *
+ * <p>
+ * Está pensada para hechos como los importes, que siempre tienen la misma cantidad de decimales: sus valores
+ * se leen sin pasar por {@link Double#parseDouble(String)}, se suman, comparan y muestran de forma exacta, y las
+ * operaciones que necesitan un double obtienen el más cercano al valor decimal.
+ * </p>
+ *
+ * <p>
+ * Esta clase extiende de la clase {@link ColumnaNumerica}.
+ * </p>
+ */
+public class ColumnaDecimal extends ColumnaNumerica {
+
+    /**
+     * Cantidad máxima de decimales que admite una columna decimal.
+     */
+    public static final int ESCALA_MAXIMA = 9;
+
+    // Cantidad máxima de dígitos significativos de un valor, de modo que siempre entre en un long
+    private static final int DIGITOS_MAXIMOS = 18;
+
+    // Potencias de diez según la cantidad de decimales
+    private static final long[] POTENCIAS = new long[DIGITOS_MAXIMOS + 1];
+    private static final double[] POTENCIAS_DOUBLE = new double[DIGITOS_MAXIMOS + 1];
+    static {
+        POTENCIAS[0] = 1;
+        POTENCIAS_DOUBLE[0] = 1;
+        for (int i = 1; i <= DIGITOS_MAXIMOS; i++) {
+            POTENCIAS[i] = POTENCIAS[i - 1] * 10;
+            POTENCIAS_DOUBLE[i] = POTENCIAS[i];
+        }
+    }
+
+    // Atributos de la clase ColumnaDecimal
+    private final long[] unidades;
+    private final LongBuffer unidadesFueraHeap;
+    private final ZonaMemoria zona;
+    private final int escala;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ColumnaDecimal.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar una nueva columna con los valores y el mapa de bits de nulos pasados como argumento.
+     * Ninguno de los dos se copia, por lo que no deben ser modificados luego de crear la columna.
+     * </p>
+     *
+     * @param unidades Un arreglo que contiene cada valor de la columna multiplicado por diez elevado a la escala.
+     * @param nulos Un mapa de bits que marca las filas sin valor, o null si ninguna fila es nula.
+     * @param escala La cantidad de decimales de los valores de la columna.
+     */
+    public ColumnaDecimal(long[] unidades, BitSet nulos, int escala) {
+        super(nulos, escala == 0);
+        this.unidades = unidades;
+        this.unidadesFueraHeap = null;
+        this.zona = null;
+        this.escala = escala;
+    }
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ColumnaDecimal.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar una nueva columna cuyos valores están guardados en un bloque
+     * de la zona de memoria pasada como argumento, ya sea reservado o mapeado desde un archivo.
+     * </p>
+     *
+     * @param unidadesFueraHeap Un buffer que contiene cada valor de la columna multiplicado por diez elevado a la escala.
+     * @param zona La zona de memoria en la cual se encuentra el buffer.
+     * @param nulos Un mapa de bits que marca las filas sin valor, o null si ninguna fila es nula.
+     * @param escala La cantidad de decimales de los valores de la columna.
+     */
+    ColumnaDecimal(LongBuffer unidadesFueraHeap, ZonaMemoria zona, BitSet nulos, int escala) {
+        super(nulos, escala == 0);
+        this.unidades = null;
+        this.unidadesFueraHeap = unidadesFueraHeap;
+        this.zona = zona;
+        this.escala = escala;
+    }
+
+    /**
+     * Se encarga de convertir una columna a una columna decimal interpretando cada uno de sus valores
+     * como un número con la cantidad de decimales indicada.
+     *
+     * @param columna La columna a convertir.
+     * @param escala La cantidad de decimales de los valores, entre 0 y {@value #ESCALA_MAXIMA}.
+     *
+     * @throws NumberFormatException Si alguno de los valores de la columna no es un número decimal o no entra en un long.
+     *
+     * @return Una columna decimal con los mismos valores que la columna original.
+     */
+    public static ColumnaDecimal parsear(Columna columna, int escala) {
+        long[] unidades = new long[columna.getLongitud()];
+        BitSet nulos = new BitSet();
+        for (int i = 0; i < unidades.length; i++) {
+            String valor = columna.getValor(i);
+            if (valor == null) {
+                nulos.set(i);
+            } else {
+                unidades[i] = parsearUnidades(valor, escala);
+            }
+        }
+        return new ColumnaDecimal(unidades, nulos, escala);
+    }
+
+    /**
+     * <p>
+     * Convierte un número escrito en decimal a la cantidad de unidades de la última posición decimal, recorriendo
+     * sus caracteres una única vez y sin crear ningún objeto.
+     * </p>
+     *
+     * <p>
+     * El número puede tener espacios al principio y al final, un signo y un punto decimal, pero no exponente. Si tiene
+     * menos decimales que la escala se completa con ceros, y si tiene más se redondea al más cercano, alejándose del
+     * cero en caso de empate.
+     * </p>
+     *
+     * @param valor El número a convertir.
+     * @param escala La cantidad de decimales de las unidades.
+     *
+     * @throws NumberFormatException Si el valor no es un número decimal o tiene más de 18 dígitos significativos.
+     *
+     * @return El valor multiplicado por diez elevado a la escala.
+     */
+    public static long parsearUnidades(String valor, int escala) {
+
+        // Salteo los espacios al principio y al final, igual que Double.parseDouble
+        int i = 0;
+        int longitud = valor.length();
+        while (i < longitud && valor.charAt(i) <= ' ') {
+            i++;
+        }
+        while (longitud > i && valor.charAt(longitud - 1) <= ' ') {
+            longitud--;
+        }
+        boolean negativo = false;
+        if (i < longitud && (valor.charAt(i) == '-' || valor.charAt(i) == '+')) {
+            negativo = valor.charAt(i) == '-';
+            i++;
+        }
+
+        // Acumulo los dígitos hasta la escala, contando los decimales leídos y los dígitos significativos
+        long unidades = 0;
+        int decimales = -1;
+        int digitos = 0;
+        boolean hayDigitos = false;
+        boolean redondear = false;
+        for (; i < longitud; i++) {
+            char c = valor.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hayDigitos = true;
+                if (decimales < escala) {
+                    unidades = unidades * 10 + (c - '0');
+                    if (unidades != 0 && ++digitos > DIGITOS_MAXIMOS) {
+                        throw new NumberFormatException("El valor '" + valor + "' tiene demasiados digitos.");
+                    }
+                    if (decimales >= 0) {
+                        decimales++;
+                    }
+                } else if (decimales == escala) {
+                    // El primer decimal que excede la escala decide el redondeo, los siguientes se descartan
+                    redondear = c >= '5';
+                    decimales++;
+                }
+            } else if (c == '.' && decimales < 0) {
+                decimales = 0;
+            } else {
+                throw new NumberFormatException("El valor '" + valor + "' no es un numero decimal.");
+            }
+        }
+        if (!hayDigitos) {
+            throw new NumberFormatException("El valor '" + valor + "' no es un numero decimal.");
+        }
+
+        // Completo con ceros los decimales faltantes y redondeo si corresponde
+        int faltantes = escala - Math.max(0, Math.min(decimales, escala));
+        if (unidades != 0 && digitos + faltantes > DIGITOS_MAXIMOS) {
+            throw new NumberFormatException("El valor '" + valor + "' tiene demasiados digitos.");
+        }
+        unidades = unidades * POTENCIAS[faltantes] + (redondear ? 1 : 0);
+        return negativo ? -unidades : unidades;
+    }
+
+    /**
+     * Obtiene el valor de una fila de esta columna como cantidad de unidades de la última posición decimal.
+     *
+     * @param fila El índice de la fila de la cual se quiere obtener el valor.
+     *
+     * @return El valor de la fila multiplicado por diez elevado a la escala, si la fila es nula el valor no tiene significado.
+     */
+    public long getUnidades(int fila) {
+        if (this.unidades != null) {
+            return this.unidades[fila];
+        }
+        this.zona.verificarAbierta();
+        return this.unidadesFueraHeap.get(fila);
+    }
+
+    /**
+     * Copia las unidades de un rango de filas de esta columna en un arreglo, leyéndolas en bloque.
+     *
+     * @param desde El índice de la primera fila a copiar.
+     * @param hasta El índice siguiente a la última fila a copiar.
+     * @param destino El arreglo en el cual se copian las unidades a partir de su primera posición.
+     */
+    public void copiarUnidades(int desde, int hasta, long[] destino) {
+        if (this.unidades != null) {
+            System.arraycopy(this.unidades, desde, destino, 0, hasta - desde);
+            return;
+        }
+        this.zona.verificarAbierta();
+        this.unidadesFueraHeap.get(desde, destino, 0, hasta - desde);
+    }
+
+    /**
+     * @return La cantidad de decimales de los valores de esta columna.
+     */
+    public int getEscala() {
+        return this.escala;
+    }
+
+    /**
+     * @return El arreglo que guarda las unidades de esta columna, o null si se guardan fuera del heap.
+     */
+    long[] getArregloUnidades() {
+        return this.unidades;
+    }
+
+    /**
+     * Se encarga de convertir una cantidad de unidades al double más cercano a su valor decimal.
+     *
+     * @param unidades El valor multiplicado por diez elevado a la escala.
+     * @param escala La cantidad de decimales del valor.
+     *
+     * @return El valor decimal como double.
+     */
+    public static double aDouble(long unidades, int escala) {
+        return unidades / POTENCIAS_DOUBLE[escala];
+    }
+
+    @Override
+    public double getDouble(int fila) {
+        return aDouble(this.getUnidades(fila), this.escala);
+    }
+
+    @Override
+    public void copiarValores(int desde, int hasta, double[] destino) {
+        double potencia = POTENCIAS_DOUBLE[this.escala];
+        if (this.unidades != null) {
+            for (int i = desde; i < hasta; i++) {
+                destino[i - desde] = this.unidades[i] / potencia;
+            }
+            return;
+        }
+        this.zona.verificarAbierta();
+        for (int i = desde; i < hasta; i++) {
+            destino[i - desde] = this.unidadesFueraHeap.get(i) / potencia;
+        }
+    }
+
+    @Override
+    double[] getArregloValores() {
+        return null;
+    }
+
+    @Override
+    public boolean estaFueraDelHeap() {
+        return this.unidades == null;
+    }
+
+    @Override
+    public int getLongitud() {
+        return this.unidades != null ? this.unidades.length : this.unidadesFueraHeap.capacity();
+    }
+
+    @Override
+    public String getValor(int fila) {
+        if (this.esNulo(fila)) {
+            return null;
+        }
+        long valor = this.getUnidades(fila);
+        if (this.escala == 0) {
+            return Long.toString(valor);
+        }
+
+        // Separo la parte entera de los decimales, completando con ceros a la izquierda
+        StringBuilder digitos = new StringBuilder(Long.toString(Math.abs(valor)));
+        while (digitos.length() <= this.escala) {
+            digitos.insert(0, '0');
+        }
+        digitos.insert(digitos.length() - this.escala, '.');
+        return valor < 0 ? "-" + digitos : digitos.toString();
+    }
+
+    @Override
+    public ColumnaDecimal seleccionarFilas(int[] filas) {
+        long[] seleccion = new long[filas.length];
+        BitSet nulosSeleccion = this.tieneNulos() ? new BitSet() : null;
+        for (int i = 0; i < filas.length; i++) {
+            seleccion[i] = this.getUnidades(filas[i]);
+            if (nulosSeleccion != null && this.esNulo(filas[i])) {
+                nulosSeleccion.set(i);
+            }
+        }
+        return new ColumnaDecimal(seleccion, nulosSeleccion, this.escala);
+    }
+
+    @Override
+    public ColumnaDecimal copiarEn(ZonaMemoria zona) {
+        LongBuffer bloque = zona.reservarLongs(this.getLongitud());
+        for (int i = 0; i < this.getLongitud(); i++) {
+            bloque.put(i, this.getUnidades(i));
+        }
+        return new ColumnaDecimal(bloque, zona, this.getNulos(), this.escala);
+    }
+
+}
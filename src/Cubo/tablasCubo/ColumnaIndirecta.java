@@ -0,0 +1,128 @@
+package Cubo.tablasCubo;
+
+import java.nio.IntBuffer;
+
+/**
+ * <p>
+ * Esta clase representa una columna que no guarda sus propios valores, sino que los obtiene
+ * de otra columna a través de un arreglo de ordinales.
+ * </p>
+ *
+ * <p>
+ * Se usa para los atributos de las dimensiones dentro de la estructura interna del cubo: cada fila
+ * guarda el ordinal de la fila de la dimensión con la que se asocia, por lo que los valores de la
+ * dimensión no se copian en cada fila de la tabla de hechos.
+ * </p>
+ *
+ * <p>
+ * Los ordinales pueden guardarse en un arreglo del heap o en un bloque de una {@link ZonaMemoria},
+ * por ejemplo una región mapeada de un archivo de instantánea.
+ * </p>
+ *
+ * <p>
+ * Esta clase extiende de la clase {@link Columna}.
+ * </p>
+ */
+public class ColumnaIndirecta extends Columna {
+
+    // Atributos de la clase ColumnaIndirecta
+    private final int[] ordinales;
+    private final IntBuffer ordinalesFueraHeap;
+    private final ZonaMemoria zona;
+    private final Columna columnaBase;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ColumnaIndirecta.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar una nueva columna que obtiene sus valores de la columna base pasada como argumento.
+     * El arreglo de ordinales no se copia, por lo que no debe ser modificado luego de crear la columna.
+     * </p>
+     *
+     * @param ordinales Un arreglo que contiene, para cada fila, el índice de la fila de la columna base con su valor.
+     * @param columnaBase La columna de la cual se obtienen los valores.
+     */
+    public ColumnaIndirecta(int[] ordinales, Columna columnaBase) {
+        this.ordinales = ordinales;
+        this.ordinalesFueraHeap = null;
+        this.zona = null;
+        this.columnaBase = columnaBase;
+    }
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ColumnaIndirecta.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar una nueva columna cuyos ordinales están guardados en un bloque
+     * de la zona de memoria pasada como argumento.
+     * </p>
+     *
+     * @param ordinalesFueraHeap Un buffer que contiene, para cada fila, el índice de la fila de la columna base con su valor.
+     * @param zona La zona de memoria en la cual se encuentra el buffer.
+     * @param columnaBase La columna de la cual se obtienen los valores.
+     */
+    ColumnaIndirecta(IntBuffer ordinalesFueraHeap, ZonaMemoria zona, Columna columnaBase) {
+        this.ordinales = null;
+        this.ordinalesFueraHeap = ordinalesFueraHeap;
+        this.zona = zona;
+        this.columnaBase = columnaBase;
+    }
+
+    /**
+     * @return El arreglo que guarda el ordinal de cada fila de esta columna, o null si se guardan fuera del heap.
+     */
+    int[] getOrdinales() {
+        return this.ordinales;
+    }
+
+    /**
+     * @return El buffer que guarda el ordinal de cada fila, o null si los ordinales no se guardan fuera del heap.
+     */
+    IntBuffer getOrdinalesFueraHeap() {
+        return this.ordinalesFueraHeap;
+    }
+
+    /**
+     * @param fila El índice de la fila de la cual se quiere obtener el ordinal.
+     *
+     * @return El índice de la fila de la columna base con el valor de la fila indicada.
+     */
+    int getOrdinal(int fila) {
+        if (this.ordinales != null) {
+            return this.ordinales[fila];
+        }
+        this.zona.verificarAbierta();
+        return this.ordinalesFueraHeap.get(fila);
+    }
+
+    /**
+     * @return La columna de la cual esta columna obtiene sus valores.
+     */
+    Columna getColumnaBase() {
+        return this.columnaBase;
+    }
+
+    @Override
+    public int getLongitud() {
+        return this.ordinales != null ? this.ordinales.length : this.ordinalesFueraHeap.capacity();
+    }
+
+    @Override
+    public String getValor(int fila) {
+        return this.columnaBase.getValor(this.getOrdinal(fila));
+    }
+
+    @Override
+    public ColumnaIndirecta seleccionarFilas(int[] filas) {
+        int[] seleccion = new int[filas.length];
+        for (int i = 0; i < filas.length; i++) {
+            seleccion[i] = this.getOrdinal(filas[i]);
+        }
+        return new ColumnaIndirecta(seleccion, this.columnaBase);
+    }
+
+}
@@ -0,0 +1,305 @@
+package Cubo.tablasCubo;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * <p>
+ * Esta clase representa una columna que guarda sus valores como números de tipo double
+ * en un arreglo primitivo.
+ * </p>
+ *
+ * <p>
+ * Las filas sin valor se registran en un mapa de bits aparte, por lo que el arreglo de valores
+ * puede recorrerse directamente sin tener que convertir ni verificar cadenas.
+ * </p>
+ *
+ * <p>
+ * Los valores pueden guardarse en un arreglo del heap o en un bloque de una {@link ZonaMemoria},
+ * en cuyo caso se leen directamente de la memoria fuera del heap.
+ * </p>
+ *
+ * <p>
+ * Esta clase extiende de la clase {@link Columna}.
+ * </p>
+ */
+public class ColumnaNumerica extends Columna {
+
+    // Atributos de la clase ColumnaNumerica
+    private final double[] valores;
+    private final DoubleBuffer valoresFueraHeap;
+    private final ZonaMemoria zona;
+    private final BitSet nulos;
+    private final boolean entera;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ColumnaNumerica.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar una nueva columna sin valores nulos con los valores pasados como argumento.
+     * El arreglo no se copia, por lo que no debe ser modificado luego de crear la columna.
+     * </p>
+     *
+     * @param valores Un arreglo que contiene los valores de la columna.
+     */
+    public ColumnaNumerica(double[] valores) {
+        this(valores, null, false);
+    }
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ColumnaNumerica.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar una nueva columna con los valores y el mapa de bits de nulos pasados como argumento.
+     * Ninguno de los dos se copia, por lo que no deben ser modificados luego de crear la columna.
+     * </p>
+     *
+     * @param valores Un arreglo que contiene los valores de la columna.
+     * @param nulos Un mapa de bits que marca las filas sin valor, o null si ninguna fila es nula.
+     * @param entera Indica si los valores de la columna deben mostrarse como números enteros.
+     */
+    public ColumnaNumerica(double[] valores, BitSet nulos, boolean entera) {
+        this.valores = valores;
+        this.valoresFueraHeap = null;
+        this.zona = null;
+        this.nulos = nulos == null || nulos.isEmpty() ? null : nulos;
+        this.entera = entera;
+    }
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ColumnaNumerica.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar una nueva columna cuyos valores están guardados en un bloque
+     * de la zona de memoria pasada como argumento, ya sea reservado o mapeado desde un archivo.
+     * </p>
+     *
+     * @param valoresFueraHeap Un buffer que contiene los valores de la columna.
+     * @param zona La zona de memoria en la cual se encuentra el buffer.
+     * @param nulos Un mapa de bits que marca las filas sin valor, o null si ninguna fila es nula.
+     * @param entera Indica si los valores de la columna deben mostrarse como números enteros.
+     */
+    ColumnaNumerica(DoubleBuffer valoresFueraHeap, ZonaMemoria zona, BitSet nulos, boolean entera) {
+        this.valores = null;
+        this.valoresFueraHeap = valoresFueraHeap;
+        this.zona = zona;
+        this.nulos = nulos == null || nulos.isEmpty() ? null : nulos;
+        this.entera = entera;
+    }
+
+    /**
+     * <p>
+     * <b>Constructor para las subclases de ColumnaNumerica.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar una columna que guarda sus valores de otra forma, por lo que la subclase debe
+     * redefinir los métodos que leen los valores de la columna.
+     * </p>
+     *
+     * @param nulos Un mapa de bits que marca las filas sin valor, o null si ninguna fila es nula.
+     * @param entera Indica si los valores de la columna deben mostrarse como números enteros.
+     */
+    protected ColumnaNumerica(BitSet nulos, boolean entera) {
+        this.valores = null;
+        this.valoresFueraHeap = null;
+        this.zona = null;
+        this.nulos = nulos == null || nulos.isEmpty() ? null : nulos;
+        this.entera = entera;
+    }
+
+    /**
+     * Se encarga de convertir una columna a una columna numérica interpretando cada uno de sus valores
+     * como un número, si la columna ya es numérica se devuelve la misma instancia.
+     *
+     * @param columna La columna a convertir.
+     *
+     * @throws NumberFormatException Si alguno de los valores de la columna no es un número.
+     *
+     * @return Una columna numérica con los mismos valores que la columna original.
+     */
+    public static ColumnaNumerica parsear(Columna columna) {
+        if (columna instanceof ColumnaNumerica) {
+            return (ColumnaNumerica) columna;
+        }
+
+        // Convierto cada valor una única vez, marcando las filas nulas y verificando
+        // si todos los valores están escritos como números enteros
+        double[] valores = new double[columna.getLongitud()];
+        BitSet nulos = new BitSet();
+        boolean entera = true;
+        for (int i = 0; i < valores.length; i++) {
+            String valor = columna.getValor(i);
+            if (valor == null) {
+                nulos.set(i);
+            } else {
+                valores[i] = Double.parseDouble(valor);
+                entera = entera && esEntero(valor);
+            }
+        }
+        return new ColumnaNumerica(valores, nulos, entera);
+    }
+
+    /**
+     * Verifica si una cadena representa un número entero, es decir que solo contiene dígitos
+     * y opcionalmente un signo.
+     */
+    private static boolean esEntero(String valor) {
+        int inicio = valor.startsWith("-") || valor.startsWith("+") ? 1 : 0;
+        if (inicio == valor.length() || valor.length() - inicio > 15) {
+            return false;
+        }
+        for (int i = inicio; i < valor.length(); i++) {
+            if (!Character.isDigit(valor.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Obtiene el valor numérico de una fila de esta columna.
+     *
+     * @param fila El índice de la fila de la cual se quiere obtener el valor.
+     *
+     * @return El valor numérico de la fila, si la fila es nula el valor no tiene significado.
+     */
+    public double getDouble(int fila) {
+        if (this.valores != null) {
+            return this.valores[fila];
+        }
+        this.zona.verificarAbierta();
+        return this.valoresFueraHeap.get(fila);
+    }
+
+    /**
+     * Copia los valores de un rango de filas de esta columna en un arreglo, leyéndolos en bloque.
+     *
+     * @param desde El índice de la primera fila a copiar.
+     * @param hasta El índice siguiente a la última fila a copiar.
+     * @param destino El arreglo en el cual se copian los valores a partir de su primera posición.
+     */
+    public void copiarValores(int desde, int hasta, double[] destino) {
+        if (this.valores != null) {
+            System.arraycopy(this.valores, desde, destino, 0, hasta - desde);
+            return;
+        }
+        this.zona.verificarAbierta();
+        this.valoresFueraHeap.get(desde, destino, 0, hasta - desde);
+    }
+
+    /**
+     * Marca en un mapa de bits las filas nulas de un rango de filas de esta columna.
+     *
+     * @param desde El índice de la primera fila del rango.
+     * @param hasta El índice siguiente a la última fila del rango.
+     * @param destino Un arreglo con una palabra por cada 64 filas del rango, cuyo contenido se reemplaza.
+     *                El bit i marca si la fila desde + i es nula.
+     *
+     * @return true si alguna fila del rango es nula, false de lo contrario.
+     */
+    public boolean marcarNulos(int desde, int hasta, long[] destino) {
+        Arrays.fill(destino, 0, (hasta - desde + 63) >>> 6, 0L);
+        if (this.nulos == null) {
+            return false;
+        }
+        boolean hayNulos = false;
+        for (int fila = this.nulos.nextSetBit(desde); fila >= 0 && fila < hasta; fila = this.nulos.nextSetBit(fila + 1)) {
+            int posicion = fila - desde;
+            destino[posicion >>> 6] |= 1L << posicion;
+            hayNulos = true;
+        }
+        return hayNulos;
+    }
+
+    /**
+     * Verifica si una fila de esta columna no tiene valor.
+     *
+     * @param fila El índice de la fila a verificar.
+     *
+     * @return true si la fila no tiene valor, false de lo contrario.
+     */
+    public boolean esNulo(int fila) {
+        return this.nulos != null && this.nulos.get(fila);
+    }
+
+    /**
+     * @return true si alguna fila de esta columna no tiene valor, false de lo contrario.
+     */
+    public boolean tieneNulos() {
+        return this.nulos != null;
+    }
+
+    /**
+     * @return true si los valores de esta columna deben mostrarse como números enteros, false de lo contrario.
+     */
+    public boolean esEntera() {
+        return this.entera;
+    }
+
+    /**
+     * @return El arreglo que guarda los valores de esta columna, o null si se guardan fuera del heap.
+     */
+    double[] getArregloValores() {
+        return this.valores;
+    }
+
+    /**
+     * @return El mapa de bits que marca las filas sin valor, o null si ninguna fila es nula.
+     */
+    BitSet getNulos() {
+        return this.nulos;
+    }
+
+    /**
+     * @return true si los valores de esta columna están guardados fuera del heap, false de lo contrario.
+     */
+    public boolean estaFueraDelHeap() {
+        return this.valores == null;
+    }
+
+    @Override
+    public int getLongitud() {
+        return this.valores != null ? this.valores.length : this.valoresFueraHeap.capacity();
+    }
+
+    @Override
+    public String getValor(int fila) {
+        if (this.esNulo(fila)) {
+            return null;
+        }
+        // Los valores infinitos no tienen representación entera, por lo que se muestran como double
+        double valor = this.getDouble(fila);
+        return this.entera && Double.isFinite(valor) ? String.valueOf((long) valor) : String.valueOf(valor);
+    }
+
+    @Override
+    public ColumnaNumerica seleccionarFilas(int[] filas) {
+        double[] seleccion = new double[filas.length];
+        BitSet nulosSeleccion = this.nulos == null ? null : new BitSet();
+        for (int i = 0; i < filas.length; i++) {
+            seleccion[i] = this.getDouble(filas[i]);
+            if (nulosSeleccion != null && this.nulos.get(filas[i])) {
+                nulosSeleccion.set(i);
+            }
+        }
+        return new ColumnaNumerica(seleccion, nulosSeleccion, this.entera);
+    }
+
+    @Override
+    public ColumnaNumerica copiarEn(ZonaMemoria zona) {
+        DoubleBuffer bloque = zona.reservarDoubles(this.getLongitud());
+        for (int i = 0; i < this.getLongitud(); i++) {
+            bloque.put(i, this.getDouble(i));
+        }
+        return new ColumnaNumerica(bloque, zona, this.nulos, this.entera);
+    }
+
+}
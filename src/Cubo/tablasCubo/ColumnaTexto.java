@@ -0,0 +1,69 @@
+package Cubo.tablasCubo;
+
+import java.util.List;
+
+/**
+ * <p>
+ * Esta clase representa una columna que guarda sus valores en formato cadena.
+ * </p>
+ *
+ * <p>
+ * Esta clase extiende de la clase {@link Columna}.
+ * </p>
+ */
+public class ColumnaTexto extends Columna {
+
+    // Atributos de la clase ColumnaTexto
+    private final String[] valores;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ColumnaTexto.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar una nueva columna con los valores pasados como argumento.
+     * El arreglo no se copia, por lo que no debe ser modificado luego de crear la columna.
+     * </p>
+     *
+     * @param valores Un arreglo que contiene los valores de la columna.
+     */
+    public ColumnaTexto(String[] valores) {
+        this.valores = valores;
+    }
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ColumnaTexto.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar una nueva columna copiando los valores de la lista pasada como argumento.
+     * </p>
+     *
+     * @param valores Una lista que contiene los valores de la columna.
+     */
+    public ColumnaTexto(List<String> valores) {
+        this.valores = valores.toArray(new String[0]);
+    }
+
+    @Override
+    public int getLongitud() {
+        return this.valores.length;
+    }
+
+    @Override
+    public String getValor(int fila) {
+        return this.valores[fila];
+    }
+
+    @Override
+    public ColumnaTexto seleccionarFilas(int[] filas) {
+        String[] seleccion = new String[filas.length];
+        for (int i = 0; i < filas.length; i++) {
+            seleccion[i] = this.valores[filas[i]];
+        }
+        return new ColumnaTexto(seleccion);
+    }
+
+}
@@ -0,0 +1,99 @@
+package Cubo.tablasCubo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Esta clase representa el diccionario de un nivel, el cual asocia cada valor distinto
+ * del mismo con un código entero.
+ * </p>
+ *
+ * <p>
+ * Los códigos van desde 0 hasta la cantidad de valores del diccionario menos uno, y se usan
+ * en las instancias de {@link ColumnaCodificada} para no repetir el mismo valor en cada fila.
+ * </p>
+ */
+public class Diccionario {
+
+    // Atributos de la clase Diccionario
+    private final List<String> valores;
+    private final Map<String, Integer> codigos;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase Diccionario.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de asignar a cada valor de la lista un código según la posición que ocupa en la misma.
+     * </p>
+     *
+     * @param valores Una lista que contiene los valores distintos del nivel, sin valores nulos.
+     */
+    public Diccionario(List<String> valores) {
+        this.valores = new ArrayList<>();
+        this.codigos = new HashMap<>();
+        for (String valor : valores) {
+            this.codificar(valor);
+        }
+    }
+
+    /**
+     * Obtiene el código asociado a un valor, agregándolo al diccionario si todavía no está presente.
+     * Solo se usa mientras se construye el diccionario.
+     *
+     * @param valor El valor a codificar.
+     *
+     * @return El código asociado al valor.
+     */
+    int codificar(String valor) {
+        Integer codigo = this.codigos.get(valor);
+        if (codigo == null) {
+            codigo = this.valores.size();
+            this.valores.add(valor);
+            this.codigos.put(valor, codigo);
+        }
+        return codigo;
+    }
+
+    /**
+     * Obtiene el código asociado a un valor del diccionario.
+     *
+     * @param valor El valor del cual se quiere obtener el código.
+     *
+     * @return El código asociado al valor, o -1 si el valor no está presente en el diccionario.
+     */
+    public int getCodigo(String valor) {
+        Integer codigo = this.codigos.get(valor);
+        return codigo == null ? -1 : codigo;
+    }
+
+    /**
+     * Obtiene el valor asociado a un código del diccionario.
+     *
+     * @param codigo El código del cual se quiere obtener el valor.
+     *
+     * @return El valor asociado al código, o null si el código es negativo.
+     */
+    public String getValor(int codigo) {
+        return codigo < 0 ? null : this.valores.get(codigo);
+    }
+
+    /**
+     * @return Una copia de la lista que contiene los valores de este diccionario, ordenados según su código.
+     */
+    public List<String> getValores() {
+        return new ArrayList<>(this.valores);
+    }
+
+    /**
+     * @return La cantidad de valores distintos presentes en este diccionario.
+     */
+    public int getCantidad() {
+        return this.valores.size();
+    }
+
+}
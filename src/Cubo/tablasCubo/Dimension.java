@@ -10,6 +10,7 @@ import java.util.Map;
 import java.util.Set;
 import Cubo.excepciones.excepcionesDimension.ClaveNoPresenteException;
 import Cubo.excepciones.excepcionesDimension.NivelNoPresenteException;
+import Cubo.excepciones.excepcionesTabla.ColumnaNoPresenteException;
 import Cubo.lecturaArchivos.EstrategiaLecturaArchivo;
 
 /**
@@ -26,6 +27,8 @@ public class Dimension extends Tabla {
     // Atributos de la clase Hecho
     private Map<String, List<String>> niveles;
     private Map<String, Integer> indicesNiveles;
+    private Map<String, Diccionario> diccionariosNiveles;
+    private Map<String, int[]> codigosNiveles;
     private String primaryKey;
 
 
@@ -74,8 +77,9 @@ public class Dimension extends Tabla {
             }
         }
 
-        // Retorno una nueva tabla de dimensión
-        return new Dimension(nombre, niveles, primaryKey, archivo_dim, headers_dim);
+        // Organizo la información leída en columnas y retorno una nueva tabla de dimensión
+        List<Columna> columnas_dim = construirColumnas(archivo_dim, headers_dim.size());
+        return new Dimension(nombre, niveles, primaryKey, columnas_dim, headers_dim);
     }
  
     /**
@@ -84,36 +88,79 @@ public class Dimension extends Tabla {
      * </p>
      * 
      * <p>
-     * Se encarga de inicializar una nueva tabla de dimensión con un nombre, una matriz de información interna,
+     * Se encarga de inicializar una nueva tabla de dimensión con un nombre, las columnas de información interna,
      * encabezados que representan las columnas y los niveles y clave primaria presentes en la misma.
      * </p>
      *
      * @param nombre El nombre de la tabla de dimensión.
      * @param niveles Una lista que representa los niveles presentes en la dimensión. 
      * @param primaryKey La clave primaria de la dimensión.
-     * @param datosTabla Una matriz que representa la información interna de la tabla.
+     * @param columnas Una lista que contiene las columnas de la tabla.
      * @param headers Una lista que representa los encabezados de la tabla.
      */
-    private Dimension (String nombre , List<String> niveles, String primaryKey, List<List<String>> datosTabla, List<String> headers) {
+    private Dimension (String nombre , List<String> niveles, String primaryKey, List<Columna> columnas, List<String> headers) {
 
         // Uso el constructor base para la información general
-        super(nombre, datosTabla, headers);
+        super(nombre, columnas, headers);
 
         // Obtengo los índices de jerarquía de los niveles 
         Map<String, Integer> map_indices = new LinkedHashMap<>();
         for (int i = 0; i < niveles.size(); i++) {
             map_indices.put(niveles.get(i), i);
         }
-        // Guardo la información sobre los niveles
+        // Armo un diccionario por cada nivel a partir de sus valores únicos y 
+        // reemplazo la columna del nivel por su versión codificada, guardando
+        // también el código que tiene cada fila de la dimensión en ese nivel.
+        // Si la columna ya está codificada, como al restaurar una dimensión, la reutilizo
         Map<String, List<String>> map_niveles = new LinkedHashMap<>();
+        Map<String, Diccionario> map_diccionarios = new LinkedHashMap<>();
+        Map<String, int[]> map_codigos = new LinkedHashMap<>();
         for (String nivel : niveles) {
-            map_niveles.put(nivel, this.obtenerValoresUnicos(nivel));
+            int indice_columna = this.headers.indexOf(nivel);
+            Columna columna_nivel = this.columnas.get(indice_columna);
+            Diccionario diccionario;
+            int[] codigos_nivel;
+            if (columna_nivel instanceof ColumnaCodificada && !((ColumnaCodificada) columna_nivel).esIndirecta()
+                    && ((ColumnaCodificada) columna_nivel).getArregloCodigos() != null) {
+                diccionario = ((ColumnaCodificada) columna_nivel).getDiccionario();
+                codigos_nivel = ((ColumnaCodificada) columna_nivel).getArregloCodigos();
+            } else {
+                diccionario = new Diccionario(this.obtenerValoresUnicos(nivel));
+                codigos_nivel = new int[columna_nivel.getLongitud()];
+                for (int i = 0; i < codigos_nivel.length; i++) {
+                    String valor = columna_nivel.getValor(i);
+                    codigos_nivel[i] = valor == null ? -1 : diccionario.getCodigo(valor);
+                }
+                this.columnas.set(indice_columna, new ColumnaCodificada(codigos_nivel, diccionario));
+            }
+            map_niveles.put(nivel, diccionario.getValores());
+            map_diccionarios.put(nivel, diccionario);
+            map_codigos.put(nivel, codigos_nivel);
         }
 
         // Guardo la información propia de la tabla de dimensión
         this.primaryKey = primaryKey;
         this.niveles = map_niveles;  
         this.indicesNiveles = map_indices;  
+        this.diccionariosNiveles = map_diccionarios;
+        this.codigosNiveles = map_codigos;
+    }
+
+    /**
+     * Se encarga de restaurar una tabla de dimensión a partir de información ya procesada, por ejemplo
+     * la leída desde una instantánea de un cubo. Las columnas de los niveles que ya estén codificadas
+     * se conservan junto con sus diccionarios.
+     *
+     * @param nombre El nombre de la tabla de dimensión.
+     * @param niveles Una lista que representa los niveles presentes en la dimensión, en orden de jerarquía.
+     * @param primaryKey La clave primaria de la dimensión.
+     * @param columnas Una lista que contiene las columnas de la tabla.
+     * @param headers Una lista que representa los encabezados de la tabla.
+     *
+     * @return Una nueva instancia de la clase Dimension con la información indicada.
+     */
+    static Dimension restaurar(String nombre, List<String> niveles, String primaryKey, List<Columna> columnas, List<String> headers){
+        return new Dimension(nombre, niveles, primaryKey, columnas, headers);
     }
 
     /**
@@ -124,9 +171,10 @@ public class Dimension extends Tabla {
      */
     private List<String> obtenerValoresUnicos(String columna){
 
-        List<String> columna_seleccionada = this.getColumna(columna);
+        Columna columna_seleccionada = this.getColumnaTabla(columna);
         Set<String> valores_unicos = new HashSet<>();
-        for (String valor : columna_seleccionada) {
+        for (int i = 0; i < columna_seleccionada.getLongitud(); i++) {
+            String valor = columna_seleccionada.getValor(i);
             if (valor != null) {
                 valores_unicos.add(valor);
             }
@@ -161,6 +209,69 @@ public class Dimension extends Tabla {
         return new HashMap<>(this.indicesNiveles);
     }
 
+    /**
+     * Obtiene el diccionario que asocia cada valor de un nivel de esta dimensión con
+     * el código entero que lo representa.
+     *
+     * @param nivel El nombre del nivel del cual se quiere obtener el diccionario.
+     *
+     * @throws NivelNoPresenteException Si el nivel especificado no está presente en esta dimensión.
+     *
+     * @return El diccionario del nivel seleccionado.
+     */
+    public Diccionario getDiccionarioNivel(String nivel){
+        Diccionario diccionario = this.diccionariosNiveles.get(nivel);
+        if (diccionario == null) {
+            throw new NivelNoPresenteException("El nivel '" + nivel + "' no esta presente en la dimension.");
+        }
+        return diccionario;
+    }
+
+    /**
+     * Obtiene el arreglo que asocia el ordinal de cada fila de esta dimensión con su código
+     * en un nivel, siendo el ordinal la posición de la fila dentro de la tabla.
+     *
+     * @param nivel El nombre del nivel del cual se quieren obtener los códigos.
+     *
+     * @throws NivelNoPresenteException Si el nivel especificado no está presente en esta dimensión.
+     *
+     * @return Una copia del arreglo que contiene el código de cada fila en el nivel seleccionado,
+     *         o -1 para las filas sin valor.
+     */
+    public int[] getCodigosNivel(String nivel){
+        int[] codigos = this.codigosNiveles.get(nivel);
+        if (codigos == null) {
+            throw new NivelNoPresenteException("El nivel '" + nivel + "' no esta presente en la dimension.");
+        }
+        return codigos.clone();
+    }
+
+    /**
+     * <p>
+     * Genera una columna con los valores de una columna de esta dimensión para cada uno de los
+     * ordinales indicados, sin copiar dichos valores.
+     * </p>
+     *
+     * <p>
+     * Si la columna es un nivel, la columna resultante es una {@link ColumnaCodificada} que resuelve
+     * sus códigos a través de los ordinales; de lo contrario es una {@link ColumnaIndirecta}.
+     * </p>
+     *
+     * @param nombreColumna El nombre de la columna de esta dimensión a resolver.
+     * @param ordinales Un arreglo que contiene para cada fila el ordinal de la fila de esta dimensión asociada.
+     *
+     * @throws ColumnaNoPresenteException Si la columna especificada no existe en esta dimensión.
+     *
+     * @return Una columna con los valores de la dimensión asociados a cada ordinal.
+     */
+    public Columna resolverColumna(String nombreColumna, int[] ordinales){
+        int[] codigos = this.codigosNiveles.get(nombreColumna);
+        if (codigos != null) {
+            return ColumnaCodificada.indirecta(ordinales, codigos, this.diccionariosNiveles.get(nombreColumna));
+        }
+        return new ColumnaIndirecta(ordinales, this.getColumnaTabla(nombreColumna));
+    }
+
     /**
      * <p>
      * Devuelve una representación en forma de cadena de esta tabla de dimensión.
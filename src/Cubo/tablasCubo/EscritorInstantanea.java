@@ -0,0 +1,415 @@
+package Cubo.tablasCubo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * Esta clase se encarga de escribir tablas y columnas en un archivo de instantánea binario,
+ * el cual puede leerse luego mediante la clase {@link LectorInstantanea}.
+ * </p>
+ *
+ * <p>
+ * El archivo comienza con una cabecera que indica el formato y su versión. Luego se escriben los
+ * bloques de datos de las columnas, cada uno alineado a 8 bytes y en orden little-endian, de modo
+ * que puedan leerse directamente como arreglos primitivos. Al final se escriben los metadatos, que
+ * describen las tablas y la posición de cada bloque, seguidos de un pie con la posición de los
+ * metadatos. Tanto cada bloque como los metadatos llevan su propia suma de verificación CRC32.
+ * </p>
+ *
+ * <p>
+ * Las columnas, arreglos y diccionarios compartidos entre varias tablas se escriben una única vez,
+ * por lo que al leer el archivo vuelven a quedar compartidos.
+ * </p>
+ */
+public class EscritorInstantanea implements Closeable {
+
+    // Constantes del formato de la instantánea
+    static final byte[] FIRMA = "CUBOOLAP".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final int LONGITUD_CABECERA = 16;
+    static final int LONGITUD_PIE = 24;
+    static final ByteOrder ORDEN = ByteOrder.LITTLE_ENDIAN;
+
+    // Tipos de columnas presentes en la instantánea
+    static final byte COLUMNA_TEXTO = 0;
+    static final byte COLUMNA_NUMERICA = 1;
+    static final byte COLUMNA_CODIFICADA = 2;
+    static final byte COLUMNA_INDIRECTA = 3;
+    static final byte COLUMNA_DECIMAL = 4;
+
+    // Atributos de la clase EscritorInstantanea
+    private final FileChannel canal;
+    private final ByteArrayOutputStream bufferMetadatos;
+    private final DataOutputStream metadatos;
+    private final Map<Object, Integer> idsColumnas;
+    private final Map<Object, Integer> idsArreglos;
+    private final Map<Object, Integer> idsDiccionarios;
+    private long posicion;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase EscritorInstantanea.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de crear el archivo de la instantánea, reemplazándolo si ya existe, y de escribir su cabecera.
+     * </p>
+     *
+     * @param rutaArchivo La ruta del archivo a escribir.
+     *
+     * @throws IOException Si ocurre un error de entrada/salida al crear el archivo.
+     */
+    public EscritorInstantanea(String rutaArchivo) throws IOException {
+        this.canal = FileChannel.open(Paths.get(rutaArchivo), StandardOpenOption.CREATE,
+                                      StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.bufferMetadatos = new ByteArrayOutputStream();
+        this.metadatos = new DataOutputStream(this.bufferMetadatos);
+        this.idsColumnas = new IdentityHashMap<>();
+        this.idsArreglos = new IdentityHashMap<>();
+        this.idsDiccionarios = new IdentityHashMap<>();
+
+        // Escribo la cabecera con la firma y la versión del formato
+        ByteBuffer cabecera = ByteBuffer.allocate(LONGITUD_CABECERA).order(ORDEN);
+        cabecera.put(FIRMA).putInt(VERSION).putInt(0).flip();
+        this.escribirCompleto(cabecera);
+        this.posicion = LONGITUD_CABECERA;
+    }
+
+
+    // Métodos para escribir los metadatos de la instantánea
+
+    /**
+     * @param valor El entero a escribir en los metadatos.
+     *
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void escribirEntero(int valor) throws IOException {
+        this.metadatos.writeInt(valor);
+    }
+
+    /**
+     * @param valor La cadena a escribir en los metadatos, puede ser null.
+     *
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void escribirTexto(String valor) throws IOException {
+        if (valor == null) {
+            this.metadatos.writeInt(-1);
+            return;
+        }
+        byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+        this.metadatos.writeInt(bytes.length);
+        this.metadatos.write(bytes);
+    }
+
+    /**
+     * @param valores La lista de cadenas a escribir en los metadatos.
+     *
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void escribirTextos(List<String> valores) throws IOException {
+        this.metadatos.writeInt(valores.size());
+        for (String valor : valores) {
+            this.escribirTexto(valor);
+        }
+    }
+
+    /**
+     * Escribe una lista de columnas. Las columnas que ya fueron escritas no se vuelven a escribir.
+     *
+     * @param columnas La lista de columnas a escribir.
+     *
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void escribirColumnas(List<Columna> columnas) throws IOException {
+        this.metadatos.writeInt(columnas.size());
+        for (Columna columna : columnas) {
+            this.escribirColumna(columna);
+        }
+    }
+
+    /**
+     * Escribe una tabla de dimensión junto con sus niveles, su clave primaria y sus columnas.
+     *
+     * @param dimension La dimensión a escribir.
+     *
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void escribirDimension(Dimension dimension) throws IOException {
+        Map<String, Integer> indicesNiveles = dimension.getIndicesNiveles();
+        List<String> niveles = new ArrayList<>(indicesNiveles.keySet());
+        niveles.sort((a, b) -> indicesNiveles.get(a) - indicesNiveles.get(b));
+
+        this.escribirTexto(dimension.getNombre());
+        this.escribirTexto(dimension.getPrimaryKey());
+        this.escribirTextos(niveles);
+        this.escribirTextos(dimension.getHeaders());
+        this.escribirColumnas(dimension.getColumnas());
+    }
+
+    /**
+     * Escribe una tabla de hechos junto con sus hechos, sus columnas y la clave foránea de cada
+     * una de sus dimensiones, las cuales se identifican por su posición en la lista indicada.
+     *
+     * @param hecho La tabla de hechos a escribir.
+     * @param dimensiones La lista de dimensiones ya escritas, en el mismo orden en que se escribieron.
+     *
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void escribirHecho(Hecho hecho, List<Dimension> dimensiones) throws IOException {
+        Map<Dimension, String> clavesForaneasDims = hecho.getClavesForaneasDims();
+        this.escribirTexto(hecho.getNombre());
+        this.escribirTextos(hecho.getHechos());
+        this.escribirTextos(hecho.getHeaders());
+        this.escribirColumnas(hecho.getColumnas());
+        this.metadatos.writeInt(dimensiones.size());
+        for (Dimension dimension : dimensiones) {
+            this.escribirTexto(clavesForaneasDims.get(dimension));
+        }
+    }
+
+
+    // Métodos de ayuda para escribir columnas
+
+    /**
+     * Se encarga de escribir una columna. Si la columna ya fue escrita solo se escribe su identificador,
+     * de lo contrario se escribe el identificador seguido de su definición.
+     */
+    private void escribirColumna(Columna columna) throws IOException {
+        if (this.escribirReferencia(this.idsColumnas, columna)) {
+            return;
+        }
+
+        if (columna instanceof ColumnaDecimal) {
+            ColumnaDecimal decimal = (ColumnaDecimal) columna;
+            this.metadatos.writeByte(COLUMNA_DECIMAL);
+            this.metadatos.writeInt(decimal.getEscala());
+            this.metadatos.writeInt(decimal.getLongitud());
+            ByteBuffer unidades = this.reservar((long) decimal.getLongitud() * Long.BYTES);
+            long[] arreglo = decimal.getArregloUnidades();
+            if (arreglo != null) {
+                unidades.asLongBuffer().put(arreglo);
+            } else {
+                for (int i = 0; i < decimal.getLongitud(); i++) {
+                    unidades.putLong(i * Long.BYTES, decimal.getUnidades(i));
+                }
+            }
+            this.escribirBloque(unidades);
+            this.escribirNulos(decimal.getNulos());
+
+        } else if (columna instanceof ColumnaNumerica) {
+            ColumnaNumerica numerica = (ColumnaNumerica) columna;
+            this.metadatos.writeByte(COLUMNA_NUMERICA);
+            this.metadatos.writeBoolean(numerica.esEntera());
+            this.metadatos.writeInt(numerica.getLongitud());
+            ByteBuffer valores = this.reservar((long) numerica.getLongitud() * Double.BYTES);
+            double[] arreglo = numerica.getArregloValores();
+            if (arreglo != null) {
+                valores.asDoubleBuffer().put(arreglo);
+            } else {
+                for (int i = 0; i < numerica.getLongitud(); i++) {
+                    valores.putDouble(i * Double.BYTES, numerica.getDouble(i));
+                }
+            }
+            this.escribirBloque(valores);
+            this.escribirNulos(numerica.getNulos());
+
+        } else if (columna instanceof ColumnaCodificada) {
+            ColumnaCodificada codificada = (ColumnaCodificada) columna;
+            this.metadatos.writeByte(COLUMNA_CODIFICADA);
+            this.escribirDiccionario(codificada.getDiccionario());
+            if (codificada.esIndirecta()) {
+                this.metadatos.writeBoolean(true);
+                if (codificada.getOrdinales() != null) {
+                    this.escribirArreglo(codificada.getOrdinales());
+                } else {
+                    this.escribirArreglo(codificada.getOrdinalesFueraHeap());
+                }
+                this.escribirArreglo(codificada.getArregloCodigos());
+            } else {
+                int[] codigos = codificada.getArregloCodigos();
+                if (codigos == null) {
+                    codigos = new int[codificada.getLongitud()];
+                    for (int i = 0; i < codigos.length; i++) {
+                        codigos[i] = codificada.getCodigo(i);
+                    }
+                }
+                this.metadatos.writeBoolean(false);
+                this.escribirArreglo(codigos);
+            }
+
+        } else if (columna instanceof ColumnaIndirecta) {
+            ColumnaIndirecta indirecta = (ColumnaIndirecta) columna;
+            this.metadatos.writeByte(COLUMNA_INDIRECTA);
+            if (indirecta.getOrdinales() != null) {
+                this.escribirArreglo(indirecta.getOrdinales());
+            } else {
+                this.escribirArreglo(indirecta.getOrdinalesFueraHeap());
+            }
+            this.escribirColumna(indirecta.getColumnaBase());
+
+        } else {
+            // Cualquier otra columna se guarda como texto, codificando sus valores distintos
+            this.metadatos.writeByte(COLUMNA_TEXTO);
+            Map<String, Integer> codigosValores = new HashMap<>();
+            List<String> valores = new ArrayList<>();
+            int[] codigos = new int[columna.getLongitud()];
+            for (int i = 0; i < codigos.length; i++) {
+                String valor = columna.getValor(i);
+                if (valor == null) {
+                    codigos[i] = -1;
+                    continue;
+                }
+                Integer codigo = codigosValores.get(valor);
+                if (codigo == null) {
+                    codigo = valores.size();
+                    codigosValores.put(valor, codigo);
+                    valores.add(valor);
+                }
+                codigos[i] = codigo;
+            }
+            this.escribirTextos(valores);
+            this.escribirArreglo(codigos);
+        }
+    }
+
+    /**
+     * Se encarga de escribir un diccionario una única vez.
+     */
+    private void escribirDiccionario(Diccionario diccionario) throws IOException {
+        if (!this.escribirReferencia(this.idsDiccionarios, diccionario)) {
+            this.escribirTextos(diccionario.getValores());
+        }
+    }
+
+    /**
+     * Se encarga de escribir un arreglo de enteros una única vez.
+     */
+    private void escribirArreglo(int[] arreglo) throws IOException {
+        if (!this.escribirReferencia(this.idsArreglos, arreglo)) {
+            this.metadatos.writeInt(arreglo.length);
+            ByteBuffer bloque = this.reservar((long) arreglo.length * Integer.BYTES);
+            bloque.asIntBuffer().put(arreglo);
+            this.escribirBloque(bloque);
+        }
+    }
+
+    /**
+     * Se encarga de escribir una única vez un arreglo de enteros guardado fuera del heap.
+     */
+    private void escribirArreglo(IntBuffer arreglo) throws IOException {
+        if (!this.escribirReferencia(this.idsArreglos, arreglo)) {
+            this.metadatos.writeInt(arreglo.capacity());
+            ByteBuffer bloque = this.reservar((long) arreglo.capacity() * Integer.BYTES);
+            bloque.asIntBuffer().put(arreglo.duplicate().clear());
+            this.escribirBloque(bloque);
+        }
+    }
+
+    /**
+     * Se encarga de escribir el identificador de un objeto. Si el objeto es nuevo se le asigna el
+     * siguiente identificador, de modo que quien lee sabe que a continuación viene su definición.
+     *
+     * @return true si el objeto ya había sido escrito, false si debe escribirse su definición.
+     */
+    private boolean escribirReferencia(Map<Object, Integer> ids, Object objeto) throws IOException {
+        Integer id = ids.get(objeto);
+        if (id != null) {
+            this.metadatos.writeInt(id);
+            return true;
+        }
+        id = ids.size();
+        ids.put(objeto, id);
+        this.metadatos.writeInt(id);
+        return false;
+    }
+
+    /**
+     * Se encarga de escribir en un bloque las palabras del mapa de bits de nulos de una columna numérica.
+     */
+    private void escribirNulos(BitSet nulos) throws IOException {
+        long[] palabrasNulos = nulos == null ? new long[0] : nulos.toLongArray();
+        ByteBuffer bloqueNulos = this.reservar((long) palabrasNulos.length * Long.BYTES);
+        bloqueNulos.asLongBuffer().put(palabrasNulos);
+        this.escribirBloque(bloqueNulos);
+    }
+
+    /**
+     * @return Un buffer con el orden de bytes del formato con lugar para la cantidad de bytes indicada.
+     */
+    private ByteBuffer reservar(long bytes) {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("La columna es demasiado grande para escribirse en un único bloque.");
+        }
+        return ByteBuffer.allocate((int) bytes).order(ORDEN);
+    }
+
+    /**
+     * Se encarga de escribir un bloque de datos alineado a 8 bytes y de registrar en los
+     * metadatos su posición, su longitud y su suma de verificación.
+     */
+    private void escribirBloque(ByteBuffer bloque) throws IOException {
+        long alineada = (this.posicion + 7) & ~7L;
+        if (alineada > this.posicion) {
+            this.escribirCompleto(ByteBuffer.allocate((int) (alineada - this.posicion)));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bloque.duplicate());
+        this.metadatos.writeLong(alineada);
+        this.metadatos.writeLong(bloque.remaining());
+        this.metadatos.writeLong(crc.getValue());
+        this.posicion = alineada + bloque.remaining();
+        this.escribirCompleto(bloque);
+    }
+
+    /**
+     * Se encarga de escribir un buffer completo en el archivo.
+     */
+    private void escribirCompleto(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            this.canal.write(buffer);
+        }
+    }
+
+    /**
+     * <p>
+     * Escribe los metadatos y el pie de la instantánea y cierra el archivo.
+     * </p>
+     *
+     * @throws IOException Si ocurre un error de entrada/salida al escribir el archivo.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            this.metadatos.flush();
+            byte[] bytesMetadatos = this.bufferMetadatos.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(bytesMetadatos);
+
+            this.escribirCompleto(ByteBuffer.wrap(bytesMetadatos));
+            ByteBuffer pie = ByteBuffer.allocate(LONGITUD_PIE).order(ORDEN);
+            pie.putLong(this.posicion).putLong(bytesMetadatos.length).putLong(crc.getValue()).flip();
+            this.escribirCompleto(pie);
+        } finally {
+            this.canal.close();
+        }
+    }
+
+}
@@ -6,7 +6,9 @@ import java.util.List;
 import java.util.Map;
 import java.io.IOException;
 import Cubo.excepciones.excepcionesDimension.ClaveNoPresenteException;
+import Cubo.excepciones.excepcionesHechos.HechoNoNumericoException;
 import Cubo.excepciones.excepcionesHechos.HechoNoPresenteException;
+import Cubo.excepciones.excepcionesOperacion.ArgumentosInoperablesException;
 import Cubo.lecturaArchivos.EstrategiaLecturaArchivo;
 
 /**
@@ -44,12 +46,60 @@ public class Hecho extends Tabla {
      * 
      * @throws IOException Si ocurre un error de entrada/salida al leer los datos de la tabla.
      * @throws HechoNoPresenteException Si alguno de los hechos especificados no está presente en la tabla de hechos.
+     * @throws HechoNoNumericoException Si alguno de los hechos especificados contiene valores que no son numéricos.
      * @throws ClaveNoPresenteException Si alguna de las claves foráneas de las dimensiones no está presente en la tabla de hechos.
      * 
      * @return Una nueva instancia de la clase Hecho, la cual representa una tabla de hechos.
      */
     public static Hecho crearTablaHechos(String nombre, List<String> hechos, Map<Dimension, String> clavesForaneasDims, 
                                          EstrategiaLecturaArchivo estrategiaLectura, String rutaArchivo) throws IOException{
+        return crearTablaHechos(nombre, hechos, new HashMap<>(), clavesForaneasDims, estrategiaLectura, rutaArchivo);
+    }
+
+    /**
+     * </p>
+     * Método para crear una <b>tabla de hechos</b> en la cual algunos hechos son decimales de punto fijo.
+     * </p>
+     * 
+     * </p>
+     * Los hechos decimales se guardan como enteros de tipo long con la cantidad de decimales indicada, en una
+     * {@link ColumnaDecimal}. Sus valores se leen sin convertirlos a double y las operaciones "sum", "max" y "min"
+     * los agregan de forma exacta, mostrando el resultado con la misma cantidad de decimales. Conviene para hechos
+     * como los importes, que siempre tienen los mismos decimales. El resto de los hechos se guardan como double.
+     * Al igual que con los hechos double, se ignoran los espacios al principio y al final de cada valor.
+     * </p>
+     * 
+     * @param nombre El nombre de la tabla de hechos.
+     * @param hechos Una lista que representa los hechos presentes en la tabla.
+     * @param decimalesHechos Un mapa que asocia cada hecho decimal con su cantidad de decimales, entre 0 y 
+     *                        {@value ColumnaDecimal#ESCALA_MAXIMA}. Los valores con más decimales se redondean.
+     * @param clavesForaneasDims Un mapa que representa las claves foráneas de las dimensiones presentes en la tabla.
+     * @param estrategiaLectura La estrategia de lectura de archivos a utilizar.
+     * @param rutaArchivo La ruta donde se ubica el archivo a leer.
+     * 
+     * @throws IOException Si ocurre un error de entrada/salida al leer los datos de la tabla.
+     * @throws HechoNoPresenteException Si alguno de los hechos especificados, o de los hechos decimales, no está presente en la tabla de hechos.
+     * @throws HechoNoNumericoException Si alguno de los hechos especificados contiene valores que no son numéricos, o 
+     *                                  si algún hecho decimal contiene valores que no son números decimales sin exponente.
+     * @throws ArgumentosInoperablesException Si la cantidad de decimales de algún hecho está fuera del rango admitido.
+     * @throws ClaveNoPresenteException Si alguna de las claves foráneas de las dimensiones no está presente en la tabla de hechos.
+     * 
+     * @return Una nueva instancia de la clase Hecho, la cual representa una tabla de hechos.
+     */
+    public static Hecho crearTablaHechos(String nombre, List<String> hechos, Map<String, Integer> decimalesHechos, 
+                                         Map<Dimension, String> clavesForaneasDims, EstrategiaLecturaArchivo estrategiaLectura, 
+                                         String rutaArchivo) throws IOException{
+
+        // Verifico que los hechos decimales sean hechos de la tabla con una cantidad de decimales válida
+        for (Map.Entry<String, Integer> decimalesHecho : decimalesHechos.entrySet()) {
+            if (!hechos.contains(decimalesHecho.getKey())) {
+                throw new HechoNoPresenteException("El hecho decimal '" + decimalesHecho.getKey() + "' no esta entre los hechos de la tabla.");
+            }
+            if (decimalesHecho.getValue() < 0 || decimalesHecho.getValue() > ColumnaDecimal.ESCALA_MAXIMA) {
+                throw new ArgumentosInoperablesException("La cantidad de decimales del hecho '" + decimalesHecho.getKey() 
+                                                         + "' debe estar entre 0 y " + ColumnaDecimal.ESCALA_MAXIMA + ".");
+            }
+        }
         
         // Guardo la información de la tabla de hechos
         List<List<String>> archivo_hecho = estrategiaLectura.leerArchivo(rutaArchivo);
@@ -72,8 +122,38 @@ public class Hecho extends Tabla {
             }
         }
 
+        // Organizo la información leída en columnas y convierto una única vez las columnas 
+        // de los hechos a columnas numéricas o decimales
+        List<Columna> columnas_hecho = construirColumnas(archivo_hecho, headers_hecho.size());
+        for (String hecho : hechos) {
+            int indice_hecho = headers_hecho.indexOf(hecho);
+            Integer decimales = decimalesHechos.get(hecho);
+            try {
+                columnas_hecho.set(indice_hecho, decimales == null ? ColumnaNumerica.parsear(columnas_hecho.get(indice_hecho))
+                                                                   : ColumnaDecimal.parsear(columnas_hecho.get(indice_hecho), decimales));
+            } catch (NumberFormatException e) {
+                throw new HechoNoNumericoException("El hecho '" + hecho + "' contiene valores que no son numericos en la tabla de hechos.", e);
+            }
+        }
+
         // Retorno una nueva tabla de hechos
-        return new Hecho(nombre, archivo_hecho, headers_hecho, hechos, clavesForaneasDims);
+        return new Hecho(nombre, columnas_hecho, headers_hecho, hechos, clavesForaneasDims);
+    }
+
+    /**
+     * Se encarga de restaurar una tabla de hechos a partir de información ya procesada, por ejemplo
+     * la leída desde una instantánea de un cubo. Las columnas de los hechos deben ser numéricas.
+     *
+     * @param nombre El nombre de la tabla de hechos.
+     * @param columnas Una lista que contiene las columnas de la tabla.
+     * @param headers Una lista que representa los encabezados de la tabla.
+     * @param hechos Una lista que contiene los nombres de los hechos presentes en la tabla.
+     * @param clavesForaneasDims Un mapa que contiene como clave una dimensión y como valor su clave foránea en la tabla.
+     *
+     * @return Una nueva instancia de la clase Hecho con la información indicada.
+     */
+    static Hecho restaurar(String nombre, List<Columna> columnas, List<String> headers, List<String> hechos, Map<Dimension, String> clavesForaneasDims){
+        return new Hecho(nombre, columnas, headers, hechos, clavesForaneasDims);
     }
 
     /**
@@ -82,20 +162,20 @@ public class Hecho extends Tabla {
      * </p>
      * 
      * <p>
-     * Se encarga de inicializar una nueva tabla de hechos con un nombre, una matriz de información interna,
+     * Se encarga de inicializar una nueva tabla de hechos con un nombre, las columnas de información interna,
      * encabezados que representan las columnas y los hechos y claves foráneas de dimensiones presentes en la misma.
      * </p>
      * 
      * @param nombre El nombre de la tabla de hechos.
-     * @param datosTabla Una matriz que representa la información interna de la tabla.
+     * @param columnas Una lista que contiene las columnas de la tabla.
      * @param headers Una lista que representa los encabezados de la tabla.
      * @param hechos Una lista que representa los hechos presentes en la tabla.
      * @param clavesForaneasDims Un mapa que representa las claves foráneas de las dimensiones presentes en la tabla.
      */
-    private Hecho(String nombre, List<List<String>> datosTabla, List<String> headers, List<String> hechos, Map<Dimension, String> clavesForaneasDims){
+    private Hecho(String nombre, List<Columna> columnas, List<String> headers, List<String> hechos, Map<Dimension, String> clavesForaneasDims){
 
         // Uso el constructor base para la información general
-        super(nombre, datosTabla, headers);
+        super(nombre, columnas, headers);
 
         // Guardo la información propia de la tabla de hechos
         this.hechos = hechos;
@@ -135,7 +215,7 @@ public class Hecho extends Tabla {
     @Override
     public String toString() {
         String informacionTablaHechos = "TABLA DE HECHOS <" + this.getNombre() + ">\n";
-        informacionTablaHechos += "\n CANTIDAD DE REGISTROS: " + this.getDatosTabla().size() + "\n";
+        informacionTablaHechos += "\n CANTIDAD DE REGISTROS: " + this.getCantidadFilas() + "\n";
         informacionTablaHechos += " COLUMNAS:"+ "\n";
         for (String header : this.getHeaders()) {
             informacionTablaHechos += "  - " + header + "\n";
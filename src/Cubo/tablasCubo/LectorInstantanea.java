@@ -0,0 +1,581 @@
+package Cubo.tablasCubo;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import Cubo.excepciones.excepcionesTabla.InstantaneaCorruptaException;
+
+/**
+ * <p>
+ * Esta clase se encarga de leer tablas y columnas desde un archivo de instantánea binario
+ * escrito mediante la clase {@link EscritorInstantanea}.
+ * </p>
+ *
+ * <p>
+ * Los metadatos deben leerse en el mismo orden en que fueron escritos. Cada bloque de datos se
+ * verifica con su suma de verificación antes de usarse, y si el archivo no es una instantánea
+ * válida o está dañado se lanza una {@link InstantaneaCorruptaException}.
+ * </p>
+ *
+ * <p>
+ * Si se indica una {@link ZonaMemoria}, los hechos y los arreglos de códigos y ordinales de las tablas de hechos
+ * no se copian al heap, sino que se leen directamente de regiones mapeadas del archivo. El sistema operativo
+ * carga cada página recién cuando una operación recorre la columna, por lo que solo las columnas usadas ocupan
+ * memoria. Por defecto las regiones mapeadas no se verifican con su suma al abrirlas, ya que eso obligaría a leer el
+ * archivo completo; los metadatos y los bloques que se copian al heap, como los de las dimensiones, sí se verifican.
+ * Si se indica que también deben verificarse las regiones mapeadas, cada una se recorre una vez al mapearla y un
+ * bloque dañado lanza una {@link InstantaneaCorruptaException} en lugar de producir resultados incorrectos.
+ * </p>
+ */
+public class LectorInstantanea implements Closeable {
+
+    // Atributos de la clase LectorInstantanea
+    private final FileChannel canal;
+    private final ZonaMemoria zona;
+    private final boolean verificarMapeados;
+    private final DataInputStream metadatos;
+    private final List<Columna> columnas;
+    private final List<long[]> bloquesArreglos;
+    private final List<int[]> arreglos;
+    private final List<IntBuffer> arreglosMapeados;
+    private final List<Diccionario> diccionarios;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase LectorInstantanea.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de abrir el archivo de la instantánea, verificar su cabecera y leer sus metadatos.
+     * </p>
+     *
+     * @param rutaArchivo La ruta del archivo a leer.
+     *
+     * @throws IOException Si ocurre un error de entrada/salida al leer el archivo.
+     * @throws InstantaneaCorruptaException Si el archivo no es una instantánea válida o está dañado.
+     */
+    public LectorInstantanea(String rutaArchivo) throws IOException {
+        this(rutaArchivo, null);
+    }
+
+    /**
+     * <p>
+     * <b>Constructor para la clase LectorInstantanea.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de abrir el archivo de la instantánea, verificar su cabecera y leer sus metadatos. Las columnas
+     * de las tablas de hechos se leen mapeando el archivo en la zona de memoria indicada, la cual debe permanecer
+     * abierta mientras se usen esas columnas.
+     * </p>
+     *
+     * @param rutaArchivo La ruta del archivo a leer.
+     * @param zona La zona de memoria en la cual se mapean las columnas, o null para copiarlas al heap.
+     *
+     * @throws IOException Si ocurre un error de entrada/salida al leer el archivo.
+     * @throws InstantaneaCorruptaException Si el archivo no es una instantánea válida o está dañado.
+     */
+    public LectorInstantanea(String rutaArchivo, ZonaMemoria zona) throws IOException {
+        this(rutaArchivo, zona, false);
+    }
+
+    /**
+     * <p>
+     * <b>Constructor para la clase LectorInstantanea.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de abrir el archivo de la instantánea, verificar su cabecera y leer sus metadatos. Las columnas
+     * de las tablas de hechos se leen mapeando el archivo en la zona de memoria indicada, y si se indica, la suma
+     * de cada región mapeada se verifica al mapearla, lo cual obliga a recorrer esas regiones una vez.
+     * </p>
+     *
+     * @param rutaArchivo La ruta del archivo a leer.
+     * @param zona La zona de memoria en la cual se mapean las columnas, o null para copiarlas al heap.
+     * @param verificarMapeados Indica si la suma de las regiones mapeadas se verifica al mapearlas.
+     *
+     * @throws IOException Si ocurre un error de entrada/salida al leer el archivo.
+     * @throws InstantaneaCorruptaException Si el archivo no es una instantánea válida o está dañado.
+     */
+    public LectorInstantanea(String rutaArchivo, ZonaMemoria zona, boolean verificarMapeados) throws IOException {
+        this.canal = FileChannel.open(Paths.get(rutaArchivo), StandardOpenOption.READ);
+        this.zona = zona;
+        this.verificarMapeados = verificarMapeados;
+        this.columnas = new ArrayList<>();
+        this.bloquesArreglos = new ArrayList<>();
+        this.arreglos = new ArrayList<>();
+        this.arreglosMapeados = new ArrayList<>();
+        this.diccionarios = new ArrayList<>();
+        try {
+            this.metadatos = new DataInputStream(new ByteArrayInputStream(this.leerMetadatos()));
+        } catch (IOException | RuntimeException e) {
+            this.canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Se encarga de verificar la cabecera y el pie del archivo y de leer sus metadatos.
+     */
+    private byte[] leerMetadatos() throws IOException {
+        long tamanio = this.canal.size();
+        if (tamanio < EscritorInstantanea.LONGITUD_CABECERA + EscritorInstantanea.LONGITUD_PIE) {
+            throw new InstantaneaCorruptaException("El archivo es demasiado corto para ser una instantánea.");
+        }
+
+        ByteBuffer cabecera = this.leerBytes(0, EscritorInstantanea.LONGITUD_CABECERA);
+        byte[] firma = new byte[EscritorInstantanea.FIRMA.length];
+        cabecera.get(firma);
+        if (!Arrays.equals(firma, EscritorInstantanea.FIRMA)) {
+            throw new InstantaneaCorruptaException("El archivo no es una instantánea de un cubo.");
+        }
+        int version = cabecera.getInt();
+        if (version != EscritorInstantanea.VERSION) {
+            throw new InstantaneaCorruptaException("La versión " + version + " de la instantánea no está soportada.");
+        }
+
+        ByteBuffer pie = this.leerBytes(tamanio - EscritorInstantanea.LONGITUD_PIE, EscritorInstantanea.LONGITUD_PIE);
+        long posicionMetadatos = pie.getLong();
+        long longitudMetadatos = pie.getLong();
+        long crcMetadatos = pie.getLong();
+        if (posicionMetadatos < EscritorInstantanea.LONGITUD_CABECERA || longitudMetadatos < 0
+                || posicionMetadatos + longitudMetadatos != tamanio - EscritorInstantanea.LONGITUD_PIE) {
+            throw new InstantaneaCorruptaException("El pie de la instantánea está dañado.");
+        }
+        ByteBuffer bytesMetadatos = this.leerBytes(posicionMetadatos, longitudMetadatos);
+        this.verificarSuma(bytesMetadatos, crcMetadatos, "los metadatos");
+        return bytesMetadatos.array();
+    }
+
+
+    // Métodos para leer los metadatos de la instantánea
+
+    /**
+     * @return El siguiente entero de los metadatos.
+     *
+     * @throws IOException Si ocurre un error al leer.
+     */
+    public int leerEntero() throws IOException {
+        try {
+            return this.metadatos.readInt();
+        } catch (EOFException e) {
+            throw new InstantaneaCorruptaException("Los metadatos de la instantánea están incompletos.", e);
+        }
+    }
+
+    /**
+     * @return La siguiente cadena de los metadatos, puede ser null.
+     *
+     * @throws IOException Si ocurre un error al leer.
+     */
+    public String leerTexto() throws IOException {
+        int longitud = this.leerEntero();
+        if (longitud == -1) {
+            return null;
+        }
+        if (longitud < 0 || longitud > this.metadatos.available()) {
+            throw new InstantaneaCorruptaException("Los metadatos de la instantánea están dañados.");
+        }
+        byte[] bytes = new byte[longitud];
+        this.metadatos.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return La siguiente lista de cadenas de los metadatos.
+     *
+     * @throws IOException Si ocurre un error al leer.
+     */
+    public List<String> leerTextos() throws IOException {
+        int cantidad = this.leerCantidad();
+        List<String> valores = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            valores.add(this.leerTexto());
+        }
+        return valores;
+    }
+
+    /**
+     * @return La siguiente lista de columnas de la instantánea, mapeadas si el lector tiene una zona de memoria.
+     *
+     * @throws IOException Si ocurre un error al leer.
+     */
+    public List<Columna> leerColumnas() throws IOException {
+        return this.leerColumnas(this.zona != null);
+    }
+
+    /**
+     * @return La siguiente tabla de dimensión de la instantánea.
+     *
+     * @throws IOException Si ocurre un error al leer.
+     */
+    public Dimension leerDimension() throws IOException {
+        String nombre = this.leerTexto();
+        String primaryKey = this.leerTexto();
+        List<String> niveles = this.leerTextos();
+        List<String> headers = this.leerTextos();
+        // Las dimensiones son pequeñas y necesitan los códigos de sus niveles en el heap, por lo que no se mapean
+        List<Columna> columnasDimension = this.leerColumnas(false);
+        return Dimension.restaurar(nombre, niveles, primaryKey, columnasDimension, headers);
+    }
+
+    /**
+     * @param dimensiones La lista de dimensiones ya leídas, en el mismo orden en que se escribieron.
+     *
+     * @return La siguiente tabla de hechos de la instantánea.
+     *
+     * @throws IOException Si ocurre un error al leer.
+     */
+    public Hecho leerHecho(List<Dimension> dimensiones) throws IOException {
+        String nombre = this.leerTexto();
+        List<String> hechos = this.leerTextos();
+        List<String> headers = this.leerTextos();
+        List<Columna> columnasHecho = this.leerColumnas();
+        if (this.leerEntero() != dimensiones.size()) {
+            throw new InstantaneaCorruptaException("La tabla de hechos no coincide con las dimensiones de la instantánea.");
+        }
+        Map<Dimension, String> clavesForaneasDims = new HashMap<>();
+        for (Dimension dimension : dimensiones) {
+            String claveForanea = this.leerTexto();
+            if (claveForanea != null) {
+                clavesForaneasDims.put(dimension, claveForanea);
+            }
+        }
+        return Hecho.restaurar(nombre, columnasHecho, headers, hechos, clavesForaneasDims);
+    }
+
+
+    // Métodos de ayuda para leer columnas
+
+    /**
+     * Se encarga de leer una lista de columnas, indicando si sus bloques grandes deben mapearse.
+     */
+    private List<Columna> leerColumnas(boolean mapear) throws IOException {
+        int cantidad = this.leerCantidad();
+        List<Columna> lista = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            lista.add(this.leerColumna(mapear));
+        }
+        return lista;
+    }
+
+    /**
+     * Se encarga de leer una columna, o de devolver la ya leída si el identificador fue visto antes.
+     * Si se indica que debe mapearse, los valores, códigos y ordinales de cada fila se leen del archivo mapeado.
+     */
+    private Columna leerColumna(boolean mapear) throws IOException {
+        int id = this.leerEntero();
+        if (id < this.columnas.size()) {
+            return this.obtenerReferencia(this.columnas, id);
+        }
+        this.verificarNuevo(this.columnas, id);
+        // Reservo el lugar de la columna antes de leerla, ya que su definición puede contener otras columnas
+        this.columnas.add(null);
+
+        Columna columna;
+        byte tipo = this.metadatos.readByte();
+        switch (tipo) {
+            case EscritorInstantanea.COLUMNA_NUMERICA: {
+                boolean entera = this.metadatos.readBoolean();
+                int longitud = this.leerCantidad();
+                long[] bloqueValores = this.leerPosicionBloque();
+                ByteBuffer bloqueNulos = this.leerBloque(this.leerPosicionBloque());
+                if (bloqueValores[1] != (long) longitud * Double.BYTES) {
+                    throw new InstantaneaCorruptaException("El bloque de una columna numérica no tiene la longitud esperada.");
+                }
+                long[] palabrasNulos = new long[bloqueNulos.remaining() / Long.BYTES];
+                bloqueNulos.asLongBuffer().get(palabrasNulos);
+                BitSet nulos = BitSet.valueOf(palabrasNulos);
+                if (mapear) {
+                    DoubleBuffer valores = this.mapearBloque(bloqueValores).asDoubleBuffer();
+                    columna = new ColumnaNumerica(valores, this.zona, nulos, entera);
+                } else {
+                    double[] valores = new double[longitud];
+                    this.leerBloque(bloqueValores).asDoubleBuffer().get(valores);
+                    columna = new ColumnaNumerica(valores, nulos, entera);
+                }
+                break;
+            }
+            case EscritorInstantanea.COLUMNA_DECIMAL: {
+                int escala = this.metadatos.readInt();
+                if (escala < 0 || escala > ColumnaDecimal.ESCALA_MAXIMA) {
+                    throw new InstantaneaCorruptaException("La escala de una columna decimal no es válida.");
+                }
+                int longitud = this.leerCantidad();
+                long[] bloqueUnidades = this.leerPosicionBloque();
+                ByteBuffer bloqueNulos = this.leerBloque(this.leerPosicionBloque());
+                if (bloqueUnidades[1] != (long) longitud * Long.BYTES) {
+                    throw new InstantaneaCorruptaException("El bloque de una columna decimal no tiene la longitud esperada.");
+                }
+                long[] palabrasNulos = new long[bloqueNulos.remaining() / Long.BYTES];
+                bloqueNulos.asLongBuffer().get(palabrasNulos);
+                BitSet nulos = BitSet.valueOf(palabrasNulos);
+                if (mapear) {
+                    LongBuffer unidades = this.mapearBloque(bloqueUnidades).asLongBuffer();
+                    columna = new ColumnaDecimal(unidades, this.zona, nulos, escala);
+                } else {
+                    long[] unidades = new long[longitud];
+                    this.leerBloque(bloqueUnidades).asLongBuffer().get(unidades);
+                    columna = new ColumnaDecimal(unidades, nulos, escala);
+                }
+                break;
+            }
+            case EscritorInstantanea.COLUMNA_CODIFICADA: {
+                Diccionario diccionario = this.leerDiccionario();
+                boolean indirecta = this.metadatos.readBoolean();
+                if (indirecta) {
+                    int idOrdinales = this.leerReferenciaArreglo();
+                    int[] codigosPorOrdinal = this.obtenerArreglo(this.leerReferenciaArreglo());
+                    verificarCodigos(codigosPorOrdinal, diccionario.getCantidad(), true);
+                    if (mapear) {
+                        IntBuffer ordinales = this.obtenerArregloMapeado(idOrdinales);
+                        columna = new ColumnaCodificada(ordinales, codigosPorOrdinal, this.zona, diccionario);
+                    } else {
+                        int[] ordinales = this.obtenerArreglo(idOrdinales);
+                        verificarCodigos(ordinales, codigosPorOrdinal.length, false);
+                        columna = ColumnaCodificada.indirecta(ordinales, codigosPorOrdinal, diccionario);
+                    }
+                } else {
+                    int idCodigos = this.leerReferenciaArreglo();
+                    if (mapear) {
+                        columna = new ColumnaCodificada(this.obtenerArregloMapeado(idCodigos), this.zona, diccionario);
+                    } else {
+                        int[] codigos = this.obtenerArreglo(idCodigos);
+                        verificarCodigos(codigos, diccionario.getCantidad(), true);
+                        columna = new ColumnaCodificada(codigos, diccionario);
+                    }
+                }
+                break;
+            }
+            case EscritorInstantanea.COLUMNA_INDIRECTA: {
+                int idOrdinales = this.leerReferenciaArreglo();
+                Columna base = this.leerColumna(false);
+                if (base == null) {
+                    throw new InstantaneaCorruptaException("Una columna de la instantánea hace referencia a sí misma.");
+                }
+                if (mapear) {
+                    columna = new ColumnaIndirecta(this.obtenerArregloMapeado(idOrdinales), this.zona, base);
+                } else {
+                    int[] ordinales = this.obtenerArreglo(idOrdinales);
+                    verificarCodigos(ordinales, base.getLongitud(), false);
+                    columna = new ColumnaIndirecta(ordinales, base);
+                }
+                break;
+            }
+            case EscritorInstantanea.COLUMNA_TEXTO: {
+                List<String> valoresDistintos = this.leerTextos();
+                int[] codigos = this.obtenerArreglo(this.leerReferenciaArreglo());
+                verificarCodigos(codigos, valoresDistintos.size(), true);
+                String[] valores = new String[codigos.length];
+                for (int i = 0; i < codigos.length; i++) {
+                    valores[i] = codigos[i] == -1 ? null : valoresDistintos.get(codigos[i]);
+                }
+                columna = new ColumnaTexto(valores);
+                break;
+            }
+            default:
+                throw new InstantaneaCorruptaException("El tipo de columna " + tipo + " de la instantánea no es válido.");
+        }
+        this.columnas.set(id, columna);
+        return columna;
+    }
+
+    /**
+     * Se encarga de leer un diccionario, o de devolver el ya leído si el identificador fue visto antes.
+     */
+    private Diccionario leerDiccionario() throws IOException {
+        int id = this.leerEntero();
+        if (id < this.diccionarios.size()) {
+            return this.obtenerReferencia(this.diccionarios, id);
+        }
+        this.verificarNuevo(this.diccionarios, id);
+        Diccionario diccionario = new Diccionario(this.leerTextos());
+        this.diccionarios.add(diccionario);
+        return diccionario;
+    }
+
+    /**
+     * Se encarga de leer el identificador de un arreglo de enteros. Si el arreglo es nuevo se lee
+     * la posición de su bloque, pero el bloque no se lee hasta que se necesita.
+     */
+    private int leerReferenciaArreglo() throws IOException {
+        int id = this.leerEntero();
+        if (id < this.bloquesArreglos.size()) {
+            this.obtenerReferencia(this.bloquesArreglos, id);
+            return id;
+        }
+        this.verificarNuevo(this.bloquesArreglos, id);
+        int longitud = this.leerCantidad();
+        long[] bloque = this.leerPosicionBloque();
+        if (bloque[1] != (long) longitud * Integer.BYTES) {
+            throw new InstantaneaCorruptaException("El bloque de un arreglo no tiene la longitud esperada.");
+        }
+        this.bloquesArreglos.add(bloque);
+        this.arreglos.add(null);
+        this.arreglosMapeados.add(null);
+        return id;
+    }
+
+    /**
+     * Se encarga de obtener un arreglo de enteros copiado al heap, leyéndolo la primera vez que se necesita.
+     */
+    private int[] obtenerArreglo(int id) throws IOException {
+        int[] arreglo = this.arreglos.get(id);
+        if (arreglo == null) {
+            ByteBuffer bloque = this.leerBloque(this.bloquesArreglos.get(id));
+            arreglo = new int[bloque.remaining() / Integer.BYTES];
+            bloque.asIntBuffer().get(arreglo);
+            this.arreglos.set(id, arreglo);
+        }
+        return arreglo;
+    }
+
+    /**
+     * Se encarga de obtener un arreglo de enteros mapeado desde el archivo, mapeándolo la primera vez que se necesita.
+     */
+    private IntBuffer obtenerArregloMapeado(int id) throws IOException {
+        IntBuffer arreglo = this.arreglosMapeados.get(id);
+        if (arreglo == null) {
+            arreglo = this.mapearBloque(this.bloquesArreglos.get(id)).asIntBuffer();
+            this.arreglosMapeados.set(id, arreglo);
+        }
+        return arreglo;
+    }
+
+    /**
+     * Se encarga de leer desde los metadatos la posición, la longitud y la suma de un bloque de datos,
+     * verificando que el bloque esté dentro del archivo.
+     */
+    private long[] leerPosicionBloque() throws IOException {
+        long posicion = this.metadatos.readLong();
+        long longitud = this.metadatos.readLong();
+        long crc = this.metadatos.readLong();
+        if (posicion < EscritorInstantanea.LONGITUD_CABECERA || longitud < 0 || longitud > Integer.MAX_VALUE
+                || posicion + longitud > this.canal.size() - EscritorInstantanea.LONGITUD_PIE) {
+            throw new InstantaneaCorruptaException("La posición de un bloque de la instantánea no es válida.");
+        }
+        return new long[] {posicion, longitud, crc};
+    }
+
+    /**
+     * Se encarga de leer un bloque de datos del archivo y verificar su suma.
+     */
+    private ByteBuffer leerBloque(long[] bloque) throws IOException {
+        ByteBuffer buffer = this.leerBytes(bloque[0], bloque[1]);
+        this.verificarSuma(buffer, bloque[2], "un bloque de datos");
+        return buffer;
+    }
+
+    /**
+     * Se encarga de mapear un bloque de datos del archivo en la zona de memoria del lector,
+     * verificando su suma si el lector verifica las regiones mapeadas.
+     */
+    private ByteBuffer mapearBloque(long[] bloque) throws IOException {
+        if (bloque[1] == 0) {
+            return ByteBuffer.allocate(0).order(EscritorInstantanea.ORDEN);
+        }
+        ByteBuffer buffer = this.zona.mapear(this.canal, bloque[0], bloque[1]).order(EscritorInstantanea.ORDEN);
+        if (this.verificarMapeados) {
+            this.verificarSuma(buffer, bloque[2], "un bloque de datos mapeado");
+        }
+        return buffer;
+    }
+
+    /**
+     * Se encarga de leer una cantidad de bytes del archivo a partir de una posición.
+     */
+    private ByteBuffer leerBytes(long posicion, long longitud) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) longitud).order(EscritorInstantanea.ORDEN);
+        while (buffer.hasRemaining()) {
+            if (this.canal.read(buffer, posicion + buffer.position()) < 0) {
+                throw new InstantaneaCorruptaException("El archivo de la instantánea está incompleto.");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Se encarga de verificar la suma de verificación de un buffer.
+     */
+    private void verificarSuma(ByteBuffer buffer, long esperada, String descripcion) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate());
+        if (crc.getValue() != esperada) {
+            throw new InstantaneaCorruptaException("La suma de verificación de " + descripcion + " de la instantánea no coincide.");
+        }
+    }
+
+    /**
+     * Se encarga de leer una cantidad de elementos, verificando que no sea negativa.
+     */
+    private int leerCantidad() throws IOException {
+        int cantidad = this.leerEntero();
+        if (cantidad < 0) {
+            throw new InstantaneaCorruptaException("Los metadatos de la instantánea están dañados.");
+        }
+        return cantidad;
+    }
+
+    /**
+     * Se encarga de obtener un objeto ya leído a partir de su identificador.
+     */
+    private <T> T obtenerReferencia(List<T> leidos, int id) {
+        if (id < 0) {
+            throw new InstantaneaCorruptaException("Una referencia de la instantánea no es válida.");
+        }
+        return leidos.get(id);
+    }
+
+    /**
+     * Se encarga de verificar que un identificador nuevo sea el siguiente al último leído.
+     */
+    private void verificarNuevo(List<?> leidos, int id) {
+        if (id != leidos.size()) {
+            throw new InstantaneaCorruptaException("Una referencia de la instantánea no es válida.");
+        }
+    }
+
+    /**
+     * Se encarga de verificar que todos los códigos de un arreglo estén dentro del rango indicado.
+     */
+    private static void verificarCodigos(int[] codigos, int cantidad, boolean admiteNulos) {
+        int minimo = admiteNulos ? -1 : 0;
+        for (int codigo : codigos) {
+            if (codigo < minimo || codigo >= cantidad) {
+                throw new InstantaneaCorruptaException("Un arreglo de códigos de la instantánea está fuera de rango.");
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Cierra el archivo de la instantánea. Las tablas ya leídas siguen siendo válidas.
+     * </p>
+     *
+     * @throws IOException Si ocurre un error de entrada/salida al cerrar el archivo.
+     */
+    @Override
+    public void close() throws IOException {
+        this.canal.close();
+    }
+
+}
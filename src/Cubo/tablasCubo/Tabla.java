@@ -2,6 +2,7 @@ package Cubo.tablasCubo;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import Cubo.excepciones.excepcionesTabla.ColumnaNoPresenteException;
 import Cubo.excepciones.excepcionesTabla.FilaFueraDeRangoException;
 
@@ -20,7 +21,7 @@ public abstract class Tabla{
 
     // Atributos de la clase Tabla
     protected List<String> headers;
-    protected List<List<String>> datosTabla;
+    protected List<Columna> columnas;
     protected String nombre;
    
     /**
@@ -29,18 +30,40 @@ public abstract class Tabla{
      * </p>
      * 
      * <p>
-     * Se encarga de inicializar una nueva tabla con un nombre, una matriz de información interna y
-     * encabezados que representan las columnas presentes en la misma.
+     * Se encarga de inicializar una nueva tabla con un nombre, las columnas que guardan su información
+     * interna y encabezados que representan las columnas presentes en la misma.
      * </p>
      *
      * @param nombre El nombre de la tabla.
-     * @param datosTabla Una matriz que representa la información interna de la tabla.
-     * @param headers Una lista que representa los encabezados de la tabla..
+     * @param columnas Una lista que contiene las columnas de la tabla, en el mismo orden que sus encabezados.
+     * @param headers Una lista que representa los encabezados de la tabla.
      */
-    protected Tabla(String nombre, List<List<String>> datosTabla, List<String> headers){
+    protected Tabla(String nombre, List<Columna> columnas, List<String> headers){
         this.nombre = nombre;
         this.headers = new ArrayList<>(headers);
-        this.datosTabla = new ArrayList<>(datosTabla);
+        this.columnas = new ArrayList<>(columnas);
+    }
+
+    /**
+     * Se encarga de transformar una matriz de información organizada por filas en una lista
+     * de columnas, una por cada encabezado de la tabla.
+     *
+     * @param datosTabla Una matriz que representa la información interna de la tabla organizada por filas.
+     * @param cantidadColumnas La cantidad de columnas que tiene la tabla.
+     * 
+     * @return Una lista que contiene una columna por cada encabezado de la tabla.
+     */
+    protected static List<Columna> construirColumnas(List<List<String>> datosTabla, int cantidadColumnas){
+        List<Columna> columnas = new ArrayList<>();
+        for (int j = 0; j < cantidadColumnas; j++) {
+            String[] valores = new String[datosTabla.size()];
+            for (int i = 0; i < datosTabla.size(); i++) {
+                List<String> fila = datosTabla.get(i);
+                valores[i] = j < fila.size() ? fila.get(j) : null;
+            }
+            columnas.add(new ColumnaTexto(valores));
+        }
+        return columnas;
     }
 
 
@@ -59,17 +82,54 @@ public abstract class Tabla{
     public List<String> getHeaders() {
         return new ArrayList<>(headers);
         }
+
+    /**
+     * @return La cantidad de filas presentes en esta tabla.
+     */
+    public int getCantidadFilas() {
+        return this.columnas.isEmpty() ? 0 : this.columnas.get(0).getLongitud();
+    }
     
     /**
-     * @return Una copia de la matriz que contiene la información
-     *         interna de esta tabla.
+     * @return Una vista de solo lectura de la matriz que contiene la información
+     *         interna de esta tabla, cuyas filas se leen directamente de sus columnas.
      */
     public List<List<String>> getDatosTabla() {
-        List<List<String>> datosCopy = new ArrayList<>();
-            for (List<String> fila : this.datosTabla) {
-                datosCopy.add(new ArrayList<>(fila));
-            }
-        return datosCopy;
+        return new VistaFilas(this.columnas, this.getCantidadFilas(), null);
+    }
+
+    /**
+     * @return Una vista de solo lectura de la matriz que contiene como primera fila los
+     *         encabezados de esta tabla seguida de su información interna.
+     */
+    public List<List<String>> getDatosConHeaders() {
+        return new VistaFilas(this.columnas, this.getCantidadFilas(), this.headers);
+    }
+
+    /**
+     * @return Una copia de la lista que contiene las columnas de esta tabla, en el mismo
+     *         orden que sus encabezados.
+     */
+    public List<Columna> getColumnas() {
+        return new ArrayList<>(this.columnas);
+    }
+
+    /**
+     * Se encarga de obtener la columna que guarda la información interna de un encabezado
+     * presente en esta tabla. 
+     *
+     * @param nombreColumna Nombre de la columna que se va a obtener.
+     * 
+     * @throws ColumnaNoPresenteException Si la columna especificada no existe en la tabla.
+     * 
+     * @return La columna asociada al encabezado seleccionado.
+     */
+    public Columna getColumnaTabla(String nombreColumna){
+        int indiceColumna = this.headers.indexOf(nombreColumna);
+        if (indiceColumna == -1) {
+            throw new ColumnaNoPresenteException("La columna especificada '" + nombreColumna + "' no existe en los encabezados.");
+        }
+        return this.columnas.get(indiceColumna);
     }
 
     /**
@@ -80,26 +140,11 @@ public abstract class Tabla{
      * 
      * @throws ColumnaNoPresenteException Si la columna especificada no existe en la tabla.
      * 
-     * @return Una lista que contiene los valores presentes en la columna seleccionada de esta tabla, 
+     * @return Una vista de solo lectura de los valores presentes en la columna seleccionada de esta tabla, 
      *         notar que no se incluye el nombre que representa a la misma.
      */
     public List<String> getColumna(String nombre_columna){
- 
-        // Verifico si el nombre de la columna existe en los headers
-        int indice_columna = this.headers.indexOf(nombre_columna);
-        if (indice_columna == -1) {
-            throw new ColumnaNoPresenteException("La columna especificada '" + nombre_columna + "' no existe en los encabezados.");
-        }
-    
-        // Hago una copia de la matriz de datos y añado la 
-        // información referente a la columna solicitada
-        List<List<String>> datos_copy = this.getDatosTabla();
-        List<String> columna = new ArrayList<>();
-        for (int i = 0; i < datos_copy.size(); i++) {
-            columna.add(datos_copy.get(i).get(indice_columna));
-        }
-    
-        return columna;
+        return new VistaColumna(this.getColumnaTabla(nombre_columna));
     }
 
 
@@ -121,7 +166,7 @@ public abstract class Tabla{
         int maxColsMostrar = 4;
 
         // Verifico que los argumentos estén dentro de los límites
-        if (cantFilas > this.datosTabla.size()) {
+        if (cantFilas > this.getCantidadFilas()) {
             throw new FilaFueraDeRangoException("La cantidad de filas solicitadas es mayor a la longitud disponible en la tabla '" + this.getNombre() + "'.");
         }
         for (String columna : columnas) {
@@ -131,7 +176,7 @@ public abstract class Tabla{
         }
 
         // Hago la impresión por consola
-        List<List<String>> columnasSeleccionadas = seleccionarColumnas(columnas);
+        List<Columna> columnasSeleccionadas = seleccionarColumnas(columnas);
         int cantidadColumnas = columnas.size();
         int chunks = (int) Math.ceil((double) cantidadColumnas / maxColsMostrar);
         for (int indiceChunk = 0; indiceChunk < chunks; indiceChunk++) {
@@ -153,10 +198,10 @@ public abstract class Tabla{
      * 
      * @return Una matriz que contiene únicamente la información interna de las columnas seleccionadas.
      */
-    private List<List<String>> seleccionarColumnas(List<String> columnas) {
-        List<List<String>> columnasSeleccionadas = new ArrayList<>();
+    private List<Columna> seleccionarColumnas(List<String> columnas) {
+        List<Columna> columnasSeleccionadas = new ArrayList<>();
         for (String columna : columnas) {
-            columnasSeleccionadas.add(this.getColumna(columna));
+            columnasSeleccionadas.add(this.getColumnaTabla(columna));
         }
         return columnasSeleccionadas;
     }
@@ -179,10 +224,10 @@ public abstract class Tabla{
      * Se encarga de imprimir las filas de las columnas que se desean visualizar en 
      * el método 'ver()'.
      */
-    private void imprimirFilas(int cantFilas, List<List<String>> columnasSeleccionadas, int inicio, int fin) {
+    private void imprimirFilas(int cantFilas, List<Columna> columnasSeleccionadas, int inicio, int fin) {
         for (int i = 0; i < cantFilas; i++) {
             for (int j = inicio; j < fin; j++) {
-                System.out.print(String.format("%-30s", columnasSeleccionadas.get(j).get(i)));
+                System.out.print(String.format("%-30s", columnasSeleccionadas.get(j).getValor(i)));
             }
             if (fin < columnasSeleccionadas.size()) {
                 System.out.print(String.format("%-30s", "..."));
@@ -196,7 +241,7 @@ public abstract class Tabla{
      * 
      * @param obj El objeto a comparar con esta tabla.
      * 
-     * @return `true` si los objetos comparados contienen la misma matriz de información interna y los mismos encabezados, 
+     * @return `true` si los objetos comparados contienen la misma información interna y los mismos encabezados, 
      *          `false` en caso contrario.
      */
     @Override
@@ -208,7 +253,19 @@ public abstract class Tabla{
             return false;
         }
         Tabla tabla = (Tabla) obj;
-        return this.headers.equals(tabla.headers) && this.datosTabla.equals(tabla.datosTabla);
+        if (!this.headers.equals(tabla.headers) || this.getCantidadFilas() != tabla.getCantidadFilas()) {
+            return false;
+        }
+        for (int j = 0; j < this.columnas.size(); j++) {
+            Columna columna = this.columnas.get(j);
+            Columna columnaOtra = tabla.columnas.get(j);
+            for (int i = 0; i < columna.getLongitud(); i++) {
+                if (!Objects.equals(columna.getValor(i), columnaOtra.getValor(i))) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     /**
@@ -218,7 +275,11 @@ public abstract class Tabla{
     public int hashCode() {
         int result = 17;
         result = 31 * result + this.headers.hashCode();
-        result = 31 * result + this.datosTabla.hashCode();
+        for (Columna columna : this.columnas) {
+            for (int i = 0; i < columna.getLongitud(); i++) {
+                result = 31 * result + Objects.hashCode(columna.getValor(i));
+            }
+        }
         return result;
     }
 
@@ -0,0 +1,67 @@
+package Cubo.tablasCubo;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * <p>
+ * Esta clase representa una vista de solo lectura sobre los valores de una {@link Columna}.
+ * </p>
+ *
+ * <p>
+ * La vista no copia los valores de la columna, sino que los lee de la misma cada vez que se
+ * solicitan. Como las columnas son inmutables, la vista siempre refleja la misma información.
+ * </p>
+ */
+class VistaColumna extends AbstractList<String> implements RandomAccess {
+
+    // Atributos de la clase VistaColumna
+    private final Columna columna;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase VistaColumna.</b>
+     * </p>
+     *
+     * @param columna La columna sobre la cual se genera la vista.
+     */
+    VistaColumna(Columna columna) {
+        this.columna = columna;
+    }
+
+    @Override
+    public String get(int indice) {
+        return this.columna.getValor(indice);
+    }
+
+    /**
+     * Si la columna está codificada la búsqueda se hace comparando códigos enteros en lugar de
+     * decodificar cada valor de la columna.
+     */
+    @Override
+    public int indexOf(Object valor) {
+        if (!(this.columna instanceof ColumnaCodificada) || valor == null) {
+            return super.indexOf(valor);
+        }
+        if (!(valor instanceof String)) {
+            return -1;
+        }
+        ColumnaCodificada columnaCodificada = (ColumnaCodificada) this.columna;
+        int codigo = columnaCodificada.getDiccionario().getCodigo((String) valor);
+        if (codigo == -1) {
+            return -1;
+        }
+        for (int i = 0; i < columnaCodificada.getLongitud(); i++) {
+            if (columnaCodificada.getCodigo(i) == codigo) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return this.columna.getLongitud();
+    }
+
+}
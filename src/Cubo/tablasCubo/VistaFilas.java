@@ -0,0 +1,83 @@
+package Cubo.tablasCubo;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * <p>
+ * Esta clase representa una vista de solo lectura que presenta la información de un conjunto
+ * de columnas organizada por filas.
+ * </p>
+ *
+ * <p>
+ * Cada fila de la vista también es una vista que lee sus valores de las columnas cuando se
+ * solicitan, por lo que recorrer la información de una tabla no requiere copiarla.
+ * Opcionalmente la primera fila de la vista puede ser la de los encabezados.
+ * </p>
+ */
+class VistaFilas extends AbstractList<List<String>> implements RandomAccess {
+
+    // Atributos de la clase VistaFilas
+    private final Columna[] columnas;
+    private final List<String> headers;
+    private final int cantidadFilas;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase VistaFilas.</b>
+     * </p>
+     *
+     * @param columnas Las columnas sobre las cuales se genera la vista.
+     * @param cantidadFilas La cantidad de filas que tienen las columnas.
+     * @param headers Los encabezados a mostrar como primera fila, o null si no se deben incluir.
+     */
+    VistaFilas(List<Columna> columnas, int cantidadFilas, List<String> headers) {
+        this.columnas = columnas.toArray(new Columna[0]);
+        this.cantidadFilas = cantidadFilas;
+        this.headers = headers == null ? null : List.copyOf(headers);
+    }
+
+    @Override
+    public List<String> get(int indice) {
+        if (this.headers == null) {
+            return new VistaFila(indice);
+        }
+        return indice == 0 ? this.headers : new VistaFila(indice - 1);
+    }
+
+    @Override
+    public int size() {
+        return this.headers == null ? this.cantidadFilas : this.cantidadFilas + 1;
+    }
+
+    /**
+     * Esta clase representa una vista de solo lectura sobre una fila de las columnas.
+     */
+    private class VistaFila extends AbstractList<String> implements RandomAccess {
+
+        // Atributos de la clase VistaFila
+        private final int fila;
+
+        /**
+         * @param fila El índice de la fila sobre la cual se genera la vista.
+         */
+        VistaFila(int fila) {
+            if (fila < 0 || fila >= cantidadFilas) {
+                throw new IndexOutOfBoundsException("Indice de fila fuera de rango: " + fila);
+            }
+            this.fila = fila;
+        }
+
+        @Override
+        public String get(int indice) {
+            return columnas[indice].getValor(this.fila);
+        }
+
+        @Override
+        public int size() {
+            return columnas.length;
+        }
+    }
+
+}
@@ -0,0 +1,223 @@
+package Cubo.tablasCubo;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import Cubo.excepciones.excepcionesTabla.ZonaMemoriaCerradaException;
+
+/**
+ * <p>
+ * Esta clase representa una zona de memoria fuera del heap en la cual se reservan los
+ * valores de las columnas que deben quedar fuera del alcance del recolector de basura.
+ * </p>
+ *
+ * <p>
+ * Todos los bloques reservados en una zona se liberan juntos al cerrarla, por lo que el ciclo
+ * de vida de la memoria queda atado al del objeto dueño de la zona. Una vez cerrada, las columnas
+ * que guardan sus valores en la misma dejan de poder leerse.
+ * </p>
+ *
+ * <p>
+ * El estado de la zona es visible desde todos los hilos, por lo que una lectura que comienza luego de cerrarla
+ * lanza una {@link ZonaMemoriaCerradaException}. Sin embargo la memoria se libera en el momento de cerrarla, por lo
+ * que la zona no debe cerrarse mientras otro hilo lee sus bloques: esa lectura accedería a memoria ya liberada.
+ * </p>
+ *
+ * <p>
+ * Además de reservar bloques de memoria directa, una zona puede mapear regiones de un archivo, cuyo
+ * contenido queda a cargo de la caché de páginas del sistema operativo. Esas regiones también se
+ * liberan al cerrar la zona.
+ * </p>
+ */
+public final class ZonaMemoria implements AutoCloseable {
+
+    // Atributos de la clase ZonaMemoria
+    private final List<ByteBuffer> bloques;
+    private long bytesReservados;
+    private long bytesMapeados;
+    private volatile boolean abierta;
+
+    /**
+     * <p>
+     * <b>Constructor para la clase ZonaMemoria.</b>
+     * </p>
+     *
+     * <p>
+     * Se encarga de inicializar una nueva zona abierta y sin bloques reservados.
+     * </p>
+     */
+    public ZonaMemoria() {
+        this.bloques = new ArrayList<>();
+        this.bytesReservados = 0;
+        this.bytesMapeados = 0;
+        this.abierta = true;
+    }
+
+    /**
+     * Reserva fuera del heap un bloque con espacio para la cantidad de números de tipo double indicada.
+     *
+     * @param cantidad La cantidad de valores que debe poder guardar el bloque.
+     *
+     * @throws ZonaMemoriaCerradaException Si la zona ya fue cerrada.
+     *
+     * @return Un buffer de doubles respaldado por el bloque reservado.
+     */
+    public DoubleBuffer reservarDoubles(int cantidad) {
+        return this.reservar((long) cantidad * Double.BYTES).asDoubleBuffer();
+    }
+
+    /**
+     * Reserva fuera del heap un bloque con espacio para la cantidad de longs indicada.
+     *
+     * @param cantidad La cantidad de valores que debe poder guardar el bloque.
+     *
+     * @throws ZonaMemoriaCerradaException Si la zona ya fue cerrada.
+     *
+     * @return Un buffer de longs respaldado por el bloque reservado.
+     */
+    public LongBuffer reservarLongs(int cantidad) {
+        return this.reservar((long) cantidad * Long.BYTES).asLongBuffer();
+    }
+
+    /**
+     * Reserva fuera del heap un bloque con espacio para la cantidad de enteros indicada.
+     *
+     * @param cantidad La cantidad de valores que debe poder guardar el bloque.
+     *
+     * @throws ZonaMemoriaCerradaException Si la zona ya fue cerrada.
+     *
+     * @return Un buffer de enteros respaldado por el bloque reservado.
+     */
+    public IntBuffer reservarEnteros(int cantidad) {
+        return this.reservar((long) cantidad * Integer.BYTES).asIntBuffer();
+    }
+
+    /**
+     * <p>
+     * Mapea en memoria, como solo lectura, una región de un archivo y la registra en esta zona.
+     * </p>
+     *
+     * <p>
+     * El contenido de la región no se lee al mapearla: el sistema operativo carga cada página recién
+     * cuando se accede a la misma, y la comparte entre todos los procesos que mapean el mismo archivo.
+     * </p>
+     *
+     * @param canal El canal del archivo a mapear, el cual puede cerrarse luego sin afectar a la región.
+     * @param posicion La posición en el archivo en la cual comienza la región.
+     * @param bytes La longitud en bytes de la región.
+     *
+     * @throws IOException Si ocurre un error de entrada/salida al mapear el archivo.
+     * @throws ZonaMemoriaCerradaException Si la zona ya fue cerrada.
+     *
+     * @return Un buffer respaldado por la región mapeada del archivo.
+     */
+    public synchronized ByteBuffer mapear(FileChannel canal, long posicion, long bytes) throws IOException {
+        this.verificarAbierta();
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("No se puede mapear una región de " + bytes + " bytes en un único bloque.");
+        }
+        ByteBuffer region = canal.map(FileChannel.MapMode.READ_ONLY, posicion, bytes);
+        this.bloques.add(region);
+        this.bytesMapeados += bytes;
+        return region;
+    }
+
+    /**
+     * Se encarga de reservar un bloque de memoria directa y registrarlo en esta zona.
+     */
+    private synchronized ByteBuffer reservar(long bytes) {
+        this.verificarAbierta();
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("No se puede reservar un bloque de " + bytes + " bytes fuera del heap.");
+        }
+        ByteBuffer bloque = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+        this.bloques.add(bloque);
+        this.bytesReservados += bytes;
+        return bloque;
+    }
+
+    /**
+     * Verifica que esta zona siga abierta. La verificación no impide que otro hilo cierre la zona luego de la misma.
+     *
+     * @throws ZonaMemoriaCerradaException Si la zona ya fue cerrada.
+     */
+    public void verificarAbierta() {
+        if (!this.abierta) {
+            throw new ZonaMemoriaCerradaException("La zona de memoria ya fue cerrada y su contenido fue liberado.");
+        }
+    }
+
+    /**
+     * <p>
+     * Cierra esta zona liberando todos los bloques reservados en la misma sin esperar
+     * al recolector de basura.
+     * </p>
+     *
+     * <p>
+     * Si la zona ya estaba cerrada no se hace nada. La zona no debe cerrarse mientras otro hilo lee los bloques
+     * reservados o mapeados en la misma, ya que su memoria se libera inmediatamente.
+     * </p>
+     */
+    @Override
+    public synchronized void close() {
+        if (!this.abierta) {
+            return;
+        }
+        this.abierta = false;
+        for (ByteBuffer bloque : this.bloques) {
+            liberar(bloque);
+        }
+        this.bloques.clear();
+        this.bytesReservados = 0;
+        this.bytesMapeados = 0;
+    }
+
+    /**
+     * Libera inmediatamente la memoria de un bloque directo o de una región mapeada. Si la plataforma no permite
+     * hacerlo, el bloque queda sin referencias y lo libera el recolector de basura.
+     */
+    private static void liberar(ByteBuffer bloque) {
+        try {
+            Class<?> claseUnsafe = Class.forName("sun.misc.Unsafe");
+            Field campoUnsafe = claseUnsafe.getDeclaredField("theUnsafe");
+            campoUnsafe.setAccessible(true);
+            Method invokeCleaner = claseUnsafe.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(campoUnsafe.get(null), bloque);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Sin acceso al liberador explícito, el bloque se libera junto con su referencia
+        }
+    }
+
+
+    // Getters de la clase
+
+    /**
+     * @return true si esta zona sigue abierta, false si ya fue cerrada.
+     */
+    public boolean estaAbierta() {
+        return this.abierta;
+    }
+
+    /**
+     * @return La cantidad de bytes reservados actualmente en esta zona.
+     */
+    public synchronized long getBytesReservados() {
+        return this.bytesReservados;
+    }
+
+    /**
+     * @return La cantidad de bytes de archivos mapeados actualmente en esta zona.
+     */
+    public synchronized long getBytesMapeados() {
+        return this.bytesMapeados;
+    }
+
+}
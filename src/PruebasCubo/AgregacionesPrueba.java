@@ -0,0 +1,102 @@
+package PruebasCubo;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import Cubo.implementacionCubo.Cubo;
+import Cubo.exportacionArchivos.ExportadorCSV;
+import Cubo.lecturaArchivos.LectorCSV;
+import Cubo.tablasCubo.Dimension;
+import Cubo.tablasCubo.Hecho;
+
+public class AgregacionesPrueba {
+    public static void main(String[] args) throws Exception {
+        // Armo un cubo pequeño con un grupo sin valores, uno con valores negativos y uno con valores positivos
+        Path carpeta = Files.createTempDirectory("prueba_agregaciones");
+        Path rutaGrupos = carpeta.resolve("grupos.csv");
+        Path rutaImportes = carpeta.resolve("importes.csv");
+        Files.write(rutaGrupos, Arrays.asList("id_grupo;grupo", "1;Vacio", "2;Negativo", "3;Positivo"));
+        Path rutaCantidades = carpeta.resolve("cantidades.csv");
+        Files.write(rutaImportes, Arrays.asList("id_grupo;importe", "1;", "1;", "2;-3.25", "2;-1.50", "3;2.00", "3;10.50"));
+        Files.write(rutaCantidades, Arrays.asList("id_grupo;importe", "1;", "2;-3", "2;-1", "3;2", "3;10"));
+
+        //-------------- PRUEBA DEL MÉTODO --------------//
+
+        // El máximo, el mínimo, el promedio y los cuantiles de un grupo sin valores son nulos, sin importar cómo se guarda el hecho.
+        // La mediana de dos valores es el menor, estimado como el punto medio de su cubeta del histograma
+        Map<String, List<String>> agregaciones = Map.of("importe", Arrays.asList("max", "min", "avg", "median"));
+        List<String> hechos = Arrays.asList("importe_max", "importe_min", "importe_avg", "importe_median");
+        Map<String, List<String>> esperado = new LinkedHashMap<>();
+        esperado.put("Vacio", Arrays.asList(null, null, null, null));
+        esperado.put("Negativo", Arrays.asList("-1.5", "-3.25", "-2.375", "-3.28125"));
+        esperado.put("Positivo", Arrays.asList("10.5", "2", "6.25", "2.03125"));
+        for (boolean decimal : new boolean[] {false, true}) {
+            Cubo cubo = crearCubo(rutaGrupos, rutaImportes, decimal);
+            cubo.rollUp(Map.of(cubo.getDimensiones().get(0), "grupo"), agregaciones);
+            verificar(cubo, decimal ? "decimal" : "double", hechos, esperado, false);
+        }
+
+        // Con hechos enteros el resultado se muestra sin decimales, pero un grupo sin valores sigue siendo nulo
+        Map<String, List<String>> esperadoEnteros = new LinkedHashMap<>();
+        esperadoEnteros.put("Vacio", Arrays.asList(null, null, null, null));
+        esperadoEnteros.put("Negativo", Arrays.asList("-1", "-3", "-2.0", "-3.03125"));
+        esperadoEnteros.put("Positivo", Arrays.asList("10", "2", "6.0", "2.03125"));
+        Cubo cuboEnteros = crearCubo(rutaGrupos, rutaCantidades, false);
+        cuboEnteros.rollUp(Map.of(cuboEnteros.getDimensiones().get(0), "grupo"), agregaciones);
+        verificar(cuboEnteros, "enteros", hechos, esperadoEnteros, true);
+
+        // Borro los archivos de la prueba
+        Files.deleteIfExists(rutaGrupos);
+        Files.deleteIfExists(rutaImportes);
+        Files.deleteIfExists(rutaCantidades);
+        Files.deleteIfExists(carpeta);
+    }
+
+    private static Cubo crearCubo(Path rutaGrupos, Path rutaImportes, boolean decimal) throws Exception {
+        LectorCSV lectorCSV = new LectorCSV(';');
+        Dimension grupos = Dimension.crearTablaDimension("Grupos", new ArrayList<>(Arrays.asList("grupo")), "id_grupo", lectorCSV,
+                                                         rutaGrupos.toString());
+        Map<Dimension, String> clavesForaneas = new HashMap<>();
+        clavesForaneas.put(grupos, "id_grupo");
+        Map<String, Integer> decimales = decimal ? Map.of("importe", 2) : new HashMap<>();
+        Hecho importes = Hecho.crearTablaHechos("Importes", new ArrayList<>(Arrays.asList("importe")), decimales, clavesForaneas,
+                                                lectorCSV, rutaImportes.toString());
+        return Cubo.crearCuboOLAP("Cubo de Agregaciones", importes, Arrays.asList(grupos));
+    }
+
+    // Exporta el cubo y compara el valor de cada hecho en cada grupo con el esperado, donde null indica un valor nulo. Los valores
+    // se comparan numéricamente, salvo que se indique que deben mostrarse exactamente igual que el esperado
+    private static void verificar(Cubo cubo, String nombre, List<String> hechos, Map<String, List<String>> esperado, boolean exacto)
+            throws Exception {
+        String ruta = "exportaciones/prueba_Agregaciones_" + nombre + ".csv";
+        cubo.exportar(ruta, new ExportadorCSV(';'));
+        List<String> filas = Files.readAllLines(Path.of(ruta));
+        Files.deleteIfExists(Path.of(ruta));
+        List<String> encabezados = Arrays.asList(filas.get(0).split(";", -1));
+        if (filas.size() - 1 != esperado.size()) {
+            throw new IllegalStateException("AgregacionesPrueba: el cubo " + nombre + " no tiene los grupos esperados.");
+        }
+        for (String fila : filas.subList(1, filas.size())) {
+            String[] campos = fila.split(";", -1);
+            List<String> valoresEsperados = esperado.get(campos[encabezados.indexOf("grupo")]);
+            for (int h = 0; h < hechos.size(); h++) {
+                String obtenido = campos[encabezados.indexOf(hechos.get(h))];
+                String valorEsperado = valoresEsperados.get(h);
+                boolean nulo = obtenido.isEmpty() || obtenido.equals("null");
+                boolean igual = valorEsperado == null ? nulo
+                                : exacto ? obtenido.equals(valorEsperado)
+                                : !nulo && Double.parseDouble(obtenido) == Double.parseDouble(valorEsperado);
+                if (!igual) {
+                    throw new IllegalStateException("AgregacionesPrueba: el cubo " + nombre + " tiene " + hechos.get(h) + " '" + obtenido
+                                                    + "' en el grupo '" + campos[0] + "', se esperaba " + valorEsperado + ".");
+                }
+            }
+        }
+        System.out.println("AgregacionesPrueba: " + hechos + " del cubo " + nombre + " correctos.");
+    }
+}
@@ -0,0 +1,94 @@
+package PruebasCubo;
+
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import Cubo.implementacionCubo.Cubo;
+import Cubo.excepciones.excepcionesTabla.InstantaneaCorruptaException;
+import Cubo.exportacionArchivos.ExportadorCSV;
+import Cubo.tablasCubo.Dimension;
+
+public class InstantaneaPrueba {
+    public static void main(String[] args) throws Exception {
+        // Configuración del cubo para la prueba
+        List<Dimension> dimensiones = CuboPruebaManager.getDimensionesCuboPrueba();
+        if (dimensiones.size() < 3) {
+            System.out.println("Las dimensiones no están configuradas correctamente.");
+            return;
+        }
+        Cubo cuboPrueba = CuboPruebaManager.getCuboPrueba();
+        if (cuboPrueba == null) {
+            System.out.println("El cubo no está configurado correctamente.");
+            return;
+        }
+
+        //-------------- PRUEBA DEL MÉTODO --------------//
+
+        // Guardo el cubo sin operaciones aplicadas
+        String ruta = "exportaciones/prueba_Instantanea.bin";
+        cuboPrueba.reiniciar();
+        cuboPrueba.guardar(ruta);
+
+        // Abro la instantánea intacta verificando sus bloques y comparo un RollUp con el del cubo original
+        cuboPrueba.rollUp(Map.of(dimensiones.get(2), "region"), Arrays.asList("valor_total"), "sum");
+        cuboPrueba.exportar("exportaciones/prueba_Instantanea_original.csv", new ExportadorCSV(';'));
+        cuboPrueba.reiniciar();
+        try (Cubo cuboAbierto = Cubo.abrirCuboOLAP(ruta, true)) {
+            Dimension puntoVenta = cuboAbierto.getDimensiones().get(2);
+            cuboAbierto.rollUp(Map.of(puntoVenta, "region"), Arrays.asList("valor_total"), "sum");
+            cuboAbierto.exportar("exportaciones/prueba_Instantanea_abierto.csv", new ExportadorCSV(';'));
+        }
+        if (!Files.readAllLines(Paths.get("exportaciones/prueba_Instantanea_original.csv"))
+                .equals(Files.readAllLines(Paths.get("exportaciones/prueba_Instantanea_abierto.csv")))) {
+            throw new IllegalStateException("InstantaneaPrueba: el cubo abierto no coincide con el cubo guardado.");
+        }
+
+        // Daño un byte en el medio de los bloques de datos, que corresponde a las columnas de la tabla de hechos
+        try (RandomAccessFile archivo = new RandomAccessFile(ruta, "rw")) {
+            byte[] pie = new byte[Long.BYTES];
+            archivo.seek(archivo.length() - 3 * Long.BYTES);
+            archivo.readFully(pie);
+            long posicionMetadatos = ByteBuffer.wrap(pie).order(ByteOrder.LITTLE_ENDIAN).getLong();
+            long posicion = posicionMetadatos / 2;
+            archivo.seek(posicion);
+            int valor = archivo.read();
+            archivo.seek(posicion);
+            archivo.write(valor ^ 0xFF);
+        }
+
+        // Sin verificar los bloques mapeados el cubo se abre y opera, ya que el daño no está en los bloques que se copian al heap
+        try (Cubo cuboAbierto = Cubo.abrirCuboOLAP(ruta)) {
+            Dimension puntoVenta = cuboAbierto.getDimensiones().get(2);
+            cuboAbierto.rollUp(Map.of(puntoVenta, "region"), Arrays.asList("valor_total"), "sum");
+            System.out.println("InstantaneaPrueba: el cubo dañado se abre sin verificar sus bloques mapeados.");
+        }
+
+        // Verificando los bloques mapeados el daño se detecta al abrir el cubo
+        Cubo cuboVerificado = null;
+        try {
+            cuboVerificado = Cubo.abrirCuboOLAP(ruta, true);
+            throw new IllegalStateException("InstantaneaPrueba: el daño de un bloque mapeado no fue detectado.");
+        } catch (InstantaneaCorruptaException e) {
+            System.out.println("InstantaneaPrueba: daño detectado al verificar los bloques mapeados (" + e.getMessage() + ").");
+        } finally {
+            if (cuboVerificado != null) {
+                cuboVerificado.cerrar();
+            }
+        }
+
+        // La carga completa del cubo también detecta el daño
+        try {
+            Cubo.cargarCuboOLAP(ruta);
+            throw new IllegalStateException("InstantaneaPrueba: el daño de un bloque no fue detectado al cargar el cubo.");
+        } catch (InstantaneaCorruptaException e) {
+            System.out.println("InstantaneaPrueba: daño detectado al cargar el cubo (" + e.getMessage() + ").");
+        }
+
+        Files.deleteIfExists(Paths.get(ruta));
+    }
+}
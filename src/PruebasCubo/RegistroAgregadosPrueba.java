@@ -0,0 +1,184 @@
+package PruebasCubo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import Cubo.implementacionCubo.Cubo;
+import Cubo.exportacionArchivos.ExportadorCSV;
+import Cubo.tablasCubo.Dimension;
+
+public class RegistroAgregadosPrueba {
+
+    // Una secuencia de operaciones a aplicar sobre el cubo reiniciado
+    private interface Secuencia {
+        void aplicar(Cubo cubo) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Configuración del cubo para la prueba
+        List<Dimension> dimensiones = CuboPruebaManager.getDimensionesCuboPrueba();
+        if (dimensiones.size() < 3) {
+            System.out.println("Las dimensiones no están configuradas correctamente.");
+            return;
+        }
+        Dimension dimFechas = dimensiones.get(0);
+        Dimension dimProducto = dimensiones.get(1);
+        Dimension dimPuntoVenta = dimensiones.get(2);
+        Cubo cuboPrueba = CuboPruebaManager.getCuboPrueba();
+        if (cuboPrueba == null) {
+            System.out.println("El cubo no está configurado correctamente.");
+            return;
+        }
+
+        //-------------- PRUEBA DEL MÉTODO --------------//
+
+        // Dice, RollUp y DrillDown
+        probar(cuboPrueba, "dice_rollup_drilldown", cubo -> {
+            Map<Dimension, Map<String, List<String>>> criterios = new LinkedHashMap<>();
+            criterios.put(dimFechas, Map.of("anio", Arrays.asList("2018", "2019")));
+            cubo.dice(criterios);
+            cubo.rollUp(Map.of(dimPuntoVenta, "region"), Arrays.asList("valor_total"), "sum");
+            cubo.drillDown(Map.of(dimPuntoVenta, "pais"));
+        });
+
+        // Slice y dos RollUp encadenados
+        probar(cuboPrueba, "slice_rollup_rollup", cubo -> {
+            cubo.slice(dimProducto, "categoria", "Bikes");
+            Map<Dimension, String> criterios = new LinkedHashMap<>();
+            criterios.put(dimFechas, "anio");
+            criterios.put(dimPuntoVenta, "region");
+            cubo.rollUp(criterios, Arrays.asList("costo", "cantidad"), "max");
+            cubo.rollUp(Map.of(dimFechas, "anio"), Arrays.asList("costo", "cantidad"), "max");
+        });
+
+        // RollUp, Dice sobre el resultado y otro RollUp
+        probar(cuboPrueba, "rollup_dice_rollup", cubo -> {
+            Map<Dimension, String> criterios = new LinkedHashMap<>();
+            criterios.put(dimFechas, "anio");
+            criterios.put(dimPuntoVenta, "region");
+            cubo.rollUp(criterios, Arrays.asList("valor_total"), "sum");
+            Map<Dimension, Map<String, List<String>>> criteriosDice = new LinkedHashMap<>();
+            criteriosDice.put(dimPuntoVenta, Map.of("region", Arrays.asList("North America")));
+            cubo.dice(criteriosDice);
+            cubo.rollUp(Map.of(dimFechas, "anio"), Arrays.asList("valor_total"), "sum");
+        });
+
+        // Ordenar y RollUp, cuyos grupos aparecen en el orden de las filas ordenadas
+        probar(cuboPrueba, "ordenar_rollup", cubo -> {
+            cubo.ordenar(Map.of("valor_total", true));
+            Map<Dimension, String> criterios = new LinkedHashMap<>();
+            criterios.put(dimPuntoVenta, "region");
+            criterios.put(dimProducto, "categoria");
+            cubo.rollUp(criterios, Arrays.asList("cantidad"), "sum");
+        });
+
+        // GroupingSets y RollUp sobre su resultado, dos veces con distintos conjuntos, de forma que el segundo RollUp
+        // no debe obtenerse del resultado del primero
+        probar(cuboPrueba, "groupingsets_rollup", cubo -> {
+            Map<Dimension, String> porAnioYRegion = new LinkedHashMap<>();
+            porAnioYRegion.put(dimFechas, "anio");
+            porAnioYRegion.put(dimPuntoVenta, "region");
+            Map<String, List<String>> agregaciones = Map.of("valor_total", Arrays.asList("sum"));
+            cubo.groupingSets(Arrays.asList(porAnioYRegion, Map.of(dimPuntoVenta, "region")), agregaciones);
+            cubo.rollUp(Map.of(dimPuntoVenta, "region"), Arrays.asList("valor_total_sum"), "sum");
+            cubo.reiniciar();
+            cubo.groupingSets(Arrays.asList(porAnioYRegion), agregaciones);
+            cubo.rollUp(Map.of(dimPuntoVenta, "region"), Arrays.asList("valor_total_sum"), "sum");
+        });
+
+        // Cube, Dice sobre su resultado y RollUp
+        probar(cuboPrueba, "cube_dice_rollup", cubo -> {
+            Map<Dimension, String> criterios = new LinkedHashMap<>();
+            criterios.put(dimFechas, "anio");
+            criterios.put(dimProducto, "categoria");
+            cubo.cube(criterios, Map.of("cantidad", Arrays.asList("sum", "count")));
+            Map<Dimension, Map<String, List<String>>> criteriosDice = new LinkedHashMap<>();
+            criteriosDice.put(dimFechas, Map.of("anio", Arrays.asList("2019")));
+            cubo.dice(criteriosDice);
+            cubo.rollUp(Map.of(dimProducto, "categoria"), Arrays.asList("cantidad_sum"), "sum");
+        });
+
+        // TopN y RollUp sobre los grupos elegidos
+        probar(cuboPrueba, "topn_rollup", cubo -> {
+            cubo.topN(Map.of(dimPuntoVenta, "region"), Map.of(dimProducto, "producto"), "valor_total", "sum", 2, true, false);
+            cubo.rollUp(Map.of(dimPuntoVenta, "region"), Arrays.asList("valor_total"), "sum");
+        });
+
+        // TopN, Dice sobre su resultado y RollUp
+        probar(cuboPrueba, "topn_dice_rollup", cubo -> {
+            cubo.topN(Map.of(dimFechas, "anio"), Map.of(dimPuntoVenta, "pais"), "cantidad", "sum", 3, true, false);
+            Map<Dimension, Map<String, List<String>>> criteriosDice = new LinkedHashMap<>();
+            criteriosDice.put(dimFechas, Map.of("anio", Arrays.asList("2018", "2019")));
+            cubo.dice(criteriosDice);
+            cubo.rollUp(Map.of(dimFechas, "anio"), Arrays.asList("cantidad"), "sum");
+        });
+
+        cuboPrueba.setReutilizarAgregados(true);
+        cuboPrueba.reiniciar();
+    }
+
+    // Aplica la secuencia sin reutilizar resultados y luego dos veces reutilizándolos, partiendo de las agrupaciones
+    // materializadas sobre el cubo sin filtrar y la segunda vez con el registro ya cargado por la primera, y verifica
+    // que los tres resultados sean iguales
+    private static void probar(Cubo cubo, String nombre, Secuencia secuencia) throws Exception {
+        cubo.setReutilizarAgregados(false);
+        List<String> esperado = ejecutar(cubo, nombre + "_sin_registro", secuencia);
+        Map<String, List<String>> agregaciones = new LinkedHashMap<>();
+        for (String hecho : Arrays.asList("cantidad", "valor_total", "costo")) {
+            agregaciones.put(hecho, Arrays.asList("sum", "max", "min", "count"));
+        }
+        cubo.materializarAgregados(agregaciones, 1L << 26);
+        List<String> primero = ejecutar(cubo, nombre + "_con_registro", secuencia);
+        List<String> segundo = ejecutar(cubo, nombre + "_con_registro", secuencia);
+        if (!iguales(esperado, primero) || !iguales(esperado, segundo)) {
+            throw new IllegalStateException("RegistroAgregadosPrueba: la secuencia '" + nombre + "' difiere al reutilizar resultados.");
+        }
+        System.out.println("RegistroAgregadosPrueba: '" + nombre + "' igual con y sin registro (" + (esperado.size() - 1) + " filas).");
+    }
+
+    private static List<String> ejecutar(Cubo cubo, String nombre, Secuencia secuencia) throws Exception {
+        cubo.reiniciar();
+        secuencia.aplicar(cubo);
+        String ruta = "exportaciones/prueba_Registro_" + nombre + ".csv";
+        cubo.exportar(ruta, new ExportadorCSV(';'));
+        return leer(ruta);
+    }
+
+    private static List<String> leer(String ruta) throws IOException {
+        return Files.readAllLines(Paths.get(ruta));
+    }
+
+    // Compara las filas campo a campo, admitiendo en los números la diferencia de redondeo de las sumas reagregadas
+    private static boolean iguales(List<String> esperado, List<String> obtenido) {
+        if (esperado.size() != obtenido.size()) {
+            return false;
+        }
+        for (int i = 0; i < esperado.size(); i++) {
+            String[] camposEsperados = esperado.get(i).split(";", -1);
+            String[] camposObtenidos = obtenido.get(i).split(";", -1);
+            if (camposEsperados.length != camposObtenidos.length) {
+                return false;
+            }
+            for (int j = 0; j < camposEsperados.length; j++) {
+                if (!camposEsperados[j].equals(camposObtenidos[j]) && !numerosCercanos(camposEsperados[j], camposObtenidos[j])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean numerosCercanos(String a, String b) {
+        try {
+            double x = Double.parseDouble(a);
+            double y = Double.parseDouble(b);
+            return Math.abs(x - y) <= 1e-9 * Math.max(1, Math.max(Math.abs(x), Math.abs(y)));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}